@@ -22,24 +22,53 @@
 
 package org.jboss.as.clustering;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+import org.jboss.marshalling.ByteOutput;
 import org.jboss.marshalling.ClassResolver;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
 import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.Unmarshaller;
 
 /**
+ * Creates marshallers and unmarshallers for a versioned marshalling configuration. It also serializes objects as their
+ * marshalling version followed by the output of a marshaller of that version.
+ * <p/>
+ * Creating a marshaller and growing its output buffer usually costs more than serializing the object itself. So
+ * {@link #marshal(Object)} and {@link #unmarshal(byte[])} reuse the marshallers and unmarshallers of the current
+ * version, and the marshallers keep their output buffers. The pools are bounded and belong to this context rather than
+ * to the calling threads, so a pooled marshaller never outlives the deployment whose class resolver it references.
  * @author Paul Ferraro
  */
 public class MarshallingContext {
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    // A buffer which grew beyond this size is dropped instead of pooled, so that a single large object does not pin it
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
     private final MarshallerFactory factory;
     private final VersionedMarshallingConfiguration configuration;
+    private final MarshallingListener listener;
+    private final BlockingQueue<PooledMarshaller> marshallers = new ArrayBlockingQueue<PooledMarshaller>(POOL_SIZE);
+    private final BlockingQueue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<Unmarshaller>(POOL_SIZE);
 
     public MarshallingContext(MarshallerFactory factory, VersionedMarshallingConfiguration configuration) {
+        this(factory, configuration, null);
+    }
+
+    public MarshallingContext(MarshallerFactory factory, VersionedMarshallingConfiguration configuration, MarshallingListener listener) {
         this.factory = factory;
         this.configuration = configuration;
+        this.listener = listener;
     }
 
     public int getCurrentVersion() {
@@ -54,6 +83,104 @@ public class MarshallingContext {
         return this.factory.createMarshaller(this.getMarshallingConfiguration(version));
     }
 
+    /**
+     * Serializes the specified object using the current marshalling version.
+     * @param object an object
+     * @return the marshalling version, followed by the serialized object
+     * @throws IOException if the object could not be serialized
+     */
+    public byte[] marshal(Object object) throws IOException {
+        long start = System.nanoTime();
+        int version = this.getCurrentVersion();
+        PooledMarshaller pooled = this.marshallers.poll();
+        if ((pooled == null) || (pooled.version != version)) {
+            pooled = new PooledMarshaller(version, this.createMarshaller(version));
+        }
+        ByteArrayOutputStream output = pooled.output;
+        output.reset();
+        output.write(version >>> 24);
+        output.write(version >>> 16);
+        output.write(version >>> 8);
+        output.write(version);
+        Marshaller marshaller = pooled.marshaller;
+        boolean reusable = false;
+        try {
+            marshaller.start(pooled.byteOutput);
+            // Workaround for AS7-2496
+            ClassLoader currentLoader = null;
+            ClassLoader contextLoader = this.getContextClassLoader(version);
+            if (contextLoader != null) {
+                currentLoader = getCurrentThreadContextClassLoader();
+                setCurrentThreadContextClassLoader(contextLoader);
+            }
+            try {
+                marshaller.writeObject(object);
+            } finally {
+                if (contextLoader != null) {
+                    setCurrentThreadContextClassLoader(currentLoader);
+                }
+            }
+            marshaller.finish();
+            marshaller.clearInstanceCache();
+            byte[] bytes = output.toByteArray();
+            reusable = (bytes.length <= MAX_POOLED_BUFFER_SIZE);
+            if (this.listener != null) {
+                this.listener.marshalled(bytes.length, System.nanoTime() - start);
+            }
+            return bytes;
+        } finally {
+            if (!reusable || !this.marshallers.offer(pooled)) {
+                marshaller.close();
+            }
+        }
+    }
+
+    /**
+     * Deserializes an object serialized by {@link #marshal(Object)}, using the marshalling version it was serialized with.
+     * @param bytes the marshalling version, followed by the serialized object
+     * @return the deserialized object
+     * @throws IOException if the object could not be deserialized
+     * @throws ClassNotFoundException if the class of the object, or of one of the objects it references, could not be found
+     */
+    public Object unmarshal(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (bytes.length < 4) {
+            throw new EOFException();
+        }
+        int version = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        boolean current = (version == this.getCurrentVersion());
+        Unmarshaller unmarshaller = current ? this.unmarshallers.poll() : null;
+        if (unmarshaller == null) {
+            unmarshaller = this.createUnmarshaller(version);
+        }
+        boolean reusable = false;
+        try {
+            unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes, 4, bytes.length - 4)));
+            // Workaround for AS7-2496
+            ClassLoader currentLoader = null;
+            ClassLoader contextLoader = this.getContextClassLoader(version);
+            if (contextLoader != null) {
+                currentLoader = getCurrentThreadContextClassLoader();
+                setCurrentThreadContextClassLoader(contextLoader);
+            }
+            Object object = null;
+            try {
+                object = unmarshaller.readObject();
+            } finally {
+                if (contextLoader != null) {
+                    setCurrentThreadContextClassLoader(currentLoader);
+                }
+            }
+            unmarshaller.finish();
+            unmarshaller.clearInstanceCache();
+            reusable = current;
+            return object;
+        } finally {
+            if (!reusable || !this.unmarshallers.offer(unmarshaller)) {
+                unmarshaller.close();
+            }
+        }
+    }
+
     // AS7-2496 Workaround
     public ClassLoader getContextClassLoader(int version) {
         final ClassResolver resolver = this.getMarshallingConfiguration(version).getClassResolver();
@@ -63,4 +190,45 @@ public class MarshallingContext {
     private MarshallingConfiguration getMarshallingConfiguration(int version) {
         return this.configuration.getMarshallingConfiguration(version);
     }
+
+    static ClassLoader getCurrentThreadContextClassLoader() {
+        if(System.getSecurityManager() == null) {
+            return Thread.currentThread().getContextClassLoader();
+        } else {
+            PrivilegedAction<ClassLoader> action = new PrivilegedAction<ClassLoader>() {
+                @Override
+                public ClassLoader run() {
+                    return Thread.currentThread().getContextClassLoader();
+                }
+            };
+            return AccessController.doPrivileged(action);
+        }
+    }
+
+    static void setCurrentThreadContextClassLoader(final ClassLoader loader) {
+        if(System.getSecurityManager() == null) {
+            Thread.currentThread().setContextClassLoader(loader);
+        } else {
+            PrivilegedAction<Void> action = new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    Thread.currentThread().setContextClassLoader(loader);
+                    return null;
+                }
+            };
+            AccessController.doPrivileged(action);
+        }
+    }
+
+    private static class PooledMarshaller {
+        final int version;
+        final Marshaller marshaller;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        final ByteOutput byteOutput = Marshalling.createByteOutput(this.output);
+
+        PooledMarshaller(int version, Marshaller marshaller) {
+            this.version = version;
+            this.marshaller = marshaller;
+        }
+    }
 }
@@ -22,22 +22,12 @@
 
 package org.jboss.as.clustering;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.util.Arrays;
 
-import org.jboss.marshalling.Marshaller;
-import org.jboss.marshalling.Marshalling;
-import org.jboss.marshalling.SimpleDataInput;
-import org.jboss.marshalling.SimpleDataOutput;
-import org.jboss.marshalling.Unmarshaller;
-
 /**
  * A non-hashable marshalled value, that is lazily serialized, but only deserialized on demand.
  * @author Paul Ferraro
@@ -58,41 +48,28 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         // Required for externalization
     }
 
+    /**
+     * Creates a marshalled value from the serialized form of another one.
+     * @param bytes the bytes returned by {@link #getBytes()}
+     */
+    public SimpleMarshalledValue(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
     T peek() {
         return this.object;
     }
 
-    byte[] getBytes() throws IOException {
+    /**
+     * Returns the serialized form of this value, serializing the object if necessary.
+     * @return a byte array, or null if there is no object
+     * @throws IOException if the object could not be serialized
+     */
+    public byte[] getBytes() throws IOException {
         byte[] bytes = this.bytes;
         if (bytes != null) return bytes;
         if (this.object == null) return null;
-        int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output));
-        data.writeInt(version);
-        Marshaller marshaller = this.context.createMarshaller(version);
-        try {
-            marshaller.start(data);
-
-            // Workaround for AS7-2496
-            ClassLoader currentLoader = null;
-            ClassLoader contextLoader = context.getContextClassLoader(version);
-            if (contextLoader != null) {
-                currentLoader = getCurrentThreadContextClassLoader();
-                setCurrentThreadContextClassLoader(contextLoader);
-            }
-            try {
-                marshaller.writeObject(this.object);
-            } finally {
-                if (contextLoader != null) {
-                    setCurrentThreadContextClassLoader(currentLoader);
-                }
-            }
-            marshaller.finish();
-            return output.toByteArray();
-        } finally {
-            marshaller.close();
-        }
+        return this.context.marshal(this.object);
     }
 
     /**
@@ -105,31 +82,8 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         if (this.object == null) {
             this.context = context;
             if (this.bytes != null) {
-                ByteArrayInputStream input = new ByteArrayInputStream(this.bytes);
-                SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input));
-                int version = data.readInt();
-                Unmarshaller unmarshaller = context.createUnmarshaller(version);
-                try {
-                    unmarshaller.start(data);
-                    // Workaround for AS7-2496
-                    ClassLoader currentLoader = null;
-                    ClassLoader contextLoader = context.getContextClassLoader(version);
-                    if (contextLoader != null) {
-                        currentLoader = getCurrentThreadContextClassLoader();
-                        setCurrentThreadContextClassLoader(contextLoader);
-                    }
-                    try {
-                        this.object = (T) unmarshaller.readObject();
-                    } finally {
-                        if (contextLoader != null) {
-                            setCurrentThreadContextClassLoader(currentLoader);
-                        }
-                    }
-                    unmarshaller.finish();
-                    this.bytes = null; // Free up memory
-                } finally {
-                    unmarshaller.close();
-                }
+                this.object = (T) context.unmarshal(this.bytes);
+                this.bytes = null; // Free up memory
             }
         }
         return this.object;
@@ -191,33 +145,4 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         }
         this.bytes = bytes;
     }
-
-    static ClassLoader getCurrentThreadContextClassLoader() {
-        if(System.getSecurityManager() == null) {
-            return Thread.currentThread().getContextClassLoader();
-        } else {
-            PrivilegedAction<ClassLoader> action = new PrivilegedAction<ClassLoader>() {
-                @Override
-                public ClassLoader run() {
-                    return Thread.currentThread().getContextClassLoader();
-                }
-            };
-            return AccessController.doPrivileged(action);
-        }
-    }
-
-    static void setCurrentThreadContextClassLoader(final ClassLoader loader) {
-        if(System.getSecurityManager() == null) {
-            Thread.currentThread().setContextClassLoader(loader);
-        } else {
-            PrivilegedAction<Void> action = new PrivilegedAction<Void>() {
-                @Override
-                public Void run() {
-                    Thread.currentThread().setContextClassLoader(loader);
-                    return null;
-                }
-            };
-            AccessController.doPrivileged(action);
-        }
-    }
 }
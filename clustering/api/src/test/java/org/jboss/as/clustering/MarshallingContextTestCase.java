@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering;
+
+import static org.junit.Assert.*;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.junit.Test;
+
+/**
+ * Unit tests for the pooled marshalling of {@link MarshallingContext}.
+ */
+public class MarshallingContextTestCase implements MarshallingListener {
+    static MarshallingContext context;
+
+    private final List<Integer> sizes = new ArrayList<Integer>();
+
+    public MarshallingContextTestCase() {
+        VersionedMarshallingConfiguration configuration = new VersionedMarshallingConfiguration() {
+            @Override
+            public int getCurrentMarshallingVersion() {
+                return 3;
+            }
+
+            @Override
+            public MarshallingConfiguration getMarshallingConfiguration(int version) {
+                assertEquals(3, version);
+                return new MarshallingConfiguration();
+            }
+        };
+        context = new MarshallingContext(Marshalling.getMarshallerFactory("river", Marshalling.class.getClassLoader()), configuration, this);
+    }
+
+    @Override
+    public void marshalled(int bytes, long elapsed) {
+        assertTrue(elapsed >= 0);
+        this.sizes.add(bytes);
+    }
+
+    @Test
+    public void marshal() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        byte[] bytes = context.marshal(uuid);
+
+        // The marshalling version precedes the serialized object
+        assertEquals(0, bytes[0]);
+        assertEquals(0, bytes[1]);
+        assertEquals(0, bytes[2]);
+        assertEquals(3, bytes[3]);
+        assertEquals(uuid, context.unmarshal(bytes));
+
+        // A pooled marshaller and buffer produce the same bytes
+        assertArrayEquals(bytes, context.marshal(uuid));
+        assertEquals(uuid, context.unmarshal(bytes));
+
+        UUID other = UUID.randomUUID();
+        assertEquals(other, context.unmarshal(context.marshal(other)));
+
+        assertEquals(3, this.sizes.size());
+        for (Integer size : this.sizes) {
+            assertEquals(bytes.length, size.intValue());
+        }
+    }
+
+    @Test
+    public void marshalLarge() throws Exception {
+        byte[] large = new byte[256 * 1024];
+        large[large.length - 1] = 1;
+        assertArrayEquals(large, (byte[]) context.unmarshal(context.marshal(large)));
+
+        // The marshaller whose buffer outgrew the pool is replaced
+        String small = "small";
+        assertEquals(small, context.unmarshal(context.marshal(small)));
+    }
+
+    @Test
+    public void marshalNested() throws Exception {
+        Nested nested = new Nested(UUID.randomUUID());
+        Nested result = (Nested) context.unmarshal(context.marshal(nested));
+        assertEquals(nested.value, result.value);
+    }
+
+    @Test(expected = IOException.class)
+    public void unmarshalTruncated() throws Exception {
+        context.unmarshal(new byte[] { 0, 0 });
+    }
+
+    /**
+     * Marshals its value with the same context while being marshalled itself.
+     */
+    public static class Nested implements Externalizable {
+        private static final long serialVersionUID = 1L;
+
+        Object value;
+
+        public Nested() {
+        }
+
+        Nested(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            byte[] bytes = context.marshal(this.value);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            this.value = context.unmarshal(bytes);
+        }
+    }
+}
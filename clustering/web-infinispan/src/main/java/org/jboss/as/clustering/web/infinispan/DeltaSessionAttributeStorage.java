@@ -0,0 +1,190 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.web.infinispan;
+
+import static org.jboss.as.clustering.web.infinispan.InfinispanWebMessages.MESSAGES;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.jboss.as.clustering.SimpleMarshalledValue;
+import org.jboss.as.clustering.web.OutgoingAttributeGranularitySessionData;
+import org.jboss.as.clustering.web.SessionAttributeMarshaller;
+import org.jboss.metadata.web.jboss.ReplicationGranularity;
+
+/**
+ * Handles session attribute load/store operations for {@link ReplicationGranularity#FIELD} distributed session managers.
+ * <p/>
+ * As with {@link FineSessionAttributeStorage}, only the modified attributes of a session are stored. In addition, the
+ * marshalled form of an attribute is split into blocks of a fixed size, each stored in its own entry of the session's atomic
+ * map, and only the blocks which differ from the ones already in the map are put. Since an atomic map only replicates the
+ * entries which were put, a change of a few fields of a large attribute ships the blocks containing them, rather than the
+ * whole attribute. Blocks are cut at fixed offsets though, so a change which alters the length of the marshalled form
+ * shifts all the blocks after it, and they are all shipped again.
+ * <p/>
+ * The attribute's own entry holds a {@link SessionAttributeHeader}, with the version of the session which stored it and the
+ * length and checksum of its marshalled form. If the header was stored by a later version of the session than the one being
+ * stored, the blocks in the map cannot be diffed against, and all of them are written again. An attribute whose blocks do not
+ * match the checksum of its header fails to load.
+ *
+ * @see SessionAttributeBlockKey
+ */
+public class DeltaSessionAttributeStorage implements SessionAttributeStorage<OutgoingAttributeGranularitySessionData> {
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final SessionAttributeMarshaller marshaller;
+    private final int blockSize;
+
+    public DeltaSessionAttributeStorage(SessionAttributeMarshaller marshaller) {
+        this(marshaller, DEFAULT_BLOCK_SIZE);
+    }
+
+    public DeltaSessionAttributeStorage(SessionAttributeMarshaller marshaller, int blockSize) {
+        this.marshaller = marshaller;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.as.clustering.web.infinispan.SessionAttributeStorage#store(java.util.Map, org.jboss.as.clustering.web.OutgoingDistributableSessionData)
+     */
+    @Override
+    public void store(Map<Object, Object> map, OutgoingAttributeGranularitySessionData sessionData) throws IOException {
+        Map<String, Object> modified = sessionData.getModifiedSessionAttributes();
+
+        if (modified != null) {
+            for (Map.Entry<String, Object> entry : modified.entrySet()) {
+                String attribute = entry.getKey();
+                Object value = this.marshaller.marshal(entry.getValue());
+                if (value instanceof SimpleMarshalledValue) {
+                    this.storeBlocks(map, attribute, ((SimpleMarshalledValue<?>) value).getBytes(), sessionData.getVersion());
+                } else {
+                    // Immutable types are not worth splitting
+                    this.removeBlocks(map, attribute, map.put(attribute, value), 0);
+                }
+            }
+        }
+
+        Set<String> removed = sessionData.getRemovedSessionAttributes();
+
+        if (removed != null) {
+            for (String attribute : removed) {
+                this.removeBlocks(map, attribute, map.remove(attribute), 0);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.as.clustering.web.infinispan.SessionAttributeStorage#load(java.util.Map)
+     */
+    @Override
+    public Map<String, Object> load(Map<Object, Object> map) throws IOException, ClassNotFoundException {
+        Map<String, Object> result = new HashMap<String, Object>();
+
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            Object key = entry.getKey();
+            if (key instanceof String) {
+                String attribute = (String) key;
+                Object value = entry.getValue();
+                if (value instanceof SessionAttributeHeader) {
+                    value = new SimpleMarshalledValue<Object>(this.loadBlocks(map, attribute, (SessionAttributeHeader) value));
+                }
+                result.put(attribute, this.marshaller.unmarshal(value));
+            }
+        }
+
+        return result;
+    }
+
+    private void storeBlocks(Map<Object, Object> map, String attribute, byte[] bytes, int version) {
+        Object previous = map.get(attribute);
+        SessionAttributeHeader header = (previous instanceof SessionAttributeHeader) ? (SessionAttributeHeader) previous : null;
+        // Resynchronize completely if we have nothing to diff against
+        boolean full = (header == null) || (header.getVersion() > version);
+
+        int blocks = this.blocks(bytes.length);
+        for (int i = 0; i < blocks; ++i) {
+            int offset = i * this.blockSize;
+            int length = Math.min(this.blockSize, bytes.length - offset);
+            SessionAttributeBlockKey key = new SessionAttributeBlockKey(attribute, i);
+            if (full || !matches(bytes, offset, length, map.get(key))) {
+                map.put(key, Arrays.copyOfRange(bytes, offset, offset + length));
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        map.put(attribute, new SessionAttributeHeader(version, bytes.length, checksum.getValue()));
+
+        this.removeBlocks(map, attribute, header, blocks);
+    }
+
+    /**
+     * Removes the blocks of the given header, starting from the given index.
+     */
+    private void removeBlocks(Map<Object, Object> map, String attribute, Object previous, int from) {
+        if (previous instanceof SessionAttributeHeader) {
+            int blocks = this.blocks(((SessionAttributeHeader) previous).getLength());
+            for (int i = from; i < blocks; ++i) {
+                map.remove(new SessionAttributeBlockKey(attribute, i));
+            }
+        }
+    }
+
+    private byte[] loadBlocks(Map<Object, Object> map, String attribute, SessionAttributeHeader header) throws IOException {
+        byte[] bytes = new byte[header.getLength()];
+        int blocks = this.blocks(bytes.length);
+        for (int i = 0; i < blocks; ++i) {
+            int offset = i * this.blockSize;
+            Object block = map.get(new SessionAttributeBlockKey(attribute, i));
+            if (!(block instanceof byte[]) || (((byte[]) block).length != Math.min(this.blockSize, bytes.length - offset))) {
+                throw MESSAGES.corruptSessionAttribute(attribute);
+            }
+            System.arraycopy(block, 0, bytes, offset, ((byte[]) block).length);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        if (checksum.getValue() != header.getChecksum()) {
+            throw MESSAGES.corruptSessionAttribute(attribute);
+        }
+        return bytes;
+    }
+
+    private int blocks(int length) {
+        return (length + this.blockSize - 1) / this.blockSize;
+    }
+
+    private static boolean matches(byte[] bytes, int offset, int length, Object block) {
+        if (!(block instanceof byte[]) || (((byte[]) block).length != length)) return false;
+        byte[] current = (byte[]) block;
+        for (int i = 0; i < length; ++i) {
+            if (current[i] != bytes[offset + i]) return false;
+        }
+        return true;
+    }
+}
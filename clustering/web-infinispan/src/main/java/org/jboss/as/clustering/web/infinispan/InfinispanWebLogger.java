@@ -54,17 +54,6 @@ interface InfinispanWebLogger extends BasicLogger {
     @Message(id = 10320, value = "Adding missing jvm route entry to web session cache")
     void addingJvmRouteEntry();
 
-    /**
-     * Logs a warning message indicating the granularity represented by the {@code deprecatedName} parameter is
-     * deprecated and failing back to the granularity represented by the {@code fallbackName} parameter.
-     *
-     * @param deprecatedName the name of the deprecated granularity.
-     * @param fallbackName   the name of the fallback granularity.
-     */
-    @LogMessage(level = WARN)
-    @Message(id = 10321, value = "%s replication granularity is deprecated.  Falling back to %s granularity instead.")
-    void deprecatedGranularity(String deprecatedName, String fallbackName);
-
     /**
      * Logs a warning message indicating there was a problem accessing the session.
      *
@@ -22,6 +22,8 @@
 
 package org.jboss.as.clustering.web.infinispan;
 
+import java.io.IOException;
+
 import org.jboss.logging.Cause;
 import org.jboss.logging.Message;
 import org.jboss.logging.MessageBundle;
@@ -108,4 +110,14 @@ interface InfinispanWebMessages {
      */
     @Message(id = 10336, value = "Unknown replication granularity: %s")
     IllegalArgumentException unknownReplicationGranularity(ReplicationGranularity value);
+
+    /**
+     * Creates an exception indicating the stored form of a session attribute does not match its checksum.
+     *
+     * @param attribute the name of the session attribute.
+     *
+     * @return an {@link IOException} for the error.
+     */
+    @Message(id = 10337, value = "Stored session attribute %s is incomplete or corrupt")
+    IOException corruptSessionAttribute(String attribute);
 }
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.web.infinispan;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Key of a block of a session attribute stored by {@link DeltaSessionAttributeStorage}.
+ */
+public class SessionAttributeBlockKey implements Externalizable {
+    private static final long serialVersionUID = -6014394924720813757L;
+
+    private String attribute;
+    private int index;
+
+    public SessionAttributeBlockKey() {
+        // Required for externalization
+    }
+
+    public SessionAttributeBlockKey(String attribute, int index) {
+        this.attribute = attribute;
+        this.index = index;
+    }
+
+    public String getAttribute() {
+        return this.attribute;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeUTF(this.attribute);
+        out.writeInt(this.index);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.attribute = in.readUTF();
+        this.index = in.readInt();
+    }
+
+    @Override
+    public int hashCode() {
+        return this.attribute.hashCode() * 31 + this.index;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if ((object == null) || !(object instanceof SessionAttributeBlockKey)) return false;
+        SessionAttributeBlockKey key = (SessionAttributeBlockKey) object;
+        return this.attribute.equals(key.attribute) && (this.index == key.index);
+    }
+
+    @Override
+    public String toString() {
+        return this.attribute + "[" + this.index + "]";
+    }
+}
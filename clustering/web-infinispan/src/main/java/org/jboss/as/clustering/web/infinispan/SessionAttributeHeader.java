@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.web.infinispan;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Describes a session attribute stored by {@link DeltaSessionAttributeStorage}, whose marshalled form is split into blocks,
+ * each stored under its own {@link SessionAttributeBlockKey}.
+ */
+public class SessionAttributeHeader implements Externalizable {
+    private static final long serialVersionUID = 3226329428227063312L;
+
+    private int version;
+    private int length;
+    private long checksum;
+
+    public SessionAttributeHeader() {
+        // Required for externalization
+    }
+
+    public SessionAttributeHeader(int version, int length, long checksum) {
+        this.version = version;
+        this.length = length;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return the version of the session which stored the attribute
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return the length of the marshalled attribute
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * @return the CRC-32 checksum of the marshalled attribute
+     */
+    public long getChecksum() {
+        return this.checksum;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(this.version);
+        out.writeInt(this.length);
+        out.writeLong(this.checksum);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.version = in.readInt();
+        this.length = in.readInt();
+        this.checksum = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{version=%d, length=%d, checksum=%x}", this.version, this.length, this.checksum);
+    }
+}
@@ -25,7 +25,6 @@ import org.jboss.as.clustering.web.OutgoingDistributableSessionData;
 import org.jboss.as.clustering.web.SessionAttributeMarshaller;
 import org.jboss.metadata.web.jboss.ReplicationGranularity;
 
-import static org.jboss.as.clustering.web.infinispan.InfinispanWebLogger.ROOT_LOGGER;
 import static org.jboss.as.clustering.web.infinispan.InfinispanWebMessages.MESSAGES;
 
 /**
@@ -51,8 +50,7 @@ public class SessionAttributeStorageFactoryImpl implements SessionAttributeStora
                 return (SessionAttributeStorage<T>) new FineSessionAttributeStorage(marshaller);
             }
             case FIELD: {
-                ROOT_LOGGER.deprecatedGranularity(ReplicationGranularity.FIELD.name(), ReplicationGranularity.SESSION.name());
-                return this.createStorage(ReplicationGranularity.SESSION, marshaller);
+                return (SessionAttributeStorage<T>) new DeltaSessionAttributeStorage(marshaller);
             }
             default: {
                 throw MESSAGES.unknownReplicationGranularity(granularity);
@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.web.infinispan;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.clustering.SimpleMarshalledValue;
+import org.jboss.as.clustering.web.OutgoingAttributeGranularitySessionData;
+import org.jboss.as.clustering.web.SessionAttributeMarshaller;
+import org.junit.Test;
+
+public class DeltaSessionAttributeStorageTest {
+    private static final int BLOCK_SIZE = 16;
+
+    // Marshals byte arrays as themselves, so that tests control the marshalled form
+    private final SessionAttributeMarshaller marshaller = new SessionAttributeMarshaller() {
+        @Override
+        public Object marshal(Object object) {
+            return (object instanceof byte[]) ? new SimpleMarshalledValue<Object>((byte[]) object) : object;
+        }
+
+        @Override
+        public Object unmarshal(Object object) throws IOException {
+            return (object instanceof SimpleMarshalledValue) ? ((SimpleMarshalledValue<?>) object).getBytes() : object;
+        }
+    };
+    private final SessionAttributeStorage<OutgoingAttributeGranularitySessionData> storage = new DeltaSessionAttributeStorage(this.marshaller, BLOCK_SIZE);
+    private final RecordingMap map = new RecordingMap();
+
+    @Test
+    public void storeAndLoad() throws Exception {
+        byte[] cart = bytes(BLOCK_SIZE * 3 + 5);
+
+        this.storage.store(this.map, data(1, "cart", cart));
+
+        assertEquals(4, this.blocksPut().size());
+        Map<String, Object> result = this.storage.load(this.map);
+        assertEquals(1, result.size());
+        assertArrayEquals(cart, (byte[]) result.get("cart"));
+    }
+
+    @Test
+    public void storeChangedBlocksOnly() throws Exception {
+        byte[] cart = bytes(BLOCK_SIZE * 3 + 5);
+        this.storage.store(this.map, data(1, "cart", cart));
+        this.map.puts.clear();
+
+        byte[] modified = cart.clone();
+        modified[BLOCK_SIZE + 3] = 42;
+        this.storage.store(this.map, data(2, "cart", modified));
+
+        assertEquals(Collections.singleton(new SessionAttributeBlockKey("cart", 1)), this.blocksPut());
+        assertTrue(this.map.puts.contains("cart"));
+        assertArrayEquals(modified, (byte[]) this.storage.load(this.map).get("cart"));
+    }
+
+    @Test
+    public void storeShorter() throws Exception {
+        this.storage.store(this.map, data(1, "cart", bytes(BLOCK_SIZE * 3 + 5)));
+
+        byte[] shorter = bytes(BLOCK_SIZE + 1);
+        this.storage.store(this.map, data(2, "cart", shorter));
+
+        assertFalse(this.map.containsKey(new SessionAttributeBlockKey("cart", 2)));
+        assertFalse(this.map.containsKey(new SessionAttributeBlockKey("cart", 3)));
+        assertArrayEquals(shorter, (byte[]) this.storage.load(this.map).get("cart"));
+    }
+
+    @Test
+    public void storeAllBlocksIfVersionsDiverge() throws Exception {
+        byte[] cart = bytes(BLOCK_SIZE * 3 + 5);
+        this.storage.store(this.map, data(5, "cart", cart));
+        this.map.puts.clear();
+
+        // an older version of the session has nothing to diff against
+        this.storage.store(this.map, data(3, "cart", cart));
+
+        assertEquals(4, this.blocksPut().size());
+    }
+
+    @Test
+    public void remove() throws Exception {
+        this.storage.store(this.map, data(1, "cart", bytes(BLOCK_SIZE * 2)));
+        this.storage.store(this.map, data(1, "other", "value"));
+
+        OutgoingAttributeGranularitySessionData data = mock(OutgoingAttributeGranularitySessionData.class);
+        when(data.getRemovedSessionAttributes()).thenReturn(Collections.singleton("cart"));
+        this.storage.store(this.map, data);
+
+        assertEquals(Collections.singletonMap("other", "value"), this.map);
+    }
+
+    @Test
+    public void replaceByImmutable() throws Exception {
+        this.storage.store(this.map, data(1, "cart", bytes(BLOCK_SIZE * 2)));
+        this.storage.store(this.map, data(2, "cart", "empty"));
+
+        assertEquals(Collections.singletonMap("cart", "empty"), this.map);
+        assertEquals("empty", this.storage.load(this.map).get("cart"));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadCorrupt() throws Exception {
+        this.storage.store(this.map, data(1, "cart", bytes(BLOCK_SIZE * 2)));
+        ((byte[]) this.map.get(new SessionAttributeBlockKey("cart", 1)))[0] ^= 1;
+
+        this.storage.load(this.map);
+    }
+
+    @Test(expected = IOException.class)
+    public void loadIncomplete() throws Exception {
+        this.storage.store(this.map, data(1, "cart", bytes(BLOCK_SIZE * 2)));
+        this.map.remove(new SessionAttributeBlockKey("cart", 1));
+
+        this.storage.load(this.map);
+    }
+
+    private Set<Object> blocksPut() {
+        Set<Object> result = new HashSet<Object>();
+        for (Object key : this.map.puts) {
+            if (key instanceof SessionAttributeBlockKey) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    private static OutgoingAttributeGranularitySessionData data(int version, String attribute, Object value) {
+        OutgoingAttributeGranularitySessionData data = mock(OutgoingAttributeGranularitySessionData.class);
+        when(data.getVersion()).thenReturn(version);
+        when(data.getModifiedSessionAttributes()).thenReturn(Collections.singletonMap(attribute, value));
+        return data;
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    @SuppressWarnings("serial")
+    static class RecordingMap extends HashMap<Object, Object> {
+        final Set<Object> puts = new HashSet<Object>();
+
+        @Override
+        public Object put(Object key, Object value) {
+            this.puts.add(key);
+            return super.put(key, value);
+        }
+    }
+}
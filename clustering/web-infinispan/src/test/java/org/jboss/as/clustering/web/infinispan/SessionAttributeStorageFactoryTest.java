@@ -45,7 +45,7 @@ public class SessionAttributeStorageFactoryTest {
 
     @Test
     public void testField() {
-        this.test(ReplicationGranularity.FIELD, CoarseSessionAttributeStorage.class);
+        this.test(ReplicationGranularity.FIELD, DeltaSessionAttributeStorage.class);
     }
 
     private void test(ReplicationGranularity granularity, Class<? extends SessionAttributeStorage<?>> expectedClass) {
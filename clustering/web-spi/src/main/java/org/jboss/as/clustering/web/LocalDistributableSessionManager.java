@@ -65,6 +65,13 @@ public interface LocalDistributableSessionManager extends SessionIdFactory {
      */
     void sessionActivated();
 
+    /**
+     * Callback from the distributed cache reporting the serialization of a session attribute value.
+     * @param bytes the serialized size of the value
+     * @param elapsed the time spent serializing the value, in nanoseconds
+     */
+    void sessionAttributeMarshalled(int bytes, long elapsed);
+
     /**
      * Callback from the distributed cache to notify us that a session has been modified remotely.
      * @param realId the session id, without any trailing jvmRoute
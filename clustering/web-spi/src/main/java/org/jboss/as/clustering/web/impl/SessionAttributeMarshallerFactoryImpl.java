@@ -24,11 +24,26 @@ package org.jboss.as.clustering.web.impl;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.IdentityHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Stack;
+import java.util.UUID;
+import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.clustering.MarshallingContext;
+import org.jboss.as.clustering.MarshallingListener;
 import org.jboss.as.clustering.VersionedMarshallingConfiguration;
 import org.jboss.as.clustering.web.LocalDistributableSessionManager;
 import org.jboss.as.clustering.web.SessionAttributeMarshaller;
@@ -44,20 +59,41 @@ import org.jboss.marshalling.reflect.SunReflectiveCreator;
 
 /**
  * Default factory for creating session attribute marshallers.
+ * <p/>
+ * Session attributes are written with marshalling version 1 unless the
+ * {@value #MARSHALLING_VERSION_PROPERTY} system property selects version 2, whose class table also covers common JDK
+ * value and collection types. Both versions are always readable, so the property must only be set to 2 once every
+ * member of the cluster runs a release which reads version 2.
  *
  * @author Paul Ferraro
  */
-public class SessionAttributeMarshallerFactoryImpl implements SessionAttributeMarshallerFactory, ClassTable, VersionedMarshallingConfiguration {
-    private static final int CURRENT_VERSION = 1;
+public class SessionAttributeMarshallerFactoryImpl implements SessionAttributeMarshallerFactory {
+    public static final String MARSHALLING_VERSION_PROPERTY = "jboss.as.clustering.web.marshalling-version";
+
+    private static final int VERSION_1 = 1;
+    private static final int VERSION_2 = 2;
+
     private final MarshallerFactory factory;
-    private final Map<Integer, MarshallingConfiguration> configurations = new ConcurrentHashMap<Integer, MarshallingConfiguration>();
+    private final int currentVersion;
 
     public SessionAttributeMarshallerFactoryImpl() {
         this(Marshalling.getMarshallerFactory("river", Marshalling.class.getClassLoader()));
     }
 
     public SessionAttributeMarshallerFactoryImpl(MarshallerFactory factory) {
+        this(factory, Integer.parseInt(System.getProperty(MARSHALLING_VERSION_PROPERTY, String.valueOf(VERSION_1))));
+    }
+
+    /**
+     * @param factory        the marshaller factory
+     * @param currentVersion the marshalling version in which session attributes are written
+     */
+    public SessionAttributeMarshallerFactoryImpl(MarshallerFactory factory, int currentVersion) {
+        if ((currentVersion != VERSION_1) && (currentVersion != VERSION_2)) {
+            throw ClusteringWebMessages.MESSAGES.unsupportedMarshallingVersion(currentVersion);
+        }
         this.factory = factory;
+        this.currentVersion = currentVersion;
     }
 
     /**
@@ -66,60 +102,115 @@ public class SessionAttributeMarshallerFactoryImpl implements SessionAttributeMa
      * @see org.jboss.as.clustering.web.SessionAttributeMarshallerFactory#createMarshaller(org.jboss.as.clustering.web.LocalDistributableSessionManager)
      */
     @Override
-    public SessionAttributeMarshaller createMarshaller(LocalDistributableSessionManager manager) {
+    public SessionAttributeMarshaller createMarshaller(final LocalDistributableSessionManager manager) {
+        MarshallingListener listener = new MarshallingListener() {
+            @Override
+            public void marshalled(int bytes, long elapsed) {
+                manager.sessionAttributeMarshalled(bytes, elapsed);
+            }
+        };
+        VersionedMarshallingConfiguration configuration = new SessionAttributeMarshallingConfiguration(this.currentVersion, createConfiguration(manager, VERSION_1_CLASS_TABLE), createConfiguration(manager, VERSION_2_CLASS_TABLE));
+        return new SessionAttributeMarshallerImpl(new MarshallingContext(this.factory, configuration, listener));
+    }
+
+    private static MarshallingConfiguration createConfiguration(LocalDistributableSessionManager manager, ClassTable classTable) {
         MarshallingConfiguration configuration = new MarshallingConfiguration();
         configuration.setClassResolver(manager.getApplicationClassResolver());
         configuration.setSerializedCreator(new SunReflectiveCreator());
         configuration.setExternalizerCreator(new ReflectiveCreator());
-        configuration.setClassTable(this);
-        this.configurations.put(CURRENT_VERSION, configuration);
-        return new SessionAttributeMarshallerImpl(new MarshallingContext(this.factory, this));
+        configuration.setClassTable(classTable);
+        return configuration;
     }
 
-    @Override
-    public int getCurrentMarshallingVersion() {
-        return CURRENT_VERSION;
-    }
+    /**
+     * The marshalling configurations of the session attributes of a single web application.
+     */
+    private static class SessionAttributeMarshallingConfiguration implements VersionedMarshallingConfiguration {
+        private final int currentVersion;
+        private final MarshallingConfiguration version1;
+        private final MarshallingConfiguration version2;
 
-    @Override
-    public MarshallingConfiguration getMarshallingConfiguration(int version) {
-        MarshallingConfiguration config = this.configurations.get(version);
-        if (config == null) {
-            throw ClusteringWebMessages.MESSAGES.unsupportedMarshallingVersion(version);
+        SessionAttributeMarshallingConfiguration(int currentVersion, MarshallingConfiguration version1, MarshallingConfiguration version2) {
+            this.currentVersion = currentVersion;
+            this.version1 = version1;
+            this.version2 = version2;
+        }
+
+        @Override
+        public int getCurrentMarshallingVersion() {
+            return this.currentVersion;
+        }
+
+        @Override
+        public MarshallingConfiguration getMarshallingConfiguration(int version) {
+            switch (version) {
+                case VERSION_1: {
+                    return this.version1;
+                }
+                case VERSION_2: {
+                    return this.version2;
+                }
+                default: {
+                    throw ClusteringWebMessages.MESSAGES.unsupportedMarshallingVersion(version);
+                }
+            }
         }
-        return config;
     }
 
     // List session attribute classes for optimization
-    private static final Class<?>[] classes = new Class<?>[] {
+    // Classes may only be appended to a class table, since the index of each class is written in place of its name
+    static final ClassTable VERSION_1_CLASS_TABLE = new SessionAttributeClassTable(
+        Serializable.class,
+        Externalizable.class
+    );
+
+    static final ClassTable VERSION_2_CLASS_TABLE = new SessionAttributeClassTable(
         Serializable.class,
         Externalizable.class,
-    };
+        Date.class,
+        Timestamp.class,
+        GregorianCalendar.class,
+        Locale.class,
+        BigDecimal.class,
+        BigInteger.class,
+        UUID.class,
+        AtomicInteger.class,
+        AtomicLong.class,
+        Vector.class,
+        Stack.class,
+        CopyOnWriteArrayList.class,
+        ConcurrentHashMap.class,
+        ConcurrentSkipListMap.class,
+        ConcurrentSkipListSet.class
+    );
+
+    private static final class SessionAttributeClassTable implements ClassTable {
+        private final Class<?>[] classes;
+        private final Map<Class<?>, Writer> writers = new IdentityHashMap<Class<?>, Writer>();
 
-    private static final Map<Class<?>, Writer> writers = createWriters();
-    private static Map<Class<?>, Writer> createWriters() {
-        Map<Class<?>, Writer> writers = new IdentityHashMap<Class<?>, Writer>();
-        for (int i = 0; i < classes.length; i++) {
-            writers.put(classes[i], new ByteWriter((byte) i));
+        SessionAttributeClassTable(Class<?>... classes) {
+            this.classes = classes;
+            for (int i = 0; i < classes.length; i++) {
+                this.writers.put(classes[i], new ByteWriter((byte) i));
+            }
         }
-        return writers;
-    }
 
-    @Override
-    public Writer getClassWriter(Class<?> targetClass) throws IOException {
-        return writers.get(targetClass);
-    }
+        @Override
+        public Writer getClassWriter(Class<?> targetClass) throws IOException {
+            return this.writers.get(targetClass);
+        }
 
-    @Override
-    public Class<?> readClass(Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
-        int index = unmarshaller.readUnsignedByte();
-        if (index >= classes.length) {
-            throw ClusteringWebMessages.MESSAGES.classIndexNotFoundInClassTable(this.getClass().getName(), index);
+        @Override
+        public Class<?> readClass(Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+            int index = unmarshaller.readUnsignedByte();
+            if (index >= this.classes.length) {
+                throw ClusteringWebMessages.MESSAGES.classIndexNotFoundInClassTable(this.getClass().getName(), index);
+            }
+            return this.classes[index];
         }
-        return classes[index];
     }
 
-    private static final class ByteWriter implements Writer {
+    private static final class ByteWriter implements ClassTable.Writer {
         final byte[] bytes;
 
         ByteWriter(final byte... bytes) {
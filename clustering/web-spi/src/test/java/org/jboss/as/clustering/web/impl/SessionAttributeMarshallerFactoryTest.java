@@ -22,10 +22,14 @@
 package org.jboss.as.clustering.web.impl;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.Serializable;
+import java.util.Date;
+
 import org.jboss.as.clustering.web.LocalDistributableSessionManager;
 import org.jboss.as.clustering.web.SessionAttributeMarshaller;
 import org.jboss.as.clustering.web.SessionAttributeMarshallerFactory;
@@ -52,4 +56,17 @@ public class SessionAttributeMarshallerFactoryTest {
         assertNotNull(marshaller);
         assertTrue(marshaller instanceof SessionAttributeMarshallerImpl);
     }
+
+    @Test
+    public void classTables() throws Exception {
+        // version 1 must keep writing the same indexes, so that members running an older release can read them
+        assertNotNull(SessionAttributeMarshallerFactoryImpl.VERSION_1_CLASS_TABLE.getClassWriter(Serializable.class));
+        assertNull(SessionAttributeMarshallerFactoryImpl.VERSION_1_CLASS_TABLE.getClassWriter(Date.class));
+        assertNotNull(SessionAttributeMarshallerFactoryImpl.VERSION_2_CLASS_TABLE.getClassWriter(Date.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedVersion() {
+        new SessionAttributeMarshallerFactoryImpl(mock(MarshallerFactory.class), 3);
+    }
 }
@@ -56,6 +56,7 @@ import org.jboss.as.controller.extension.ParallelExtensionAddHandler;
 import org.jboss.as.controller.operations.common.Util;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.persistence.ConfigurationPersister;
+import org.jboss.as.controller.registry.CopyOnWriteModel;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.dmr.ModelNode;
@@ -86,6 +87,7 @@ class ModelControllerImpl implements ModelController {
     private final ControlledProcessState processState;
     private final ExecutorService executorService;
     private final ExpressionResolver expressionResolver;
+    private final ParallelReadExecutor parallelReadExecutor;
 
     ModelControllerImpl(final ServiceRegistry serviceRegistry, final ServiceTarget serviceTarget, final ManagementResourceRegistration rootRegistration,
                         final ContainerStateMonitor stateMonitor, final ConfigurationPersister persister,
@@ -104,6 +106,7 @@ class ModelControllerImpl implements ModelController {
         this.serviceTarget.addListener(ServiceListener.Inheritance.ALL, stateMonitor);
         this.executorService = executorService;
         this.expressionResolver = expressionResolver;
+        this.parallelReadExecutor = executorService == null ? null : ParallelReadExecutor.create(executorService, processState);
     }
 
 
@@ -120,6 +123,9 @@ class ModelControllerImpl implements ModelController {
             contextFlags.add(OperationContextImpl.ContextFlag.ALLOW_RESOURCE_SERVICE_RESTART);
         }
         OperationContextImpl context = new OperationContextImpl(this, processType, runningModeControl.getRunningMode(), contextFlags, handler, attachments, model, control, processState, bootingFlag.get());
+        if (parallelReadExecutor != null) {
+            context.attach(ParallelReadExecutor.ATTACHMENT_KEY, parallelReadExecutor);
+        }
         ModelNode response = new ModelNode();
         context.addStep(response, operation, prepareStep, OperationContext.Stage.MODEL);
 
@@ -408,6 +414,16 @@ class ModelControllerImpl implements ModelController {
         };
     }
 
+    /**
+     * Create a writable copy of the current model. Only the owner of the write lock may update the model, so the
+     * copy is based on the latest model.
+     *
+     * @return the writable copy
+     */
+    CopyOnWriteModel copyModelForUpdate() {
+        return new CopyOnWriteModel(model.getDelegate());
+    }
+
     void acquireLock(final boolean interruptibly) throws InterruptedException {
         if (interruptibly) {
             //noinspection LockAcquiredButNotSafelyReleased
@@ -476,7 +492,8 @@ class ModelControllerImpl implements ModelController {
 
     /**
      * The root resource, maintains a read-only reference to the current model. All write operations have to performed
-     * after acquiring the write lock on a clone of the underlying model.
+     * after acquiring the write lock on a {@link CopyOnWriteModel copy} of the underlying model. A model is never
+     * modified once it is referenced here, so it can be read without locking.
      */
     private class RootResource implements Resource {
 
@@ -48,6 +48,7 @@ import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.persistence.ConfigurationPersister;
+import org.jboss.as.controller.registry.CopyOnWriteModel;
 import org.jboss.as.controller.registry.DelegatingImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -99,6 +100,8 @@ final class OperationContextImpl extends AbstractOperationContext {
     private volatile boolean affectsResourceRegistration;
 
     private volatile Resource model;
+    /** The writable copy of the model, once a step has gotten write access to the model */
+    private volatile CopyOnWriteModel modelCopy;
 
     private volatile Resource originalModel;
 
@@ -365,6 +368,18 @@ final class OperationContextImpl extends AbstractOperationContext {
         }
     }
 
+    /**
+     * Acquire the write lock and replace the model by a {@link CopyOnWriteModel writable copy}, if no step has
+     * gotten write access to the model yet.
+     */
+    private void copyModelForUpdate() {
+        if (!isModelAffected()) {
+            takeWriteLock();
+            modelCopy = modelController.copyModelForUpdate();
+            model = modelCopy.getRoot();
+        }
+    }
+
     private void acquireContainerMonitor() {
         if (containerMonitorStep == null) {
             if (currentStage == Stage.DONE) {
@@ -414,10 +429,7 @@ final class OperationContextImpl extends AbstractOperationContext {
             throw MESSAGES.stageAlreadyComplete(Stage.MODEL);
         }
         authorizeModelUpdate();
-        if (!isModelAffected()) {
-            takeWriteLock();
-            model = model.clone();
-        }
+        copyModelForUpdate();
         affectsModel.put(address, NULL);
         Resource model = this.model;
         final Iterator<PathElement> i = address.iterator();
@@ -438,10 +450,10 @@ final class OperationContextImpl extends AbstractOperationContext {
                     model.registerChild(element, newModel);
                     model = newModel;
                 } else {
-                    model = requireChild(model, element, address);
+                    model = requireChildForUpdate(model, element, address);
                 }
             } else {
-                model = requireChild(model, element, address);
+                model = requireChildForUpdate(model, element, address);
             }
         }
         if(model == null) {
@@ -518,17 +530,25 @@ final class OperationContextImpl extends AbstractOperationContext {
             throw MESSAGES.stageAlreadyComplete(Stage.MODEL);
         }
         authorizeModelUpdate();
-        if (!isModelAffected()) {
-            takeWriteLock();
-            model = model.clone();
-        }
+        copyModelForUpdate();
         affectsModel.put(address, NULL);
+        if (address.size() == 0) {
+            return modelCopy.getRootForUpdate();
+        }
         Resource resource = this.model;
-        for (PathElement element : address) {
+        final Iterator<PathElement> i = address.iterator();
+        while (i.hasNext()) {
+            final PathElement element = i.next();
             if (element.isMultiTarget()) {
                 throw MESSAGES.cannotWriteTo("*");
             }
-            resource = requireChild(resource, element, address);
+            if (! i.hasNext()) {
+                // the caller may update any part of the resource
+                requireChild(resource, element, address);
+                resource = modelCopy.getSubtreeForUpdate(resource, element);
+            } else {
+                resource = requireChildForUpdate(resource, element, address);
+            }
         }
         return resource;
     }
@@ -558,10 +578,7 @@ final class OperationContextImpl extends AbstractOperationContext {
             throw MESSAGES.duplicateResourceAddress(absoluteAddress);
         }
         authorizeModelUpdate();
-        if (!isModelAffected()) {
-            takeWriteLock();
-            model = model.clone();
-        }
+        copyModelForUpdate();
         affectsModel.put(absoluteAddress, NULL);
         Resource model = this.model;
         final Iterator<PathElement> i = absoluteAddress.iterator();
@@ -584,7 +601,7 @@ final class OperationContextImpl extends AbstractOperationContext {
                     model = toAdd;
                 }
             } else {
-                model = model.getChild(element);
+                model = modelCopy.getChildForUpdate(model, element);
                 if (model == null) {
                     PathAddress ancestor = PathAddress.EMPTY_ADDRESS;
                     for (PathElement pe : absoluteAddress) {
@@ -610,10 +627,7 @@ final class OperationContextImpl extends AbstractOperationContext {
             throw MESSAGES.stageAlreadyComplete(Stage.MODEL);
         }
         authorizeModelUpdate();
-        if (!isModelAffected()) {
-            takeWriteLock();
-            model = model.clone();
-        }
+        copyModelForUpdate();
         affectsModel.put(address, NULL);
         Resource model = this.model;
         final Iterator<PathElement> i = address.iterator();
@@ -623,9 +637,9 @@ final class OperationContextImpl extends AbstractOperationContext {
                 throw MESSAGES.cannotRemove("*");
             }
             if (! i.hasNext()) {
-                model = model.removeChild(element);
+                model = modelCopy.removeChild(model, element);
             } else {
-                model = requireChild(model, element, address);
+                model = requireChildForUpdate(model, element, address);
             }
         }
         return model;
@@ -711,6 +725,11 @@ final class OperationContextImpl extends AbstractOperationContext {
         }
     }
 
+    private Resource requireChildForUpdate(final Resource resource, final PathElement childPath, final PathAddress fullAddress) {
+        requireChild(resource, childPath, fullAddress);
+        return modelCopy.getChildForUpdate(resource, childPath);
+    }
+
     @Override
     public ModelNode resolveExpressions(ModelNode node) throws OperationFailedException {
         return modelController.resolveExpressions(node);
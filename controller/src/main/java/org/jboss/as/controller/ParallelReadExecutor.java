@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller;
+
+import static org.jboss.as.controller.ControllerLogger.MGMT_OP_LOGGER;
+import static org.jboss.as.controller.ControllerLogger.ROOT_LOGGER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Executes independent reads concurrently on the controller's executor, on behalf of a step of an operation.
+ * Handlers like {@code read-resource} use it to read independent parts of the model of the operation in parallel.
+ * <p/>
+ * The reads must not use the {@link OperationContext} of the calling step, a read which needs a context executes a
+ * step in a read-only context of its own, see {@link #createStepRead(OperationContext, ModelNode, OperationStepHandler)}.
+ * The number of reads executed on the executor at any time is limited, see {@link #MAX_THREADS_PROPERTY}. A read
+ * which cannot get a thread is executed by the calling thread.
+ */
+public final class ParallelReadExecutor {
+
+    /**
+     * The key under which the executor is attached to the context of an operation which may use it.
+     */
+    public static final OperationContext.AttachmentKey<ParallelReadExecutor> ATTACHMENT_KEY = OperationContext.AttachmentKey.create(ParallelReadExecutor.class);
+
+    /**
+     * The system property which limits the number of reads executed on the executor at any time.
+     *
+     * @see #DEFAULT_MAX_THREADS
+     */
+    public static final String MAX_THREADS_PROPERTY = "jboss.as.management.parallel-read.max-threads";
+
+    /**
+     * The default number of reads executed on the executor at any time.
+     *
+     * @see #MAX_THREADS_PROPERTY
+     */
+    public static final int DEFAULT_MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final ExecutorService executor;
+    private final Semaphore threads;
+    private final ControlledProcessState processState;
+
+    ParallelReadExecutor(final ExecutorService executor, final int maxThreads, final ControlledProcessState processState) {
+        this.executor = executor;
+        this.threads = new Semaphore(maxThreads);
+        this.processState = processState;
+    }
+
+    static ParallelReadExecutor create(final ExecutorService executor, final ControlledProcessState processState) {
+        int maxThreads = DEFAULT_MAX_THREADS;
+        final String prop = SecurityActions.getSystemProperty(MAX_THREADS_PROPERTY);
+        if (prop != null) {
+            try {
+                maxThreads = Integer.parseInt(prop);
+            } catch (NumberFormatException e) {
+                ROOT_LOGGER.invalidSystemPropertyValue(prop, MAX_THREADS_PROPERTY, DEFAULT_MAX_THREADS);
+            }
+        }
+        return maxThreads > 0 ? new ParallelReadExecutor(executor, maxThreads, processState) : null;
+    }
+
+    /**
+     * Execute the given reads.
+     *
+     * @param reads the reads
+     * @return the results, in the same order as the reads. The result of a read which failed is {@code null}.
+     * @throws InterruptedException if the calling thread was interrupted while waiting for the results. The
+     *                              reads which are still running get cancelled.
+     */
+    public <T> List<T> execute(final List<? extends Callable<T>> reads) throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        final T[] results = (T[]) new Object[reads.size()];
+        final List<Future<?>> futures = new ArrayList<Future<?>>(reads.size());
+        boolean done = false;
+        try {
+            for (int i = 0; i < results.length; i++) {
+                final Callable<T> read = reads.get(i);
+                final int index = i;
+                if (threads.tryAcquire()) {
+                    try {
+                        futures.add(executor.submit(new Callable<Void>() {
+                            @Override
+                            public Void call() {
+                                try {
+                                    results[index] = execute(read);
+                                } finally {
+                                    threads.release();
+                                }
+                                return null;
+                            }
+                        }));
+                        continue;
+                    } catch (RejectedExecutionException e) {
+                        threads.release();
+                    }
+                }
+                results[index] = execute(read);
+            }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // an error, the result stays null
+                }
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                for (final Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Create a read which executes a step in a read-only context of its own, so that it can be executed by
+     * {@link #execute(List)} concurrently with other reads. The step sees the model of the operation of the calling
+     * step, and may add steps of its own, which are executed in all stages. The result of the read is the response
+     * of the step, or {@code null} if the step needed to modify anything, in which case the calling step must
+     * execute it as a regular step instead.
+     *
+     * @param context the context of the calling step
+     * @param operation the operation of the step
+     * @param handler the handler of the step
+     * @return the read
+     */
+    public Callable<ModelNode> createStepRead(final OperationContext context, final ModelNode operation, final OperationStepHandler handler) {
+        // reads executed on behalf of a read are controlled by the thread which controls the calling step
+        final Thread current = AbstractOperationContext.controllingThread.get();
+        final Thread controllingThread = current != null ? current : Thread.currentThread();
+        return new Callable<ModelNode>() {
+            @Override
+            public ModelNode call() {
+                final ModelNode response = new ModelNode();
+                final ParallelReadOperationContext readContext = new ParallelReadOperationContext(context, processState, controllingThread);
+                try {
+                    readContext.addStep(response, operation, handler, OperationContext.Stage.MODEL);
+                    readContext.completeStep();
+                } finally {
+                    readContext.close();
+                }
+                return readContext.isUnsupported() ? null : response;
+            }
+
+            @Override
+            public String toString() {
+                return operation.toString();
+            }
+        };
+    }
+
+    private static <T> T execute(final Callable<T> read) {
+        try {
+            return read.call();
+        } catch (Exception e) {
+            MGMT_OP_LOGGER.debugf(e, "Parallel read %s failed", read);
+            return null;
+        }
+    }
+}
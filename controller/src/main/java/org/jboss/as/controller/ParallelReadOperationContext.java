@@ -0,0 +1,304 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller;
+
+import java.io.InputStream;
+
+import org.jboss.as.controller.client.MessageSeverity;
+import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
+import org.jboss.as.controller.persistence.ConfigurationPersister;
+import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.jboss.msc.service.ServiceTarget;
+
+/**
+ * Read-only {@link OperationContext} executing a read on behalf of a step of another operation, concurrently with the
+ * other reads of that step. The read sees the model of the other operation, and runs through all the stages on its
+ * own. Anything which would modify the model, the resource registrations or the runtime is not supported and marks
+ * the read as {@link #isUnsupported() unsupported}, so that it can be executed as a regular step instead.
+ * <p/>
+ * The step of the other operation must wait for the reads, so that its model does not change while they run.
+ */
+class ParallelReadOperationContext extends AbstractOperationContext {
+
+    private final OperationContext primaryContext;
+    private final Thread previousControllingThread;
+    private volatile boolean unsupported;
+
+    ParallelReadOperationContext(final OperationContext primaryContext, final ControlledProcessState processState,
+                                 final Thread controllingThread) {
+        super(primaryContext.getProcessType(), primaryContext.getRunningMode(), null, processState, false);
+        this.primaryContext = primaryContext;
+        this.previousControllingThread = AbstractOperationContext.controllingThread.get();
+        AbstractOperationContext.controllingThread.set(controllingThread);
+    }
+
+    void close() {
+        // the read may have been executed by a thread which is executing another read
+        if (previousControllingThread == null) {
+            AbstractOperationContext.controllingThread.remove();
+        } else {
+            AbstractOperationContext.controllingThread.set(previousControllingThread);
+        }
+    }
+
+    /**
+     * Whether the read needed something this context does not support, in which case its response is meaningless.
+     *
+     * @return {@code true} if the read must be executed as a regular step
+     */
+    boolean isUnsupported() {
+        return unsupported;
+    }
+
+    private UnsupportedOperationException unsupported() {
+        unsupported = true;
+        return new ReadOnlyContextException();
+    }
+
+    // Methods unimplemented by superclass
+
+    @Override
+    public InputStream getAttachmentStream(int index) {
+        return primaryContext.getAttachmentStream(index);
+    }
+
+    @Override
+    public int getAttachmentStreamCount() {
+        return primaryContext.getAttachmentStreamCount();
+    }
+
+    @Override
+    public boolean isRollbackOnRuntimeFailure() {
+        return primaryContext.isRollbackOnRuntimeFailure();
+    }
+
+    @Override
+    public boolean isResourceServiceRestartAllowed() {
+        return primaryContext.isResourceServiceRestartAllowed();
+    }
+
+    @Override
+    public ImmutableManagementResourceRegistration getResourceRegistration() {
+        return primaryContext.getRootResourceRegistration().getSubModel(activeStep.address);
+    }
+
+    @Override
+    public ManagementResourceRegistration getResourceRegistrationForUpdate() {
+        throw unsupported();
+    }
+
+    @Override
+    public ImmutableManagementResourceRegistration getRootResourceRegistration() {
+        return primaryContext.getRootResourceRegistration();
+    }
+
+    @Override
+    public ServiceRegistry getServiceRegistry(boolean modify) throws UnsupportedOperationException {
+        if (modify) {
+            throw unsupported();
+        }
+        return primaryContext.getServiceRegistry(false);
+    }
+
+    @Override
+    public ServiceController<?> removeService(ServiceName name) throws UnsupportedOperationException {
+        throw unsupported();
+    }
+
+    @Override
+    public void removeService(ServiceController<?> controller) throws UnsupportedOperationException {
+        throw unsupported();
+    }
+
+    @Override
+    public ServiceTarget getServiceTarget() throws UnsupportedOperationException {
+        throw unsupported();
+    }
+
+    @Override
+    public ModelNode readModel(PathAddress address) {
+        return Resource.Tools.readModel(readResource(address, true));
+    }
+
+    @Override
+    public ModelNode readModelForUpdate(PathAddress address) {
+        throw unsupported();
+    }
+
+    @Override
+    public void acquireControllerLock() {
+        throw unsupported();
+    }
+
+    @Override
+    public Resource createResource(PathAddress address) throws UnsupportedOperationException {
+        throw unsupported();
+    }
+
+    @Override
+    public void addResource(PathAddress address, Resource toAdd) {
+        throw unsupported();
+    }
+
+    @Override
+    public Resource readResource(PathAddress address) {
+        return readResource(address, true);
+    }
+
+    @Override
+    public Resource readResource(PathAddress address, boolean recursive) {
+        PathAddress fullAddress = activeStep.address.append(address);
+        return primaryContext.readResourceFromRoot(fullAddress, recursive);
+    }
+
+    @Override
+    public Resource readResourceFromRoot(PathAddress address) {
+        return readResourceFromRoot(address, true);
+    }
+
+    @Override
+    public Resource readResourceFromRoot(PathAddress address, boolean recursive) {
+        return primaryContext.readResourceFromRoot(address, recursive);
+    }
+
+    @Override
+    public Resource readResourceForUpdate(PathAddress address) {
+        throw unsupported();
+    }
+
+    @Override
+    public Resource removeResource(PathAddress address) throws UnsupportedOperationException {
+        throw unsupported();
+    }
+
+    @Override
+    public Resource getRootResource() {
+        return primaryContext.getRootResource();
+    }
+
+    @Override
+    public Resource getOriginalRootResource() {
+        return primaryContext.getOriginalRootResource();
+    }
+
+    @Override
+    public boolean isModelAffected() {
+        return false;
+    }
+
+    @Override
+    public boolean isResourceRegistryAffected() {
+        return false;
+    }
+
+    @Override
+    public boolean isRuntimeAffected() {
+        return false;
+    }
+
+    @Override
+    public Stage getCurrentStage() {
+        return currentStage;
+    }
+
+    @Override
+    public void report(MessageSeverity severity, String message) {
+        // the completion of each read is not worth reporting
+        if (severity != MessageSeverity.INFO) {
+            primaryContext.report(severity, message);
+        }
+    }
+
+    @Override
+    public boolean markResourceRestarted(PathAddress resource, Object owner) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean revertResourceRestarted(PathAddress resource, Object owner) {
+        throw unsupported();
+    }
+
+    @Override
+    void awaitModelControllerContainerMonitor() throws InterruptedException {
+        // the runtime is not modified
+    }
+
+    @Override
+    ConfigurationPersister.PersistenceResource createPersistenceResource() throws ConfigurationPersistenceException {
+        // We don't persist
+        return null;
+    }
+
+    @Override
+    void releaseStepLocks(Step step) {
+        // Our steps took no locks
+    }
+
+    @Override
+    void waitForRemovals() {
+        // nothing to do
+    }
+
+    @Override
+    public ModelNode resolveExpressions(ModelNode node) throws OperationFailedException {
+        return primaryContext.resolveExpressions(node);
+    }
+
+    @Override
+    public <T> T getAttachment(final AttachmentKey<T> key) {
+        return primaryContext.getAttachment(key);
+    }
+
+    @Override
+    public <T> T attach(final AttachmentKey<T> key, final T value) {
+        return primaryContext.attach(key, value);
+    }
+
+    @Override
+    public <T> T attachIfAbsent(final AttachmentKey<T> key, final T value) {
+        return primaryContext.attachIfAbsent(key, value);
+    }
+
+    @Override
+    public <T> T detach(final AttachmentKey<T> key) {
+        return primaryContext.detach(key);
+    }
+
+    /**
+     * Thrown when a read needs more than a read-only context. It is not an error, the read just gets executed as a
+     * regular step, so it is reported like a client error instead of being logged as a failure.
+     */
+    private static class ReadOnlyContextException extends UnsupportedOperationException implements OperationClientException {
+
+        @Override
+        public ModelNode getFailureDescription() {
+            return new ModelNode(getClass().getSimpleName());
+        }
+    }
+}
@@ -34,6 +34,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAM
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NILLABLE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATIONS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PARALLEL;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PROXIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_NAMES_OPERATION;
@@ -109,6 +110,11 @@ public class GlobalDescriptions {
         node.get(REQUEST_PROPERTIES, INCLUDE_ALIASES, REQUIRED).set(false);
         node.get(REQUEST_PROPERTIES, INCLUDE_ALIASES, NILLABLE).set(true);
         node.get(REQUEST_PROPERTIES, INCLUDE_DEFAULTS, DEFAULT).set(false);
+        node.get(REQUEST_PROPERTIES, PARALLEL, TYPE).set(ModelType.BOOLEAN);
+        node.get(REQUEST_PROPERTIES, PARALLEL, DESCRIPTION).set(bundle.getString("global.read-resource.parallel"));
+        node.get(REQUEST_PROPERTIES, PARALLEL, REQUIRED).set(false);
+        node.get(REQUEST_PROPERTIES, PARALLEL, NILLABLE).set(true);
+        node.get(REQUEST_PROPERTIES, PARALLEL, DEFAULT).set(false);
         node.get(REPLY_PROPERTIES, TYPE).set(ModelType.OBJECT);
         //TODO value type
         node.get(REPLY_PROPERTIES, DESCRIPTION).set(bundle.getString("global.read-resource.reply"));
@@ -218,6 +224,11 @@ public class GlobalDescriptions {
         node.get(REQUEST_PROPERTIES, INCLUDE_DEFAULTS, REQUIRED).set(false);
         node.get(REQUEST_PROPERTIES, INCLUDE_DEFAULTS, NILLABLE).set(true);
         node.get(REQUEST_PROPERTIES, INCLUDE_DEFAULTS, DEFAULT).set(true);
+        node.get(REQUEST_PROPERTIES, PARALLEL, TYPE).set(ModelType.BOOLEAN);
+        node.get(REQUEST_PROPERTIES, PARALLEL, DESCRIPTION).set(bundle.getString("global.read-children-resources.parallel"));
+        node.get(REQUEST_PROPERTIES, PARALLEL, REQUIRED).set(false);
+        node.get(REQUEST_PROPERTIES, PARALLEL, NILLABLE).set(true);
+        node.get(REQUEST_PROPERTIES, PARALLEL, DEFAULT).set(false);
 
         node.get(REPLY_PROPERTIES, TYPE).set(ModelType.LIST);
         node.get(REPLY_PROPERTIES, DESCRIPTION).set(bundle.getString("global.read-children-resources.reply"));
@@ -25,6 +25,7 @@ import static org.jboss.as.controller.ControllerMessages.MESSAGES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ACCESS_TYPE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES_ONLY;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CALLER_TYPE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILDREN;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEFAULT;
@@ -38,7 +39,9 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MOD
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATIONS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_HEADERS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PARALLEL;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PROXIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ONLY;
@@ -50,9 +53,11 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RES
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STORAGE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Locale;
@@ -61,11 +66,13 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import org.jboss.as.controller.ControllerLogger;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.ParallelReadExecutor;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.ProcessType;
@@ -134,6 +141,7 @@ public class GlobalOperationHandlers {
             validator.registerValidator(PROXIES, new ModelTypeValidator(ModelType.BOOLEAN, true));
             validator.registerValidator(INCLUDE_DEFAULTS, new ModelTypeValidator(ModelType.BOOLEAN, true));
             validator.registerValidator(ATTRIBUTES_ONLY, new ModelTypeValidator(ModelType.BOOLEAN, true));
+            validator.registerValidator(PARALLEL, new ModelTypeValidator(ModelType.BOOLEAN, true));
         }
 
 
@@ -153,6 +161,7 @@ public class GlobalOperationHandlers {
             final boolean aliases = operation.get(INCLUDE_ALIASES).asBoolean(false);
             final boolean defaults = operation.get(INCLUDE_DEFAULTS).asBoolean(true);
             final boolean attributesOnly = operation.get(ATTRIBUTES_ONLY).asBoolean(false);
+            final boolean parallel = operation.get(PARALLEL).asBoolean(false);
 
             // Attributes read directly from the model with no special read handler step in the middle
             final Map<String, ModelNode> directAttributes = new HashMap<String, ModelNode>();
@@ -175,6 +184,8 @@ public class GlobalOperationHandlers {
 
             // Get the model for this resource.
             final Resource resource = nullSafeReadResource(context, registry);
+            // Child resources and attributes with a read handler read concurrently
+            final ParallelReadStepHandler parallelReads = parallel ? ParallelReadStepHandler.create(context) : null;
 
             final Map<String, Set<String>> childrenByType = registry != null ? getChildAddresses(context, address, registry, resource, null) : Collections.<String, Set<String>>emptyMap();
             final ModelNode model = resource.getModel();
@@ -245,7 +256,12 @@ public class GlobalOperationHandlers {
                                     childResources.put(childPE, rrRsp);
 
                                     OperationStepHandler rrHandler = childReg.getOperationHandler(PathAddress.EMPTY_ADDRESS, opName);
-                                    context.addStep(rrRsp, rrOp, rrHandler, OperationContext.Stage.IMMEDIATE);
+                                    if (parallelReads != null && !proxy) {
+                                        rrOp.get(PARALLEL).set(true);
+                                        parallelReads.add(rrOp, rrRsp, rrHandler);
+                                    } else {
+                                        context.addStep(rrRsp, rrOp, rrHandler, OperationContext.Stage.IMMEDIATE);
+                                    }
                                 }
                             } else {
                                 ModelNode childMap = directChildren.get(childType);
@@ -291,10 +307,17 @@ public class GlobalOperationHandlers {
                         } else {
                             otherAttributes.put(attributeName, attrResponse);
                         }
-                        context.addStep(attrResponse, attributeOperation, handler, OperationContext.Stage.IMMEDIATE);
+                        if (parallelReads != null) {
+                            parallelReads.add(attributeOperation, attrResponse, handler);
+                        } else {
+                            context.addStep(attrResponse, attributeOperation, handler, OperationContext.Stage.IMMEDIATE);
+                        }
                     }
                 }
             }
+            if (parallelReads != null && parallelReads.hasReads()) {
+                context.addStep(parallelReads, OperationContext.Stage.IMMEDIATE);
+            }
             context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
         }
 
@@ -417,6 +440,86 @@ public class GlobalOperationHandlers {
         }
     }
 
+    /**
+     * Executes the reads gathered by a read-resource or read-children-resources step concurrently, using the
+     * {@link ParallelReadExecutor}. Each read executes its step in a read-only context of its own, including the runtime
+     * stage, so child resources and attributes which are read from the runtime are read in parallel too. A read which
+     * needs more than a read-only context is executed by a step added to the operation instead. Each response is stored
+     * where the read step would have stored it, so the response is assembled in the same order as with steps.
+     */
+    private static class ParallelReadStepHandler implements OperationStepHandler {
+
+        private final ParallelReadExecutor executor;
+        private final List<Read> reads = new ArrayList<Read>();
+
+        private ParallelReadStepHandler(final ParallelReadExecutor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * Creates a handler if the operation being executed may read in parallel.
+         *
+         * @return the handler, or {@code null} if the reads must be executed by steps
+         */
+        private static ParallelReadStepHandler create(final OperationContext context) {
+            if (context.isBooting()) {
+                return null;
+            }
+            final ParallelReadExecutor executor = context.getAttachment(ParallelReadExecutor.ATTACHMENT_KEY);
+            return executor == null ? null : new ParallelReadStepHandler(executor);
+        }
+
+        private void add(final ModelNode operation, final ModelNode response, final OperationStepHandler handler) {
+            reads.add(new Read(operation, response, handler));
+        }
+
+        private boolean hasReads() {
+            return !reads.isEmpty();
+        }
+
+        @Override
+        public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final List<Callable<ModelNode>> tasks = new ArrayList<Callable<ModelNode>>(reads.size());
+            for (Read read : reads) {
+                if (operation.hasDefined(OPERATION_HEADERS) && operation.get(OPERATION_HEADERS).hasDefined(CALLER_TYPE)) {
+                    // the read is executed on behalf of the same caller
+                    read.operation.get(OPERATION_HEADERS, CALLER_TYPE).set(operation.get(OPERATION_HEADERS, CALLER_TYPE));
+                }
+                tasks.add(executor.createStepRead(context, read.operation, read.handler));
+            }
+            final List<ModelNode> results;
+            try {
+                results = executor.execute(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationFailedException(new ModelNode().set(MESSAGES.operationCancelled()));
+            }
+            // in reverse order, as that is the way adding a Stage.IMMEDIATE step works
+            for (int i = results.size() - 1; i >= 0; i--) {
+                final Read read = reads.get(i);
+                final ModelNode result = results.get(i);
+                if (result != null) {
+                    read.response.set(result);
+                } else {
+                    context.addStep(read.response, read.operation, read.handler, OperationContext.Stage.IMMEDIATE);
+                }
+            }
+            context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
+        }
+
+        private static class Read {
+            private final ModelNode operation;
+            private final ModelNode response;
+            private final OperationStepHandler handler;
+
+            private Read(final ModelNode operation, final ModelNode response, final OperationStepHandler handler) {
+                this.operation = operation;
+                this.response = response;
+                this.handler = handler;
+            }
+        }
+    }
+
     /**
      * {@link org.jboss.as.controller.OperationStepHandler} reading a single attribute at the given operation address. The required request parameter "name" represents the attribute name.
      */
@@ -599,6 +702,7 @@ public class GlobalOperationHandlers {
             validator.registerValidator(INCLUDE_RUNTIME, new ModelTypeValidator(ModelType.BOOLEAN, true));
             validator.registerValidator(PROXIES, new ModelTypeValidator(ModelType.BOOLEAN, true));
             validator.registerValidator(INCLUDE_DEFAULTS, new ModelTypeValidator(ModelType.BOOLEAN, true));
+            validator.registerValidator(PARALLEL, new ModelTypeValidator(ModelType.BOOLEAN, true));
         }
 
         @Override
@@ -611,6 +715,9 @@ public class GlobalOperationHandlers {
             final Map<PathElement, ModelNode> resources = new HashMap<PathElement, ModelNode>();
 
             final Resource resource = context.readResource(PathAddress.EMPTY_ADDRESS, false);
+            // Children read concurrently
+            final boolean parallel = operation.get(PARALLEL).asBoolean(false);
+            final ParallelReadStepHandler parallelReads = parallel ? ParallelReadStepHandler.create(context) : null;
             final ImmutableManagementResourceRegistration registry = context.getResourceRegistration();
             Map<String, Set<String>> childAddresses = getChildAddresses(context, address, registry, resource, childType);
             Set<String> childNames = childAddresses.get(childType);
@@ -653,7 +760,15 @@ public class GlobalOperationHandlers {
                 }
                 final ModelNode rrRsp = new ModelNode();
                 resources.put(childPath, rrRsp);
-                context.addStep(rrRsp, readOp, handler, OperationContext.Stage.IMMEDIATE);
+                if (parallelReads != null && !registry.getSubModel(childAddress).isRemote()) {
+                    readOp.get(PARALLEL).set(true);
+                    parallelReads.add(readOp, rrRsp, handler);
+                } else {
+                    context.addStep(rrRsp, readOp, handler, OperationContext.Stage.IMMEDIATE);
+                }
+            }
+            if (parallelReads != null && parallelReads.hasReads()) {
+                context.addStep(parallelReads, OperationContext.Stage.IMMEDIATE);
             }
             context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
         }
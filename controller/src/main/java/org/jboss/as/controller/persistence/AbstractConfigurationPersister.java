@@ -22,13 +22,20 @@
 
 package org.jboss.as.controller.persistence;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
 import org.jboss.dmr.ModelNode;
 import org.jboss.staxmapper.XMLElementWriter;
 import org.jboss.staxmapper.XMLMapper;
@@ -46,6 +53,10 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
     private final XMLElementWriter<ModelMarshallingContext> rootDeparser;
     private final Map<String, XMLElementWriter<SubsystemMarshallingContext>> subsystemWriters = new HashMap<String, XMLElementWriter<SubsystemMarshallingContext>>();
     private final Map<String, XMLElementWriter<SubsystemMarshallingContext>> subsystemDeploymentWriters = new HashMap<String, XMLElementWriter<SubsystemMarshallingContext>>();
+    /**
+     * What each subsystem writer wrote the last time the model was marshalled, keyed by subsystem name
+     */
+    private volatile Map<String, List<CachingSubsystemWriter.Fragment>> subsystemFragments = Collections.emptyMap();
 
     /**
      * Construct a new instance.
@@ -88,6 +99,8 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
     @Override
     public void marshallAsXml(final ModelNode model, final OutputStream output) throws ConfigurationPersistenceException {
         final XMLMapper mapper = XMLMapper.Factory.create();
+        final Map<String, List<CachingSubsystemWriter.Fragment>> cachedFragments = subsystemFragments;
+        final Map<String, List<CachingSubsystemWriter.Fragment>> writtenFragments = new HashMap<String, List<CachingSubsystemWriter.Fragment>>();
         try {
             XMLStreamWriter streamWriter = null;
             try {
@@ -101,9 +114,14 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
 
                     @Override
                     public XMLElementWriter<SubsystemMarshallingContext> getSubsystemWriter(String extensionName) {
+                        final XMLElementWriter<SubsystemMarshallingContext> writer;
                         synchronized (subsystemWriters) {
-                            return subsystemWriters.get(extensionName);
+                            writer = subsystemWriters.get(extensionName);
+                        }
+                        if (writer == null) {
+                            return null;
                         }
+                        return new CachingSubsystemWriter(extensionName, writer, cachedFragments.get(extensionName), writtenFragments);
                     }
 
                     @Override
@@ -121,6 +139,35 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
         } catch (Exception e) {
             throw MESSAGES.failedToWriteConfiguration(e);
         }
+        // only keep the fragments of this model, so that those of removed subsystems and profiles get dropped
+        subsystemFragments = writtenFragments;
+    }
+
+    /**
+     * Makes the next marshalling of the model write the subsystems which were changed again, rather than compare
+     * their models with those cached.
+     *
+     * @param affectedAddresses the addresses of the resources which were changed
+     */
+    protected void invalidateSubsystemXml(final Set<PathAddress> affectedAddresses) {
+        final Map<String, List<CachingSubsystemWriter.Fragment>> cachedFragments = subsystemFragments;
+        Map<String, List<CachingSubsystemWriter.Fragment>> fragments = null;
+        for (PathAddress address : affectedAddresses) {
+            for (PathElement element : address) {
+                if (SUBSYSTEM.equals(element.getKey())) {
+                    if (cachedFragments.containsKey(element.getValue())) {
+                        if (fragments == null) {
+                            fragments = new HashMap<String, List<CachingSubsystemWriter.Fragment>>(cachedFragments);
+                        }
+                        fragments.remove(element.getValue());
+                    }
+                    break;
+                }
+            }
+        }
+        if (fragments != null) {
+            subsystemFragments = fragments;
+        }
     }
 
     @Override
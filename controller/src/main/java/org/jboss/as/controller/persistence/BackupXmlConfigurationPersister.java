@@ -77,6 +77,7 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
                 }
             };
         }
+        invalidateSubsystemXml(affectedAddresses);
         return new ConfigurationFilePersistenceResource(model, configurationFile, this);
     }
 
@@ -0,0 +1,295 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.ControllerLogger.ROOT_LOGGER;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.EXTENSION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.as.controller.Extension;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.dmr.ModelNode;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoadException;
+import org.xnio.IoUtils;
+
+/**
+ * Keeps the boot operations parsed from a configuration file in a binary file next to it, so that the next boot can
+ * read them back instead of parsing the configuration again.
+ * <p/>
+ * The cached operations are only used if the configuration file has the same SHA-1 digest as when they were parsed,
+ * if they were parsed by the same version of the root element parser, and if the module of each extension added by
+ * the operations still provides its {@link Extension} from the same resource, since the extension parsers produce the
+ * operations. When the cache is used, the parsers of the extensions
+ * are initialized by the extension add operations instead of by the parsing.
+ */
+final class BootOperationCache {
+
+    /**
+     * The system property which disables the cache when set to {@code false}
+     */
+    static final String ENABLED_PROPERTY = "jboss.as.management.boot-cache";
+
+    private static final int MAGIC = 0x4a424f43; // "JBOC"
+    private static final int VERSION = 2;
+    private static final String EXTENSION_SERVICE = "META-INF/services/" + Extension.class.getName();
+
+    private final File configurationFile;
+    private final File cacheFile;
+    private final String parserVersion;
+    /**
+     * Digest of the configuration file, computed by the last {@link #load()}
+     */
+    private byte[] digest;
+
+    /**
+     * @param configurationFile the configuration file
+     * @param parserVersion     identifies the parser of the root element, see {@link #parserVersion(String, QName, Class)}
+     */
+    BootOperationCache(final File configurationFile, final String parserVersion) {
+        this.configurationFile = configurationFile;
+        this.cacheFile = new File(configurationFile.getParentFile(), configurationFile.getName() + ".bootops");
+        this.parserVersion = parserVersion;
+    }
+
+    /**
+     * Identifies the parser of the root element by the product version, the namespace of the root element, which
+     * carries the version of the root schema, and the resource from which the parser class is loaded.
+     *
+     * @param productVersion the version of the product
+     * @param rootElement    the root element of the configuration file
+     * @param parserClass    the class of the root element parser
+     * @return the parser version
+     */
+    static String parserVersion(final String productVersion, final QName rootElement, final Class<?> parserClass) {
+        final StringBuilder version = new StringBuilder(productVersion).append(';').append(rootElement.getNamespaceURI());
+        final URL url = parserClass.getResource('/' + parserClass.getName().replace('.', '/') + ".class");
+        if (url != null) {
+            version.append(';');
+            try {
+                version.append(fingerprint(url));
+            } catch (URISyntaxException e) {
+                version.append(url.toExternalForm());
+            } catch (IOException e) {
+                version.append(url.toExternalForm());
+            }
+        }
+        return version.toString();
+    }
+
+    static boolean isEnabled() {
+        return Boolean.parseBoolean(SecurityActions.getSystemProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Reads the cached boot operations, if they were parsed from the current configuration file with the current
+     * extensions.
+     *
+     * @return the boot operations, or {@code null} if the configuration file needs to be parsed
+     */
+    List<ModelNode> load() {
+        try {
+            digest = digest(configurationFile);
+        } catch (IOException e) {
+            digest = null;
+            return null;
+        }
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        try {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                    return null;
+                }
+                if (!parserVersion.equals(input.readUTF())) {
+                    ROOT_LOGGER.debugf("The parser of %s changed since its boot operations were cached", configurationFile);
+                    return null;
+                }
+                final byte[] cachedDigest = new byte[input.readInt()];
+                input.readFully(cachedDigest);
+                if (!Arrays.equals(digest, cachedDigest)) {
+                    ROOT_LOGGER.debugf("Configuration file %s changed since its boot operations were cached", configurationFile);
+                    return null;
+                }
+                final int extensions = input.readInt();
+                for (int i = 0; i < extensions; i++) {
+                    final String moduleName = input.readUTF();
+                    final String fingerprint = input.readUTF();
+                    if (!fingerprint.equals(fingerprint(moduleName))) {
+                        ROOT_LOGGER.debugf("Extension %s changed since the boot operations of %s were cached", moduleName, configurationFile);
+                        return null;
+                    }
+                }
+                final int count = input.readInt();
+                final List<ModelNode> operations = new ArrayList<ModelNode>(count);
+                for (int i = 0; i < count; i++) {
+                    final ModelNode operation = new ModelNode();
+                    operation.readExternal(input);
+                    operations.add(operation);
+                }
+                return operations;
+            } finally {
+                IoUtils.safeClose(input);
+            }
+        } catch (Exception e) {
+            ROOT_LOGGER.debugf(e, "Could not read the cached boot operations of %s", configurationFile);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the boot operations parsed from the configuration file read by the last {@link #load()}. A failure to
+     * write the cache is not fatal, the next boot parses the configuration file again.
+     *
+     * @param operations the boot operations
+     */
+    void store(final List<ModelNode> operations) {
+        if (digest == null) {
+            return;
+        }
+        final File tempFile = FilePersistenceUtils.createTempFile(cacheFile);
+        try {
+            final Map<String, String> fingerprints = new LinkedHashMap<String, String>();
+            for (ModelNode operation : operations) {
+                final String moduleName = getExtensionModule(operation);
+                if (moduleName != null) {
+                    fingerprints.put(moduleName, fingerprint(moduleName));
+                }
+            }
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(parserVersion);
+                output.writeInt(digest.length);
+                output.write(digest);
+                output.writeInt(fingerprints.size());
+                for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeUTF(entry.getValue());
+                }
+                output.writeInt(operations.size());
+                for (ModelNode operation : operations) {
+                    operation.writeExternal(output);
+                }
+                output.close();
+            } finally {
+                IoUtils.safeClose(output);
+            }
+            FilePersistenceUtils.moveTempFileToMain(tempFile, cacheFile);
+        } catch (Exception e) {
+            ROOT_LOGGER.debugf(e, "Could not cache the boot operations of %s", configurationFile);
+            tempFile.delete();
+        }
+    }
+
+    private static String getExtensionModule(final ModelNode operation) {
+        if (!ADD.equals(operation.get(OP).asString())) {
+            return null;
+        }
+        final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+        if (address.size() == 1 && EXTENSION.equals(address.getElement(0).getKey())) {
+            return address.getElement(0).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Identifies the resource from which a module provides its extensions, without loading the extension classes.
+     */
+    private static String fingerprint(final String moduleName) throws ModuleLoadException, URISyntaxException, IOException {
+        final Module module = Module.getBootModuleLoader().loadModule(ModuleIdentifier.fromString(moduleName));
+        final URL url = module.getClassLoader().getResource(EXTENSION_SERVICE);
+        if (url == null) {
+            return "";
+        }
+        return fingerprint(url);
+    }
+
+    /**
+     * Identifies a resource by its URL, and by the size and modification time of the file it is read from.
+     */
+    private static String fingerprint(final URL url) throws URISyntaxException, IOException {
+        final StringBuilder fingerprint = new StringBuilder(url.toExternalForm());
+        File file = null;
+        if ("jar".equals(url.getProtocol())) {
+            final String path = url.getPath();
+            final int separator = path.indexOf("!/");
+            final URL jarUrl = new URL(separator < 0 ? path : path.substring(0, separator));
+            if ("file".equals(jarUrl.getProtocol())) {
+                file = new File(jarUrl.toURI());
+            }
+        } else if ("file".equals(url.getProtocol())) {
+            file = new File(url.toURI());
+        }
+        if (file != null) {
+            fingerprint.append(';').append(file.length()).append(';').append(file.lastModified());
+        }
+        return fingerprint.toString();
+    }
+
+    private static byte[] digest(final File file) throws IOException {
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final InputStream input = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        } finally {
+            IoUtils.safeClose(input);
+        }
+        return messageDigest.digest();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+
+/**
+ * Writes a subsystem by replaying what its writer wrote for the same subsystem model the last time the configuration
+ * was marshalled, and records what the writer writes otherwise.
+ * <p/>
+ * The output of the writers cannot be kept as text, since the stream writer formats it according to its position in
+ * the document; the calls made on the stream writer are recorded instead, and replayed on the next stream writer.
+ */
+final class CachingSubsystemWriter implements XMLElementWriter<SubsystemMarshallingContext> {
+
+    private final String subsystemName;
+    private final XMLElementWriter<SubsystemMarshallingContext> delegate;
+    private final List<Fragment> cached;
+    private final Map<String, List<Fragment>> written;
+
+    /**
+     * @param subsystemName the name of the subsystem
+     * @param delegate the registered writer of the subsystem
+     * @param cached the fragments written for the subsystem the last time the configuration was marshalled, or {@code null}
+     * @param written the fragments written while marshalling the configuration, keyed by subsystem name
+     */
+    CachingSubsystemWriter(final String subsystemName, final XMLElementWriter<SubsystemMarshallingContext> delegate,
+                           final List<Fragment> cached, final Map<String, List<Fragment>> written) {
+        this.subsystemName = subsystemName;
+        this.delegate = delegate;
+        this.cached = cached;
+        this.written = written;
+    }
+
+    @Override
+    public void writeContent(final XMLExtendedStreamWriter streamWriter, final SubsystemMarshallingContext context) throws XMLStreamException {
+        final ModelNode model = context.getModelNode();
+        Fragment fragment = null;
+        if (cached != null) {
+            for (Fragment candidate : cached) {
+                // equals() disregards the order of the children, but the fragments of subsystems whose resources
+                // were added or removed are evicted beforehand
+                if (candidate.writer == delegate && candidate.model.equals(model)) {
+                    fragment = candidate;
+                    break;
+                }
+            }
+        }
+        if (fragment != null) {
+            fragment.replay(streamWriter);
+        } else {
+            final Recorder recorder = new Recorder(streamWriter);
+            final XMLExtendedStreamWriter recordingWriter = (XMLExtendedStreamWriter) Proxy.newProxyInstance(XMLExtendedStreamWriter.class.getClassLoader(),
+                    new Class<?>[] {XMLExtendedStreamWriter.class}, recorder);
+            delegate.writeContent(recordingWriter, new SubsystemMarshallingContext(model, recordingWriter));
+            fragment = new Fragment(delegate, model.clone(), recorder.calls);
+        }
+        List<Fragment> fragments = written.get(subsystemName);
+        if (fragments == null) {
+            fragments = new ArrayList<Fragment>(1);
+            written.put(subsystemName, fragments);
+        }
+        fragments.add(fragment);
+    }
+
+    /**
+     * The calls which a subsystem writer made on the stream writer for a subsystem model.
+     */
+    static final class Fragment {
+        private final XMLElementWriter<SubsystemMarshallingContext> writer;
+        private final ModelNode model;
+        private final List<Call> calls;
+
+        Fragment(final XMLElementWriter<SubsystemMarshallingContext> writer, final ModelNode model, final List<Call> calls) {
+            this.writer = writer;
+            this.model = model;
+            this.calls = calls;
+        }
+
+        void replay(final XMLExtendedStreamWriter streamWriter) throws XMLStreamException {
+            for (Call call : calls) {
+                try {
+                    call.method.invoke(streamWriter, call.args);
+                } catch (InvocationTargetException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof XMLStreamException) {
+                        throw (XMLStreamException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new XMLStreamException(cause);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private static final class Call {
+        private final Method method;
+        private final Object[] args;
+
+        Call(final Method method, final Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    /**
+     * Forwards the calls to the stream writer, recording those which write something. The others, such as
+     * {@link XMLExtendedStreamWriter#getNamespaceContext()}, return the same values when the calls are replayed at the
+     * same position of the document.
+     */
+    private static final class Recorder implements InvocationHandler {
+        private final XMLExtendedStreamWriter target;
+        private final List<Call> calls = new ArrayList<Call>();
+
+        Recorder(final XMLExtendedStreamWriter target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getReturnType() == void.class) {
+                calls.add(new Call(method, args));
+            }
+            return result;
+        }
+    }
+}
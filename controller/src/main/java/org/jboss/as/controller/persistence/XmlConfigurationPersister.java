@@ -58,6 +58,7 @@ public class XmlConfigurationPersister extends AbstractConfigurationPersister {
     private final QName rootElement;
     private final XMLElementReader<List<ModelNode>> rootParser;
     private final Map<QName, XMLElementReader<List<ModelNode>>> additionalParsers;
+    private volatile BootOperationCache bootOperationCache;
 
     /**
      * Construct a new instance.
@@ -81,9 +82,24 @@ public class XmlConfigurationPersister extends AbstractConfigurationPersister {
         }
     }
 
+    /**
+     * Makes {@link #load()} cache the parsed operations in a binary file next to the configuration file, and read them
+     * back rather than parse the configuration as long as neither the file, the product nor the extensions change.
+     * The cache can be disabled by setting the {@value BootOperationCache#ENABLED_PROPERTY} system property to
+     * {@code false}.
+     *
+     * @param productVersion the version of the product, which invalidates the cache when it changes
+     */
+    public void enableBootOperationCache(final String productVersion) {
+        if (BootOperationCache.isEnabled()) {
+            bootOperationCache = new BootOperationCache(fileName, BootOperationCache.parserVersion(productVersion, rootElement, rootParser.getClass()));
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public PersistenceResource store(final ModelNode model, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
+        invalidateSubsystemXml(affectedAddresses);
         return new FilePersistenceResource(model, fileName, this);
     }
 
@@ -117,6 +133,24 @@ public class XmlConfigurationPersister extends AbstractConfigurationPersister {
     /** {@inheritDoc} */
     @Override
     public List<ModelNode> load() throws ConfigurationPersistenceException {
+        final long start = System.currentTimeMillis();
+        final BootOperationCache bootOperationCache = this.bootOperationCache;
+        if (bootOperationCache != null) {
+            final List<ModelNode> cached = bootOperationCache.load();
+            if (cached != null) {
+                ROOT_LOGGER.debugf("Read %d cached boot operations of %s in [%d] ms", cached.size(), fileName, System.currentTimeMillis() - start);
+                return cached;
+            }
+        }
+        final List<ModelNode> updates = parse();
+        ROOT_LOGGER.debugf("Parsed %d boot operations from %s in [%d] ms", updates.size(), fileName, System.currentTimeMillis() - start);
+        if (bootOperationCache != null) {
+            bootOperationCache.store(updates);
+        }
+        return updates;
+    }
+
+    private List<ModelNode> parse() throws ConfigurationPersistenceException {
         final XMLMapper mapper = XMLMapper.Factory.create();
         mapper.registerRootElement(rootElement, rootParser);
         synchronized (additionalParsers) {
@@ -234,6 +234,12 @@ public abstract class AbstractModelResource implements Resource {
                 return children.remove(name);
             }
         }
+
+        void replace(String name, Resource resource) {
+            synchronized (children) {
+                children.put(name, resource);
+            }
+        }
     }
 
     abstract static class DelegateResource implements ResourceEntry {
@@ -22,6 +22,7 @@
 
 package org.jboss.as.controller.registry;
 
+import org.jboss.as.controller.PathElement;
 import org.jboss.dmr.ModelNode;
 
 import java.util.ConcurrentModificationException;
@@ -76,4 +77,39 @@ class BasicResource extends AbstractModelResource implements Resource {
         return clone;
     }
 
+    /**
+     * Create a copy of this resource which has its own local model, but shares the child resources with this
+     * resource.
+     *
+     * @return the copy
+     */
+    BasicResource shallowCopy() {
+        final BasicResource copy = new BasicResource();
+        copy.writeModel(model);
+        for(final String childType : getChildTypes()) {
+            final ResourceProvider provider = getProvider(childType);
+            for(final String name : provider.children()) {
+                final Resource child = provider.get(name);
+                if(child != null) {
+                    copy.registerChild(PathElement.pathElement(childType, name), child);
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Replace a registered child, keeping its position among the other children of the same type.
+     *
+     * @param address the child address
+     * @param resource the new child resource
+     */
+    void replaceChild(final PathElement address, final Resource resource) {
+        final ResourceProvider provider = getProvider(address.getKey());
+        if(provider == null || ! provider.has(address.getValue())) {
+            throw new NoSuchResourceException(address);
+        }
+        ((DefaultResourceProvider) provider).replace(address.getValue(), resource);
+    }
+
 }
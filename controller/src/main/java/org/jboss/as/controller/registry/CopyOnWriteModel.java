@@ -0,0 +1,182 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.registry;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.jboss.as.controller.PathElement;
+
+/**
+ * A writable copy of a published management model.
+ * <p/>
+ * A published model is never modified, so it can be read without locking. Instead of cloning the whole model before
+ * the first write, only the resources on the path from the root to a changed resource are copied. Everything else
+ * is shared with the published model. Standard resources are copied on their own and keep sharing their children;
+ * any other {@link Resource} implementation is copied using {@link Resource#clone()}, together with its children.
+ *
+ * <p>Concurrency note: a copy may be updated by several threads during boot, so the methods of this class are
+ * synchronized. The writable resources must not be made visible to other threads until all writes are complete.</p>
+ */
+public final class CopyOnWriteModel {
+
+    /** The resources which were copied, and which can therefore be modified in place. */
+    private final Set<Resource> copies = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+    /** The resources which were copied along with all their children. */
+    private final Set<Resource> recursiveCopies = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+    private final Resource root;
+
+    /**
+     * Create a writable copy of the given model.
+     *
+     * @param model the root of the published model
+     */
+    public CopyOnWriteModel(final Resource model) {
+        this.root = copy(model);
+    }
+
+    /**
+     * Get the root of the writable model.
+     *
+     * @return the root resource
+     */
+    public Resource getRoot() {
+        return root;
+    }
+
+    /**
+     * Get a child for update, copying it if it is still shared with the published model.
+     *
+     * @param parent a writable resource, either the root or a resource returned by this class
+     * @param element the child address
+     * @return the writable child, or {@code null} if there is no such child
+     */
+    public synchronized Resource getChildForUpdate(final Resource parent, final PathElement element) {
+        final Resource child = parent.getChild(element);
+        if (child == null || isWritable(child)) {
+            return child;
+        }
+        if (recursiveCopies.contains(parent)) {
+            // the whole subtree was copied already
+            recursiveCopies.add(child);
+            return child;
+        }
+        final Resource copy = copy(child);
+        replaceChild(parent, element, copy);
+        return copy;
+    }
+
+    /**
+     * Get a child for update together with all its children, copying the children which are still shared with the
+     * published model. Use this for resources which are handed out to code that may modify any part of them.
+     *
+     * @param parent a writable resource, either the root or a resource returned by this class
+     * @param element the child address
+     * @return the writable child, or {@code null} if there is no such child
+     */
+    public synchronized Resource getSubtreeForUpdate(final Resource parent, final PathElement element) {
+        final Resource child = parent.getChild(element);
+        if (child == null || recursiveCopies.contains(child) || recursiveCopies.contains(parent)) {
+            if (child != null) {
+                recursiveCopies.add(child);
+            }
+            return child;
+        }
+        final Resource copy;
+        if (copies.contains(child)) {
+            // already copied, only the children are shared
+            copy = child;
+            copyChildren(copy);
+        } else {
+            copy = child.clone();
+            replaceChild(parent, element, copy);
+        }
+        recursiveCopies.add(copy);
+        return copy;
+    }
+
+    /**
+     * Get the whole model for update, copying all the resources which are still shared with the published model.
+     *
+     * @return the writable root resource
+     */
+    public synchronized Resource getRootForUpdate() {
+        if (!recursiveCopies.contains(root)) {
+            copyChildren(root);
+            recursiveCopies.add(root);
+        }
+        return root;
+    }
+
+    /**
+     * Remove a child from a writable resource.
+     *
+     * @param parent a writable resource, either the root or a resource returned by this class
+     * @param element the child address
+     * @return the removed child, or {@code null} if there was no such child. The removed child is not shared with
+     *         the published model.
+     */
+    public synchronized Resource removeChild(final Resource parent, final PathElement element) {
+        final Resource removed = parent.removeChild(element);
+        if (removed == null || recursiveCopies.contains(removed) || recursiveCopies.contains(parent)) {
+            return removed;
+        }
+        if (copies.contains(removed)) {
+            copyChildren(removed);
+            return removed;
+        }
+        return removed.clone();
+    }
+
+    private boolean isWritable(final Resource resource) {
+        return copies.contains(resource) || recursiveCopies.contains(resource);
+    }
+
+    private Resource copy(final Resource resource) {
+        if (resource instanceof BasicResource) {
+            final Resource copy = ((BasicResource) resource).shallowCopy();
+            copies.add(copy);
+            return copy;
+        }
+        final Resource copy = resource.clone();
+        recursiveCopies.add(copy);
+        return copy;
+    }
+
+    private void copyChildren(final Resource resource) {
+        for (final String childType : resource.getChildTypes()) {
+            for (final String name : resource.getChildrenNames(childType)) {
+                getSubtreeForUpdate(resource, PathElement.pathElement(childType, name));
+            }
+        }
+    }
+
+    private void replaceChild(final Resource parent, final PathElement element, final Resource child) {
+        if (parent instanceof BasicResource) {
+            ((BasicResource) parent).replaceChild(element, child);
+        } else {
+            // only standard resources are copied without their children
+            throw new IllegalStateException();
+        }
+    }
+}
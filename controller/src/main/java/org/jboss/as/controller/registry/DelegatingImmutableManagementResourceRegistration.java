@@ -136,4 +136,24 @@ public class DelegatingImmutableManagementResourceRegistration implements Immuta
     public AliasEntry getAliasEntry() {
         return delegate.getAliasEntry();
     }
+
+    /**
+     * Two delegating registrations are equal if they delegate to the same registration, so that callers which get a new
+     * wrapper on each call can still use it as a key.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DelegatingImmutableManagementResourceRegistration)) {
+            return false;
+        }
+        return delegate.equals(((DelegatingImmutableManagementResourceRegistration) obj).delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link BootOperationCache} only returns the cached boot operations of an unchanged configuration file
+ * and parser.
+ */
+public class BootOperationCacheTestCase {
+
+    private static final String VERSION = BootOperationCache.parserVersion("1.0", new QName("urn:jboss:domain:1.4", "server"), BootOperationCacheTestCase.class);
+
+    private File configurationFile;
+    private File cacheFile;
+
+    @Before
+    public void createConfigurationFile() throws Exception {
+        File dir = new File("target", "boot-cache-test");
+        dir.mkdirs();
+        configurationFile = new File(dir, "standalone.xml");
+        cacheFile = new File(dir, "standalone.xml.bootops");
+        write(configurationFile, "<server/>");
+    }
+
+    @After
+    public void deleteFiles() {
+        configurationFile.delete();
+        cacheFile.delete();
+    }
+
+    @Test
+    public void testCachedOperations() throws Exception {
+        BootOperationCache cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNull(cache.load());
+        List<ModelNode> operations = createOperations();
+        cache.store(operations);
+        Assert.assertTrue(cacheFile.exists());
+
+        // the next boot
+        cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertEquals(operations, cache.load());
+    }
+
+    @Test
+    public void testChangedConfigurationFile() throws Exception {
+        BootOperationCache cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNull(cache.load());
+        cache.store(createOperations());
+
+        write(configurationFile, "<server name=\"changed\"/>");
+        cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNull(cache.load());
+    }
+
+    @Test
+    public void testChangedParserVersion() throws Exception {
+        BootOperationCache cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNull(cache.load());
+        cache.store(createOperations());
+
+        // a new release, which still reads the same schema
+        cache = new BootOperationCache(configurationFile, BootOperationCache.parserVersion("1.1", new QName("urn:jboss:domain:1.4", "server"), BootOperationCacheTestCase.class));
+        Assert.assertNull(cache.load());
+
+        // the same release, with a new root schema
+        cache = new BootOperationCache(configurationFile, BootOperationCache.parserVersion("1.0", new QName("urn:jboss:domain:1.5", "server"), BootOperationCacheTestCase.class));
+        Assert.assertNull(cache.load());
+
+        cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNotNull(cache.load());
+    }
+
+    @Test
+    public void testCorruptCache() throws Exception {
+        BootOperationCache cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNull(cache.load());
+        cache.store(createOperations());
+
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+        try {
+            file.setLength(file.length() - 5);
+        } finally {
+            file.close();
+        }
+        cache = new BootOperationCache(configurationFile, VERSION);
+        Assert.assertNull(cache.load());
+    }
+
+    private static List<ModelNode> createOperations() {
+        List<ModelNode> operations = new ArrayList<ModelNode>();
+        for (int i = 0; i < 10; i++) {
+            ModelNode operation = new ModelNode();
+            operation.get(OP).set(ADD);
+            operation.get(OP_ADDR).add("system-property", "property" + i);
+            operation.get("value").set("value" + i);
+            operations.add(operation);
+        }
+        return operations;
+    }
+
+    private static void write(File file, String content) throws Exception {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
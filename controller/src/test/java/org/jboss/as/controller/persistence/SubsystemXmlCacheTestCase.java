@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link AbstractConfigurationPersister#marshallAsXml(ModelNode, java.io.OutputStream)} only writes the
+ * subsystems which changed since the model was last marshalled, and that the cached subsystems are written as their
+ * writers would.
+ */
+public class SubsystemXmlCacheTestCase {
+
+    private static final XMLElementWriter<ModelMarshallingContext> ROOT_DEPARSER = new XMLElementWriter<ModelMarshallingContext>() {
+        @Override
+        public void writeContent(XMLExtendedStreamWriter writer, ModelMarshallingContext context) throws XMLStreamException {
+            writer.writeStartDocument();
+            writer.writeStartElement("server");
+            writer.writeDefaultNamespace("urn:jboss:test:server:1.0");
+            writer.writeStartElement("profile");
+            final ModelNode model = context.getModelNode();
+            final String defaultNamespace = writer.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX);
+            for (String subsystemName : model.get(SUBSYSTEM).keys()) {
+                try {
+                    context.getSubsystemWriter(subsystemName).writeContent(writer, new SubsystemMarshallingContext(model.get(SUBSYSTEM, subsystemName), writer));
+                } finally {
+                    writer.setDefaultNamespace(defaultNamespace);
+                }
+            }
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+        }
+    };
+
+    private TestSubsystemWriter one;
+    private TestSubsystemWriter two;
+    private AbstractConfigurationPersister persister;
+    private ModelNode model;
+
+    @Before
+    public void setUp() {
+        one = new TestSubsystemWriter("urn:jboss:test:one:1.0");
+        two = new TestSubsystemWriter("urn:jboss:test:two:1.0");
+        persister = createPersister();
+        model = new ModelNode();
+        model.get(SUBSYSTEM, "one", "item", "a", "value").set("1");
+        model.get(SUBSYSTEM, "one", "item", "b", "value").set("2");
+        model.get(SUBSYSTEM, "two", "item", "c", "value").set("3");
+    }
+
+    @Test
+    public void testUnchangedSubsystemsAreReplayed() throws Exception {
+        final String xml = marshal(persister, model);
+        Assert.assertEquals(1, one.writes);
+        Assert.assertEquals(1, two.writes);
+        Assert.assertTrue(xml, xml.contains("urn:jboss:test:one:1.0"));
+
+        Assert.assertEquals(xml, marshal(persister, model));
+        Assert.assertEquals(1, one.writes);
+        Assert.assertEquals(1, two.writes);
+    }
+
+    @Test
+    public void testAffectedSubsystemIsWritten() throws Exception {
+        marshal(persister, model);
+        model.get(SUBSYSTEM, "two", "item", "d", "value").set("4");
+        persister.invalidateSubsystemXml(Collections.singleton(PathAddress.pathAddress(PathElement.pathElement(SUBSYSTEM, "two"), PathElement.pathElement("item", "d"))));
+
+        final String xml = marshal(persister, model);
+        Assert.assertEquals(1, one.writes);
+        Assert.assertEquals(2, two.writes);
+        Assert.assertEquals(marshal(createPersister(), model), xml);
+    }
+
+    @Test
+    public void testChangedSubsystemIsWritten() throws Exception {
+        marshal(persister, model);
+        // even if the change was not reported, the cached model no longer matches
+        model.get(SUBSYSTEM, "one", "item", "a", "value").set("5");
+
+        final String xml = marshal(persister, model);
+        Assert.assertEquals(2, one.writes);
+        Assert.assertEquals(1, two.writes);
+        Assert.assertTrue(xml, xml.contains("\"5\""));
+        Assert.assertEquals(marshal(createPersister(), model), xml);
+    }
+
+    @Test
+    public void testReplacedWriterIsUsed() throws Exception {
+        marshal(persister, model);
+        final TestSubsystemWriter other = new TestSubsystemWriter("urn:jboss:test:one:2.0");
+        persister.registerSubsystemWriter("one", other);
+
+        final String xml = marshal(persister, model);
+        Assert.assertEquals(1, one.writes);
+        Assert.assertEquals(1, other.writes);
+        Assert.assertTrue(xml, xml.contains("urn:jboss:test:one:2.0"));
+    }
+
+    private AbstractConfigurationPersister createPersister() {
+        final AbstractConfigurationPersister persister = new AbstractConfigurationPersister(ROOT_DEPARSER) {
+            @Override
+            public PersistenceResource store(ModelNode model, Set<PathAddress> affectedAddresses) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<ModelNode> load() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        persister.registerSubsystemWriter("one", one);
+        persister.registerSubsystemWriter("two", two);
+        return persister;
+    }
+
+    private static String marshal(AbstractConfigurationPersister persister, ModelNode model) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        persister.marshallAsXml(model, output);
+        return new String(output.toByteArray(), "UTF-8");
+    }
+
+    private static class TestSubsystemWriter implements XMLElementWriter<SubsystemMarshallingContext> {
+        private final String namespace;
+        int writes;
+
+        TestSubsystemWriter(String namespace) {
+            this.namespace = namespace;
+        }
+
+        @Override
+        public void writeContent(XMLExtendedStreamWriter writer, SubsystemMarshallingContext context) throws XMLStreamException {
+            writes++;
+            context.startSubsystemElement(namespace, false);
+            for (Property item : context.getModelNode().get("item").asPropertyList()) {
+                writer.writeEmptyElement("item");
+                writer.writeAttribute("name", item.getName());
+                writer.writeAttribute("value", item.getValue().get("value").asString());
+            }
+            writer.writeEndElement();
+        }
+    }
+}
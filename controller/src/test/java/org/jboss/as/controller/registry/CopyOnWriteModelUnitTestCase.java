@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CopyOnWriteModel}.
+ */
+public class CopyOnWriteModelUnitTestCase {
+
+    private static final int PARENTS = 100;
+    private static final int CHILDREN = 100;
+    private static final int WRITES = 1000;
+
+    @Test
+    public void testWriteCopiesPath() {
+        final Resource model = createModel();
+        final ModelNode original = Resource.Tools.readModel(model);
+
+        final CopyOnWriteModel copy = new CopyOnWriteModel(model);
+        final Resource parent = copy.getChildForUpdate(copy.getRoot(), parent(5));
+        final Resource child = copy.getChildForUpdate(parent, child(7));
+        child.getModel().get("value").set("changed");
+
+        assertEquals(original, Resource.Tools.readModel(model));
+        assertEquals("changed", copy.getRoot().getChild(parent(5)).getChild(child(7)).getModel().get("value").asString());
+        // everything else is shared with the published model
+        assertSame(model.getChild(parent(6)), copy.getRoot().getChild(parent(6)));
+        assertSame(model.getChild(parent(5)).getChild(child(8)), parent.getChild(child(8)));
+        // resources are only copied once
+        assertSame(parent, copy.getChildForUpdate(copy.getRoot(), parent(5)));
+        // the order of the children does not change
+        assertEquals(new ArrayList<String>(model.getChildrenNames("parent")), new ArrayList<String>(copy.getRoot().getChildrenNames("parent")));
+        assertEquals(new ArrayList<String>(model.getChild(parent(5)).getChildrenNames("child")), new ArrayList<String>(parent.getChildrenNames("child")));
+        final ModelNode expected = original.clone();
+        expected.get("parent", "5", "child", "7", "value").set("changed");
+        assertEquals(expected, Resource.Tools.readModel(copy.getRoot()));
+    }
+
+    @Test
+    public void testSubtreeForUpdate() {
+        final Resource model = createModel();
+        final ModelNode original = Resource.Tools.readModel(model);
+
+        final CopyOnWriteModel copy = new CopyOnWriteModel(model);
+        final Resource parent = copy.getChildForUpdate(copy.getRoot(), parent(5));
+        assertSame(parent, copy.getSubtreeForUpdate(copy.getRoot(), parent(5)));
+        parent.getChild(child(8)).getModel().get("value").set("changed");
+        copy.getSubtreeForUpdate(copy.getRoot(), parent(9)).getChild(child(1)).getModel().get("value").set("changed");
+        copy.getRootForUpdate().getChild(parent(10)).getChild(child(2)).getModel().get("value").set("changed");
+
+        assertEquals(original, Resource.Tools.readModel(model));
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        final Resource model = createModel();
+        final ModelNode original = Resource.Tools.readModel(model);
+
+        final CopyOnWriteModel copy = new CopyOnWriteModel(model);
+        final Resource removed = copy.removeChild(copy.getRoot(), parent(11));
+        removed.getChild(child(2)).getModel().get("value").set("changed");
+        assertNull(copy.removeChild(copy.getRoot(), parent(11)));
+        copy.getChildForUpdate(copy.getRoot(), parent(12)).registerChild(child(CHILDREN), Resource.Factory.create());
+
+        assertEquals(original, Resource.Tools.readModel(model));
+        assertFalse(copy.getRoot().hasChild(parent(11)));
+        assertTrue(copy.getRoot().getChild(parent(12)).hasChild(child(CHILDREN)));
+    }
+
+    /**
+     * Builds each model from the previous one, every copy must see the earlier writes and share the resources it
+     * did not update.
+     */
+    @Test
+    public void testSuccessiveCopies() {
+        final Resource model = createModel();
+        Resource current = model;
+        for (int i = 0; i < WRITES; i++) {
+            final CopyOnWriteModel copy = new CopyOnWriteModel(current);
+            final Resource parent = copy.getChildForUpdate(copy.getRoot(), parent(i % PARENTS));
+            copy.getChildForUpdate(parent, child(i % CHILDREN)).getModel().get("value").set(i + 1);
+            final PathElement untouched = parent((i + 1) % PARENTS);
+            assertSame(current.getChild(untouched), copy.getRoot().getChild(untouched));
+            current = copy.getRoot();
+        }
+        for (int i = WRITES - PARENTS; i < WRITES; i++) {
+            assertEquals(i + 1, current.getChild(parent(i % PARENTS)).getChild(child(i % CHILDREN)).getModel().get("value").asInt());
+            assertEquals(0, model.getChild(parent(i % PARENTS)).getChild(child(i % CHILDREN)).getModel().get("value").asInt());
+        }
+    }
+
+    /**
+     * Reads the model recursively while a writer keeps publishing new models, every read must see a consistent model.
+     */
+    @Test
+    public void testReadWhileWriting() throws Exception {
+        final AtomicReference<Resource> published = new AtomicReference<Resource>(createModel());
+        final AtomicBoolean done = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<Integer> writer = executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    int writes = 0;
+                    while (!done.get()) {
+                        final CopyOnWriteModel copy = new CopyOnWriteModel(published.get());
+                        // two resources are always updated together
+                        final int parent = writes % PARENTS;
+                        for (int child = 0; child < 2; child++) {
+                            final Resource resource = copy.getChildForUpdate(copy.getRoot(), parent(parent));
+                            copy.getChildForUpdate(resource, child(child)).getModel().get("value").set(writes);
+                        }
+                        published.set(copy.getRoot());
+                        writes++;
+                    }
+                    return writes;
+                }
+            });
+            final Callable<Void> reader = new Callable<Void>() {
+                public Void call() {
+                    for (int i = 0; i < 50; i++) {
+                        final ModelNode model = Resource.Tools.readModel(published.get());
+                        for (int parent = 0; parent < PARENTS; parent++) {
+                            final ModelNode children = model.get("parent", String.valueOf(parent), "child");
+                            assertEquals(children.get("0", "value"), children.get("1", "value"));
+                        }
+                    }
+                    return null;
+                }
+            };
+            final Future<Void> first = executor.submit(reader);
+            final Future<Void> second = executor.submit(reader);
+            first.get(60, TimeUnit.SECONDS);
+            second.get(60, TimeUnit.SECONDS);
+            done.set(true);
+            assertTrue(writer.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+    }
+
+    private static Resource createModel() {
+        final Resource root = Resource.Factory.create();
+        for (int i = 0; i < PARENTS; i++) {
+            final Resource parent = Resource.Factory.create();
+            parent.getModel().get("value").set(i);
+            root.registerChild(parent(i), parent);
+            for (int j = 0; j < CHILDREN; j++) {
+                final Resource child = Resource.Factory.create();
+                child.getModel().get("value").set(0);
+                parent.registerChild(child(j), child);
+            }
+        }
+        return root;
+    }
+
+    private static PathElement parent(final int i) {
+        return PathElement.pathElement("parent", String.valueOf(i));
+    }
+
+    private static PathElement child(final int i) {
+        return PathElement.pathElement("child", String.valueOf(i));
+    }
+}
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
@@ -137,6 +138,10 @@ public abstract class AbstractControllerTestBase {
         ControlledProcessState processState = new ControlledProcessState(true);
         ModelControllerService svc = new ModelControllerService(container, processState, processType);
         ServiceBuilder<ModelController> builder = target.addService(ServiceName.of("ModelController"), svc);
+        final ExecutorService executorService = getExecutorService();
+        if (executorService != null) {
+            builder.addInjection(svc.getExecutorServiceInjector(), executorService);
+        }
         builder.install();
         svc.latch.await();
         controller = svc.getValue();
@@ -164,6 +169,10 @@ public abstract class AbstractControllerTestBase {
 
     }
 
+    protected ExecutorService getExecutorService() {
+        return null;
+    }
+
     class ModelControllerService extends AbstractControllerService {
 
         private final CountDownLatch latch = new CountDownLatch(2);
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INCLUDE_RUNTIME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PARALLEL;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RECURSIVE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.ParallelReadExecutor;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.descriptions.DescriptionProvider;
+import org.jboss.as.controller.operations.global.GlobalOperationHandlers;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that reading resources in parallel gives the same results as reading them step by step.
+ */
+public class ParallelReadResourceTestCase extends AbstractGlobalOperationsTestCase {
+
+    private static final String WRITE_AND_READ = "write-and-read";
+
+    private static final int OVERLAPPING_READS = 3;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile CountDownLatch overlap;
+
+    @BeforeClass
+    public static void setMaxThreads() {
+        // enough threads for the overlapping reads, whatever the number of processors
+        System.setProperty(ParallelReadExecutor.MAX_THREADS_PROPERTY, String.valueOf(OVERLAPPING_READS + 1));
+    }
+
+    @AfterClass
+    public static void clearMaxThreads() {
+        System.clearProperty(ParallelReadExecutor.MAX_THREADS_PROPERTY);
+    }
+
+    @Override
+    protected ExecutorService getExecutorService() {
+        return executor;
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    protected void initModel(Resource rootResource, ManagementResourceRegistration rootRegistration) {
+        super.initModel(rootResource, rootRegistration);
+        // writes an attribute, then reads the whole model in parallel within the same operation
+        rootRegistration.registerOperationHandler(WRITE_AND_READ, new OperationStepHandler() {
+            @Override
+            public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                final PathAddress address = PathAddress.pathAddress(PathElement.pathElement("profile", "profileA"), PathElement.pathElement("subsystem", "subsystem1"));
+                context.readResourceForUpdate(address).getModel().get("read-write").set(42);
+                final ModelNode read = new ModelNode();
+                read.get(OP).set(READ_RESOURCE_OPERATION);
+                read.get(OP_ADDR).setEmptyList();
+                read.get(RECURSIVE).set(true);
+                read.get(PARALLEL).set(true);
+                context.addStep(context.getResult(), read, GlobalOperationHandlers.READ_RESOURCE, OperationContext.Stage.IMMEDIATE);
+                context.completeStep();
+            }
+        }, new DescriptionProvider() {
+            @Override
+            public ModelNode getModelDescription(Locale locale) {
+                return new ModelNode();
+            }
+        }, false);
+
+        // metrics which only return true if they are read at the same time
+        final DescriptionProvider noDescription = new DescriptionProvider() {
+            @Override
+            public ModelNode getModelDescription(Locale locale) {
+                return new ModelNode();
+            }
+        };
+        final OperationStepHandler overlappingMetric = new OperationStepHandler() {
+            @Override
+            public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                overlap.countDown();
+                try {
+                    context.getResult().set(overlap.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    context.getResult().set(false);
+                }
+                context.completeStep();
+            }
+        };
+        final PathElement parallelTest = PathElement.pathElement("parallel", "test");
+        final ManagementResourceRegistration parallelRegistration = rootRegistration.registerSubModel(parallelTest, noDescription);
+        final ManagementResourceRegistration readerRegistration = parallelRegistration.registerSubModel(PathElement.pathElement("reader"), noDescription);
+        readerRegistration.registerMetric("overlap", overlappingMetric);
+        final Resource parallelResource = Resource.Factory.create();
+        rootResource.registerChild(parallelTest, parallelResource);
+        for (int i = 0; i < OVERLAPPING_READS; i++) {
+            parallelRegistration.registerMetric("overlap" + i, overlappingMetric);
+            parallelResource.registerChild(PathElement.pathElement("reader", "reader" + i), Resource.Factory.create());
+        }
+    }
+
+    @Test
+    public void testRecursiveRead() throws Exception {
+        ModelNode operation = createOperation(READ_RESOURCE_OPERATION);
+        operation.get(RECURSIVE).set(true);
+        final ModelNode expected = executeForResult(operation);
+
+        operation.get(PARALLEL).set(true);
+        assertEquals(expected, executeForResult(operation));
+
+        operation = createOperation(READ_RESOURCE_OPERATION, "profile", "profileA", "subsystem", "subsystem1");
+        operation.get(RECURSIVE).set(true);
+        operation.get(PARALLEL).set(true);
+        checkRecursiveSubsystem1(executeForResult(operation));
+    }
+
+    /**
+     * The children must be read from the model of the operation, including its uncommitted changes.
+     */
+    @Test
+    public void testReadOwnChanges() throws Exception {
+        final ModelNode result = executeForResult(createOperation(WRITE_AND_READ));
+        assertEquals(42, result.get(RESULT, "profile", "profileA", "subsystem", "subsystem1", "read-write").asInt());
+
+        final ModelNode operation = createOperation(READ_RESOURCE_OPERATION);
+        operation.get(RECURSIVE).set(true);
+        final ModelNode expected = executeForResult(operation);
+        assertEquals(expected, result.get(RESULT));
+    }
+
+    @Test
+    public void testReadRuntimeAttributes() throws Exception {
+        final ModelNode operation = createOperation(READ_RESOURCE_OPERATION, "profile", "profileA", "subsystem", "subsystem1");
+        operation.get(RECURSIVE).set(true);
+        operation.get(INCLUDE_RUNTIME).set(true);
+        final ModelNode expected = executeForResult(operation);
+
+        operation.get(PARALLEL).set(true);
+        final ModelNode result = executeForResult(operation);
+        assertTrue(result.get("metric1").isDefined());
+        assertTrue(result.get("metric2").isDefined());
+        // the metrics return random values
+        for (String name : new String[] {"metric1", "metric2"}) {
+            expected.remove(name);
+            result.remove(name);
+        }
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testReadChildrenResources() throws Exception {
+        final ModelNode operation = createOperation(READ_CHILDREN_RESOURCES_OPERATION, "profile", "profileA");
+        operation.get(CHILD_TYPE).set("subsystem");
+        operation.get(RECURSIVE).set(true);
+        final ModelNode expected = executeForResult(operation);
+
+        operation.get(PARALLEL).set(true);
+        assertEquals(expected, executeForResult(operation));
+    }
+
+    @Test
+    public void testRuntimeAttributesOverlap() throws Exception {
+        overlap = new CountDownLatch(OVERLAPPING_READS);
+        final ModelNode operation = createOperation(READ_RESOURCE_OPERATION, "parallel", "test");
+        operation.get(INCLUDE_RUNTIME).set(true);
+        operation.get(PARALLEL).set(true);
+        final ModelNode result = executeForResult(operation);
+        for (int i = 0; i < OVERLAPPING_READS; i++) {
+            assertTrue(result.get("overlap" + i).asBoolean());
+        }
+    }
+
+    @Test
+    public void testRuntimeChildrenOverlap() throws Exception {
+        overlap = new CountDownLatch(OVERLAPPING_READS);
+        final ModelNode operation = createOperation(READ_CHILDREN_RESOURCES_OPERATION, "parallel", "test");
+        operation.get(CHILD_TYPE).set("reader");
+        operation.get(INCLUDE_RUNTIME).set(true);
+        operation.get(PARALLEL).set(true);
+        final ModelNode result = executeForResult(operation);
+        assertEquals(OVERLAPPING_READS, result.keys().size());
+        for (int i = 0; i < OVERLAPPING_READS; i++) {
+            assertTrue(result.get("reader" + i, "overlap").asBoolean());
+        }
+    }
+}
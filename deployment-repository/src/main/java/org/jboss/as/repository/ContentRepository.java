@@ -22,16 +22,22 @@
 
 package org.jboss.as.repository;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceName;
@@ -117,8 +123,13 @@ public interface ContentRepository {
         private static class ContentRepositoryImpl implements ContentRepository, Service<ContentRepository> {
 
             protected static final String CONTENT = "content";
+            private static final int BUFFER_SIZE = 64 * 1024;
             private final File repoRoot;
-            protected final MessageDigest messageDigest;
+            /**
+             * The locks of the hashes currently being added or removed, so that content uploaded concurrently
+             * by several clients is only stored once. A lock is removed as soon as no thread references it anymore.
+             */
+            private final ConcurrentMap<String, ContentLock> contentLocks = new ConcurrentHashMap<String, ContentLock>();
 
             protected ContentRepositoryImpl(final File repoRoot) {
                 if (repoRoot == null)
@@ -136,8 +147,13 @@ public interface ContentRepository {
                 }
                 this.repoRoot = repoRoot;
 
+                // fail fast if SHA-1 is not available
+                createMessageDigest();
+            }
+
+            protected MessageDigest createMessageDigest() {
                 try {
-                    this.messageDigest = MessageDigest.getInstance("SHA-1");
+                    return MessageDigest.getInstance("SHA-1");
                 } catch (NoSuchAlgorithmException e) {
                     throw DeploymentRepositoryMessages.MESSAGES.cannotObtainSha1(e, MessageDigest.class.getSimpleName());
                 }
@@ -145,39 +161,49 @@ public interface ContentRepository {
 
             @Override
             public byte[] addContent(InputStream stream) throws IOException {
-                byte[] sha1Bytes;
-                File tmp = File.createTempFile(CONTENT, "tmp", repoRoot);
+                // each upload uses its own digest, so concurrent uploads are hashed in parallel
+                final MessageDigest messageDigest = createMessageDigest();
+                final File tmp = File.createTempFile(CONTENT, "tmp", repoRoot);
+                boolean ok = false;
                 FileOutputStream fos = new FileOutputStream(tmp);
-                synchronized (messageDigest) {
-                    messageDigest.reset();
-                    try {
-                        DigestOutputStream dos = new DigestOutputStream(fos, messageDigest);
-                        BufferedInputStream bis = new BufferedInputStream(stream);
-                        byte[] bytes = new byte[8192];
-                        int read;
-                        while ((read = bis.read(bytes)) > -1) {
-                            dos.write(bytes, 0, read);
+                try {
+                    final FileChannel out = fos.getChannel();
+                    final ReadableByteChannel in = Channels.newChannel(stream);
+                    final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                    while (in.read(buffer) > -1) {
+                        buffer.flip();
+                        messageDigest.update(buffer);
+                        buffer.rewind();
+                        while (buffer.hasRemaining()) {
+                            out.write(buffer);
                         }
-                        fos.flush();
-                        fos.getFD().sync();
-                        fos.close();
-                        fos = null;
+                        buffer.clear();
                     }
-                    finally {
-                        safeClose(fos);
+                    out.force(false);
+                    fos.close();
+                    fos = null;
+                    ok = true;
+                } finally {
+                    safeClose(fos);
+                    if (!ok) {
+                        deleteTempFile(tmp);
                     }
-                    sha1Bytes = messageDigest.digest();
                 }
-                final File realFile = getDeploymentContentFile(sha1Bytes, true);
-                if(hasContent(sha1Bytes)) {
-                    // we've already got this content
-                    if (!tmp.delete()) {
-                        tmp.deleteOnExit();
+                final byte[] sha1Bytes = messageDigest.digest();
+
+                final ContentLock lock = lockContent(sha1Bytes);
+                try {
+                    final File realFile = getDeploymentContentFile(sha1Bytes, true);
+                    if(hasContent(sha1Bytes)) {
+                        // we've already got this content
+                        deleteTempFile(tmp);
+                        DeploymentRepositoryLogger.ROOT_LOGGER.debugf("Content was already present in repository at location %s", realFile.getAbsolutePath());
+                    } else {
+                        moveTempToPermanent(tmp, realFile);
+                        DeploymentRepositoryLogger.ROOT_LOGGER.contentAdded(realFile.getAbsolutePath());
                     }
-                    DeploymentRepositoryLogger.ROOT_LOGGER.debugf("Content was already present in repository at location %s", realFile.getAbsolutePath());
-                } else {
-                    moveTempToPermanent(tmp, realFile);
-                    DeploymentRepositoryLogger.ROOT_LOGGER.contentAdded(realFile.getAbsolutePath());
+                } finally {
+                    unlockContent(lock);
                 }
 
                 return sha1Bytes;
@@ -222,7 +248,8 @@ public interface ContentRepository {
                     validateDir(base);
                 }
                 final File hashDir = new File(base, partB);
-                if (validate && !hashDir.exists() && !hashDir.mkdirs()) {
+                // another thread may be creating the same directory
+                if (validate && !hashDir.exists() && !hashDir.mkdirs() && !hashDir.isDirectory()) {
                     throw DeploymentRepositoryMessages.MESSAGES.cannotCreateDirectory(hashDir.getAbsolutePath());
                 }
                 return hashDir;
@@ -230,7 +257,7 @@ public interface ContentRepository {
 
             protected void validateDir(File dir) {
                 if (!dir.exists()) {
-                    if (!dir.mkdirs()) {
+                    if (!dir.mkdirs() && !dir.isDirectory()) {
                         throw DeploymentRepositoryMessages.MESSAGES.cannotCreateDirectory(dir.getAbsolutePath());
                     }
                 } else if (!dir.isDirectory()) {
@@ -265,11 +292,9 @@ public interface ContentRepository {
                         throw e;
 
                     } finally {
-                        if (!tmpFile.delete()) {
-                            tmpFile.deleteOnExit();
-                        }
-                        if (localTmp.exists() && !localTmp.delete()) {
-                            localTmp.deleteOnExit();
+                        deleteTempFile(tmpFile);
+                        if (localTmp.exists()) {
+                            deleteTempFile(localTmp);
                         }
                     }
                 }
@@ -281,13 +306,14 @@ public interface ContentRepository {
                 try {
                     fos = new FileOutputStream(dest);
                     fis = new FileInputStream(src);
-                    byte[] bytes = new byte[8192];
-                    int read;
-                    while ((read = fis.read(bytes)) > -1) {
-                        fos.write(bytes, 0, read);
+                    final FileChannel in = fis.getChannel();
+                    final FileChannel out = fos.getChannel();
+                    final long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
                     }
-                    fos.flush();
-                    fos.getFD().sync();
+                    out.force(false);
                     fos.close();
                     fos = null;
                 } finally {
@@ -296,23 +322,60 @@ public interface ContentRepository {
                 }
             }
 
-            @Override
-            public void removeContent(byte[] hash) {
-                File file = getDeploymentContentFile(hash, true);
-                if(!file.delete()) {
+            private static void deleteTempFile(final File file) {
+                if (!file.delete()) {
                     file.deleteOnExit();
                 }
-                File parent = file.getParentFile();
-                if (!parent.delete()) {
-                    parent.deleteOnExit();
+            }
+
+            private ContentLock lockContent(final byte[] hash) {
+                final String key = HashUtil.bytesToHexString(hash);
+                for (;;) {
+                    ContentLock lock = contentLocks.get(key);
+                    if (lock == null) {
+                        final ContentLock newLock = new ContentLock(key);
+                        lock = contentLocks.putIfAbsent(key, newLock);
+                        if (lock == null) {
+                            lock = newLock;
+                        }
+                    }
+                    if (lock.retain()) {
+                        lock.lock();
+                        return lock;
+                    }
+                    // the lock has just been released by its last user, and is about to be removed
+                }
+            }
+
+            private void unlockContent(final ContentLock lock) {
+                lock.unlock();
+                if (lock.release()) {
+                    contentLocks.remove(lock.key, lock);
                 }
-                parent = parent.getParentFile();
-                if (parent.list().length == 0) {
+            }
+
+            @Override
+            public void removeContent(byte[] hash) {
+                final ContentLock lock = lockContent(hash);
+                try {
+                    File file = getDeploymentContentFile(hash, true);
+                    if(!file.delete()) {
+                        file.deleteOnExit();
+                    }
+                    File parent = file.getParentFile();
                     if (!parent.delete()) {
                         parent.deleteOnExit();
                     }
+                    parent = parent.getParentFile();
+                    if (parent.list().length == 0) {
+                        if (!parent.delete()) {
+                            parent.deleteOnExit();
+                        }
+                    }
+                    DeploymentRepositoryLogger.ROOT_LOGGER.contentRemoved(file.getAbsolutePath());
+                } finally {
+                    unlockContent(lock);
                 }
-                DeploymentRepositoryLogger.ROOT_LOGGER.contentRemoved(file.getAbsolutePath());
             }
 
             protected static void safeClose(final Closeable closeable) {
@@ -339,6 +402,43 @@ public interface ContentRepository {
             public ContentRepository getValue() throws IllegalStateException, IllegalArgumentException {
                 return this;
             }
+
+            /**
+             * A lock on a content hash, reference counted by the threads adding or removing that content.
+             */
+            private static final class ContentLock extends ReentrantLock {
+
+                private static final long serialVersionUID = 1L;
+
+                private final String key;
+                /**
+                 * The number of threads holding or waiting for this lock, or -1 once the lock has been discarded
+                 */
+                private final AtomicInteger references = new AtomicInteger();
+
+                private ContentLock(final String key) {
+                    this.key = key;
+                }
+
+                private boolean retain() {
+                    for (;;) {
+                        final int current = references.get();
+                        if (current < 0) {
+                            return false;
+                        }
+                        if (references.compareAndSet(current, current + 1)) {
+                            return true;
+                        }
+                    }
+                }
+
+                /**
+                 * @return {@code true} if this was the last reference, in which case the lock must be discarded
+                 */
+                private boolean release() {
+                    return references.decrementAndGet() == 0 && references.compareAndSet(0, -1);
+                }
+            }
         }
 
     }
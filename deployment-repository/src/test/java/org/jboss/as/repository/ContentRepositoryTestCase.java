@@ -0,0 +1,233 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the default {@link ContentRepository}, including concurrent uploads.
+ */
+public class ContentRepositoryTestCase {
+
+    private static final int UPLOADS = 16;
+    private static final long UPLOAD_SIZE = 4 * 1024 * 1024;
+
+    private File root;
+    private ContentRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("content", "repository");
+        assertTrue(root.delete());
+        repository = ContentRepository.Factory.create(root);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(root);
+    }
+
+    @Test
+    public void testAddContent() throws Exception {
+        final byte[] content = "some content".getBytes("UTF-8");
+        final byte[] hash = repository.addContent(new ByteArrayInputStream(content));
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(content), hash);
+        assertTrue(repository.hasContent(hash));
+        assertArrayEquals(content, read(getContentFile(hash)));
+        assertEquals("temporary files must be removed", 1, root.list().length);
+
+        // adding the same content again keeps the existing file
+        assertArrayEquals(hash, repository.addContent(new ByteArrayInputStream(content)));
+        assertArrayEquals(content, read(getContentFile(hash)));
+        assertEquals(1, root.list().length);
+    }
+
+    @Test
+    public void testRemoveContent() throws Exception {
+        final byte[] hash = repository.addContent(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+        assertTrue(repository.hasContent(hash));
+        repository.removeContent(hash);
+        assertFalse(repository.hasContent(hash));
+        assertEquals(0, root.list().length);
+    }
+
+    /**
+     * Uploads the same content from several threads at the same time, it must be stored exactly once.
+     */
+    @Test
+    public void testConcurrentIdenticalUploads() throws Exception {
+        final byte[] content = new byte[1024 * 1024];
+        new Random(1).nextBytes(content);
+        final byte[] expected = MessageDigest.getInstance("SHA-1").digest(content);
+        final List<Future<byte[]>> results = upload(new UploadFactory() {
+            public InputStream create(int upload) {
+                return new ByteArrayInputStream(content);
+            }
+        });
+        for (Future<byte[]> result : results) {
+            assertArrayEquals(expected, result.get());
+        }
+        assertArrayEquals(content, read(getContentFile(expected)));
+        assertEquals(1, root.list().length);
+        assertEquals(1, getContentFile(expected).getParentFile().list().length);
+    }
+
+    /**
+     * Uploads {@value #UPLOADS} different archives in parallel, each must be stored completely.
+     */
+    @Test
+    public void testConcurrentDistinctUploads() throws Exception {
+        final List<Future<byte[]>> results = upload(new UploadFactory() {
+            public InputStream create(int upload) {
+                return new GeneratedInputStream(upload, UPLOAD_SIZE);
+            }
+        });
+        for (Future<byte[]> result : results) {
+            final byte[] hash = result.get();
+            assertTrue(repository.hasContent(hash));
+            assertEquals(UPLOAD_SIZE, getContentFile(hash).length());
+        }
+        assertEquals(UPLOADS, countContent());
+    }
+
+    private List<Future<byte[]>> upload(final UploadFactory factory) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(UPLOADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < UPLOADS; i++) {
+                final int upload = i;
+                results.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        start.await();
+                        return repository.addContent(factory.create(upload));
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<byte[]> result : results) {
+                result.get(10, TimeUnit.MINUTES);
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int countContent() {
+        int count = 0;
+        for (File dir : root.listFiles()) {
+            count += dir.list().length;
+        }
+        return count;
+    }
+
+    private File getContentFile(final byte[] hash) {
+        final String sha1 = HashUtil.bytesToHexString(hash);
+        return new File(new File(new File(root, sha1.substring(0, 2)), sha1.substring(2)), "content");
+    }
+
+    private static byte[] read(final File file) throws IOException {
+        final byte[] bytes = new byte[(int) file.length()];
+        final InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = in.read(bytes, offset, bytes.length - offset)) > -1) {
+                offset += read;
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private interface UploadFactory {
+        InputStream create(int upload);
+    }
+
+    /**
+     * A stream of pseudo random bytes which are generated on the fly, so large uploads do not use any memory.
+     */
+    private static final class GeneratedInputStream extends InputStream {
+
+        private final Random random;
+        private final byte[] block = new byte[8192];
+        private long remaining;
+
+        private GeneratedInputStream(final long seed, final long size) {
+            this.random = new Random(seed);
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            final int count = (int) Math.min(Math.min(len, block.length), remaining);
+            random.nextBytes(block);
+            System.arraycopy(block, 0, b, off, count);
+            remaining -= count;
+            return count;
+        }
+    }
+}
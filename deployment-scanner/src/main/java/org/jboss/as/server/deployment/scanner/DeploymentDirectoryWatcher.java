@@ -0,0 +1,313 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.scanner;
+
+import static org.jboss.as.server.deployment.scanner.DeploymentScannerLogger.ROOT_LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches a deployment directory tree for created, modified and deleted files.
+ * <p/>
+ * The events are delivered by the {@code java.nio.file.WatchService} of the JVM. As the deployment scanner still
+ * runs on Java SE 6, that API is accessed reflectively and {@link #create(File, Callback)} returns {@code null} on
+ * a JVM which does not provide it.
+ */
+final class DeploymentDirectoryWatcher implements Runnable {
+
+    /**
+     * Notified by the watcher thread.
+     */
+    interface Callback {
+
+        /**
+         * Whether a directory of the watched tree must itself be watched.
+         */
+        boolean isWatched(File directory);
+
+        /**
+         * Called once changes have been recorded, they can be collected with {@link #drainChanges()}.
+         */
+        void changed();
+    }
+
+    private static final WatchApi API = WatchApi.load();
+
+    private final Object watchService;
+    private final Callback callback;
+    /**
+     * The directory of each registered watch key
+     */
+    private final Map<Object, File> directories = new ConcurrentHashMap<Object, File>();
+    /**
+     * The files changed since the last call to drainChanges(), guarded by this
+     */
+    private Set<File> changes = new HashSet<File>();
+    /**
+     * Whether events were lost since the last call to drainChanges(), guarded by this
+     */
+    private boolean overflow;
+    private final Thread thread;
+
+    private DeploymentDirectoryWatcher(final Object watchService, final Callback callback, final File root) {
+        this.watchService = watchService;
+        this.callback = callback;
+        this.thread = new Thread(this, "DeploymentScanner-watch " + root.getName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching a directory tree.
+     *
+     * @param root     the root of the tree
+     * @param callback the callback
+     * @return the watcher, or {@code null} if the tree cannot be watched
+     */
+    static DeploymentDirectoryWatcher create(final File root, final Callback callback) {
+        if (API == null) {
+            ROOT_LOGGER.cannotWatchDirectory(null, root.getAbsolutePath());
+            return null;
+        }
+        Object watchService = null;
+        try {
+            watchService = API.newWatchService();
+            final DeploymentDirectoryWatcher watcher = new DeploymentDirectoryWatcher(watchService, callback, root);
+            watcher.registerTree(root);
+            watcher.thread.start();
+            return watcher;
+        } catch (Exception e) {
+            ROOT_LOGGER.cannotWatchDirectory(e, root.getAbsolutePath());
+            if (watchService != null) {
+                API.close(watchService);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns and forgets the files changed since the previous call.
+     *
+     * @return the changed files, or {@code null} if events were lost and the whole tree must be scanned
+     */
+    synchronized Set<File> drainChanges() {
+        if (overflow) {
+            overflow = false;
+            changes.clear();
+            return null;
+        }
+        final Set<File> result = changes;
+        changes = new HashSet<File>();
+        return result;
+    }
+
+    /**
+     * Stops watching.
+     */
+    void close() {
+        API.close(watchService);
+    }
+
+    @Override
+    public void run() {
+        for (;;) {
+            final Object key;
+            try {
+                key = API.take(watchService);
+            } catch (Exception e) {
+                // the watch service was closed
+                return;
+            }
+            final File directory = directories.get(key);
+            if (directory != null) {
+                synchronized (this) {
+                    for (Object event : API.pollEvents(key)) {
+                        final Object kind = API.kind(event);
+                        if (kind == API.overflow) {
+                            overflow = true;
+                            continue;
+                        }
+                        final File file = new File(directory, API.context(event).toString());
+                        changes.add(file);
+                        if (kind == API.entryCreate && file.isDirectory() && callback.isWatched(file)) {
+                            try {
+                                registerTree(file);
+                            } catch (IOException e) {
+                                ROOT_LOGGER.debugf(e, "Cannot watch %s", file);
+                                overflow = true;
+                            }
+                        }
+                    }
+                }
+            }
+            if (!API.reset(key)) {
+                // the directory is gone
+                directories.remove(key);
+            }
+            callback.changed();
+        }
+    }
+
+    private void registerTree(final File directory) throws IOException {
+        directories.put(API.register(directory, watchService), directory);
+        final File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory() && callback.isWatched(child)) {
+                    registerTree(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reflective access to the {@code java.nio.file} watch service API.
+     */
+    private static final class WatchApi {
+
+        private final Method toPath;
+        private final Object fileSystem;
+        private final Method newWatchService;
+        private final Method register;
+        private final Object kinds;
+        private final Method take;
+        private final Method close;
+        private final Method pollEvents;
+        private final Method reset;
+        private final Method kind;
+        private final Method context;
+        private final Object entryCreate;
+        private final Object overflow;
+
+        private WatchApi() throws Exception {
+            final Class<?> fileSystems = Class.forName("java.nio.file.FileSystems");
+            final Class<?> fileSystemClass = Class.forName("java.nio.file.FileSystem");
+            final Class<?> path = Class.forName("java.nio.file.Path");
+            final Class<?> watchService = Class.forName("java.nio.file.WatchService");
+            final Class<?> watchKey = Class.forName("java.nio.file.WatchKey");
+            final Class<?> watchEvent = Class.forName("java.nio.file.WatchEvent");
+            final Class<?> kindClass = Class.forName("java.nio.file.WatchEvent$Kind");
+            final Class<?> standardKinds = Class.forName("java.nio.file.StandardWatchEventKinds");
+
+            toPath = File.class.getMethod("toPath");
+            fileSystem = fileSystems.getMethod("getDefault").invoke(null);
+            newWatchService = fileSystemClass.getMethod("newWatchService");
+            final Object kindArray = Array.newInstance(kindClass, 3);
+            entryCreate = standardKinds.getField("ENTRY_CREATE").get(null);
+            Array.set(kindArray, 0, entryCreate);
+            Array.set(kindArray, 1, standardKinds.getField("ENTRY_DELETE").get(null));
+            Array.set(kindArray, 2, standardKinds.getField("ENTRY_MODIFY").get(null));
+            kinds = kindArray;
+            overflow = standardKinds.getField("OVERFLOW").get(null);
+            register = path.getMethod("register", watchService, kindArray.getClass());
+            take = watchService.getMethod("take");
+            close = watchService.getMethod("close");
+            pollEvents = watchKey.getMethod("pollEvents");
+            reset = watchKey.getMethod("reset");
+            kind = watchEvent.getMethod("kind");
+            context = watchEvent.getMethod("context");
+        }
+
+        static WatchApi load() {
+            try {
+                return new WatchApi();
+            } catch (Exception e) {
+                // not available on this JVM
+                return null;
+            }
+        }
+
+        Object newWatchService() throws IOException {
+            return invoke(newWatchService, fileSystem);
+        }
+
+        Object register(final File directory, final Object watchService) throws IOException {
+            return invoke(register, invoke(toPath, directory), watchService, kinds);
+        }
+
+        Object take(final Object watchService) throws IOException {
+            return invoke(take, watchService);
+        }
+
+        void close(final Object watchService) {
+            try {
+                invoke(close, watchService);
+            } catch (IOException ignore) {
+                //
+            }
+        }
+
+        List<?> pollEvents(final Object key) {
+            return (List<?>) invokeUnchecked(pollEvents, key);
+        }
+
+        boolean reset(final Object key) {
+            return (Boolean) invokeUnchecked(reset, key);
+        }
+
+        Object kind(final Object event) {
+            return invokeUnchecked(kind, event);
+        }
+
+        Object context(final Object event) {
+            return invokeUnchecked(context, event);
+        }
+
+        private static Object invoke(final Method method, final Object target, final Object... args) throws IOException {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                // InterruptedException
+                throw new IOException(cause);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static Object invokeUnchecked(final Method method, final Object target) {
+            try {
+                return invoke(method, target);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -47,6 +47,7 @@ import org.jboss.as.controller.ServiceVerificationHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.server.deployment.scanner.api.ScanMode;
 import org.jboss.dmr.ModelNode;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceTarget;
@@ -62,6 +63,7 @@ import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition
 import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.RELATIVE_TO;
 import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.SCAN_ENABLED;
 import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.SCAN_INTERVAL;
+import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.SCAN_MODE;
 
 /**
  * Operation adding a new {@link DeploymentScannerService}.
@@ -103,6 +105,7 @@ class DeploymentScannerAdd implements OperationStepHandler {
             final Boolean autoDeployXml = AUTO_DEPLOY_XML.resolveModelAttribute(context, operation).asBoolean();
             final Long deploymentTimeout = DEPLOYMENT_TIMEOUT.resolveModelAttribute(context, operation).asLong();
             final Integer scanInterval = SCAN_INTERVAL.resolveModelAttribute(context, operation).asInt();
+            final ScanMode scanMode = ScanMode.forName(SCAN_MODE.resolveModelAttribute(context, operation).asString());
 
             final ThreadFactory threadFactory = new JBossThreadFactory(new ThreadGroup("DeploymentScanner-threads"), Boolean.FALSE, null, "%G - %t", null, null, AccessController.getContext());
             final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(2, threadFactory);
@@ -125,6 +128,7 @@ class DeploymentScannerAdd implements OperationStepHandler {
                 if (scanInterval != null) {
                     bootTimeScanner.setScanInterval(scanInterval);
                 }
+                bootTimeScanner.setScanMode(scanMode);
             } else {
                 bootTimeScanner = null;
             }
@@ -217,13 +221,14 @@ class DeploymentScannerAdd implements OperationStepHandler {
         final String path = DeploymentScannerDefinition.PATH.resolveModelAttribute(context, operation).asString();
         final Boolean enabled = SCAN_ENABLED.resolveModelAttribute(context, operation).asBoolean();
         final Integer interval = SCAN_INTERVAL.resolveModelAttribute(context, operation).asInt();
+        final ScanMode scanMode = ScanMode.forName(SCAN_MODE.resolveModelAttribute(context, operation).asString());
         final String relativeTo = operation.hasDefined(CommonAttributes.RELATIVE_TO) ? RELATIVE_TO.resolveModelAttribute(context, operation).asString() : null;
         final Boolean autoDeployZip = AUTO_DEPLOY_ZIPPED.resolveModelAttribute(context, operation).asBoolean();
         final Boolean autoDeployExp = AUTO_DEPLOY_EXPLODED.resolveModelAttribute(context, operation).asBoolean();
         final Boolean autoDeployXml = AUTO_DEPLOY_XML.resolveModelAttribute(context, operation).asBoolean();
         final Long deploymentTimeout = DEPLOYMENT_TIMEOUT.resolveModelAttribute(context, operation).asLong();
         final ServiceTarget serviceTarget = context.getServiceTarget();
-        DeploymentScannerService.addService(serviceTarget, name, relativeTo, path, interval, TimeUnit.MILLISECONDS,
+        DeploymentScannerService.addService(serviceTarget, name, relativeTo, path, interval, TimeUnit.MILLISECONDS, scanMode,
                 autoDeployZip, autoDeployExp, autoDeployXml, enabled, deploymentTimeout, newControllers, bootTimeScanner, executorService, verificationHandler);
 
     }
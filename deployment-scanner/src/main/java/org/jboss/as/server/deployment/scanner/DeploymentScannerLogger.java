@@ -237,4 +237,15 @@ public interface DeploymentScannerLogger extends BasicLogger {
     @LogMessage(level = ERROR)
     @Message(id = 15016, value = "Initial deployment scan failed")
     void initialScanFailed(@Cause Throwable t);
+
+    /**
+     * Logs a warning message indicating that the directory cannot be watched for file system events, and that it
+     * will be periodically scanned instead.
+     *
+     * @param cause     the cause of the error, may be {@code null}.
+     * @param directory the deployment directory.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 15017, value = "Cannot watch %s for file system events, scanning it periodically instead")
+    void cannotWatchDirectory(@Cause Throwable cause, String directory);
 }
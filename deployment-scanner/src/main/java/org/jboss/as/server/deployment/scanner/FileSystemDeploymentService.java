@@ -30,14 +30,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
@@ -54,6 +57,7 @@ import org.jboss.as.server.deployment.DeploymentRemoveHandler;
 import org.jboss.as.server.deployment.DeploymentUndeployHandler;
 import org.jboss.as.server.deployment.scanner.ZipCompletionScanner.NonScannableZipException;
 import org.jboss.as.server.deployment.scanner.api.DeploymentScanner;
+import org.jboss.as.server.deployment.scanner.api.ScanMode;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.Property;
 import org.jboss.msc.service.ServiceController;
@@ -94,6 +98,12 @@ class FileSystemDeploymentService implements DeploymentScanner {
     static final String SKIP_DEPLOY = ".skipdeploy";
     static final String PENDING = ".pending";
 
+    /**
+     * The suffixes of the files which can be found next to a deployment, the deployment itself first
+     */
+    private static final String[] DEPLOYMENT_SUFFIXES = {"", DEPLOYED, FAILED_DEPLOY, DO_DEPLOY, DEPLOYING, UNDEPLOYING,
+            UNDEPLOYED, SKIP_DEPLOY, PENDING};
+
     static final String WEB_INF = "WEB-INF";
     static final String META_INF = "META-INF";
 
@@ -107,8 +117,27 @@ class FileSystemDeploymentService implements DeploymentScanner {
      */
     static final long DEFAULT_DEPLOYMENT_TIMEOUT = 600;
 
+    /**
+     * Delay in ms between a file system event and the scan it triggers, so that bursts of events are handled by
+     * a single scan
+     */
+    static final long WATCH_SCAN_DELAY = 100;
+
+    /**
+     * Minimum delay in ms between the full scans of a watched directory. They only pick up changes whose file system
+     * events were lost, e.g. on network file systems or after an event queue overflow
+     */
+    static final long WATCH_FULL_SCAN_INTERVAL = 60000;
+
     private File deploymentDir;
     private long scanInterval = 0;
+    private volatile ScanMode scanMode = ScanMode.POLLING;
+    private volatile DeploymentDirectoryWatcher watcher;
+    /**
+     * Whether the next scan must scan the whole directory even though the directory is watched
+     */
+    private volatile boolean fullScanRequired;
+    private final AtomicBoolean watchScanScheduled = new AtomicBoolean();
     private volatile boolean scanEnabled = false;
     private volatile boolean firstScan = true;
     private ScheduledFuture<?> scanTask;
@@ -152,6 +181,35 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
     private final DeploymentScanRunnable scanRunnable = new DeploymentScanRunnable();
 
+    private final Runnable fullScanRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            fullScanRequired = true;
+            scanRunnable.run();
+        }
+    };
+
+    private final DeploymentDirectoryWatcher.Callback watchCallback = new DeploymentDirectoryWatcher.Callback() {
+
+        @Override
+        public boolean isWatched(final File directory) {
+            return isWatchedDirectory(directory);
+        }
+
+        @Override
+        public void changed() {
+            if (watchScanScheduled.compareAndSet(false, true)) {
+                try {
+                    scheduledExecutor.schedule(scanRunnable, WATCH_SCAN_DELAY, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // the scanner is being stopped
+                    watchScanScheduled.set(false);
+                }
+            }
+        }
+    };
+
     FileSystemDeploymentService(final String relativeTo, final File deploymentDir, final File relativeToDir,
                                 final DeploymentOperations.Factory deploymentOperationsFactory, final ScheduledExecutorService scheduledExecutor)
             throws OperationFailedException {
@@ -208,7 +266,12 @@ class FileSystemDeploymentService implements DeploymentScanner {
         if (autoDeployExploded && !this.autoDeployExploded) {
             ROOT_LOGGER.explodedAutoDeploymentContentWarning(DO_DEPLOY, CommonAttributes.AUTO_DEPLOY_EXPLODED);
         }
+        final boolean changed = autoDeployExploded != this.autoDeployExploded;
         this.autoDeployExploded = autoDeployExploded;
+        if (changed && scanMode == ScanMode.WATCH) {
+            // the content of exploded deployments is only watched if it is auto-deployed
+            restartScan();
+        }
     }
 
     @Override
@@ -240,6 +303,20 @@ class FileSystemDeploymentService implements DeploymentScanner {
         startScan();
     }
 
+    @Override
+    public ScanMode getScanMode() {
+        return scanMode;
+    }
+
+    @Override
+    public synchronized void setScanMode(ScanMode scanMode) {
+        if (scanMode != this.scanMode) {
+            cancelScan();
+            this.scanMode = scanMode;
+            startScan();
+        }
+    }
+
     @Override
     public void setDeploymentTimeout(long deploymentTimeout) {
         this.deploymentTimeout = deploymentTimeout;
@@ -353,14 +430,19 @@ class FileSystemDeploymentService implements DeploymentScanner {
         boolean scheduleRescan = false;
         try {
             if (scanEnabled || oneOffScan) { // confirm the scan is still wanted
+                final Map<File, Set<String>> changedEntries = oneOffScan ? null : getChangedEntries();
+                if (changedEntries != null && changedEntries.isEmpty()) {
+                    ROOT_LOGGER.tracef("No changes in directory %s", deploymentDir.getAbsolutePath());
+                    return;
+                }
                 ROOT_LOGGER.tracef("Scanning directory %s for deployment content changes", deploymentDir.getAbsolutePath());
 
-                ScanContext scanContext = new ScanContext(deploymentOperations);
+                ScanContext scanContext = new ScanContext(deploymentOperations, changedEntries);
                 scanDirectory(deploymentDir, relativePath, scanContext);
 
                 // WARN about markers with no associated content. Do this first in case any auto-deploy issue
                 // is due to a file that wasn't meant to be auto-deployed, but has a misspelled marker
-                ignoredMissingDeployments.retainAll(scanContext.ignoredMissingDeployments);
+                retainScanned(ignoredMissingDeployments, scanContext.ignoredMissingDeployments, scanContext);
                 for (String deploymentName : scanContext.ignoredMissingDeployments) {
                     if (ignoredMissingDeployments.add(deploymentName)) {
                         ROOT_LOGGER.deploymentNotFound(deploymentName);
@@ -368,7 +450,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log INFO about non-auto-deploy files that have no marker files
-                noticeLogged.retainAll(scanContext.nonDeployable);
+                retainScanned(noticeLogged, scanContext.nonDeployable, scanContext);
                 for (String fileName : scanContext.nonDeployable) {
                     if (noticeLogged.add(fileName)) {
                         ROOT_LOGGER.deploymentTriggered(fileName, DO_DEPLOY);
@@ -376,7 +458,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log ERROR about META-INF and WEB-INF dirs outside a deployment
-                illegalDirLogged.retainAll(scanContext.illegalDir);
+                retainScanned(illegalDirLogged, scanContext.illegalDir, scanContext);
                 for (String fileName : scanContext.illegalDir) {
                     if (illegalDirLogged.add(fileName)) {
                         ROOT_LOGGER.invalidExplodedDeploymentDirectory(fileName, deploymentDir.getAbsolutePath());
@@ -384,7 +466,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log about deleting exploded deployments without first triggering undeploy by deleting .deployed
-                prematureExplodedContentDeletionLogged.retainAll(scanContext.prematureExplodedDeletions);
+                retainScanned(prematureExplodedContentDeletionLogged, scanContext.prematureExplodedDeletions, scanContext);
                 for (String fileName : scanContext.prematureExplodedDeletions) {
                     if (prematureExplodedContentDeletionLogged.add(fileName)) {
                         ROOT_LOGGER.explodedDeploymentContentDeleted(fileName, DEPLOYED);
@@ -394,7 +476,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 // Deal with any incomplete or non-scannable auto-deploy content
                 ScanStatus status = handleAutoDeployFailures(scanContext);
                 if (status != ScanStatus.PROCEED) {
-                    if (status == ScanStatus.RETRY && scanInterval > 1000) {
+                    if (status == ScanStatus.RETRY && (scanInterval > 1000 || watcher != null)) {
                         // in finally block, schedule a non-repeating task to try again more quickly
                         scheduleRescan = true;
                     }
@@ -497,7 +579,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
      * @param scanContext context of the scan
      */
     private void scanDirectory(final File directory, final String relativePath, final ScanContext scanContext) {
-        final File[] children = directory.listFiles(filter);
+        final File[] children = listChildren(directory, scanContext);
         if (children == null) {
             return;
         }
@@ -638,6 +720,136 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    /**
+     * Lists the children of a directory which must be examined by the scan.
+     */
+    private File[] listChildren(final File directory, final ScanContext scanContext) {
+        if (scanContext.changedEntries == null) {
+            return directory.listFiles(filter);
+        }
+        final Set<String> names = scanContext.changedEntries.get(directory);
+        if (names == null) {
+            return null;
+        }
+        final List<File> children = new ArrayList<File>();
+        for (String name : names) {
+            for (String suffix : DEPLOYMENT_SUFFIXES) {
+                final File child = new File(directory, name + suffix);
+                if (child.exists() && filter.accept(child)) {
+                    children.add(child);
+                }
+            }
+        }
+        return children.toArray(new File[children.size()]);
+    }
+
+    /**
+     * Gets the entries changed since the previous scan, if the deployment directory is watched.
+     *
+     * @return the names of the changed deployments by directory, or {@code null} if the whole directory must be scanned
+     */
+    private Map<File, Set<String>> getChangedEntries() {
+        final DeploymentDirectoryWatcher watcher = this.watcher;
+        if (watcher == null) {
+            return null;
+        }
+        watchScanScheduled.set(false);
+        final Set<File> changes = watcher.drainChanges();
+        // incomplete and non-scannable content is tracked across scans, keep scanning everything until it is resolved
+        if (changes == null || fullScanRequired || firstScan || !incompleteDeployments.isEmpty() || !nonscannableLogged.isEmpty()) {
+            fullScanRequired = false;
+            return null;
+        }
+        final Map<File, Set<String>> changedEntries = new HashMap<File, Set<String>>();
+        for (File file : changes) {
+            final LinkedList<String> path = new LinkedList<String>();
+            File current = file;
+            while (current != null && !current.equals(deploymentDir)) {
+                path.addFirst(current.getName());
+                current = current.getParentFile();
+            }
+            if (current == null || path.isEmpty()) {
+                return null;
+            }
+            File directory = deploymentDir;
+            for (int i = 0; i < path.size(); i++) {
+                final String name = path.get(i);
+                final File child = new File(directory, name);
+                if (isEEArchive(name)) {
+                    // the deployment itself, or a file of an exploded deployment
+                    addChangedEntry(changedEntries, directory, name);
+                    break;
+                }
+                if (i == path.size() - 1) {
+                    final String deploymentName = getDeploymentName(name);
+                    if (child.isDirectory() || (!child.exists() && deploymentName.equals(name) && !isXmlFile(name))) {
+                        // a plain directory was added or possibly removed, its whole content has to be scanned
+                        return null;
+                    }
+                    addChangedEntry(changedEntries, directory, deploymentName);
+                } else {
+                    addChangedEntry(changedEntries, directory, name);
+                    directory = child;
+                }
+            }
+        }
+        return changedEntries;
+    }
+
+    private static void addChangedEntry(final Map<File, Set<String>> changedEntries, final File directory, final String name) {
+        Set<String> names = changedEntries.get(directory);
+        if (names == null) {
+            names = new HashSet<String>();
+            changedEntries.put(directory, names);
+        }
+        names.add(name);
+    }
+
+    /**
+     * @return the name of the deployment a marker file refers to, or the file name itself
+     */
+    private static String getDeploymentName(final String fileName) {
+        for (int i = 1; i < DEPLOYMENT_SUFFIXES.length; i++) {
+            final String suffix = DEPLOYMENT_SUFFIXES[i];
+            if (fileName.endsWith(suffix)) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        return fileName;
+    }
+
+    /**
+     * Forgets the logged entries the scan looked at but did not find anymore.
+     */
+    private static void retainScanned(final Set<String> logged, final Set<String> found, final ScanContext scanContext) {
+        if (scanContext.changedEntries == null) {
+            logged.retainAll(found);
+        } else {
+            for (Set<String> names : scanContext.changedEntries.values()) {
+                for (String name : names) {
+                    if (!found.contains(name)) {
+                        logged.remove(name);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a directory of the deployment directory tree must be watched for changes. The content of exploded
+     * deployments only matters if they are auto-deployed.
+     */
+    private boolean isWatchedDirectory(final File directory) {
+        File current = directory;
+        while (current != null && !current.equals(deploymentDir)) {
+            if (isEEArchive(current.getName())) {
+                return autoDeployExploded;
+            }
+            current = current.getParentFile();
+        }
+        return true;
+    }
+
     private boolean isXmlComplete(final File xmlFile) {
         try {
             return XmlCompletionScanner.isCompleteDocument(xmlFile);
@@ -835,7 +1047,19 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
     private synchronized void startScan() {
         if (scanEnabled) {
-            if (scanInterval > 0) {
+            if (scanMode == ScanMode.WATCH && watcher == null) {
+                watcher = DeploymentDirectoryWatcher.create(deploymentDir, watchCallback);
+            }
+            if (watcher != null) {
+                // scan everything once, then what the file system events report, with a periodic full scan in case
+                // events were lost
+                if (scanInterval > 0) {
+                    final long fullScanInterval = Math.max(scanInterval, WATCH_FULL_SCAN_INTERVAL);
+                    scanTask = scheduledExecutor.scheduleWithFixedDelay(fullScanRunnable, 0, fullScanInterval, TimeUnit.MILLISECONDS);
+                } else {
+                    scanTask = scheduledExecutor.schedule(fullScanRunnable, 0, TimeUnit.MILLISECONDS);
+                }
+            } else if (scanInterval > 0) {
                 scanTask = scheduledExecutor.scheduleWithFixedDelay(scanRunnable, 0, scanInterval, TimeUnit.MILLISECONDS);
             } else {
                 scanTask = scheduledExecutor.schedule(scanRunnable, scanInterval, TimeUnit.MILLISECONDS);
@@ -847,6 +1071,10 @@ class FileSystemDeploymentService implements DeploymentScanner {
      * Invoke with the object monitor held
      */
     private void cancelScan() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
         if (rescanIncompleteTask != null) {
             rescanIncompleteTask.cancel(false);
             rescanIncompleteTask = null;
@@ -857,6 +1085,11 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    private synchronized void restartScan() {
+        cancelScan();
+        startScan();
+    }
+
     private ModelNode getCompositeUpdate(final List<ModelNode> updates) {
         final ModelNode op = Util.getEmptyOperation(COMPOSITE, new ModelNode());
         final ModelNode steps = op.get(STEPS);
@@ -1181,10 +1414,14 @@ class FileSystemDeploymentService implements DeploymentScanner {
          * Tasks generated by the scan
          */
         private final List<ScannerTask> scannerTasks = new ArrayList<ScannerTask>();
+        /**
+         * The names of the deployments to scan by directory, or {@code null} to scan everything
+         */
+        private final Map<File, Set<String>> changedEntries;
         /**
          * Files to undeploy at the end of the scan
          */
-        private final Set<String> toRemove = new HashSet<String>(deployed.keySet());
+        private final Set<String> toRemove;
         /**
          * Marker files with no corresponding content
          */
@@ -1214,8 +1451,22 @@ class FileSystemDeploymentService implements DeploymentScanner {
          */
         private final long scanStartTime = System.currentTimeMillis();
 
-        private ScanContext(final DeploymentOperations deploymentOperations) {
+        private ScanContext(final DeploymentOperations deploymentOperations, final Map<File, Set<String>> changedEntries) {
             registeredDeployments = deploymentOperations.getDeploymentNames();
+            this.changedEntries = changedEntries;
+            if (changedEntries == null) {
+                toRemove = new HashSet<String>(deployed.keySet());
+            } else {
+                // only the changed deployments can have been removed
+                toRemove = new HashSet<String>();
+                for (Set<String> names : changedEntries.values()) {
+                    for (String name : names) {
+                        if (deployed.containsKey(name)) {
+                            toRemove.add(name);
+                        }
+                    }
+                }
+            }
         }
     }
 
@@ -60,6 +60,21 @@ public interface DeploymentScanner {
      */
     void setScanInterval(long scanInterval);
 
+    /**
+     * Get the current scan mode
+     *
+     * @return the scan mode
+     */
+    ScanMode getScanMode();
+
+    /**
+     * Set how the scanner detects changes. In {@link ScanMode#WATCH} mode the scan interval is the interval of
+     * the full scans which pick up changes whose file system events were lost, it is at least one minute.
+     *
+     * @param scanMode the scan mode
+     */
+    void setScanMode(ScanMode scanMode);
+
     /**
      * Start the scanner, if not already started, using a default {@link DeploymentOperations}.
      *
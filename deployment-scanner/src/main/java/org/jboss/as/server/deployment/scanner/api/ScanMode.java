@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.scanner.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How a {@link DeploymentScanner} detects changes in the scanned directory.
+ */
+public enum ScanMode {
+
+    /**
+     * The whole directory is scanned every scan interval.
+     */
+    POLLING("polling"),
+    /**
+     * The directory is watched for file system events, and only the changed content is scanned. Falls back to
+     * {@link #POLLING} if the file system cannot be watched.
+     */
+    WATCH("watch"),
+    ;
+
+    private final String name;
+
+    ScanMode(final String name) {
+        this.name = name;
+    }
+
+    private static final Map<String, ScanMode> MAP;
+
+    static {
+        final Map<String, ScanMode> map = new HashMap<String, ScanMode>();
+        for (ScanMode mode : values()) {
+            map.put(mode.name, mode);
+        }
+        MAP = map;
+    }
+
+    public static ScanMode forName(final String name) {
+        final ScanMode mode = MAP.get(name);
+        if (mode == null) {
+            throw new IllegalArgumentException(name);
+        }
+        return mode;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
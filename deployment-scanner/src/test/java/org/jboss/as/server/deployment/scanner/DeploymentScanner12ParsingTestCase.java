@@ -0,0 +1,32 @@
+package org.jboss.as.server.deployment.scanner;
+
+
+import java.io.IOException;
+
+import org.jboss.as.subsystem.test.AbstractSubsystemBaseTest;
+
+/**
+ * Parses the subsystem with the {@code urn:jboss:domain:deployment-scanner:1.2} namespace, which adds {@code scan-mode}.
+ */
+public class DeploymentScanner12ParsingTestCase extends AbstractSubsystemBaseTest {
+    private static final String SUBSYSTEM_XML =
+            "<subsystem xmlns=\"urn:jboss:domain:deployment-scanner:1.2\">\n" +
+            "    <deployment-scanner name=\"myScanner\" path=\"deployments_${custom.system.property:test}\" " +
+                   "relative-to=\"jboss.server.base.dir\" scan-enabled=\"false\" scan-interval=\"5000\" " +
+                   "auto-deploy-xml=\"true\" deployment-timeout=\"60\"/>\n" +
+            "    <deployment-scanner path=\"deployments\"  relative-to=\"jboss.server.base.dir\" " +
+                   "scan-enabled=\"false\" scan-interval=\"5000\" scan-mode=\"watch\" " +
+                   "auto-deploy-xml=\"true\" deployment-timeout=\"30\"/>\n" +
+            "</subsystem>";
+
+
+    public DeploymentScanner12ParsingTestCase() {
+        super(DeploymentScannerExtension.SUBSYSTEM_NAME, new DeploymentScannerExtension());
+        System.setProperty("custom.system.property","prop");
+    }
+
+    @Override
+    protected String getSubsystemXml() throws IOException {
+        return SUBSYSTEM_XML;
+    }
+}
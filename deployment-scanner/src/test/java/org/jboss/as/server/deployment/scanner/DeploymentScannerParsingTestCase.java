@@ -37,5 +37,11 @@ public class DeploymentScannerParsingTestCase extends AbstractSubsystemBaseTest
     protected String getSubsystemXml() throws IOException {
         return SUBSYSTEM_XML;
     }
+
+    @Override
+    protected void compareXml(String configId, String original, String marshalled) throws Exception {
+        // the subsystem is marshalled with the current namespace
+        super.compareXml(configId, original, marshalled, true);
+    }
 }
 
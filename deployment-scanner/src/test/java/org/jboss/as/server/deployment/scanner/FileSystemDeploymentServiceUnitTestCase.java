@@ -27,6 +27,7 @@ import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.server.deployment.scanner.api.ScanMode;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.jboss.threads.AsyncFuture;
@@ -902,6 +903,60 @@ public class FileSystemDeploymentServiceUnitTestCase {
 
     }
 
+    /**
+     * Tests that a watching scanner reacts to changes, and does nothing when there are none.
+     */
+    @Test
+    public void testWatchMode() throws Exception {
+        TesteeSet ts = createTestee();
+        ts.testee.setScanMode(ScanMode.WATCH);
+        try {
+            // the first scan is a full scan
+            ts.testee.scan();
+
+            File war = createFile("foo.war");
+            File dodeploy = createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+            File deployed = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+            ts.controller.addCompositeSuccessResponse(1);
+            scanUntilExists(ts, deployed);
+            assertTrue(war.exists());
+            assertFalse(dodeploy.exists());
+            assertEquals(1, ts.controller.deployed.size());
+
+            // let the events of the marker written by the deployment be consumed
+            Thread.sleep(FileSystemDeploymentService.WATCH_SCAN_DELAY * 5);
+            ts.testee.scan();
+            final int requests = ts.controller.requests.size();
+            ts.testee.scan();
+            assertEquals("a scan without changes must not do anything", requests, ts.controller.requests.size());
+
+            // undeploy by deleting the marker
+            assertTrue(deployed.delete());
+            ts.controller.addCompositeSuccessResponse(1);
+            final long timeout = System.currentTimeMillis() + 30000;
+            while (!ts.controller.deployed.isEmpty() && System.currentTimeMillis() < timeout) {
+                Thread.sleep(FileSystemDeploymentService.WATCH_SCAN_DELAY);
+                ts.testee.scan();
+            }
+            assertTrue(war.exists());
+            assertEquals(0, ts.controller.deployed.size());
+        } finally {
+            ts.testee.setScanMode(ScanMode.POLLING);
+        }
+    }
+
+    /**
+     * Scans until the marker exists. Watch services may deliver events with some delay.
+     */
+    private void scanUntilExists(final TesteeSet ts, final File marker) throws Exception {
+        final long timeout = System.currentTimeMillis() + 30000;
+        while (!marker.exists() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(FileSystemDeploymentService.WATCH_SCAN_DELAY);
+            ts.testee.scan();
+        }
+        assertTrue(marker.exists());
+    }
+
     // FIXME remove this marker used to make it easy to find these tests in the IDE
 
     /**
@@ -23,6 +23,7 @@
 package org.jboss.as.ee.component;
 
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -94,6 +95,14 @@ public interface ComponentView {
      */
     Method getMethod(final String name, final String descriptor);
 
+    /**
+     * Gets the interceptors which an invocation of a view method goes through, once the chain of the method has been
+     * optimized.
+     * @param method The view method
+     * @return The class names of the interceptors in invocation order, or null if the method is not a view method
+     */
+    List<String> getInterceptorChain(final Method method);
+
     /**
      * Provides a mechanism to attach arbitrary data to the component view
      * @param clazz The class of attachment
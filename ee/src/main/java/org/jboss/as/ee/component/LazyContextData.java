@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The context data of an invocation, which is only allocated once something is put into it.
+ * <p/>
+ * Most invocations never touch their context data, so there is no point in allocating a {@link HashMap} for each of
+ * them up front. Like the context data itself, instances are confined to the invocation and are not thread safe.
+ */
+final class LazyContextData extends AbstractMap<String, Object> {
+
+    private Map<String, Object> data;
+
+    private Map<String, Object> read() {
+        final Map<String, Object> data = this.data;
+        return data == null ? Collections.<String, Object>emptyMap() : data;
+    }
+
+    private Map<String, Object> write() {
+        Map<String, Object> data = this.data;
+        if (data == null) {
+            data = this.data = new HashMap<String, Object>();
+        }
+        return data;
+    }
+
+    @Override
+    public int size() {
+        return read().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return read().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return read().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(final Object value) {
+        return read().containsValue(value);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return read().get(key);
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        return write().put(key, value);
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ?> map) {
+        if (!map.isEmpty()) {
+            write().putAll(map);
+        }
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        final Map<String, Object> data = this.data;
+        return data == null ? null : data.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        final Map<String, Object> data = this.data;
+        if (data != null) {
+            data.clear();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        // the entry set is a live view, so it has to be backed by the real map
+        return write().entrySet();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o == this || read().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return read().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return read().toString();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fixed index of the methods of a view, computed once when the view is created.
+ * <p/>
+ * Each method gets the position it has in the cached methods of the view's proxy factory, so that the interceptors
+ * of a view and of each of its proxies can be kept in plain arrays instead of a map per instance. Like an
+ * {@link java.util.IdentityHashMap}, only the very {@code Method} instances handed to the proxy will match.
+ */
+final class MethodIndex {
+
+    private final List<Method> methods;
+    /**
+     * Open addressed hash table holding the methods
+     */
+    private final Method[] table;
+    /**
+     * The index of the method at the same position in {@link #table}
+     */
+    private final int[] indexes;
+    private final int mask;
+
+    MethodIndex(final List<Method> methods) {
+        this.methods = Collections.unmodifiableList(methods);
+        int size = 2;
+        // keep the table at most half full so that probes stay short
+        while (size < methods.size() * 2) {
+            size <<= 1;
+        }
+        table = new Method[size];
+        indexes = new int[size];
+        mask = size - 1;
+        for (int i = 0; i < methods.size(); i++) {
+            final Method method = methods.get(i);
+            int slot = hash(method) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = method;
+            indexes[slot] = i;
+        }
+    }
+
+    /**
+     * Get the index of the given method.
+     *
+     * @param method the method
+     * @return the index, or {@code -1} if the method is not part of this index
+     */
+    int indexOf(final Method method) {
+        int slot = hash(method) & mask;
+        Method current;
+        while ((current = table[slot]) != null) {
+            if (current == method) {
+                return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the indexed methods, in index order
+     */
+    List<Method> getMethods() {
+        return methods;
+    }
+
+    int size() {
+        return methods.size();
+    }
+
+    private static int hash(final Method method) {
+        final int h = System.identityHashCode(method);
+        // spread the identity hash, the low bits of which are poorly distributed
+        return h ^ (h >>> 16);
+    }
+}
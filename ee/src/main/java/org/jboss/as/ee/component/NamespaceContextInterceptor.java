@@ -22,9 +22,9 @@
 
 package org.jboss.as.ee.component;
 
+import org.jboss.as.ee.component.interceptors.FusibleInterceptor;
 import org.jboss.as.naming.WritableServiceBasedNamingStore;
 import org.jboss.as.naming.context.NamespaceContextSelector;
-import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
 import org.jboss.msc.service.ServiceTarget;
 
@@ -33,7 +33,7 @@ import org.jboss.msc.service.ServiceTarget;
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-public final class NamespaceContextInterceptor implements Interceptor {
+public final class NamespaceContextInterceptor implements FusibleInterceptor {
     private final NamespaceContextSelector selector;
     private final ServiceTarget target;
 
@@ -55,4 +55,26 @@ public final class NamespaceContextInterceptor implements Interceptor {
             NamespaceContextSelector.popCurrentSelector();
         }
     }
+
+    public Object setup(final InterceptorContext context) {
+        NamespaceContextSelector.pushCurrentSelector(selector);
+        boolean ok = false;
+        try {
+            WritableServiceBasedNamingStore.pushOwner(target);
+            ok = true;
+        } finally {
+            if (!ok) {
+                NamespaceContextSelector.popCurrentSelector();
+            }
+        }
+        return null;
+    }
+
+    public void teardown(final InterceptorContext context, final Object state) {
+        try {
+            WritableServiceBasedNamingStore.popOwner();
+        } finally {
+            NamespaceContextSelector.popCurrentSelector();
+        }
+    }
 }
@@ -24,7 +24,7 @@ package org.jboss.as.ee.component;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Map;
 
 import org.jboss.invocation.Interceptor;
@@ -32,12 +32,16 @@ import org.jboss.invocation.InterceptorContext;
 
 /**
  * An invocation handler for a component proxy.
+ * <p/>
+ * The client interceptors are held in an array indexed by the {@link MethodIndex} of the view, and the context data
+ * of an invocation is only allocated if an interceptor puts something into it.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class ProxyInvocationHandler implements InvocationHandler {
 
-    private final Map<Method, Interceptor> interceptors;
+    private final MethodIndex methodIndex;
+    private final Interceptor[] interceptors;
     private final Component component;
     private final ComponentView componentView;
 
@@ -49,6 +53,19 @@ public final class ProxyInvocationHandler implements InvocationHandler {
      * @param componentView The component view
      */
     public ProxyInvocationHandler(final Map<Method, Interceptor> interceptors, Component component, ComponentView componentView) {
+        this(new MethodIndex(new ArrayList<Method>(interceptors.keySet())), component, componentView, interceptors.values().toArray(new Interceptor[interceptors.size()]));
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param methodIndex the index of the view methods
+     * @param component The component
+     * @param componentView The component view
+     * @param interceptors the interceptors of each method, in index order. An entry may be {@code null} if the method can not be invoked
+     */
+    ProxyInvocationHandler(final MethodIndex methodIndex, final Component component, final ComponentView componentView, final Interceptor[] interceptors) {
+        this.methodIndex = methodIndex;
         this.interceptors = interceptors;
         this.component = component;
         this.componentView = componentView;
@@ -56,7 +73,8 @@ public final class ProxyInvocationHandler implements InvocationHandler {
 
     /** {@inheritDoc} */
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-        final Interceptor interceptor = interceptors.get(method);
+        final int index = methodIndex.indexOf(method);
+        final Interceptor interceptor = index == -1 ? null : interceptors[index];
         if (interceptor == null) {
             throw new NoSuchMethodError(method.toString());
         }
@@ -68,7 +86,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         context.setParameters(args);
         context.setMethod(method);
         // setup the public context data
-        context.setContextData(new HashMap());
+        context.setContextData(new LazyContextData());
         return interceptor.processInvocation(context);
     }
 }
@@ -21,7 +21,7 @@
  */
 package org.jboss.as.ee.component;
 
-import org.jboss.invocation.Interceptor;
+import org.jboss.as.ee.component.interceptors.FusibleInterceptor;
 import org.jboss.invocation.InterceptorContext;
 
 /**
@@ -29,7 +29,7 @@ import org.jboss.invocation.InterceptorContext;
  *
  * @author Stuart Douglas
  */
-public class TCCLInterceptor implements Interceptor {
+public class TCCLInterceptor implements FusibleInterceptor {
 
     final ClassLoader classLoader;
 
@@ -47,4 +47,16 @@ public class TCCLInterceptor implements Interceptor {
             SecurityActions.setContextClassLoader(oldTccl);
         }
     }
+
+    @Override
+    public Object setup(final InterceptorContext context) {
+        final ClassLoader oldTccl = SecurityActions.getContextClassLoader();
+        SecurityActions.setContextClassLoader(classLoader);
+        return oldTccl;
+    }
+
+    @Override
+    public void teardown(final InterceptorContext context, final Object state) {
+        SecurityActions.setContextClassLoader((ClassLoader) state);
+    }
 }
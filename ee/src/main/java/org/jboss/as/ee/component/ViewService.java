@@ -23,6 +23,7 @@
 package org.jboss.as.ee.component;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.jboss.as.ee.component.interceptors.InterceptorChainOptimizer;
 import org.jboss.as.ee.utils.DescriptorUtils;
 import org.jboss.as.naming.ManagedReference;
 import org.jboss.invocation.Interceptor;
@@ -54,8 +56,9 @@ import static org.jboss.as.ee.EeMessages.MESSAGES;
 public final class ViewService implements Service<ComponentView> {
 
     private final InjectedValue<Component> componentInjector = new InjectedValue<Component>();
-    private final Map<Method, InterceptorFactory> viewInterceptorFactories;
-    private final Map<Method, InterceptorFactory> clientInterceptorFactories;
+    private final MethodIndex methodIndex;
+    private final InterceptorFactory[][] viewInterceptorFactories;
+    private final InterceptorFactory[] clientInterceptorFactories;
     private final InterceptorFactory clientPostConstruct;
     private final InterceptorFactory clientPreDestroy;
     private final ProxyFactory<?> proxyFactory;
@@ -74,14 +77,19 @@ public final class ViewService implements Service<ComponentView> {
         final int methodCount = methods.size();
         clientPostConstruct = Interceptors.getChainedInterceptorFactory(viewConfiguration.getClientPostConstructInterceptors());
         clientPreDestroy = Interceptors.getChainedInterceptorFactory(viewConfiguration.getClientPreDestroyInterceptors());
-        final IdentityHashMap<Method, InterceptorFactory> viewInterceptorFactories = new IdentityHashMap<Method, InterceptorFactory>(methodCount);
-        final IdentityHashMap<Method, InterceptorFactory> clientInterceptorFactories = new IdentityHashMap<Method, InterceptorFactory>(methodCount);
-        for (final Method method : methods) {
+        // the interceptors of the view and of its proxies are looked up by the index of the invoked method
+        methodIndex = new MethodIndex(methods);
+        final InterceptorFactory[][] viewInterceptorFactories = new InterceptorFactory[methodCount][];
+        final InterceptorFactory[] clientInterceptorFactories = new InterceptorFactory[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            final Method method = methods.get(i);
+            // the view interceptors are only chained once created, so that the chain can be optimized (see View#initializeInterceptors)
             if (method.getName().equals("finalize") && method.getParameterTypes().length == 0) {
-                viewInterceptorFactories.put(method, Interceptors.getTerminalInterceptorFactory());
+                viewInterceptorFactories[i] = null;
             } else {
-                viewInterceptorFactories.put(method, Interceptors.getChainedInterceptorFactory(viewConfiguration.getViewInterceptors(method)));
-                clientInterceptorFactories.put(method, Interceptors.getChainedInterceptorFactory(viewConfiguration.getClientInterceptors(method)));
+                final List<InterceptorFactory> factories = viewConfiguration.getViewInterceptors(method);
+                viewInterceptorFactories[i] = factories.toArray(new InterceptorFactory[factories.size()]);
+                clientInterceptorFactories[i] = Interceptors.getChainedInterceptorFactory(viewConfiguration.getClientInterceptors(method));
             }
         }
         this.viewInterceptorFactories = viewInterceptorFactories;
@@ -121,7 +129,9 @@ public final class ViewService implements Service<ComponentView> {
     class View implements ComponentView {
 
         private final Component component;
-        private final Map<Method, Interceptor> viewInterceptors;
+        private final Interceptor[] viewInterceptors;
+        private final List<String>[] viewInterceptorChains;
+        private final Set<Method> viewMethods;
         private final Map<MethodDescription, Method> methods;
         private final Map<Class<?>, Object> privateData;
 
@@ -129,21 +139,42 @@ public final class ViewService implements Service<ComponentView> {
             this.privateData = privateData;
             component = componentInjector.getValue();
             //we need to build the view interceptor chain
-            this.viewInterceptors = new IdentityHashMap<Method, Interceptor>();
+            this.viewInterceptors = new Interceptor[methodIndex.size()];
+            @SuppressWarnings("unchecked")
+            final List<String>[] viewInterceptorChains = new List[methodIndex.size()];
+            this.viewInterceptorChains = viewInterceptorChains;
+            final Set<Method> viewMethods = Collections.newSetFromMap(new IdentityHashMap<Method, Boolean>(methodIndex.size()));
+            viewMethods.addAll(methodIndex.getMethods());
+            this.viewMethods = Collections.unmodifiableSet(viewMethods);
             this.methods = new HashMap<MethodDescription, Method>();
         }
 
         void initializeInterceptors() {
             final SimpleInterceptorFactoryContext factoryContext = new SimpleInterceptorFactoryContext();
-            final Map<Method, InterceptorFactory> viewInterceptorFactories = ViewService.this.viewInterceptorFactories;
-            final Map<Method, Interceptor> viewEntryPoints = viewInterceptors;
+            final InterceptorFactory[][] viewInterceptorFactories = ViewService.this.viewInterceptorFactories;
+            final Interceptor[] viewEntryPoints = viewInterceptors;
             factoryContext.getContextData().put(Component.class, component);
             //we don't have this code in the constructor so we avoid passing around
             //a half constructed instance
             factoryContext.getContextData().put(ComponentView.class, this);
 
-            for (Method method : viewInterceptorFactories.keySet()) {
-                viewEntryPoints.put(method, viewInterceptorFactories.get(method).create(factoryContext));
+            final List<Method> viewMethods = methodIndex.getMethods();
+            for (int i = 0; i < viewEntryPoints.length; i++) {
+                final Method method = viewMethods.get(i);
+                final InterceptorFactory[] factories = viewInterceptorFactories[i];
+                if (factories == null) {
+                    viewEntryPoints[i] = Interceptors.getTerminalInterceptor();
+                    viewInterceptorChains[i] = Collections.emptyList();
+                } else {
+                    final List<Interceptor> interceptors = new ArrayList<Interceptor>(factories.length);
+                    for (InterceptorFactory factory : factories) {
+                        interceptors.add(factory.create(factoryContext));
+                    }
+                    // leave out the interceptors which do nothing for this method, and fuse those which only set up some context
+                    final List<Interceptor> chain = InterceptorChainOptimizer.optimize(interceptors);
+                    viewEntryPoints[i] = Interceptors.getChainedInterceptor(chain);
+                    viewInterceptorChains[i] = InterceptorChainOptimizer.describe(chain);
+                }
                 methods.put(new MethodDescription(method.getName(), DescriptorUtils.methodDescriptor(method)), method);
             }
 
@@ -161,8 +192,11 @@ public final class ViewService implements Service<ComponentView> {
         @Override
         public Object invoke(InterceptorContext interceptorContext) throws Exception {
             final Method method = interceptorContext.getMethod();
-            final Interceptor interceptor = viewInterceptors.get(method);
-            return interceptor.processInvocation(interceptorContext);
+            final int index = methodIndex.indexOf(method);
+            if (index == -1) {
+                throw new NoSuchMethodError(method.toString());
+            }
+            return viewInterceptors[index].processInvocation(interceptorContext);
         }
 
         public Component getComponent() {
@@ -181,7 +215,7 @@ public final class ViewService implements Service<ComponentView> {
 
         @Override
         public Set<Method> getViewMethods() {
-            return viewInterceptors.keySet();
+            return viewMethods;
         }
 
         @Override
@@ -193,6 +227,15 @@ public final class ViewService implements Service<ComponentView> {
             return method;
         }
 
+        @Override
+        public List<String> getInterceptorChain(final Method method) {
+            final int index = methodIndex.indexOf(method);
+            if (index == -1) {
+                return null;
+            }
+            return viewInterceptorChains[index];
+        }
+
         @Override
         public <T> T getPrivateData(final Class<T> clazz) {
             return (T) privateData.get(clazz);
@@ -252,15 +295,17 @@ public final class ViewService implements Service<ComponentView> {
             final Interceptor clientPostConstructInterceptor = clientPostConstruct.create(factoryContext);
             final Interceptor clientPreDestroyInterceptor = clientPreDestroy.create(factoryContext);
 
-            final Map<Method, InterceptorFactory> clientInterceptorFactories = ViewService.this.clientInterceptorFactories;
-            IdentityHashMap<Method, Interceptor> clientEntryPoints = new IdentityHashMap<Method, Interceptor>(clientInterceptorFactories.size());
-            for (Method method : clientInterceptorFactories.keySet()) {
-                clientEntryPoints.put(method, clientInterceptorFactories.get(method).create(factoryContext));
+            final InterceptorFactory[] clientInterceptorFactories = ViewService.this.clientInterceptorFactories;
+            final Interceptor[] clientEntryPoints = new Interceptor[clientInterceptorFactories.length];
+            for (int i = 0; i < clientInterceptorFactories.length; i++) {
+                if (clientInterceptorFactories[i] != null) {
+                    clientEntryPoints[i] = clientInterceptorFactories[i].create(factoryContext);
+                }
             }
 
             final Object proxy;
             try {
-                proxy = proxyFactory.newInstance(new ProxyInvocationHandler(clientEntryPoints, component, componentView));
+                proxy = proxyFactory.newInstance(new ProxyInvocationHandler(methodIndex, component, componentView, clientEntryPoints));
             } catch (InstantiationException e) {
                 InstantiationError error = new InstantiationError(e.getMessage());
                 Throwable cause = e.getCause();
@@ -276,7 +321,7 @@ public final class ViewService implements Service<ComponentView> {
             InterceptorContext context = new InterceptorContext();
             context.putPrivateData(ComponentView.class, componentView);
             context.putPrivateData(Component.class, component);
-            context.setContextData(new HashMap<String, Object>());
+            context.setContextData(new LazyContextData());
             clientPostConstructInterceptor.processInvocation(context);
 
             return new ManagedReference() {
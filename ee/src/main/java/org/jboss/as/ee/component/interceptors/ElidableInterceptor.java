@@ -0,0 +1,39 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component.interceptors;
+
+import org.jboss.invocation.Interceptor;
+
+/**
+ * An interceptor which may know, once created for a method, that it would only proceed with every invocation of that
+ * method. Such an interceptor is left out of the chain by the {@link InterceptorChainOptimizer}.
+ */
+public interface ElidableInterceptor extends Interceptor {
+
+    /**
+     * Returns whether this interceptor does nothing but proceed with the invocation.
+     *
+     * @return {@code true} if this interceptor can be left out of its chain, {@code false} otherwise
+     */
+    boolean isElidable();
+}
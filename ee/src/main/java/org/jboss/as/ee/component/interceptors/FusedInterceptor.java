@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component.interceptors;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+
+/**
+ * Sets up the contexts of adjacent {@link FusibleInterceptor}s in their order, proceeds once, and tears the contexts
+ * down in reverse order, exactly as the interceptors would have when chained.
+ */
+final class FusedInterceptor implements Interceptor {
+    private final FusibleInterceptor[] interceptors;
+
+    FusedInterceptor(final FusibleInterceptor[] interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    FusibleInterceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    @Override
+    public Object processInvocation(final InterceptorContext context) throws Exception {
+        final FusibleInterceptor[] interceptors = this.interceptors;
+        final Object[] states = new Object[interceptors.length];
+        int count = 0;
+        try {
+            while (count < interceptors.length) {
+                states[count] = interceptors[count].setup(context);
+                count++;
+            }
+            return context.proceed();
+        } finally {
+            teardown(context, states, count - 1);
+        }
+    }
+
+    /**
+     * Tears down the contexts from the given index back to the first one, each in the finally block of the following
+     * one, so that an exception thrown by a teardown propagates as it would from the chained interceptors.
+     */
+    private void teardown(final InterceptorContext context, final Object[] states, final int index) {
+        if (index < 0) {
+            return;
+        }
+        try {
+            interceptors[index].teardown(context, states[index]);
+        } finally {
+            teardown(context, states, index - 1);
+        }
+    }
+}
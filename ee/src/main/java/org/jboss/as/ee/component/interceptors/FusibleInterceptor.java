@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component.interceptors;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+
+/**
+ * An interceptor which only sets up some context before proceeding with the invocation, and tears it down afterwards.
+ * Its {@link #processInvocation(InterceptorContext)} must be equivalent to:
+ * <pre>
+ * Object state = setup(context);
+ * try {
+ *     return context.proceed();
+ * } finally {
+ *     teardown(context, state);
+ * }
+ * </pre>
+ * so that the {@link InterceptorChainOptimizer} can fuse adjacent fusible interceptors into a single one, which sets up
+ * all of their contexts with a single {@link InterceptorContext#proceed()}.
+ */
+public interface FusibleInterceptor extends Interceptor {
+
+    /**
+     * Sets up the context of the invocation. If this method throws an exception, it must leave nothing to tear down.
+     *
+     * @param context the invocation context
+     * @return the state required to tear down the context, which may be {@code null}
+     * @throws Exception if the context could not be set up
+     */
+    Object setup(InterceptorContext context) throws Exception;
+
+    /**
+     * Tears down the context set up by {@link #setup(InterceptorContext)}.
+     *
+     * @param context the invocation context
+     * @param state the value returned by {@link #setup(InterceptorContext)}
+     */
+    void teardown(InterceptorContext context, Object state);
+}
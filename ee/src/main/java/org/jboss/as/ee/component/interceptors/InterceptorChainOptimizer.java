@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component.interceptors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.invocation.Interceptor;
+
+/**
+ * Optimizes the interceptors created for the chain of a single method: interceptors which are {@link ElidableInterceptor
+ * elidable} for the method are removed, and adjacent {@link FusibleInterceptor}s are fused, so that an invocation of
+ * the method only goes through the interceptors it needs, with fewer {@link org.jboss.invocation.InterceptorContext#proceed()
+ * hops}.
+ */
+public final class InterceptorChainOptimizer {
+
+    private InterceptorChainOptimizer() {
+    }
+
+    /**
+     * Optimizes a chain of interceptors.
+     *
+     * @param interceptors the interceptors of the chain, in invocation order
+     * @return the interceptors of the optimized chain, in invocation order
+     */
+    public static List<Interceptor> optimize(final List<Interceptor> interceptors) {
+        final List<Interceptor> result = new ArrayList<Interceptor>(interceptors.size());
+        final List<FusibleInterceptor> fusible = new ArrayList<FusibleInterceptor>();
+        for (Interceptor interceptor : interceptors) {
+            if (interceptor instanceof ElidableInterceptor && ((ElidableInterceptor) interceptor).isElidable()) {
+                continue;
+            }
+            if (interceptor instanceof FusibleInterceptor) {
+                fusible.add((FusibleInterceptor) interceptor);
+                continue;
+            }
+            fuse(fusible, result);
+            result.add(interceptor);
+        }
+        fuse(fusible, result);
+        return result;
+    }
+
+    /**
+     * Describes an optimized chain of interceptors.
+     *
+     * @param interceptors the interceptors returned by {@link #optimize(List)}
+     * @return the class name of each interceptor, fused interceptors being joined with {@code +}
+     */
+    public static List<String> describe(final List<Interceptor> interceptors) {
+        final List<String> names = new ArrayList<String>(interceptors.size());
+        for (Interceptor interceptor : interceptors) {
+            if (interceptor instanceof FusedInterceptor) {
+                final StringBuilder name = new StringBuilder();
+                for (FusibleInterceptor fused : ((FusedInterceptor) interceptor).getInterceptors()) {
+                    if (name.length() > 0) {
+                        name.append('+');
+                    }
+                    name.append(fused.getClass().getName());
+                }
+                names.add(name.toString());
+            } else {
+                names.add(interceptor.getClass().getName());
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static void fuse(final List<FusibleInterceptor> fusible, final List<Interceptor> result) {
+        if (fusible.size() == 1) {
+            result.add(fusible.get(0));
+        } else if (fusible.size() > 1) {
+            result.add(new FusedInterceptor(fusible.toArray(new FusibleInterceptor[fusible.size()])));
+        }
+        fusible.clear();
+    }
+}
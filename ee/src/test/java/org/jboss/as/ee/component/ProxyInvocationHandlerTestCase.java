@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.junit.Test;
+
+/**
+ * Tests the dispatch of {@link ProxyInvocationHandler}.
+ */
+public class ProxyInvocationHandlerTestCase {
+
+    private static final int INVOCATIONS = 1000;
+
+    @Test
+    public void testDispatch() throws Throwable {
+        final Map<Method, Interceptor> interceptors = new IdentityHashMap<Method, Interceptor>();
+        interceptors.put(TestView.ECHO, new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return context.getParameters()[0];
+            }
+        });
+        interceptors.put(TestView.NAME, new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return context.getMethod().getName();
+            }
+        });
+        final TestView view = new TestViewProxy(new ProxyInvocationHandler(interceptors, null, null));
+        assertEquals("hello", view.echo("hello"));
+        assertEquals("name", view.name());
+    }
+
+    @Test
+    public void testUnknownMethod() throws Throwable {
+        final Map<Method, Interceptor> interceptors = new IdentityHashMap<Method, Interceptor>();
+        interceptors.put(TestView.ECHO, new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return context.getParameters()[0];
+            }
+        });
+        final TestView view = new TestViewProxy(new ProxyInvocationHandler(interceptors, null, null));
+        try {
+            view.name();
+            fail("Should have thrown NoSuchMethodError");
+        } catch (NoSuchMethodError expected) {
+        }
+    }
+
+    @Test
+    public void testContextData() throws Throwable {
+        final Map<Method, Interceptor> interceptors = new IdentityHashMap<Method, Interceptor>();
+        interceptors.put(TestView.ECHO, new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                final Map<String, Object> contextData = context.getContextData();
+                assertTrue(contextData.isEmpty());
+                assertNull(contextData.get("key"));
+                contextData.put("key", context.getParameters()[0]);
+                assertEquals(1, contextData.size());
+                assertTrue(contextData.keySet().contains("key"));
+                return contextData.get("key");
+            }
+        });
+        final TestView view = new TestViewProxy(new ProxyInvocationHandler(interceptors, null, null));
+        assertEquals("first", view.echo("first"));
+        // every invocation gets its own context data
+        assertEquals("second", view.echo("second"));
+    }
+
+    /**
+     * Invokes the same view repeatedly, every invocation must be dispatched to the interceptor of its own method.
+     */
+    @Test
+    public void testRepeatedInvocations() throws Throwable {
+        final Map<Method, Interceptor> interceptors = new IdentityHashMap<Method, Interceptor>();
+        interceptors.put(TestView.ECHO, new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return context.getParameters()[0];
+            }
+        });
+        interceptors.put(TestView.NAME, new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return context.getMethod().getName();
+            }
+        });
+        final TestView view = new TestViewProxy(new ProxyInvocationHandler(interceptors, null, null));
+        for (int i = 0; i < INVOCATIONS; i++) {
+            assertEquals(String.valueOf(i), view.echo(String.valueOf(i)));
+            assertEquals("name", view.name());
+        }
+    }
+
+    public interface TestView {
+        Method ECHO = method("echo", String.class);
+        Method NAME = method("name");
+
+        String echo(String value);
+
+        String name();
+    }
+
+    /**
+     * A hand written proxy, which like the generated ones hands the very same {@code Method} instances to its handler
+     * on every invocation.
+     */
+    private static final class TestViewProxy implements TestView {
+        private final ProxyInvocationHandler handler;
+
+        private TestViewProxy(final ProxyInvocationHandler handler) {
+            this.handler = handler;
+        }
+
+        public String echo(final String value) {
+            return (String) invoke(ECHO, value);
+        }
+
+        public String name() {
+            return (String) invoke(NAME);
+        }
+
+        private Object invoke(final Method method, final Object... args) {
+            try {
+                return handler.invoke(this, method, args);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+    }
+
+    private static Method method(final String name, final Class<?>... parameterTypes) {
+        try {
+            return TestView.class.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
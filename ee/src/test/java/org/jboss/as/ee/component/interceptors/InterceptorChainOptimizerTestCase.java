@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.jboss.invocation.Interceptors;
+import org.junit.Test;
+
+/**
+ * Tests that the chains optimized by the {@link InterceptorChainOptimizer} behave as the original chains.
+ */
+public class InterceptorChainOptimizerTestCase {
+
+    private final List<String> events = new ArrayList<String>();
+
+    @Test
+    public void testElision() throws Exception {
+        final Interceptor dispatcher = new Dispatcher();
+        final List<Interceptor> chain = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(new Elidable(true), new Elidable(false), dispatcher));
+        assertEquals(2, chain.size());
+        assertTrue(chain.get(0) instanceof Elidable);
+        assertSame(dispatcher, chain.get(1));
+        assertEquals("result", invoke(chain));
+        assertEquals(Arrays.asList("elidable", "dispatch"), events);
+    }
+
+    @Test
+    public void testFusion() throws Exception {
+        final Fusible a = new Fusible("a", false);
+        final Fusible b = new Fusible("b", false);
+        final Fusible c = new Fusible("c", false);
+        final Interceptor dispatcher = new Dispatcher();
+        final List<Interceptor> chain = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(a, b, new Elidable(true), c, new Elidable(false), dispatcher));
+        assertEquals(3, chain.size());
+        assertTrue(chain.get(0) instanceof FusedInterceptor);
+        assertEquals(Arrays.asList(Fusible.class.getName() + "+" + Fusible.class.getName() + "+" + Fusible.class.getName(),
+                Elidable.class.getName(), Dispatcher.class.getName()), InterceptorChainOptimizer.describe(chain));
+
+        assertEquals("result", invoke(chain));
+        final List<String> optimized = new ArrayList<String>(events);
+        events.clear();
+        assertEquals("result", invoke(Arrays.<Interceptor>asList(a, b, c, new Elidable(false), dispatcher)));
+        assertEquals(events, optimized);
+        assertEquals(Arrays.asList("setup a", "setup b", "setup c", "elidable", "dispatch", "teardown c", "teardown b", "teardown a"), optimized);
+    }
+
+    @Test
+    public void testSingleFusibleIsNotFused() {
+        final Fusible a = new Fusible("a", false);
+        final Interceptor dispatcher = new Dispatcher();
+        final List<Interceptor> chain = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(a, new Elidable(false), dispatcher));
+        assertEquals(Arrays.<Interceptor>asList(a, chain.get(1), dispatcher), chain);
+    }
+
+    @Test
+    public void testFailedSetup() throws Exception {
+        final List<Interceptor> chain = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(new Fusible("a", false), new Fusible("b", false), new Fusible("c", true), new Dispatcher()));
+        try {
+            invoke(chain);
+            fail("Expected setup failure");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(Arrays.asList("setup a", "setup b", "setup c", "teardown b", "teardown a"), events);
+    }
+
+    @Test
+    public void testFailedInvocation() throws Exception {
+        final List<Interceptor> chain = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(new Fusible("a", false), new Fusible("b", false), new Interceptor() {
+            @Override
+            public Object processInvocation(InterceptorContext context) throws Exception {
+                throw new IllegalArgumentException();
+            }
+        }));
+        try {
+            invoke(chain);
+            fail("Expected invocation failure");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(Arrays.asList("setup a", "setup b", "teardown b", "teardown a"), events);
+    }
+
+    private static Object invoke(final List<Interceptor> chain) throws Exception {
+        return Interceptors.getChainedInterceptor(chain).processInvocation(new InterceptorContext());
+    }
+
+    private class Elidable implements ElidableInterceptor {
+        private final boolean elidable;
+
+        Elidable(final boolean elidable) {
+            this.elidable = elidable;
+        }
+
+        @Override
+        public boolean isElidable() {
+            return elidable;
+        }
+
+        @Override
+        public Object processInvocation(final InterceptorContext context) throws Exception {
+            events.add("elidable");
+            return context.proceed();
+        }
+    }
+
+    private class Fusible implements FusibleInterceptor {
+        private final String name;
+        private final boolean failSetup;
+
+        Fusible(final String name, final boolean failSetup) {
+            this.name = name;
+            this.failSetup = failSetup;
+        }
+
+        @Override
+        public Object processInvocation(final InterceptorContext context) throws Exception {
+            final Object state = setup(context);
+            try {
+                return context.proceed();
+            } finally {
+                teardown(context, state);
+            }
+        }
+
+        @Override
+        public Object setup(final InterceptorContext context) {
+            events.add("setup " + name);
+            if (failSetup) {
+                throw new IllegalStateException();
+            }
+            return name;
+        }
+
+        @Override
+        public void teardown(final InterceptorContext context, final Object state) {
+            assertEquals(name, state);
+            events.add("teardown " + name);
+        }
+    }
+
+    private class Dispatcher implements Interceptor {
+        @Override
+        public Object processInvocation(final InterceptorContext context) throws Exception {
+            events.add("dispatch");
+            return "result";
+        }
+    }
+}
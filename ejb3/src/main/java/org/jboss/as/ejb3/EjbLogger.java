@@ -800,6 +800,33 @@ public interface EjbLogger extends BasicLogger {
     @Message(id = 14259, value = "BMT stateful bean '%s' did not complete user transaction properly status=%s")
     void transactionNotComplete(String componentName, String status);
 
+    @LogMessage(level = WARN)
+    @Message(id = 14260, value = "Could not dispatch timeout task %s")
+    void timeoutDispatchFailed(@Cause Throwable cause, Runnable task);
+
+    @LogMessage(level = WARN)
+    @Message(id = 14261, value = "Timer journal file %s is truncated or corrupted at offset %d, ignoring the rest of the file")
+    void timerJournalTruncated(File file, long offset);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 14262, value = "Could not compact timer journal %s")
+    void timerJournalCompactionFailed(File directory, @Cause Throwable e);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 14263, value = "Could not start a new timer journal segment in %s")
+    void timerJournalRollFailed(File directory, @Cause Throwable e);
+
+    @LogMessage(level = INFO)
+    @Message(id = 14264, value = "Imported %d timers of %s from the file timer store into the timer journal")
+    void timersImportedIntoJournal(int count, String timedObjectId);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 14265, value = "Could not restore timer %s of %s from the timer journal")
+    void failToRestoreTimerFromJournal(String timerId, String timedObjectId, @Cause Throwable e);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 14266, value = "Could not compact passivation store %s")
+    void passivationStoreCompactionFailed(File directory, @Cause Throwable e);
 
     // Don't add message ids greater that 14299!!! If you need more first check what EjbMessages is
     // using and take more (lower) numbers from the available range for this module. If the range for the module is
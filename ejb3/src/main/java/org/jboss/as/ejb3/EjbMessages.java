@@ -2078,6 +2078,44 @@ public interface EjbMessages {
     @Message(id = 14581, value = "EJB 3.1 FR 13.3.3: BMT bean %s should complete transaction before returning.")
     String transactionNotComplete(String componentName);
 
+    /**
+     * Creates an exception indicating the timer journal could not be opened.
+     *
+     * @param directory the journal directory
+     * @param cause     the cause of the error
+     * @return an {@link RuntimeException} for the error.
+     */
+    @Message(id = 14582, value = "Could not open timer journal %s")
+    RuntimeException failToOpenTimerJournal(File directory, @Cause Throwable cause);
+
+    /**
+     * Creates an exception indicating a timer could not be written to the timer journal.
+     *
+     * @param timerId the id of the timer
+     * @param cause   the cause of the error
+     * @return an {@link RuntimeException} for the error.
+     */
+    @Message(id = 14583, value = "Could not persist timer %s to the timer journal")
+    RuntimeException failToWriteTimerJournal(String timerId, @Cause Throwable cause);
+
+    /**
+     * Creates an exception indicating a compressed block of a passivated bean is malformed.
+     *
+     * @return an {@link IOException} for the error.
+     */
+    @Message(id = 14584, value = "Compressed block is corrupt")
+    IOException corruptCompressedBlock();
+
+    /**
+     * Creates an exception indicating the segmented passivation store could not be opened.
+     *
+     * @param directory the store directory
+     * @param cause     the cause of the error
+     * @return an {@link RuntimeException} for the error.
+     */
+    @Message(id = 14585, value = "Could not open passivation store %s")
+    RuntimeException failToOpenPassivationStore(File directory, @Cause Throwable cause);
+
     // STOP!!! Don't add message ids greater that 14599!!! If you need more first check what EjbLogger is
     // using and take more (lower) numbers from the available range for this module. If the range for the module is
     // all used, go to https://community.jboss.org/docs/DOC-16810 and allocate another block for this subsystem
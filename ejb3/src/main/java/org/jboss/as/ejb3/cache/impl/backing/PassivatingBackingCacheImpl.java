@@ -23,14 +23,15 @@
 package org.jboss.as.ejb3.cache.impl.backing;
 
 import java.io.Serializable;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ejb.NoSuchEJBException;
 
@@ -47,6 +48,8 @@ import org.jboss.as.ejb3.cache.spi.PassivatingBackingCache;
 import org.jboss.as.ejb3.cache.spi.BackingCacheLifecycleListener.LifecycleState;
 import org.jboss.as.ejb3.cache.spi.ReplicationPassivationManager;
 import org.jboss.as.ejb3.cache.spi.impl.AbstractBackingCache;
+import org.jboss.as.ejb3.cache.spi.impl.IdleTimeoutSweeper;
+import org.jboss.as.ejb3.cache.spi.impl.IdleTimeoutWheel;
 import org.jboss.as.ejb3.cache.spi.impl.PassivateTask;
 import org.jboss.as.ejb3.cache.spi.impl.RemoveTask;
 import org.jboss.as.ejb3.component.stateful.StatefulTimeoutInfo;
@@ -54,10 +57,26 @@ import org.jboss.ejb.client.Affinity;
 import org.jboss.logging.Logger;
 
 /**
+ * A {@link PassivatingBackingCache} which passivates entries that have been idle longer than the idle timeout of
+ * its store, and removes entries that have been idle longer than the stateful timeout.
+ * <p/>
+ * Idle entries are tracked by two {@link IdleTimeoutWheel}s. Unless the cache was given an executor of its own, they
+ * are swept by the {@link IdleTimeoutSweeper} shared by all caches, and the keys which timed out are passivated or
+ * removed in batches by its bounded pool of threads.
+ *
  * @author Paul Ferraro
  *
  */
 public class PassivatingBackingCacheImpl<K extends Serializable, V extends Cacheable<K>, E extends BackingCacheEntry<K, V>> extends AbstractBackingCache<K, V, E> implements PassivatingBackingCache<K, V, E> {
+    /**
+     * The interval between two sweeps of the idle timeout wheels, in milliseconds.
+     */
+    private static final long SWEEP_INTERVAL = IdleTimeoutSweeper.SWEEP_INTERVAL;
+    /**
+     * The maximum number of keys passivated or removed by a single task.
+     */
+    private static final int BATCH_SIZE = 64;
+
     protected final Logger log = Logger.getLogger(getClass().getName());
 
     private final StatefulObjectFactory<V> factory;
@@ -66,9 +85,20 @@ public class PassivatingBackingCacheImpl<K extends Serializable, V extends Cache
     private final BackingCacheEntryStore<K, V, E> store;
 
     private final ThreadFactory threadFactory;
-    private volatile ScheduledExecutorService executor;
-    private final Map<K, Future<?>> expirationFutures = new ConcurrentHashMap<K, Future<?>>();
-    private final Map<K, Future<?>> passivationFutures = new ConcurrentHashMap<K, Future<?>>();
+    private final ScheduledExecutorService executor;
+    private volatile Executor taskExecutor;
+    private volatile Future<?> sweeper;
+    /**
+     * The context class loader of the thread which started the cache, set while the shared threads run its tasks
+     */
+    private volatile ClassLoader classLoader;
+    /**
+     * Whether the idle timeouts are tracked, i.e. the cache is started and has an executor or a thread factory
+     */
+    private volatile boolean timeoutsEnabled;
+    private final IdleTimeoutWheel<K> expirationWheel = new IdleTimeoutWheel<K>(SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    private final IdleTimeoutWheel<K> passivationWheel = new IdleTimeoutWheel<K>(SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    private final AtomicInteger pendingPassivations = new AtomicInteger();
 
     public PassivatingBackingCacheImpl(StatefulObjectFactory<V> factory, BackingCacheEntryFactory<K, V, E> entryFactory, ReplicationPassivationManager<K, E> passivationManager, BackingCacheEntryStore<K, V, E> store) {
         this(factory, entryFactory, passivationManager, store, null, null);
@@ -154,7 +184,7 @@ public class PassivatingBackingCacheImpl<K extends Serializable, V extends Cache
                     entry.setPrePassivated(false);
 
                     entry.increaseUsageCount();
-                    this.cancelExpirationPassivation(key);
+                    this.suspendExpirationPassivation(key);
                     return entry;
                 }
                 // else discard and reacquire
@@ -262,47 +292,92 @@ public class PassivatingBackingCacheImpl<K extends Serializable, V extends Cache
         }
     }
 
-    private void cancelExpirationPassivation(K id) {
-        if (this.executor != null) {
-            if (this.store.getTimeout() != null) {
-                this.cancel(this.expirationFutures, id);
-            }
-            this.cancel(this.passivationFutures, id);
+    @Override
+    public int getPendingPassivationCount() {
+        // a batch which was running while the cache stopped may still decrement it
+        return Math.max(0, this.pendingPassivations.get());
+    }
+
+    private void suspendExpirationPassivation(K id) {
+        if (this.timeoutsEnabled) {
+            this.expirationWheel.suspend(id);
+            this.passivationWheel.suspend(id);
         }
     }
 
-    private void cancel(Map<K, Future<?>> futures, K id) {
-        Future<?> future = futures.remove(id);
-        if (future != null) {
-            future.cancel(false);
+    private void cancelExpirationPassivation(K id) {
+        if (this.timeoutsEnabled) {
+            this.expirationWheel.cancel(id);
+            this.passivationWheel.cancel(id);
         }
     }
 
     private void scheduleExpirationPassivation(K id) {
-        if (this.executor != null) {
+        if (this.timeoutsEnabled) {
             StatefulTimeoutInfo timeout = this.store.getTimeout();
             if (timeout != null && timeout.getValue() != -1) {
-                this.schedule(this.expirationFutures, id, this.removeTaskFactory, timeout.getValue(), timeout.getTimeUnit());
+                this.expirationWheel.schedule(id, timeout.getValue(), timeout.getTimeUnit());
             }
             BackingCacheEntryStoreConfig config = this.store.getConfig();
-            this.schedule(this.passivationFutures, id, this.passivateTaskFactory, config.getIdleTimeout(), config.getIdleTimeoutUnit());
+            this.passivationWheel.schedule(id, config.getIdleTimeout(), config.getIdleTimeoutUnit());
+        }
+    }
+
+    /**
+     * Sweeps the idle timeout wheels, and hands the timed out keys to the task executor in batches.
+     */
+    void sweep() {
+        if (!this.timeoutsEnabled) {
+            return;
         }
+        this.submit(this.expirationWheel.sweep(), this.removeTaskFactory, null);
+        this.submit(this.passivationWheel.sweep(), this.passivateTaskFactory, this.pendingPassivations);
     }
 
-    private void schedule(Map<K, Future<?>> futures, K id, TaskFactory<K> factory, long time, TimeUnit unit) {
-        Future<?> future = futures.put(id, this.executor.schedule(factory.createTask(id), time, unit));
-        if (future != null) {
-            future.cancel(false);
+    private void submit(List<K> ids, TaskFactory<K> factory, AtomicInteger pending) {
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            List<K> batch = ids.subList(i, Math.min(i + BATCH_SIZE, ids.size()));
+            if (pending != null) {
+                pending.addAndGet(batch.size());
+            }
+            try {
+                this.taskExecutor.execute(new BatchTask(batch, factory, pending));
+            } catch (RejectedExecutionException e) {
+                // the executor is shutting down, the keys were already taken from the wheel so process them here
+                List<K> remaining = ids.subList(i, ids.size());
+                if (pending != null) {
+                    pending.addAndGet(remaining.size() - batch.size());
+                }
+                new BatchTask(remaining, factory, pending).run();
+                return;
+            }
         }
     }
 
+    private final Runnable sweepTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                PassivatingBackingCacheImpl.this.sweep();
+            } catch (RuntimeException e) {
+                EjbLogger.EJB3_LOGGER.debug("idle timeout sweep failed", e);
+            }
+        }
+    };
+
     @Override
     public void start() {
         notifyLifecycleListeners(LifecycleState.STARTING);
         try {
             store.start();
-            if (this.threadFactory != null) {
-                this.executor = Executors.newSingleThreadScheduledExecutor(this.threadFactory);
+            if (this.executor != null) {
+                this.taskExecutor = this.executor;
+                this.timeoutsEnabled = true;
+                this.sweeper = this.executor.scheduleWithFixedDelay(this.sweepTask, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+            } else if (this.threadFactory != null) {
+                this.classLoader = SecurityActions.getContextClassLoader();
+                this.taskExecutor = IdleTimeoutSweeper.INSTANCE.register(this.sweepTask);
+                this.timeoutsEnabled = true;
             }
             notifyLifecycleListeners(LifecycleState.STARTED);
         } catch (RuntimeException e) {
@@ -315,9 +390,17 @@ public class PassivatingBackingCacheImpl<K extends Serializable, V extends Cache
     public void stop() {
         notifyLifecycleListeners(LifecycleState.STOPPING);
         try {
-            if (this.threadFactory != null) {
-                this.executor.shutdownNow();
+            this.timeoutsEnabled = false;
+            if (this.sweeper != null) {
+                this.sweeper.cancel(false);
+                this.sweeper = null;
+            } else if (this.threadFactory != null) {
+                IdleTimeoutSweeper.INSTANCE.unregister(this.sweepTask);
+                this.classLoader = null;
             }
+            this.expirationWheel.clear();
+            this.passivationWheel.clear();
+            this.pendingPassivations.set(0);
             store.stop();
             notifyLifecycleListeners(LifecycleState.STOPPED);
         } catch (RuntimeException e) {
@@ -349,6 +432,43 @@ public class PassivatingBackingCacheImpl<K extends Serializable, V extends Cache
         }
     };
 
+    private class BatchTask implements Runnable {
+        private final List<K> ids;
+        private final TaskFactory<K> factory;
+        private final AtomicInteger pending;
+
+        BatchTask(List<K> ids, TaskFactory<K> factory, AtomicInteger pending) {
+            this.ids = ids;
+            this.factory = factory;
+            this.pending = pending;
+        }
+
+        @Override
+        public void run() {
+            ClassLoader classLoader = PassivatingBackingCacheImpl.this.classLoader;
+            ClassLoader previous = (classLoader != null) ? SecurityActions.setContextClassLoader(classLoader) : null;
+            try {
+                for (K id : this.ids) {
+                    // the executor is shared, it keeps running the tasks of a stopped cache
+                    if (!PassivatingBackingCacheImpl.this.timeoutsEnabled) {
+                        return;
+                    }
+                    try {
+                        this.factory.createTask(id).run();
+                    } finally {
+                        if (this.pending != null) {
+                            this.pending.decrementAndGet();
+                        }
+                    }
+                }
+            } finally {
+                if (classLoader != null) {
+                    SecurityActions.setContextClassLoader(previous);
+                }
+            }
+        }
+    }
+
     private void trace(String pattern, Object... args) {
         if (log.isTraceEnabled()) {
             log.tracef(pattern, args);
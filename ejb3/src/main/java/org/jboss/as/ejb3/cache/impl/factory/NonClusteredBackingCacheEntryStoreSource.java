@@ -32,10 +32,12 @@ import org.jboss.as.ejb3.cache.PassivationManager;
 import org.jboss.as.ejb3.cache.impl.backing.SimpleBackingCacheEntryStore;
 import org.jboss.as.ejb3.cache.spi.BackingCacheEntryStore;
 import org.jboss.as.ejb3.cache.spi.BackingCacheEntryStoreSource;
+import org.jboss.as.ejb3.cache.spi.PersistentObjectStore;
 import org.jboss.as.ejb3.cache.spi.SerializationGroup;
 import org.jboss.as.ejb3.cache.spi.SerializationGroupMember;
 import org.jboss.as.ejb3.cache.spi.impl.AbstractBackingCacheEntryStoreSource;
 import org.jboss.as.ejb3.cache.spi.impl.FilePersistentObjectStore;
+import org.jboss.as.ejb3.cache.spi.impl.SegmentedPersistentObjectStore;
 import org.jboss.as.ejb3.component.stateful.StatefulTimeoutInfo;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.as.server.ServerEnvironmentService;
@@ -45,7 +47,7 @@ import org.jboss.msc.value.InjectedValue;
 
 /**
  * {@link BackingCacheEntryStoreSource} for a non-clustered cache. Uses a {@link FilePersistentObjectStore} store for
- * persistence.
+ * persistence, or a {@link SegmentedPersistentObjectStore} if {@link #isSegmented() segmented} is set.
  *
  * @author Brian Stansberry
  * @author Paul Ferraro
@@ -63,6 +65,8 @@ public class NonClusteredBackingCacheEntryStoreSource<K extends Serializable, V
 
     public static final String DEFAULT_RELATIVE_TO = ServerEnvironment.SERVER_DATA_DIR;
     public static final int DEFAULT_SUBDIRECTORY_COUNT = 100;
+    public static final boolean DEFAULT_SEGMENTED = false;
+    public static final boolean DEFAULT_COMPRESSED = false;
 
     private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
     private final InjectedValue<ServerEnvironment> environment = new InjectedValue<ServerEnvironment>();
@@ -70,11 +74,13 @@ public class NonClusteredBackingCacheEntryStoreSource<K extends Serializable, V
     private String groupDirectoryName = DEFAULT_GROUP_DIRECTORY_NAME;
     private String relativeToRef = DEFAULT_RELATIVE_TO;
     private int subdirectoryCount = DEFAULT_SUBDIRECTORY_COUNT;
+    private volatile boolean segmented = DEFAULT_SEGMENTED;
+    private volatile boolean compressed = DEFAULT_COMPRESSED;
     private volatile PathManager.Callback.Handle callbackHandle;
 
     @Override
     public <E extends SerializationGroup<K, V, G>> BackingCacheEntryStore<G, Cacheable<G>, E> createGroupIntegratedObjectStore(IdentifierFactory<G> identifierFactory, PassivationManager<G, E> passivationManager, StatefulTimeoutInfo timeout) {
-        FilePersistentObjectStore<G, E> objectStore = new FilePersistentObjectStore<G, E>(passivationManager, this.getStoragePath(null, this.groupDirectoryName), subdirectoryCount);
+        PersistentObjectStore<G, E> objectStore = this.createObjectStore(passivationManager, this.getStoragePath(null, this.groupDirectoryName));
 
         SimpleBackingCacheEntryStore<G, Cacheable<G>, E> store = new SimpleBackingCacheEntryStore<G, Cacheable<G>, E>(identifierFactory, objectStore, this.environment.getValue(), timeout, this);
 
@@ -83,7 +89,7 @@ public class NonClusteredBackingCacheEntryStoreSource<K extends Serializable, V
 
     @Override
     public <E extends SerializationGroupMember<K, V, G>> BackingCacheEntryStore<K, V, E> createIntegratedObjectStore(String beanName, IdentifierFactory<K> identifierFactory, PassivationManager<K, E> passivationManager, StatefulTimeoutInfo timeout) {
-        FilePersistentObjectStore<K, E> objectStore = new FilePersistentObjectStore<K, E>(passivationManager, this.getStoragePath(beanName, this.sessionDirectoryName), subdirectoryCount);
+        PersistentObjectStore<K, E> objectStore = this.createObjectStore(passivationManager, this.getStoragePath(beanName, this.sessionDirectoryName));
 
         SimpleBackingCacheEntryStore<K, V, E> store = new SimpleBackingCacheEntryStore<K, V, E>(identifierFactory, objectStore, this.environment.getValue(), timeout, this);
 
@@ -96,6 +102,13 @@ public class NonClusteredBackingCacheEntryStoreSource<K extends Serializable, V
         builder.addDependency(ServerEnvironmentService.SERVICE_NAME, ServerEnvironment.class, this.environment);
     }
 
+    private <I extends Serializable, E extends Cacheable<I>> PersistentObjectStore<I, E> createObjectStore(PassivationManager<I, E> passivationManager, String path) {
+        if (this.segmented) {
+            return new SegmentedPersistentObjectStore<I, E>(passivationManager, path, this.compressed);
+        }
+        return new FilePersistentObjectStore<I, E>(passivationManager, path, this.subdirectoryCount);
+    }
+
     private String getStoragePath(String beanName, String subDirectory) {
         File path = new File(pathManager.getValue().resolveRelativePathEntry(subDirectory, relativeToRef));
         return path.getAbsolutePath();
@@ -150,6 +163,29 @@ public class NonClusteredBackingCacheEntryStoreSource<K extends Serializable, V
         this.subdirectoryCount = subdirectoryCount;
     }
 
+    /**
+     * Indicates whether objects are appended to segment files, instead of being written to a file each.
+     * Default is {@link #DEFAULT_SEGMENTED}.
+     */
+    public boolean isSegmented() {
+        return segmented;
+    }
+
+    public void setSegmented(boolean segmented) {
+        this.segmented = segmented;
+    }
+
+    /**
+     * Indicates whether a segmented store should compress the objects it stores. Default is {@link #DEFAULT_COMPRESSED}.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
     public String getRelativeTo() {
         return this.relativeToRef;
     }
@@ -45,4 +45,11 @@ public interface PassivatingBackingCache<K extends Serializable, V extends Cache
      * @return the checker, or <code>null</code> if this cache is not using one.
      */
     GroupCompatibilityChecker getCompatibilityChecker();
+
+    /**
+     * Gets the number of objects whose idle timeout has elapsed and which are waiting to be passivated.
+     *
+     * @return the number of pending passivations
+     */
+    int getPendingPassivationCount();
 }
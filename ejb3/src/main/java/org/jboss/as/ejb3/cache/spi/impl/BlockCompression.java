@@ -0,0 +1,239 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import java.io.IOException;
+
+import org.jboss.as.ejb3.EjbMessages;
+
+/**
+ * A fast LZ77 block compressor, using the block format of LZ4.
+ * <p/>
+ * A block is a sequence of <code>token, [literal length], literals, offset, [match length]</code> sequences, where the
+ * high nibble of the token is the number of literals and the low nibble the length of the match minus 4, each of which
+ * is continued by extra bytes when it is 15. The last sequence only has literals. Matches are found with a single
+ * hash table of 4 byte sequences and no chaining, which trades some ratio for speed; serialized beans are dominated
+ * by repeated class descriptors and field names, which this finds easily.
+ */
+final class BlockCompression {
+
+    private static final int MIN_MATCH = 4;
+    /**
+     * The last 5 bytes are always literals, and the last match starts at least 12 bytes before the end.
+     */
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0F;
+    /**
+     * The number of misses after which the search starts skipping bytes, so incompressible data is skipped quickly.
+     */
+    private static final int SKIP_TRIGGER = 6;
+
+    private BlockCompression() {
+    }
+
+    /**
+     * @return the maximum length of the compressed form of <code>length</code> bytes
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses a block.
+     *
+     * @param src the source buffer
+     * @param srcOff the offset of the block in the source buffer
+     * @param srcLen the length of the block
+     * @param dst the destination buffer, with at least {@link #maxCompressedLength(int)} bytes available from <code>dstOff</code>
+     * @param dstOff the offset in the destination buffer
+     * @return the length of the compressed block
+     */
+    static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        final int srcEnd = srcOff + srcLen;
+        int dOff = dstOff;
+        int anchor = srcOff;
+        if (srcLen > MATCH_FIND_LIMIT) {
+            // positions are stored + 1, so that 0 means empty
+            final int[] table = new int[1 << HASH_LOG];
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            final int findLimit = srcEnd - MATCH_FIND_LIMIT;
+            int sOff = srcOff;
+            while (sOff < findLimit) {
+                final int sequence = readInt(src, sOff);
+                final int hash = hash(sequence);
+                int ref = table[hash] - 1;
+                table[hash] = sOff + 1;
+                if (ref < srcOff || sOff - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    sOff += 1 + ((sOff - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+                // extend the match backwards into the pending literals
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (sOff + matchLength < matchLimit && src[sOff + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLength, dst, dOff);
+                sOff += matchLength;
+                anchor = sOff;
+            }
+        }
+        return writeLastLiterals(src, anchor, srcEnd - anchor, dst, dOff) - dstOff;
+    }
+
+    /**
+     * Decompresses a block.
+     *
+     * @param src the source buffer
+     * @param srcOff the offset of the compressed block in the source buffer
+     * @param srcLen the length of the compressed block
+     * @param dst the destination buffer
+     * @param dstOff the offset in the destination buffer
+     * @param dstLen the exact length of the uncompressed block
+     * @throws IOException if the block is malformed
+     */
+    static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int dstEnd = dstOff + dstLen;
+        int sOff = srcOff;
+        int dOff = dstOff;
+        for (;;) {
+            if (sOff >= srcEnd) {
+                throw EjbMessages.MESSAGES.corruptCompressedBlock();
+            }
+            final int token = src[sOff++] & 0xFF;
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw EjbMessages.MESSAGES.corruptCompressedBlock();
+                    }
+                    b = src[sOff++] & 0xFF;
+                    literalLength += b;
+                } while (b == 0xFF);
+            }
+            if (literalLength > srcEnd - sOff || literalLength > dstEnd - dOff) {
+                throw EjbMessages.MESSAGES.corruptCompressedBlock();
+            }
+            System.arraycopy(src, sOff, dst, dOff, literalLength);
+            sOff += literalLength;
+            dOff += literalLength;
+            if (sOff == srcEnd) {
+                break;
+            }
+            if (srcEnd - sOff < 2) {
+                throw EjbMessages.MESSAGES.corruptCompressedBlock();
+            }
+            final int offset = (src[sOff++] & 0xFF) | ((src[sOff++] & 0xFF) << 8);
+            int ref = dOff - offset;
+            if (offset == 0 || ref < dstOff) {
+                throw EjbMessages.MESSAGES.corruptCompressedBlock();
+            }
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw EjbMessages.MESSAGES.corruptCompressedBlock();
+                    }
+                    b = src[sOff++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > dstEnd - dOff) {
+                throw EjbMessages.MESSAGES.corruptCompressedBlock();
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, dOff, matchLength);
+                dOff += matchLength;
+            } else {
+                // the match overlaps the bytes it produces
+                for (int end = dOff + matchLength; dOff < end; ) {
+                    dst[dOff++] = dst[ref++];
+                }
+            }
+        }
+        if (dOff != dstEnd) {
+            throw EjbMessages.MESSAGES.corruptCompressedBlock();
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalOff, int literalLength, int offset, int matchLength, byte[] dst, int dOff) {
+        final int tokenOff = dOff++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            dOff = writeLength(literalLength - RUN_MASK, dst, dOff);
+        } else {
+            token = literalLength << 4;
+        }
+        System.arraycopy(src, literalOff, dst, dOff, literalLength);
+        dOff += literalLength;
+        dst[dOff++] = (byte) offset;
+        dst[dOff++] = (byte) (offset >>> 8);
+        final int length = matchLength - MIN_MATCH;
+        if (length >= RUN_MASK) {
+            token |= RUN_MASK;
+            dOff = writeLength(length - RUN_MASK, dst, dOff);
+        } else {
+            token |= length;
+        }
+        dst[tokenOff] = (byte) token;
+        return dOff;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalOff, int literalLength, byte[] dst, int dOff) {
+        if (literalLength >= RUN_MASK) {
+            dst[dOff++] = (byte) (RUN_MASK << 4);
+            dOff = writeLength(literalLength - RUN_MASK, dst, dOff);
+        } else {
+            dst[dOff++] = (byte) (literalLength << 4);
+        }
+        System.arraycopy(src, literalOff, dst, dOff, literalLength);
+        return dOff + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dOff) {
+        while (length >= 0xFF) {
+            dst[dOff++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dst[dOff++] = (byte) length;
+        return dOff;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8) | ((buffer[offset + 2] & 0xFF) << 16) | ((buffer[offset + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.EjbLogger;
+
+/**
+ * Sweeps the {@link IdleTimeoutWheel}s of all the started caches with a single periodic task, and runs the
+ * passivations and removals of all these caches on a single pool of at most one thread per processor.
+ * <p/>
+ * The threads are created when the first cache registers, and stopped when the last cache unregisters. They are
+ * shared by the caches of all deployments, so they do not inherit anything from the thread which happens to create
+ * them: their context class loader is {@code null}, and tasks which need one must set it themselves.
+ */
+public final class IdleTimeoutSweeper {
+
+    /**
+     * The interval between two sweeps, in milliseconds.
+     */
+    public static final long SWEEP_INTERVAL = 100;
+
+    public static final IdleTimeoutSweeper INSTANCE = new IdleTimeoutSweeper();
+
+    private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable task) {
+            // privileged, so that the thread does not inherit the access control context of the caller
+            return AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+                @Override
+                public Thread run() {
+                    final Thread thread = new Thread(task, "EJB idle timeout sweeper " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(null);
+                    return thread;
+                }
+            });
+        }
+    };
+
+    private final Set<Runnable> sweeps = new CopyOnWriteArraySet<Runnable>();
+    private ScheduledExecutorService sweeper;
+    private ThreadPoolExecutor executor;
+
+    private final Runnable sweepTask = new Runnable() {
+        @Override
+        public void run() {
+            for (Runnable sweep : sweeps) {
+                try {
+                    sweep.run();
+                } catch (RuntimeException e) {
+                    EjbLogger.EJB3_LOGGER.debug("idle timeout sweep failed", e);
+                }
+            }
+        }
+    };
+
+    private IdleTimeoutSweeper() {
+    }
+
+    /**
+     * Registers the sweep of a cache, which is run every {@link #SWEEP_INTERVAL} ms until it is unregistered.
+     *
+     * @param sweep sweeps the idle timeout wheels of the cache
+     * @return the executor which runs the passivations and removals of the cache
+     */
+    public synchronized Executor register(final Runnable sweep) {
+        if (this.sweeper == null) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+            this.executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY);
+            this.executor.allowCoreThreadTimeOut(true);
+            this.sweeper.scheduleWithFixedDelay(this.sweepTask, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        this.sweeps.add(sweep);
+        return this.executor;
+    }
+
+    /**
+     * Unregisters the sweep of a cache. The tasks the cache already handed to the executor may still run.
+     *
+     * @param sweep the sweep passed to {@link #register(Runnable)}
+     */
+    public synchronized void unregister(final Runnable sweep) {
+        if (this.sweeps.remove(sweep) && this.sweeps.isEmpty()) {
+            this.sweeper.shutdownNow();
+            this.executor.shutdownNow();
+            this.sweeper = null;
+            this.executor = null;
+        }
+    }
+}
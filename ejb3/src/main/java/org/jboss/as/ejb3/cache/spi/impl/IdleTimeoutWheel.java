@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Tracks the idle timeouts of cache entries in a hashed timing wheel, which is swept in batches.
+ * <p/>
+ * Every key is represented by a single timeout, which sits in the bucket covering its deadline. Touching a key
+ * whose deadline moves forward only updates the deadline of the existing timeout, the timeout is moved to its new
+ * bucket lazily when its old bucket is swept. Scheduling, suspending and cancelling are therefore lock-free and
+ * O(1), and no per-key task is ever handed to an executor. {@link #sweep()} returns the keys whose deadline has
+ * elapsed, and is meant to be called periodically by a single thread.
+ */
+public class IdleTimeoutWheel<K> {
+
+    private static final int WHEEL_SIZE = 1024;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * The deadline of a timeout which has fired or has been replaced.
+     */
+    private static final long EXPIRED = Long.MIN_VALUE;
+    /**
+     * The deadline of a timeout whose key is in use, and must not time out until it is scheduled again.
+     */
+    private static final long SUSPENDED = Long.MAX_VALUE;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<Timeout> DEADLINE = AtomicLongFieldUpdater.newUpdater(Timeout.class, "deadline");
+
+    private final long tickDuration;
+    private final ConcurrentMap<K, Timeout<K>> timeouts = new ConcurrentHashMap<K, Timeout<K>>();
+    private final Queue<Timeout<K>>[] buckets;
+    /**
+     * Timeouts which were added to a bucket the sweeper had already passed.
+     */
+    private final Queue<Timeout<K>> overdue = new ConcurrentLinkedQueue<Timeout<K>>();
+    /**
+     * The last tick whose bucket has been swept.
+     */
+    private volatile long sweptTick;
+
+    @SuppressWarnings("unchecked")
+    public IdleTimeoutWheel(long tickDuration, TimeUnit unit) {
+        this.tickDuration = Math.max(unit.toMillis(tickDuration), 1);
+        this.buckets = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            this.buckets[i] = new ConcurrentLinkedQueue<Timeout<K>>();
+        }
+        this.sweptTick = currentTime() / this.tickDuration - 1;
+    }
+
+    /**
+     * (Re)schedules the timeout of the given key.
+     *
+     * @param key the key
+     * @param timeout the time after which the key times out
+     * @param unit the unit of <code>timeout</code>
+     */
+    public void schedule(K key, long timeout, TimeUnit unit) {
+        this.schedule(key, currentTime() + unit.toMillis(timeout));
+    }
+
+    void schedule(K key, long deadline) {
+        Timeout<K> timeout = this.timeouts.get(key);
+        if (timeout != null) {
+            // the existing timeout can be reused, as long as its bucket does not come after the new deadline
+            while (deadline / this.tickDuration >= timeout.tick) {
+                long current = timeout.deadline;
+                if (current == EXPIRED) {
+                    break;
+                }
+                if (DEADLINE.compareAndSet(timeout, current, deadline)) {
+                    return;
+                }
+            }
+        }
+        Timeout<K> newTimeout = new Timeout<K>(key, deadline);
+        Timeout<K> previous = this.timeouts.put(key, newTimeout);
+        if (previous != null) {
+            DEADLINE.set(previous, EXPIRED);
+        }
+        this.add(newTimeout);
+    }
+
+    /**
+     * Suspends the timeout of the given key until it is scheduled again.
+     *
+     * @param key the key
+     */
+    public void suspend(K key) {
+        Timeout<K> timeout = this.timeouts.get(key);
+        if (timeout != null) {
+            long current;
+            do {
+                current = timeout.deadline;
+                if (current == EXPIRED || current == SUSPENDED) {
+                    return;
+                }
+            } while (!DEADLINE.compareAndSet(timeout, current, SUSPENDED));
+        }
+    }
+
+    /**
+     * Stops tracking the given key.
+     *
+     * @param key the key
+     */
+    public void cancel(K key) {
+        Timeout<K> timeout = this.timeouts.remove(key);
+        if (timeout != null) {
+            DEADLINE.set(timeout, EXPIRED);
+        }
+    }
+
+    /**
+     * Sweeps all the buckets whose time has elapsed since the previous sweep.
+     *
+     * @return the keys which timed out, which are no longer tracked
+     */
+    public List<K> sweep() {
+        return this.sweep(currentTime());
+    }
+
+    List<K> sweep(long now) {
+        List<K> expired = new ArrayList<K>();
+        List<Timeout<K>> pending = new ArrayList<Timeout<K>>();
+        // the last tick which has completely elapsed; a single revolution is enough to visit every bucket
+        long last = now / this.tickDuration - 1;
+        for (long tick = Math.max(this.sweptTick + 1, last - WHEEL_MASK); tick <= last; tick++) {
+            // publish the tick before draining, so that a concurrent add to this bucket is rerouted to the overdue queue
+            this.sweptTick = tick;
+            this.drain(this.buckets[(int) tick & WHEEL_MASK], now, expired, pending);
+        }
+        this.drain(this.overdue, now, expired, pending);
+        for (Timeout<K> timeout : pending) {
+            this.add(timeout);
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of keys being tracked
+     */
+    public int size() {
+        return this.timeouts.size();
+    }
+
+    /**
+     * Stops tracking all keys.
+     */
+    public void clear() {
+        for (K key : this.timeouts.keySet()) {
+            this.cancel(key);
+        }
+        for (Queue<Timeout<K>> bucket : this.buckets) {
+            bucket.clear();
+        }
+        this.overdue.clear();
+    }
+
+    private void drain(Queue<Timeout<K>> queue, long now, List<K> expired, List<Timeout<K>> pending) {
+        Timeout<K> timeout;
+        while ((timeout = queue.poll()) != null) {
+            long deadline;
+            do {
+                deadline = timeout.deadline;
+            } while (deadline != EXPIRED && deadline <= now && !DEADLINE.compareAndSet(timeout, deadline, EXPIRED));
+
+            if (deadline == EXPIRED) {
+                // replaced or cancelled
+                continue;
+            }
+            if (deadline > now) {
+                // touched since it was added, or more than one revolution away
+                pending.add(timeout);
+                continue;
+            }
+            this.timeouts.remove(timeout.key, timeout);
+            expired.add(timeout.key);
+        }
+    }
+
+    private void add(Timeout<K> timeout) {
+        // no in-place reschedule while the bucket is unknown
+        timeout.tick = Long.MAX_VALUE;
+        long tick = timeout.deadline / this.tickDuration;
+        timeout.tick = tick;
+        if (tick <= this.sweptTick) {
+            this.overdue.add(timeout);
+            return;
+        }
+        this.buckets[(int) tick & WHEEL_MASK].add(timeout);
+        if (tick <= this.sweptTick) {
+            // the sweeper went past the bucket while we were adding to it
+            this.overdue.add(timeout);
+        }
+    }
+
+    private static long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static final class Timeout<K> {
+        final K key;
+        volatile long deadline;
+        /**
+         * The tick of the bucket this timeout was last added to.
+         */
+        volatile long tick;
+
+        Timeout(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+            this.tick = Long.MAX_VALUE;
+        }
+    }
+}
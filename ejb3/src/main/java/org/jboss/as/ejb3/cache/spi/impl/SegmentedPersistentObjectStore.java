@@ -0,0 +1,672 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jboss.as.ejb3.EjbMessages;
+import org.jboss.as.ejb3.cache.Cacheable;
+import org.jboss.as.ejb3.cache.PassivationManager;
+import org.jboss.as.ejb3.cache.spi.PersistentObjectStore;
+import org.jboss.logging.Logger;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+
+/**
+ * Stores objects in a directory of append-only segment files.
+ * <p/>
+ * Unlike {@link FilePersistentObjectStore}, which writes every object to a file of its own, all objects are appended
+ * to the current segment. Writes are handed to a single writer thread which appends all the records queued at that
+ * point with a single write, so a burst of passivations costs a few large sequential writes instead of one file
+ * creation per bean. Passivated objects do not survive a restart, so the writer does not wait for every batch to reach
+ * the disk, it syncs the current segment at most once per {@link #SYNC_INTERVAL} instead. The location of every stored object is kept in an in-memory index, so
+ * activating an object is a single positioned read.
+ * <p/>
+ * Each record is written as <code>stored length, uncompressed length, marshalling version, data</code>, where the
+ * data is compressed with {@link BlockCompression} if compression is enabled and it actually makes the record
+ * smaller, in which case the uncompressed length is not 0.
+ * <p/>
+ * Once a segment reaches its maximum size a new one is started. A sealed segment is deleted as soon as all of its
+ * objects have been loaded, and a sealed segment whose live data drops below half of its size is compacted by a
+ * background thread, which appends its live records to the current segment. Passivated objects do not survive a
+ * restart, so the segments left over from a previous run are deleted on start.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SegmentedPersistentObjectStore<K extends Serializable, V extends Cacheable<K>> implements PersistentObjectStore<K, V> {
+    private static final Logger log = Logger.getLogger(SegmentedPersistentObjectStore.class);
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+    private static final int HEADER_SIZE = 12;
+    /**
+     * The maximum number of records that are written at once
+     */
+    private static final int MAX_BATCH_SIZE = 1024;
+    /**
+     * The minimum time between two syncs of the current segment, in nanoseconds
+     */
+    private static final long SYNC_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The number of records a compaction moves at a time
+     */
+    private static final int COMPACTION_BATCH_SIZE = 256;
+
+    private final MarshallerFactory marshallerFactory = Marshalling.getMarshallerFactory("river", MarshallerFactory.class.getClassLoader());
+    private final PassivationManager<K, V> passivationManager;
+    private final File directory;
+    private final boolean compress;
+    private final long segmentSize;
+
+    private final ConcurrentMap<K, Location> index = new ConcurrentHashMap<K, Location>();
+    private final List<Segment> segments = new CopyOnWriteArrayList<Segment>();
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<Write>();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Write shutdown = new Write(new byte[0]);
+    /**
+     * Writes are queued under the read lock and the store is closed under the write lock, so that no write can be
+     * queued after the shutdown marker
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private volatile boolean open;
+    private Thread writerThread;
+    private Thread compactorThread;
+
+    // only accessed by the writer thread once the store is open
+    private Segment current;
+    private long sequence;
+
+    public SegmentedPersistentObjectStore(PassivationManager<K, V> passivationManager, String directoryName, boolean compress) {
+        this(passivationManager, directoryName, compress, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentedPersistentObjectStore(PassivationManager<K, V> passivationManager, String directoryName, boolean compress, long segmentSize) {
+        this.passivationManager = passivationManager;
+        this.directory = new File(directoryName);
+        this.compress = compress;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.open) {
+            return;
+        }
+        if (!this.directory.exists() && !this.directory.mkdirs() && !this.directory.exists()) {
+            throw EjbMessages.MESSAGES.passivationDirectoryCreationFailed(this.directory.getPath());
+        }
+        if (!this.directory.isDirectory()) {
+            throw EjbMessages.MESSAGES.passivationPathNotADirectory(this.directory.getPath());
+        }
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(PREFIX) && file.getName().endsWith(SUFFIX)) {
+                    delete(file);
+                }
+            }
+        }
+        try {
+            this.sequence = 0;
+            this.current = this.openSegment(this.sequence);
+        } catch (IOException e) {
+            throw EjbMessages.MESSAGES.failToOpenPassivationStore(this.directory, e);
+        }
+        this.open = true;
+
+        this.writerThread = new Thread(new Writer(), "EJB passivation store writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        this.stateLock.writeLock().lock();
+        try {
+            if (!this.open) {
+                return;
+            }
+            this.open = false;
+            this.queue.add(this.shutdown);
+        } finally {
+            this.stateLock.writeLock().unlock();
+        }
+        join(this.writerThread);
+        // the compactor is only ever started by the writer thread
+        join(this.compactorThread);
+        this.writerThread = null;
+        this.compactorThread = null;
+        this.index.clear();
+        for (Segment segment : this.segments) {
+            segment.delete();
+        }
+        this.segments.clear();
+    }
+
+    @Override
+    public void store(V obj) {
+        K key = obj.getId();
+        log.tracef("Storing state of %s to %s", key, this.directory);
+        Location location;
+        try {
+            location = this.write(this.record(obj));
+        } catch (IOException e) {
+            throw EjbMessages.MESSAGES.passivationFailed(e, key);
+        }
+        Location previous = this.index.put(key, location);
+        if (previous != null) {
+            previous.free();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V load(K key) {
+        Location location = this.index.remove(key);
+        if (location == null) {
+            return null;
+        }
+        log.tracef("Loading state of %s from %s", key, location.segment.file);
+        try {
+            byte[] record;
+            try {
+                record = location.read();
+            } finally {
+                location.free();
+            }
+            ByteBuffer header = ByteBuffer.wrap(record, 0, HEADER_SIZE);
+            int storedLength = header.getInt();
+            int length = header.getInt();
+            int version = header.getInt();
+            byte[] data = record;
+            int offset = HEADER_SIZE;
+            if (length == 0) {
+                length = storedLength;
+            } else {
+                data = new byte[length];
+                offset = 0;
+                BlockCompression.decompress(record, HEADER_SIZE, storedLength, data, 0, length);
+            }
+            MarshallingConfiguration config = this.passivationManager.getMarshallingConfiguration(version);
+            Unmarshaller unmarshaller = this.marshallerFactory.createUnmarshaller(config);
+            unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(data, offset, length)));
+            try {
+                V value = (V) unmarshaller.readObject();
+                unmarshaller.finish();
+                return value;
+            } finally {
+                unmarshaller.close();
+            }
+        } catch (Exception e) {
+            throw EjbMessages.MESSAGES.activationFailed(e, key);
+        }
+    }
+
+    /**
+     * @return the number of objects currently stored
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * @return the number of segment files currently in use
+     */
+    public int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    private byte[] record(V obj) throws IOException {
+        int version = this.passivationManager.getCurrentMarshallingVersion();
+        MarshallingConfiguration config = this.passivationManager.getMarshallingConfiguration(version);
+        ExposedByteArrayOutputStream bytes = new ExposedByteArrayOutputStream(512);
+        // placeholder for the header
+        bytes.write(new byte[HEADER_SIZE]);
+        Marshaller marshaller = this.marshallerFactory.createMarshaller(config);
+        marshaller.start(Marshalling.createByteOutput(bytes));
+        try {
+            marshaller.writeObject(obj);
+            marshaller.finish();
+        } finally {
+            marshaller.close();
+        }
+        byte[] record = bytes.getBuffer();
+        int length = bytes.size() - HEADER_SIZE;
+        int storedLength = length;
+        int uncompressedLength = 0;
+        if (this.compress) {
+            byte[] compressed = new byte[HEADER_SIZE + BlockCompression.maxCompressedLength(length)];
+            int compressedLength = BlockCompression.compress(record, HEADER_SIZE, length, compressed, HEADER_SIZE);
+            if (compressedLength < length) {
+                record = compressed;
+                storedLength = compressedLength;
+                uncompressedLength = length;
+            }
+        }
+        ByteBuffer header = ByteBuffer.wrap(record);
+        header.putInt(storedLength);
+        header.putInt(uncompressedLength);
+        header.putInt(version);
+        if (record.length == HEADER_SIZE + storedLength) {
+            return record;
+        }
+        byte[] result = new byte[HEADER_SIZE + storedLength];
+        System.arraycopy(record, 0, result, 0, result.length);
+        return result;
+    }
+
+    private Location write(byte[] record) throws IOException {
+        Write write = new Write(record);
+        this.enqueue(write);
+        return write.await();
+    }
+
+    private void enqueue(Write write) throws IOException {
+        this.stateLock.readLock().lock();
+        try {
+            if (!this.open) {
+                throw new IOException("Passivation store " + this.directory + " is closed");
+            }
+            this.queue.add(write);
+        } finally {
+            this.stateLock.readLock().unlock();
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        File file = new File(this.directory, PREFIX + sequence + SUFFIX);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        Segment segment = new Segment(file, raf.getChannel());
+        this.segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Moves the live records of the sealed segments which are mostly garbage to the current segment.
+     */
+    private void compact() throws IOException {
+        for (Segment segment : this.segments) {
+            if (segment.isSealed() && segment.liveBytes.get() < segment.size / 2) {
+                this.compact(segment);
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException {
+        List<Move> moves = new ArrayList<Move>(COMPACTION_BATCH_SIZE);
+        for (Map.Entry<K, Location> entry : this.index.entrySet()) {
+            if (!this.open) {
+                return;
+            }
+            Location location = entry.getValue();
+            // the segment is deleted as soon as the last of its records has been loaded
+            if (location.segment != segment || !segment.retain()) {
+                continue;
+            }
+            try {
+                Write write = new Write(location.read());
+                this.enqueue(write);
+                moves.add(new Move(entry.getKey(), location, write));
+            } finally {
+                segment.release();
+            }
+            if (moves.size() == COMPACTION_BATCH_SIZE) {
+                this.relocate(moves);
+            }
+        }
+        this.relocate(moves);
+    }
+
+    private void relocate(List<Move> moves) throws IOException {
+        try {
+            for (Move move : moves) {
+                Location location = move.write.await();
+                if (this.index.replace(move.key, move.location, location)) {
+                    move.location.free();
+                } else {
+                    // loaded or stored again in the meantime
+                    location.free();
+                }
+            }
+        } finally {
+            moves.clear();
+        }
+    }
+
+    private void startCompaction() {
+        if (!this.compacting.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SegmentedPersistentObjectStore.this.compact();
+                } catch (IOException e) {
+                    if (SegmentedPersistentObjectStore.this.open) {
+                        ROOT_LOGGER.passivationStoreCompactionFailed(SegmentedPersistentObjectStore.this.directory, e);
+                    }
+                } finally {
+                    SegmentedPersistentObjectStore.this.compacting.set(false);
+                }
+            }
+        }, "EJB passivation store compactor");
+        thread.setDaemon(true);
+        this.compactorThread = thread;
+        thread.start();
+    }
+
+    private static void join(Thread thread) {
+        boolean interrupted = false;
+        while (thread != null && thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            log.debugf("Could not delete passivation store file %s", file);
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        @Override
+        public void run() {
+            List<Write> batch = new ArrayList<Write>();
+            long lastSync = System.nanoTime();
+            boolean running = true;
+            while (running) {
+                try {
+                    batch.add(SegmentedPersistentObjectStore.this.queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                SegmentedPersistentObjectStore.this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                Segment segment = SegmentedPersistentObjectStore.this.current;
+                IOException failure = null;
+                long position = segment.size;
+                try {
+                    List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(batch.size());
+                    for (Write write : batch) {
+                        if (write == SegmentedPersistentObjectStore.this.shutdown) {
+                            running = false;
+                        } else {
+                            buffers.add(ByteBuffer.wrap(write.record));
+                        }
+                    }
+                    if (!buffers.isEmpty()) {
+                        ByteBuffer[] array = buffers.toArray(new ByteBuffer[buffers.size()]);
+                        while (array[array.length - 1].hasRemaining()) {
+                            segment.channel.write(array);
+                        }
+                        if (System.nanoTime() - lastSync >= SYNC_INTERVAL) {
+                            segment.channel.force(false);
+                            lastSync = System.nanoTime();
+                        }
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+                for (Write write : batch) {
+                    if (write == SegmentedPersistentObjectStore.this.shutdown) {
+                        continue;
+                    }
+                    if (failure == null) {
+                        int length = write.record.length;
+                        segment.allocate(length);
+                        write.done(new Location(segment, position, length), null);
+                        position += length;
+                    } else {
+                        write.done(null, failure);
+                    }
+                }
+                if (failure == null) {
+                    segment.size = position;
+                } else {
+                    // the write may have been partial, start appending where the batch began
+                    try {
+                        segment.channel.position(segment.size);
+                    } catch (IOException e) {
+                        ROOT_LOGGER.debugf(e, "Could not reposition passivation store segment %s", segment.file);
+                    }
+                }
+                batch.clear();
+                if (running && segment.size >= SegmentedPersistentObjectStore.this.segmentSize) {
+                    this.roll();
+                }
+            }
+        }
+
+        private void roll() {
+            Segment next;
+            try {
+                next = SegmentedPersistentObjectStore.this.openSegment(SegmentedPersistentObjectStore.this.sequence + 1);
+            } catch (IOException e) {
+                // keep appending to the current segment
+                ROOT_LOGGER.debugf(e, "Could not start a new passivation store segment in %s", SegmentedPersistentObjectStore.this.directory);
+                return;
+            }
+            SegmentedPersistentObjectStore.this.sequence++;
+            Segment sealed = SegmentedPersistentObjectStore.this.current;
+            SegmentedPersistentObjectStore.this.current = next;
+            sealed.seal();
+            SegmentedPersistentObjectStore.this.startCompaction();
+        }
+    }
+
+    private final class Segment {
+        final File file;
+        final FileChannel channel;
+        /**
+         * The number of records in this segment which are still referenced by the index, plus the readers
+         * currently copying records out of it, plus one as long as it is the current segment.
+         */
+        private final AtomicInteger references = new AtomicInteger(1);
+        final AtomicLong liveBytes = new AtomicLong();
+        /**
+         * The number of bytes written so far. Only written by the writer thread.
+         */
+        volatile long size;
+        private volatile boolean sealed;
+
+        Segment(File file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+
+        boolean isSealed() {
+            return this.sealed;
+        }
+
+        void allocate(int length) {
+            this.references.incrementAndGet();
+            this.liveBytes.addAndGet(length);
+        }
+
+        void free(int length) {
+            this.liveBytes.addAndGet(-length);
+            this.release();
+        }
+
+        void seal() {
+            this.sealed = true;
+            this.release();
+        }
+
+        boolean retain() {
+            int count;
+            do {
+                count = this.references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!this.references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void release() {
+            if (this.references.decrementAndGet() == 0) {
+                this.delete();
+            }
+        }
+
+        void delete() {
+            SegmentedPersistentObjectStore.this.segments.remove(this);
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                log.debugf(e, "Could not close passivation store segment %s", this.file);
+            }
+            SegmentedPersistentObjectStore.delete(this.file);
+        }
+    }
+
+    private final class Location {
+        final Segment segment;
+        final long offset;
+        final int length;
+
+        Location(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        byte[] read() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(this.length);
+            while (buffer.hasRemaining()) {
+                if (this.segment.channel.read(buffer, this.offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of passivation store segment " + this.segment.file);
+                }
+            }
+            return buffer.array();
+        }
+
+        void free() {
+            this.segment.free(this.length);
+        }
+    }
+
+    private final class Write {
+        final byte[] record;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Location location;
+        private volatile IOException failure;
+
+        Write(byte[] record) {
+            this.record = record;
+        }
+
+        void done(Location location, IOException failure) {
+            this.location = location;
+            this.failure = failure;
+            this.latch.countDown();
+        }
+
+        Location await() throws IOException {
+            boolean interrupted = false;
+            try {
+                for (;;) {
+                    try {
+                        this.latch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            return this.location;
+        }
+    }
+
+    private final class Move {
+        final K key;
+        final Location location;
+        final Write write;
+
+        Move(K key, Location location, Write write) {
+            this.key = key;
+            this.location = location;
+            this.write = write;
+        }
+    }
+
+    /**
+     * Gives access to the internal buffer, so the record does not need to be copied.
+     */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] getBuffer() {
+            return this.buf;
+        }
+    }
+}
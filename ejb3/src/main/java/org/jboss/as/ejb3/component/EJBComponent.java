@@ -27,6 +27,7 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.util.Collections;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.ejb.EJBHome;
 import javax.ejb.EJBLocalHome;
@@ -496,6 +497,23 @@ public abstract class EJBComponent extends BasicComponent {
         return invocationMetrics;
     }
 
+    /**
+     * Returns the views of this component which are currently started.
+     *
+     * @return the views, keyed by the name of their view class
+     */
+    public Map<String, ComponentView> getStartedViews() {
+        final Map<String, ComponentView> views = new TreeMap<String, ComponentView>();
+        for (Map.Entry<String, ServiceName> entry : viewServices.entrySet()) {
+            final ServiceController<?> serviceController = currentServiceContainer().getService(entry.getValue());
+            final ComponentView view = (serviceController != null && serviceController.getState() == ServiceController.State.UP) ? (ComponentView) serviceController.getValue() : null;
+            if (view != null) {
+                views.put(entry.getKey(), view);
+            }
+        }
+        return views;
+    }
+
     protected ShutDownInterceptorFactory getShutDownInterceptorFactory() {
         return shutDownInterceptorFactory;
     }
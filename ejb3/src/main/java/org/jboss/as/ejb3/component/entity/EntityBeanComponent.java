@@ -35,8 +35,8 @@ import org.jboss.as.ee.component.BasicComponentInstance;
 import org.jboss.as.ee.component.Component;
 import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.component.allowedmethods.AllowedMethodsInformation;
+import org.jboss.as.ejb3.component.entity.entitycache.ConcurrentReferenceCountingEntityCache;
 import org.jboss.as.ejb3.component.entity.entitycache.ReadyEntityCache;
-import org.jboss.as.ejb3.component.entity.entitycache.ReferenceCountingEntityCache;
 import org.jboss.as.ejb3.component.entity.entitycache.TransactionLocalEntityCache;
 import org.jboss.as.ejb3.component.pool.PoolConfig;
 import org.jboss.as.ejb3.component.pool.PooledComponent;
@@ -159,9 +159,22 @@ public class EntityBeanComponent extends EJBComponent implements PooledComponent
         return cache;
     }
 
+    @Override
+    public void start() {
+        super.start();
+        cache.start();
+    }
+
+    @Override
+    public void stop() {
+        cache.stop();
+        super.stop();
+    }
+
     protected ReadyEntityCache createEntityCache(EntityBeanComponentCreateService ejbComponentCreateService) {
         if (optimisticLocking == null || !optimisticLocking) {
-            return new ReferenceCountingEntityCache(this);
+            final Integer maxSize = ejbComponentCreateService.getCacheMaxSize();
+            return new ConcurrentReferenceCountingEntityCache(this, maxSize == null ? 0 : maxSize);
         } else {
             return new TransactionLocalEntityCache(this);
         }
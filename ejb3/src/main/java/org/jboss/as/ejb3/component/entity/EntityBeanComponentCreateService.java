@@ -68,6 +68,7 @@ public class EntityBeanComponentCreateService extends EJBComponentCreateService
     private final InterceptorFactory unsetEntityContext;
     private final InjectedValue<PoolConfig> poolConfig = new InjectedValue<PoolConfig>();
     private final InjectedValue<Boolean> defaultOptimisticLocking = new InjectedValue<Boolean>();
+    private final InjectedValue<Integer> defaultCacheMaxSize = new InjectedValue<Integer>();
 
     public EntityBeanComponentCreateService(final ComponentConfiguration componentConfiguration, final ApplicationExceptions ejbJarConfiguration) {
         super(componentConfiguration, ejbJarConfiguration);
@@ -232,4 +233,12 @@ public class EntityBeanComponentCreateService extends EJBComponentCreateService
     public InjectedValue<Boolean> getOptimisticLockingInjector() {
         return defaultOptimisticLocking;
     }
+
+    public Integer getCacheMaxSize() {
+        return defaultCacheMaxSize.getOptionalValue();
+    }
+
+    public InjectedValue<Integer> getCacheMaxSizeInjector() {
+        return defaultCacheMaxSize;
+    }
 }
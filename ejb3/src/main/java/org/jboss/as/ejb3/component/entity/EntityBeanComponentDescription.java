@@ -277,6 +277,9 @@ public class EntityBeanComponentDescription extends EJBComponentDescription {
             //is optimistic locking configured by default
             serviceBuilder.addDependency(ServiceBuilder.DependencyType.OPTIONAL, org.jboss.as.ejb3.subsystem.EJB3SubsystemDefaultEntityBeanOptimisticLockingWriteHandler.SERVICE_NAME,
                     Boolean.class, entityBeanComponentCreateService.getOptimisticLockingInjector());
+            //is a maximum size configured for the entity cache
+            serviceBuilder.addDependency(ServiceBuilder.DependencyType.OPTIONAL, org.jboss.as.ejb3.subsystem.EJB3SubsystemDefaultEntityBeanCacheMaxSizeWriteHandler.SERVICE_NAME,
+                    Integer.class, entityBeanComponentCreateService.getCacheMaxSizeInjector());
         }
     }
 
@@ -0,0 +1,391 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.entity.entitycache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ejb.NoSuchEntityException;
+
+import org.jboss.as.ejb3.EjbLogger;
+import org.jboss.as.ejb3.component.entity.EntityBeanComponent;
+import org.jboss.as.ejb3.component.entity.EntityBeanComponentInstance;
+
+/**
+ * A reference counting {@link ReadyEntityCache}, which does not serialize access to distinct primary keys. An
+ * instance is associated with its primary key as long as it is referenced, and passivated and returned to the pool
+ * once it is no longer used.
+ * <p/>
+ * Entries are looked up without locking, and the state of an entry (reference count, replaced instance) is guarded
+ * by the monitor of the entry itself, so two threads only contend when they use the same primary key. An entry
+ * which has been taken out of the cache is marked as evicted under its monitor, and threads which still found it in
+ * the map simply retry their lookup.
+ * <p/>
+ * If a maximum size is set, an instance whose reference count drops to zero is kept associated with its primary key
+ * instead of being passivated, so the next lookup of that key does not have to activate and load a pooled instance
+ * again. The instance is reloaded on its next invocation, as its state may have changed in the meantime. Once the
+ * cache holds more than the maximum size, the least recently released unreferenced instances are passivated and
+ * returned to the pool. Instances in use are never evicted, so the cache can temporarily exceed the maximum size.
+ * Without a maximum size, instances are passivated as soon as they are no longer referenced.
+ */
+public class ConcurrentReferenceCountingEntityCache implements ReadyEntityCache, EntityCacheStatistics {
+
+    /**
+     * Number of stale markers tolerated in the idle queue, beyond the number of idle entries, before it is purged
+     */
+    private static final int PURGE_THRESHOLD = 64;
+
+    private final ConcurrentMap<Object, CacheEntry> cache = new ConcurrentHashMap<Object, CacheEntry>(128, 0.75f, Runtime.getRuntime().availableProcessors() * 2);
+    private final EntityBeanComponent component;
+    private final int maxSize;
+
+    /**
+     * Unreferenced entries, in the order in which they were released. An entry which is referenced again leaves a
+     * stale marker behind, which is skipped by eviction and purged once there are too many of them.
+     */
+    private final ConcurrentLinkedQueue<IdleMarker> idle = new ConcurrentLinkedQueue<IdleMarker>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger staleCount = new AtomicInteger();
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ConcurrentReferenceCountingEntityCache(final EntityBeanComponent component) {
+        this(component, 0);
+    }
+
+    /**
+     * @param component the entity bean component
+     * @param maxSize   the number of instances above which unreferenced instances are evicted, or 0 to never keep
+     *                  unreferenced instances
+     */
+    public ConcurrentReferenceCountingEntityCache(final EntityBeanComponent component, final int maxSize) {
+        this.component = component;
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    public void create(final EntityBeanComponentInstance instance) {
+        final Object primaryKey = instance.getPrimaryKey();
+        final CacheEntry cacheEntry = new CacheEntry(primaryKey, instance);
+        cacheEntry.referenceCount = 1;
+        for (;;) {
+            final CacheEntry existing = cache.putIfAbsent(primaryKey, cacheEntry);
+            if (existing == null) {
+                size.incrementAndGet();
+                evictIfNecessary();
+                return;
+            }
+            synchronized (existing) {
+                if (existing.evicted) {
+                    continue;
+                }
+                if (existing.instance.isRemoved()) {
+                    //this happens in an instance is removed and then re-added in the space of the same transaction
+                    existing.replacedInstance = instance;
+                    return;
+                }
+                if (existing.idleMarker == null) {
+                    throw EjbLogger.EJB3_LOGGER.instanceAlreadyRegisteredForPK(primaryKey);
+                }
+                // an unreferenced instance we kept around is stale, as the entity has just been created
+                clearIdle(existing);
+                evictions.incrementAndGet();
+                evict(existing);
+            }
+        }
+    }
+
+    public EntityBeanComponentInstance get(final Object key) throws NoSuchEntityException {
+        for (;;) {
+            final CacheEntry cacheEntry = cache.get(key);
+            if (cacheEntry == null) {
+                final EntityBeanComponentInstance instance = createInstance(key);
+                final CacheEntry newEntry = new CacheEntry(key, instance);
+                newEntry.referenceCount = 1;
+                if (cache.putIfAbsent(key, newEntry) == null) {
+                    misses.incrementAndGet();
+                    size.incrementAndGet();
+                    evictIfNecessary();
+                    return instance;
+                }
+                // another thread associated an instance with this key first, use that one
+                passivateAndRelease(instance);
+                continue;
+            }
+            synchronized (cacheEntry) {
+                if (cacheEntry.evicted) {
+                    continue;
+                }
+                if (cacheEntry.idleMarker != null) {
+                    clearIdle(cacheEntry);
+                    cacheEntry.instance.setReloadRequired(true);
+                }
+                cacheEntry.referenceCount++;
+                hits.incrementAndGet();
+                if (cacheEntry.replacedInstance != null) {
+                    return cacheEntry.replacedInstance;
+                } else {
+                    return cacheEntry.instance;
+                }
+            }
+        }
+    }
+
+    public void release(final EntityBeanComponentInstance instance, boolean success) {
+        if (instance.isDiscarded()) {
+            return;
+        }
+        final Object primaryKey = instance.getPrimaryKey();
+        if (primaryKey == null) return;  // TODO: Should this be an Exception
+        final CacheEntry cacheEntry = cache.get(primaryKey);
+        if (cacheEntry == null) {
+            throw EjbLogger.EJB3_LOGGER.entityBeanInstanceNotFoundInCache(instance);
+        }
+        boolean idled = false;
+        synchronized (cacheEntry) {
+            if (cacheEntry.evicted) {
+                throw EjbLogger.EJB3_LOGGER.entityBeanInstanceNotFoundInCache(instance);
+            }
+            if (cacheEntry.replacedInstance != null) {
+                //this can happen if an entity is removed and a new entity with the same PK is added in a transactions
+                if (instance == cacheEntry.replacedInstance) {
+                    if (success) {
+                        cacheEntry.instance = cacheEntry.replacedInstance;
+                    } else if (cacheEntry.instance.isDiscarded()) {
+                        //if the TX was a failure, and the previous instance has been discarded
+                        //we just remove the entry and return
+                        remove(cacheEntry);
+                        return;
+                    }
+                    cacheEntry.replacedInstance = null;
+                }
+            }
+            //roll back unsuccessful removal
+            if (!success && instance.isRemoved()) {
+                instance.setRemoved(false);
+            }
+            if (--cacheEntry.referenceCount == 0) {
+                if (maxSize > 0 && instance == cacheEntry.instance && cacheEntry.replacedInstance == null && !instance.isRemoved()) {
+                    final IdleMarker marker = new IdleMarker(cacheEntry);
+                    cacheEntry.idleMarker = marker;
+                    idleCount.incrementAndGet();
+                    idle.offer(marker);
+                    idled = true;
+                } else {
+                    try {
+                        passivateAndRelease(instance);
+                    } finally {
+                        remove(cacheEntry);
+                    }
+                }
+            }
+        }
+        if (idled) {
+            evictIfNecessary();
+        }
+    }
+
+    public void discard(final EntityBeanComponentInstance instance) {
+        final Object primaryKey = instance.getPrimaryKey();
+        if (primaryKey == null) {
+            //instance has already been passivated
+            return;
+        }
+        final CacheEntry cacheEntry = cache.get(primaryKey);
+        if (cacheEntry != null) {
+            synchronized (cacheEntry) {
+                if (cacheEntry.evicted) {
+                    return;
+                }
+                if (instance == cacheEntry.replacedInstance) {
+                    //this instance that is being discarded is the new instance
+                    //we can just set it to null
+                    cacheEntry.replacedInstance = null;
+                } else if (cacheEntry.replacedInstance == null) {
+                    //if there is a new instance we cannot discard the entry entirely
+                    if (cacheEntry.idleMarker != null) {
+                        clearIdle(cacheEntry);
+                    }
+                    remove(cacheEntry);
+                }
+            }
+        }
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+        // hand the unreferenced instances we kept back to the pool
+        IdleMarker marker;
+        while ((marker = idle.poll()) != null) {
+            final CacheEntry cacheEntry = marker.entry;
+            synchronized (cacheEntry) {
+                if (cacheEntry.idleMarker == marker) {
+                    cacheEntry.idleMarker = null;
+                    idleCount.decrementAndGet();
+                    try {
+                        evict(cacheEntry);
+                    } catch (RuntimeException e) {
+                        EjbLogger.EJB3_LOGGER.exceptionReleasingEntity(e);
+                    }
+                }
+            }
+        }
+        staleCount.set(0);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int getCacheSize() {
+        return size.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Passivates the least recently released unreferenced instances until the cache is back within its maximum size.
+     */
+    private void evictIfNecessary() {
+        if (maxSize == 0) {
+            return;
+        }
+        IdleMarker marker;
+        while (size.get() > maxSize && (marker = idle.poll()) != null) {
+            final CacheEntry cacheEntry = marker.entry;
+            synchronized (cacheEntry) {
+                if (cacheEntry.idleMarker != marker) {
+                    // the entry has been referenced again since this marker was queued
+                    staleCount.decrementAndGet();
+                    continue;
+                }
+                cacheEntry.idleMarker = null;
+                idleCount.decrementAndGet();
+                evictions.incrementAndGet();
+                try {
+                    evict(cacheEntry);
+                } catch (RuntimeException e) {
+                    // the caller got its instance, the failure only concerns the evicted one
+                    EjbLogger.EJB3_LOGGER.exceptionReleasingEntity(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the monitor of an entry which is not referenced.
+     */
+    private void evict(final CacheEntry cacheEntry) {
+        try {
+            passivateAndRelease(cacheEntry.instance);
+        } finally {
+            remove(cacheEntry);
+        }
+    }
+
+    /**
+     * Must be called while holding the monitor of the entry.
+     */
+    private void remove(final CacheEntry cacheEntry) {
+        cacheEntry.evicted = true;
+        if (cache.remove(cacheEntry.primaryKey, cacheEntry)) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Must be called while holding the monitor of an idle entry.
+     */
+    private void clearIdle(final CacheEntry cacheEntry) {
+        cacheEntry.idleMarker = null;
+        idleCount.decrementAndGet();
+        if (staleCount.incrementAndGet() > idleCount.get() + PURGE_THRESHOLD) {
+            purgeStaleMarkers();
+        }
+    }
+
+    private void purgeStaleMarkers() {
+        int purged = 0;
+        final Iterator<IdleMarker> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            final IdleMarker marker = iterator.next();
+            // reading the field outside of the monitor is fine, a marker never becomes current again once stale
+            if (marker.entry.idleMarker != marker) {
+                iterator.remove();
+                purged++;
+            }
+        }
+        // a concurrent eviction may have polled some of these markers as well, so the count is only an estimate
+        staleCount.addAndGet(-purged);
+    }
+
+    private EntityBeanComponentInstance createInstance(final Object pk) {
+        final EntityBeanComponentInstance instance = component.acquireUnAssociatedInstance();
+        instance.associate(pk);
+        return instance;
+    }
+
+    private void passivateAndRelease(final EntityBeanComponentInstance instance) {
+        instance.passivate();
+        component.releaseEntityBeanInstance(instance);
+    }
+
+    private static final class CacheEntry {
+        private final Object primaryKey;
+        private int referenceCount;
+        private volatile EntityBeanComponentInstance instance;
+        private volatile EntityBeanComponentInstance replacedInstance;
+        private volatile IdleMarker idleMarker;
+        private boolean evicted;
+
+        private CacheEntry(final Object primaryKey, final EntityBeanComponentInstance instance) {
+            this.primaryKey = primaryKey;
+            this.instance = instance;
+        }
+    }
+
+    private static final class IdleMarker {
+        private final CacheEntry entry;
+
+        private IdleMarker(final CacheEntry entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.entity.entitycache;
+
+/**
+ * Statistics of a {@link ReadyEntityCache}.
+ */
+public interface EntityCacheStatistics {
+
+    /**
+     * @return the number of lookups which found an instance already associated with the primary key
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of lookups which had to associate a pooled instance with the primary key
+     */
+    long getMissCount();
+
+    /**
+     * @return the number of unreferenced instances which were passivated to keep the cache within its maximum size
+     */
+    long getEvictionCount();
+
+    /**
+     * @return the number of instances currently held by the cache, whether they are in use or not
+     */
+    int getCacheSize();
+
+    /**
+     * @return the maximum number of instances kept by the cache, or 0 if unreferenced instances are not kept at all
+     */
+    int getMaxSize();
+}
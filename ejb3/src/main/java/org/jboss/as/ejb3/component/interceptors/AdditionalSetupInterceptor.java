@@ -4,10 +4,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 
+import org.jboss.as.ee.component.interceptors.ElidableInterceptor;
 import org.jboss.as.ee.component.interceptors.InvocationType;
 import org.jboss.as.server.deployment.SetupAction;
 import org.jboss.invocation.ImmediateInterceptorFactory;
-import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
 import org.jboss.invocation.InterceptorFactory;
 
@@ -17,7 +17,7 @@ import org.jboss.invocation.InterceptorFactory;
  *
  * @author Stuart Douglas
  */
-public class AdditionalSetupInterceptor implements Interceptor {
+public class AdditionalSetupInterceptor implements ElidableInterceptor {
 
     private final List<SetupAction> actions;
 
@@ -61,6 +61,14 @@ public class AdditionalSetupInterceptor implements Interceptor {
         }
     }
 
+    /**
+     * Without any setup action, this interceptor only proceeds with the invocation.
+     */
+    @Override
+    public boolean isElidable() {
+        return actions.isEmpty();
+    }
+
     public static InterceptorFactory factory(final List<SetupAction> actions) {
         final AdditionalSetupInterceptor interceptor = new AdditionalSetupInterceptor(actions);
         return new ImmediateInterceptorFactory(interceptor);
@@ -21,16 +21,16 @@
  */
 package org.jboss.as.ejb3.component.interceptors;
 
+import org.jboss.as.ee.component.interceptors.FusibleInterceptor;
 import org.jboss.as.ejb3.context.CurrentInvocationContext;
 import org.jboss.invocation.ImmediateInterceptorFactory;
-import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
 import org.jboss.invocation.InterceptorFactory;
 
 /**
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
-public class CurrentInvocationContextInterceptor implements Interceptor {
+public class CurrentInvocationContextInterceptor implements FusibleInterceptor {
 
     public static final InterceptorFactory FACTORY = new ImmediateInterceptorFactory(new CurrentInvocationContextInterceptor());
 
@@ -44,4 +44,15 @@ public class CurrentInvocationContextInterceptor implements Interceptor {
         }
     }
 
+    @Override
+    public Object setup(InterceptorContext context) {
+        CurrentInvocationContext.push(context);
+        return null;
+    }
+
+    @Override
+    public void teardown(InterceptorContext context, Object state) {
+        CurrentInvocationContext.pop();
+    }
+
 }
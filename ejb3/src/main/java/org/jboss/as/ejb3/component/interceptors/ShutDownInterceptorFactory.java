@@ -2,6 +2,7 @@ package org.jboss.as.ejb3.component.interceptors;
 
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+import org.jboss.as.ee.component.interceptors.FusibleInterceptor;
 import org.jboss.as.ejb3.EjbMessages;
 import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
@@ -25,10 +26,19 @@ public class ShutDownInterceptorFactory implements InterceptorFactory {
 
     private final Object lock = new Object();
 
-    private Interceptor interceptor = new Interceptor() {
+    private Interceptor interceptor = new FusibleInterceptor() {
         @Override
         public Object processInvocation(InterceptorContext context) throws Exception {
+            setup(context);
+            try {
+                return context.proceed();
+            } finally {
+                teardown(context, null);
+            }
+        }
 
+        @Override
+        public Object setup(InterceptorContext context) {
             int value;
             int oldValue;
             do {
@@ -38,23 +48,26 @@ public class ShutDownInterceptorFactory implements InterceptorFactory {
                 }
                 value = oldValue + 1;
             } while (!updater.compareAndSet(ShutDownInterceptorFactory.this, oldValue, value));
-            try {
-                return context.proceed();
-            } finally {
-                do {
-                    oldValue = invocationCount;
-                    boolean shutDown = (oldValue & SHUTDOWN_FLAG) != 0;
-                    int oldCount = oldValue & INVERSE_SHUTDOWN_FLAG;
-                    value = oldCount - 1;
-                    if(shutDown) {
-                        value = value | SHUTDOWN_FLAG;
-                    }
-                } while (!updater.compareAndSet(ShutDownInterceptorFactory.this, oldValue, value));
-                //if the count is zero and the component is shutting down
-                if (value == SHUTDOWN_FLAG) {
-                    synchronized (lock) {
-                        lock.notifyAll();
-                    }
+            return null;
+        }
+
+        @Override
+        public void teardown(InterceptorContext context, Object state) {
+            int value;
+            int oldValue;
+            do {
+                oldValue = invocationCount;
+                boolean shutDown = (oldValue & SHUTDOWN_FLAG) != 0;
+                int oldCount = oldValue & INVERSE_SHUTDOWN_FLAG;
+                value = oldCount - 1;
+                if(shutDown) {
+                    value = value | SHUTDOWN_FLAG;
+                }
+            } while (!updater.compareAndSet(ShutDownInterceptorFactory.this, oldValue, value));
+            //if the count is zero and the component is shutting down
+            if (value == SHUTDOWN_FLAG) {
+                synchronized (lock) {
+                    lock.notifyAll();
                 }
             }
         }
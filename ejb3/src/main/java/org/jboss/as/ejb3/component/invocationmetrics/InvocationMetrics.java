@@ -21,36 +21,38 @@
  */
 package org.jboss.as.ejb3.component.invocationmetrics;
 
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Invocation statistics of a component.
+ * <p/>
+ * Invocations, wait time and execution time are kept in striped counters, so recording an invocation neither
+ * allocates nor makes all threads contend on the same cache line. Next to the totals, statistics are kept per
+ * method, including a latency histogram from which execution time percentiles can be read.
+ *
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class InvocationMetrics {
-    private static class Values {
-        final long invocations;
-        final long executionTime;
-        final long waitTime;
-
-        private Values(final long invocations, final long waitTime, final long executionTime) {
-            this.invocations = invocations;
-            this.executionTime = executionTime;
-            this.waitTime = waitTime;
-        }
-    }
-
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    private final StripedInvocationCounters counters = new StripedInvocationCounters();
+    private final LatencyHistogram executionTimes = new LatencyHistogram();
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
+    // lookup by Method on the invocation path, several view methods may map onto the same signature
+    private final ConcurrentMap<Method, MethodInvocationMetrics> methodsByMethod = new ConcurrentHashMap<Method, MethodInvocationMetrics>();
+    private final ConcurrentMap<String, MethodInvocationMetrics> methods = new ConcurrentHashMap<String, MethodInvocationMetrics>();
 
-    void finishInvocation(final long invocationWaitTime, final long invocationExecutionTime) {
+    void finishInvocation(final Method method, final long invocationWaitTimeNanos, final long invocationExecutionTimeNanos) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                return;
+        counters.record(invocationWaitTimeNanos, invocationExecutionTimeNanos);
+        executionTimes.record(TimeUnit.NANOSECONDS.toMicros(invocationExecutionTimeNanos));
+        if (method != null) {
+            getMethodMetrics(method).finishInvocation(invocationWaitTimeNanos, invocationExecutionTimeNanos);
         }
     }
 
@@ -58,20 +60,41 @@ public class InvocationMetrics {
         return concurrent.get();
     }
 
+    /**
+     * @return the accumulated execution time in milliseconds
+     */
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return TimeUnit.NANOSECONDS.toMillis(counters.getExecutionTime());
+    }
+
+    /**
+     * @param quantile the quantile, for example 0.99
+     * @return the execution time in microseconds below which the given fraction of invocations completed
+     */
+    public long getExecutionTimePercentile(final double quantile) {
+        return executionTimes.getPercentile(quantile);
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return counters.getInvocations();
+    }
+
+    /**
+     * @return the statistics per method, keyed by method signature
+     */
+    public Map<String, MethodInvocationMetrics> getMethods() {
+        return Collections.unmodifiableMap(methods);
     }
 
     public long getPeakConcurrent() {
         return peakConcurrent.get();
     }
 
+    /**
+     * @return the accumulated wait time in milliseconds
+     */
     public long getWaitTime() {
-        return values.get().waitTime;
+        return TimeUnit.NANOSECONDS.toMillis(counters.getWaitTime());
     }
 
     void startInvocation() {
@@ -80,4 +103,35 @@ public class InvocationMetrics {
         if (peakConcurrent.get() < v)
             peakConcurrent.incrementAndGet();
     }
+
+    private MethodInvocationMetrics getMethodMetrics(final Method method) {
+        MethodInvocationMetrics metrics = methodsByMethod.get(method);
+        if (metrics == null) {
+            final String signature = signatureOf(method);
+            metrics = methods.get(signature);
+            if (metrics == null) {
+                final MethodInvocationMetrics newMetrics = new MethodInvocationMetrics();
+                metrics = methods.putIfAbsent(signature, newMetrics);
+                if (metrics == null)
+                    metrics = newMetrics;
+            }
+            methodsByMethod.putIfAbsent(method, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * @param method a bean or view method
+     * @return the signature by which the statistics of the method are keyed
+     */
+    public static String signatureOf(final Method method) {
+        final StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append(parameterTypes[i].getName());
+        }
+        return sb.append(')').toString();
+    }
 }
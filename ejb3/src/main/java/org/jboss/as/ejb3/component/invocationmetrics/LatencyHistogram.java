@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size, log-linear histogram of latencies in microseconds.
+ * <p/>
+ * Values below 16 get a bucket of their own, every higher power of two is split into 8 linear buckets, which
+ * bounds the relative error of a reported percentile to 12.5%. The buckets are striped the same way as the
+ * {@link StripedInvocationCounters}, so recording is a single atomic increment on the stripe of the current thread.
+ * A stripe is only allocated once a thread which maps to it records a latency.
+ */
+class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // the exponent of the first non linear bucket
+    private static final int FIRST_EXPONENT = 4;
+
+    private static final int BUCKETS = LINEAR_BUCKETS + (Long.SIZE - 1 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<AtomicLongArray>(StripedInvocationCounters.STRIPES);
+
+    void record(final long micros) {
+        final int stripe = StripedInvocationCounters.stripe();
+        AtomicLongArray buckets = stripes.get(stripe);
+        if (buckets == null) {
+            stripes.compareAndSet(stripe, null, new AtomicLongArray(BUCKETS));
+            buckets = stripes.get(stripe);
+        }
+        buckets.incrementAndGet(bucketOf(micros < 0L ? 0L : micros));
+    }
+
+    /**
+     * Get the latency below which the given fraction of all recorded invocations completed.
+     *
+     * @param quantile the quantile, for example 0.99
+     * @return the upper bound of the bucket holding the quantile, in microseconds, or 0 if nothing was recorded
+     */
+    long getPercentile(final double quantile) {
+        final long[] counts = new long[BUCKETS];
+        long total = 0L;
+        for (int stripe = 0; stripe < stripes.length(); stripe++) {
+            final AtomicLongArray buckets = stripes.get(stripe);
+            if (buckets == null)
+                continue;
+            for (int i = 0; i < counts.length; i++) {
+                final long count = buckets.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0L)
+            return 0L;
+        final long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return upperBoundOf(i);
+        }
+        return upperBoundOf(counts.length - 1);
+    }
+
+    static int bucketOf(final long micros) {
+        if (micros < LINEAR_BUCKETS)
+            return (int) micros;
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+        final int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(final int bucket) {
+        if (bucket < LINEAR_BUCKETS)
+            return bucket;
+        final int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        final long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        final long upper = ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        // the last bucket would overflow
+        return upper < 0L ? Long.MAX_VALUE : upper;
+    }
+}
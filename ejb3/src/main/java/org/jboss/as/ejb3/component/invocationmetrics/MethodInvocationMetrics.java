@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invocation statistics of a single method of a component.
+ */
+public class MethodInvocationMetrics {
+    private final StripedInvocationCounters counters = new StripedInvocationCounters();
+    private final LatencyHistogram executionTimes = new LatencyHistogram();
+
+    void finishInvocation(final long waitTimeNanos, final long executionTimeNanos) {
+        counters.record(waitTimeNanos, executionTimeNanos);
+        executionTimes.record(TimeUnit.NANOSECONDS.toMicros(executionTimeNanos));
+    }
+
+    /**
+     * @return the accumulated execution time in milliseconds
+     */
+    public long getExecutionTime() {
+        return TimeUnit.NANOSECONDS.toMillis(counters.getExecutionTime());
+    }
+
+    /**
+     * @param quantile the quantile, for example 0.99
+     * @return the execution time in microseconds below which the given fraction of invocations completed
+     */
+    public long getExecutionTimePercentile(final double quantile) {
+        return executionTimes.getPercentile(quantile);
+    }
+
+    public long getInvocations() {
+        return counters.getInvocations();
+    }
+
+    /**
+     * @return the accumulated wait time in milliseconds
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(counters.getWaitTime());
+    }
+}
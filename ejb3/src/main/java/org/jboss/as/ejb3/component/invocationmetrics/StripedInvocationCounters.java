@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Invocation, wait time and execution time counters which are striped over a number of cache lines.
+ * <p/>
+ * Each thread always updates the same stripe, so concurrent invocations on different threads do not contend
+ * on a single memory location. Recording does not allocate; reading sums up all the stripes and therefore
+ * is a little more expensive, which is fine as reads only happen on management requests.
+ */
+class StripedInvocationCounters {
+    /**
+     * Number of longs per stripe, 16 * 8 bytes is two cache lines which also keeps adjacent line prefetching
+     * from putting two stripes into the same pair of lines.
+     */
+    private static final int STRIPE_SIZE = 16;
+
+    private static final int INVOCATIONS = 0;
+    private static final int WAIT_TIME = 1;
+    private static final int EXECUTION_TIME = 2;
+
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * STRIPE_SIZE);
+
+    void record(final long waitTime, final long executionTime) {
+        final int base = stripe() * STRIPE_SIZE;
+        cells.incrementAndGet(base + INVOCATIONS);
+        if (waitTime != 0L)
+            cells.addAndGet(base + WAIT_TIME, waitTime);
+        cells.addAndGet(base + EXECUTION_TIME, executionTime);
+    }
+
+    long getInvocations() {
+        return sum(INVOCATIONS);
+    }
+
+    long getWaitTime() {
+        return sum(WAIT_TIME);
+    }
+
+    long getExecutionTime() {
+        return sum(EXECUTION_TIME);
+    }
+
+    private long sum(final int offset) {
+        long result = 0L;
+        for (int i = offset; i < cells.length(); i += STRIPE_SIZE) {
+            result += cells.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * The stripe the current thread updates.
+     */
+    static int stripe() {
+        return (int) Thread.currentThread().getId() & (STRIPES - 1);
+    }
+
+    private static int stripes(final int processors) {
+        int result = 1;
+        while (result < processors) {
+            result <<= 1;
+        }
+        return result;
+    }
+}
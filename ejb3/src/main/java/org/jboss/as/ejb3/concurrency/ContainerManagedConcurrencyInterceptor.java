@@ -45,9 +45,10 @@ public class ContainerManagedConcurrencyInterceptor implements Interceptor {
     private static final Logger logger = Logger.getLogger(ContainerManagedConcurrencyInterceptor.class);
 
     /**
-     * A spec compliant {@link org.jboss.as.ejb3.concurrency.EJBReadWriteLock}
+     * A spec compliant {@link org.jboss.as.ejb3.concurrency.EJBReadWriteLock}, which doesn't make concurrent readers
+     * contend with each other
      */
-    private final ReadWriteLock readWriteLock = new EJBReadWriteLock();
+    private final ReadWriteLock readWriteLock = new StripedEJBReadWriteLock();
 
     private final LockableComponent lockableComponent;
 
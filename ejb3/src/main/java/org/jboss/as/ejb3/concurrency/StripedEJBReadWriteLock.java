@@ -0,0 +1,377 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.concurrency;
+
+import static org.jboss.as.ejb3.EjbMessages.MESSAGES;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link ReadWriteLock} with the same semantics as {@link EJBReadWriteLock}, which scales with the number of
+ * concurrent readers.
+ * <p/>
+ * The reader count of a {@link ReentrantReadWriteLock} is a single word which every reader updates, so read-mostly
+ * components called from many threads spend most of their locking time waiting for that cache line. Here a reader
+ * only announces itself in one of a set of padded per-thread stripes, and checks that no writer is active. A writer
+ * takes the write lock of an internal {@link ReentrantReadWriteLock}, which excludes other writers, flags itself as
+ * active so that new readers queue on the internal read lock, and then waits for the readers already announced in the
+ * stripes to leave. Writes are therefore somewhat more expensive than with {@link EJBReadWriteLock}, while reads no
+ * longer contend with each other.
+ * <p/>
+ * A thread holding a read lock which requests it again is not counted again in the stripes, so it neither blocks on a
+ * waiting writer nor delays it further. As with {@link EJBReadWriteLock}, a thread holding a read lock which requests
+ * the write lock gets an {@link javax.ejb.IllegalLoopbackException}, while the thread holding the write lock can
+ * acquire the read lock.
+ */
+public class StripedEJBReadWriteLock implements ReadWriteLock, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of array slots between two stripes, so that two stripes never share a cache line.
+     */
+    private static final int STRIPE_PADDING = 16;
+
+    /**
+     * Read hold of the current thread, which is only present while the thread holds a read lock
+     */
+    private final ThreadLocal<ReadHold> readHold = new ThreadLocal<ReadHold>();
+
+    /**
+     * Excludes writers from each other, and makes readers wait while a writer is active
+     */
+    private final ReentrantReadWriteLock delegate = new ReentrantReadWriteLock();
+
+    /**
+     * Number of readers which went through the fast path, per stripe
+     */
+    private final AtomicIntegerArray readers;
+    private final int stripeMask;
+
+    /**
+     * Set by a writer once it holds the write lock of the {@link #delegate}, until it releases it
+     */
+    private volatile boolean writerActive;
+
+    private final Lock readLock = new ReadLock();
+    private final Lock writeLock = new WriteLock();
+
+    public StripedEJBReadWriteLock() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2) {
+            stripes <<= 1;
+        }
+        this.readers = new AtomicIntegerArray(stripes * STRIPE_PADDING);
+        this.stripeMask = stripes - 1;
+    }
+
+    /**
+     * A read lock which only updates the stripe of the current thread, unless a writer is active.
+     */
+    public class ReadLock implements Lock, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void lock() {
+            final ReadHold hold = readHold.get();
+            if (hold != null) {
+                hold.count++;
+                return;
+            }
+            final int stripe = stripeIndex();
+            if (!tryAcquireFast(stripe)) {
+                delegate.readLock().lock();
+                readHold.set(new ReadHold(ReadHold.SLOW));
+                return;
+            }
+            readHold.set(new ReadHold(stripe));
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final ReadHold hold = readHold.get();
+            if (hold != null) {
+                hold.count++;
+                return;
+            }
+            final int stripe = stripeIndex();
+            if (!tryAcquireFast(stripe)) {
+                delegate.readLock().lockInterruptibly();
+                readHold.set(new ReadHold(ReadHold.SLOW));
+                return;
+            }
+            readHold.set(new ReadHold(stripe));
+        }
+
+        /**
+         * No implementation provided
+         *
+         * @throws UnsupportedOperationException
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean tryLock() {
+            final ReadHold hold = readHold.get();
+            if (hold != null) {
+                hold.count++;
+                return true;
+            }
+            final int stripe = stripeIndex();
+            if (!tryAcquireFast(stripe)) {
+                if (!delegate.readLock().tryLock()) {
+                    return false;
+                }
+                readHold.set(new ReadHold(ReadHold.SLOW));
+                return true;
+            }
+            readHold.set(new ReadHold(stripe));
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            final ReadHold hold = readHold.get();
+            if (hold != null) {
+                hold.count++;
+                return true;
+            }
+            final int stripe = stripeIndex();
+            if (!tryAcquireFast(stripe)) {
+                if (!delegate.readLock().tryLock(time, unit)) {
+                    return false;
+                }
+                readHold.set(new ReadHold(ReadHold.SLOW));
+                return true;
+            }
+            readHold.set(new ReadHold(stripe));
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            final ReadHold hold = readHold.get();
+            if (hold == null) {
+                throw new IllegalMonitorStateException();
+            }
+            if (--hold.count > 0) {
+                return;
+            }
+            readHold.remove();
+            if (hold.stripe == ReadHold.SLOW) {
+                delegate.readLock().unlock();
+            } else {
+                readers.decrementAndGet(hold.stripe);
+            }
+        }
+    }
+
+    /**
+     * A write lock which first checks that the current thread doesn't hold a {@link ReadLock}, and throws an
+     * {@link javax.ejb.IllegalLoopbackException} if it does.
+     */
+    public class WriteLock implements Lock, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void lock() {
+            checkLoopback();
+            delegate.writeLock().lock();
+            if (delegate.getWriteHoldCount() == 1) {
+                writerActive = true;
+                boolean interrupted = false;
+                for (int spins = 0; hasReaders(); spins++) {
+                    backOff(spins);
+                    interrupted |= Thread.interrupted();
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            checkLoopback();
+            delegate.writeLock().lockInterruptibly();
+            if (delegate.getWriteHoldCount() == 1) {
+                writerActive = true;
+                for (int spins = 0; hasReaders(); spins++) {
+                    backOff(spins);
+                    if (Thread.interrupted()) {
+                        release();
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Not implemented
+         *
+         * @throws UnsupportedOperationException
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean tryLock() {
+            checkLoopback();
+            if (!delegate.writeLock().tryLock()) {
+                return false;
+            }
+            if (delegate.getWriteHoldCount() == 1) {
+                writerActive = true;
+                if (hasReaders()) {
+                    release();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            checkLoopback();
+            final long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!delegate.writeLock().tryLock(time, unit)) {
+                return false;
+            }
+            if (delegate.getWriteHoldCount() == 1) {
+                writerActive = true;
+                for (int spins = 0; hasReaders(); spins++) {
+                    if (deadline - System.nanoTime() <= 0) {
+                        release();
+                        return false;
+                    }
+                    backOff(spins);
+                    if (Thread.interrupted()) {
+                        release();
+                        throw new InterruptedException();
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            if (delegate.getWriteHoldCount() == 1) {
+                writerActive = false;
+            }
+            delegate.writeLock().unlock();
+        }
+
+        private void release() {
+            writerActive = false;
+            delegate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Announces a reader in its stripe, unless a writer is active. The write to the stripe and the read of
+     * {@link #writerActive} are both volatile, so either this reader sees the writer, or the writer sees this reader.
+     */
+    private boolean tryAcquireFast(final int stripe) {
+        if (writerActive) {
+            return false;
+        }
+        readers.incrementAndGet(stripe);
+        if (writerActive) {
+            readers.decrementAndGet(stripe);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean hasReaders() {
+        for (int i = 0; i < readers.length(); i += STRIPE_PADDING) {
+            if (readers.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Readers leaving do not notify the writer, so it polls, spinning briefly and then parking for increasing periods.
+     */
+    private static void backOff(final int spins) {
+        if (spins < 64) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(Math.min(spins - 63, 1000)));
+        }
+    }
+
+    private int stripeIndex() {
+        return ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_PADDING;
+    }
+
+    /**
+     * Ensures that the current thread doesn't hold any read locks. If
+     * the thread holds any read locks, this method throws a {@link javax.ejb.IllegalLoopbackException}.
+     */
+    private void checkLoopback() {
+        if (readHold.get() != null) {
+            throw MESSAGES.failToUpgradeToWriteLock();
+        }
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    private static final class ReadHold {
+        /**
+         * Marks a hold taken on the read lock of the {@link #delegate} instead of a stripe
+         */
+        static final int SLOW = -1;
+
+        final int stripe;
+        int count = 1;
+
+        ReadHold(final int stripe) {
+            this.stripe = stripe;
+        }
+    }
+}
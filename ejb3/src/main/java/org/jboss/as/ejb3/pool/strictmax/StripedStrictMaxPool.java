@@ -0,0 +1,242 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+import static org.jboss.as.ejb3.EjbMessages.MESSAGES;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A pool with a maximum size which avoids a single point of contention.
+ * <p/>
+ * The strict maximum is enforced by a {@link Semaphore} exactly like {@link StrictMaxPool}, however
+ * free instances are kept in a set of per-thread stripes backed by a lock-free stack instead of a
+ * single synchronized list. A thread returning an instance parks it in its own stripe, so a thread
+ * that repeatedly invokes the same bean will usually get back the instance it just released without
+ * touching any shared state other than the semaphore. When the stripe is occupied the instance is
+ * pushed on the shared stack, and a thread whose stripe is empty takes its instance from there.
+ */
+public class StripedStrictMaxPool<T> extends AbstractPool<T> {
+
+    /**
+     * Number of array slots between two stripes, so that two stripes never share a cache line.
+     */
+    private static final int STRIPE_PADDING = 16;
+
+    /**
+     * A FIFO semaphore which limits the number of active instances to maxSize.
+     */
+    private final Semaphore semaphore;
+    /**
+     * The maximum number of instances allowed in the pool
+     */
+    private final int maxSize;
+    /**
+     * The time to wait for the semaphore.
+     */
+    private final long timeout;
+    private final TimeUnit timeUnit;
+    /**
+     * The per-thread stripes, each holding at most one free instance
+     */
+    private final AtomicReferenceArray<T> stripes;
+    private final int stripeMask;
+    /**
+     * The top of the shared lock-free stack of free instances
+     */
+    private final AtomicReference<Node<T>> stack = new AtomicReference<Node<T>>();
+
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
+        super(factory);
+        this.maxSize = maxSize;
+        this.semaphore = new Semaphore(maxSize, true);
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        // never use more stripes than there can be instances
+        final int stripeCount = stripeCount(Math.min(maxSize, Runtime.getRuntime().availableProcessors() * 2));
+        this.stripes = new AtomicReferenceArray<T>(stripeCount * STRIPE_PADDING);
+        this.stripeMask = stripeCount - 1;
+    }
+
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+
+        semaphore.release();
+
+        // Let the super do any other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public int getCurrentSize() {
+        return getCreateCount() - getRemoveCount();
+    }
+
+    public int getAvailableCount() {
+        return semaphore.availablePermits();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        throw MESSAGES.methodNotImplemented();
+    }
+
+    /**
+     * Get an instance without identity.
+     * Can be used by finders,create-methods, and activation
+     *
+     * @return Context /w instance
+     */
+    public T get() {
+        try {
+            boolean acquired = semaphore.tryAcquire(timeout, timeUnit);
+            if (!acquired)
+                throw MESSAGES.failedToAcquirePermit(timeout, timeUnit);
+        } catch (InterruptedException e) {
+            throw MESSAGES.acquireSemaphoreInterrupted();
+        }
+
+        final int index = stripeIndex();
+        T bean = stripes.get(index);
+        if (bean != null && stripes.compareAndSet(index, bean, null)) {
+            return bean;
+        }
+        bean = pop();
+        if (bean != null) {
+            return bean;
+        }
+        try {
+            // Pool is empty, create an instance
+            bean = create();
+        } finally {
+            if (bean == null) {
+                semaphore.release();
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Return an instance after invocation.
+     * <p/>
+     * Called in 2 cases:
+     * a) Done with finder method
+     * b) Just removed
+     *
+     * @param obj
+     */
+    public void release(T obj) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", getCurrentSize(), maxSize, this);
+        }
+
+        // Add the unused context back into the pool. The semaphore guarantees that there are never more than
+        // maxSize instances around, so there is no need to check the size here.
+        if (!stripes.compareAndSet(stripeIndex(), null, obj)) {
+            push(obj);
+        }
+        semaphore.release();
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+
+        semaphore.release();
+        // let the super do the other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+        for (int i = 0; i < stripes.length(); i += STRIPE_PADDING) {
+            final T obj = stripes.getAndSet(i, null);
+            if (obj != null) {
+                destroy(obj);
+            }
+        }
+        T obj;
+        while ((obj = pop()) != null) {
+            destroy(obj);
+        }
+    }
+
+    private int stripeIndex() {
+        return ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_PADDING;
+    }
+
+    private void push(final T obj) {
+        final Node<T> node = new Node<T>(obj);
+        Node<T> top;
+        do {
+            top = stack.get();
+            node.next = top;
+        } while (!stack.compareAndSet(top, node));
+    }
+
+    private T pop() {
+        Node<T> top;
+        do {
+            top = stack.get();
+            if (top == null) {
+                return null;
+            }
+        } while (!stack.compareAndSet(top, top.next));
+        return top.value;
+    }
+
+    /**
+     * @return the smallest power of two which is greater than or equal to <code>count</code>
+     */
+    private static int stripeCount(final int count) {
+        int result = 1;
+        while (result < count) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    private static final class Node<T> {
+        private final T value;
+        private Node<T> next;
+
+        private Node(final T value) {
+            this.value = value;
+        }
+    }
+}
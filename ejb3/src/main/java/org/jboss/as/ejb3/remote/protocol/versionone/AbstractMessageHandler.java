@@ -36,17 +36,13 @@ import java.util.Map;
 
 import org.jboss.as.ejb3.EjbMessages;
 import org.jboss.ejb.client.remoting.PackedInteger;
-import org.jboss.ejb.client.remoting.ProtocolV1ClassTable;
-import org.jboss.ejb.client.remoting.ProtocolV1ObjectTable;
 import org.jboss.marshalling.ByteInput;
 import org.jboss.marshalling.ByteOutput;
 import org.jboss.marshalling.ClassResolver;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.MarshallerFactory;
 import org.jboss.marshalling.Marshalling;
-import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.Unmarshaller;
-import org.jboss.marshalling.reflect.SunReflectiveCreator;
 import org.jboss.remoting3.MessageOutputStream;
 
 
@@ -112,7 +108,7 @@ abstract class AbstractMessageHandler implements MessageHandler {
             // write the attachments
             this.writeAttachments(marshaller, attachments);
             // finish marshalling
-            marshaller.finish();
+            this.finishMarshalling(marshaller);
         } finally {
             channelAssociation.releaseChannelMessageOutputStream(messageOutputStream);
             outputStream.close();
@@ -189,8 +185,9 @@ abstract class AbstractMessageHandler implements MessageHandler {
     }
 
     /**
-     * Creates and returns a {@link org.jboss.marshalling.Marshaller} which is ready to be used for marshalling. The {@link org.jboss.marshalling.Marshaller#start(org.jboss.marshalling.ByteOutput)}
+     * Returns a {@link org.jboss.marshalling.Marshaller} which is ready to be used for marshalling. The {@link org.jboss.marshalling.Marshaller#start(org.jboss.marshalling.ByteOutput)}
      * will be invoked by this method, to use the passed {@link java.io.DataOutput dataOutput}, before returning the marshaller.
+     * The marshaller may be reused by the current thread once it has been passed to {@link #finishMarshalling(org.jboss.marshalling.Marshaller)}.
      *
      * @param marshallerFactory The marshaller factory
      * @param dataOutput        The {@link java.io.DataOutput} to which the data will be marshalled
@@ -198,7 +195,7 @@ abstract class AbstractMessageHandler implements MessageHandler {
      * @throws IOException
      */
     protected org.jboss.marshalling.Marshaller prepareForMarshalling(final org.jboss.marshalling.MarshallerFactory marshallerFactory, final DataOutput dataOutput) throws IOException {
-        final org.jboss.marshalling.Marshaller marshaller = this.getMarshaller(marshallerFactory);
+        final org.jboss.marshalling.Marshaller marshaller = ReusableMarshallers.acquireMarshaller(marshallerFactory);
         final OutputStream outputStream = new OutputStream() {
             @Override
             public void write(int b) throws IOException {
@@ -214,24 +211,20 @@ abstract class AbstractMessageHandler implements MessageHandler {
     }
 
     /**
-     * Creates and returns a {@link org.jboss.marshalling.Marshaller}
+     * Finishes a {@link org.jboss.marshalling.Marshaller} obtained from {@link #prepareForMarshalling(org.jboss.marshalling.MarshallerFactory, java.io.DataOutput)},
+     * after which the current thread may reuse it for marshalling the next message.
      *
-     * @param marshallerFactory The marshaller factory
-     * @return
+     * @param marshaller The marshaller
      * @throws IOException
      */
-    private org.jboss.marshalling.Marshaller getMarshaller(final org.jboss.marshalling.MarshallerFactory marshallerFactory) throws IOException {
-        final MarshallingConfiguration marshallingConfiguration = new MarshallingConfiguration();
-        marshallingConfiguration.setClassTable(ProtocolV1ClassTable.INSTANCE);
-        marshallingConfiguration.setObjectTable(ProtocolV1ObjectTable.INSTANCE);
-        marshallingConfiguration.setVersion(2);
-        marshallingConfiguration.setSerializedCreator(new SunReflectiveCreator());
-        return marshallerFactory.createMarshaller(marshallingConfiguration);
+    protected void finishMarshalling(final Marshaller marshaller) throws IOException {
+        ReusableMarshallers.finish(marshaller);
     }
 
     /**
-     * Creates and returns a {@link org.jboss.marshalling.Unmarshaller} which is ready to be used for unmarshalling. The {@link org.jboss.marshalling.Unmarshaller#start(org.jboss.marshalling.ByteInput)}
+     * Returns a {@link org.jboss.marshalling.Unmarshaller} which is ready to be used for unmarshalling. The {@link org.jboss.marshalling.Unmarshaller#start(org.jboss.marshalling.ByteInput)}
      * will be invoked by this method, to use the passed {@link java.io.DataInput dataInput}, before returning the unmarshaller.
+     * The unmarshaller may be reused by the current thread once it has been passed to {@link #finishUnMarshalling(org.jboss.marshalling.Unmarshaller)}.
      *
      * @param marshallerFactory The marshaller factory
      * @param classResolver     The {@link ClassResolver} which will be used during unmarshalling
@@ -240,7 +233,7 @@ abstract class AbstractMessageHandler implements MessageHandler {
      * @throws IOException
      */
     protected Unmarshaller prepareForUnMarshalling(final MarshallerFactory marshallerFactory, final ClassResolver classResolver, final DataInput dataInput) throws IOException {
-        final Unmarshaller unmarshaller = this.getUnMarshaller(marshallerFactory, classResolver);
+        final Unmarshaller unmarshaller = ReusableMarshallers.acquireUnmarshaller(marshallerFactory, classResolver);
         final InputStream is = new InputStream() {
             @Override
             public int read() throws IOException {
@@ -261,19 +254,13 @@ abstract class AbstractMessageHandler implements MessageHandler {
     }
 
     /**
-     * Creates and returns a {@link Unmarshaller}
+     * Finishes an {@link Unmarshaller} obtained from {@link #prepareForUnMarshalling(org.jboss.marshalling.MarshallerFactory, org.jboss.marshalling.ClassResolver, java.io.DataInput)},
+     * after which the current thread may reuse it for unmarshalling the next message.
      *
-     * @param marshallerFactory The marshaller factory
-     * @return
+     * @param unmarshaller The unmarshaller
      * @throws IOException
      */
-    private Unmarshaller getUnMarshaller(final MarshallerFactory marshallerFactory, final ClassResolver classResolver) throws IOException {
-        final MarshallingConfiguration marshallingConfiguration = new MarshallingConfiguration();
-        marshallingConfiguration.setVersion(2);
-        marshallingConfiguration.setClassTable(ProtocolV1ClassTable.INSTANCE);
-        marshallingConfiguration.setObjectTable(ProtocolV1ObjectTable.INSTANCE);
-        marshallingConfiguration.setClassResolver(classResolver);
-        marshallingConfiguration.setSerializedCreator(new SunReflectiveCreator());
-        return marshallerFactory.createUnmarshaller(marshallingConfiguration);
+    protected void finishUnMarshalling(final Unmarshaller unmarshaller) throws IOException {
+        ReusableMarshallers.finish(unmarshaller);
     }
 }
@@ -76,13 +76,15 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
     private final ExecutorService executorService;
     private final MarshallerFactory marshallerFactory;
     private final RemoteAsyncInvocationCancelStatusService remoteAsyncInvocationCancelStatus;
+    private final RemoteInvocationCache invocationCache;
 
     MethodInvocationMessageHandler(final DeploymentRepository deploymentRepository, final org.jboss.marshalling.MarshallerFactory marshallerFactory, final ExecutorService executorService,
-                                   final RemoteAsyncInvocationCancelStatusService asyncInvocationCancelStatus) {
+                                   final RemoteAsyncInvocationCancelStatusService asyncInvocationCancelStatus, final RemoteInvocationCache invocationCache) {
         super(deploymentRepository);
         this.marshallerFactory = marshallerFactory;
         this.executorService = executorService;
         this.remoteAsyncInvocationCancelStatus = asyncInvocationCancelStatus;
+        this.invocationCache = invocationCache;
     }
 
     @Override
@@ -94,14 +96,8 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
 
         // read the method name
         final String methodName = input.readUTF();
-        // method signature
-        String[] methodParamTypes = null;
+        // method signature. It's only split into the parameter types if the method hasn't been resolved before
         final String signature = input.readUTF();
-        if (signature.isEmpty()) {
-            methodParamTypes = new String[0];
-        } else {
-            methodParamTypes = signature.split(String.valueOf(METHOD_PARAM_TYPE_SEPARATOR));
-        }
 
         // read the Locator
         // we use a mutable ClassResolver, so that we can switch to a different (and correct deployment CL)
@@ -121,11 +117,12 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
         } catch (ClassNotFoundException e) {
             throw EjbMessages.MESSAGES.classNotFoundException(e);
         }
-        final EjbDeploymentInformation ejbDeploymentInformation = this.findEJB(appName, moduleName, distinctName, beanName);
-        if (ejbDeploymentInformation == null) {
+        final RemoteInvocationCache.CachedEJB cachedEJB = this.invocationCache.findEJB(this.deploymentRepository, appName, moduleName, distinctName, beanName);
+        if (cachedEJB == null) {
             this.writeNoSuchEJBFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, null);
             return;
         }
+        final EjbDeploymentInformation ejbDeploymentInformation = cachedEJB.getDeploymentInformation();
         final ClassLoader tccl = SecurityActions.getContextClassLoader();
         Runnable runnable = null;
         try {
@@ -142,22 +139,29 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
                 throw EjbMessages.MESSAGES.classNotFoundException(e);
             }
             final String viewClassName = locator.getViewType().getName();
-            // Make sure it's a remote view
-            if (!ejbDeploymentInformation.isRemoteView(viewClassName)) {
-                this.writeNoSuchEJBFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, viewClassName);
-                return;
-            }
-            final ComponentView componentView = ejbDeploymentInformation.getView(viewClassName);
-            final Method invokedMethod = this.findMethod(componentView, methodName, methodParamTypes);
-            if (invokedMethod == null) {
-                this.writeNoSuchEJBMethodFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, viewClassName, methodName, methodParamTypes);
-                return;
+            RemoteInvocationCache.CachedMethod cachedMethod = cachedEJB.getMethod(viewClassName, methodName, signature);
+            if (cachedMethod == null) {
+                // Make sure it's a remote view
+                if (!ejbDeploymentInformation.isRemoteView(viewClassName)) {
+                    this.writeNoSuchEJBFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, viewClassName);
+                    return;
+                }
+                final String[] methodParamTypes = signature.isEmpty() ? new String[0] : signature.split(String.valueOf(METHOD_PARAM_TYPE_SEPARATOR));
+                final ComponentView componentView = ejbDeploymentInformation.getView(viewClassName);
+                final Method method = this.findMethod(componentView, methodName, methodParamTypes);
+                if (method == null) {
+                    this.writeNoSuchEJBMethodFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, viewClassName, methodName, methodParamTypes);
+                    return;
+                }
+                cachedMethod = cachedEJB.putMethod(viewClassName, methodName, signature, componentView, method);
             }
+            final ComponentView componentView = cachedMethod.getView();
+            final Method invokedMethod = cachedMethod.getMethod();
 
-            final Object[] methodParams = new Object[methodParamTypes.length];
+            final Object[] methodParams = new Object[cachedMethod.getParameterCount()];
             // un-marshall the method arguments
-            if (methodParamTypes.length > 0) {
-                for (int i = 0; i < methodParamTypes.length; i++) {
+            if (methodParams.length > 0) {
+                for (int i = 0; i < methodParams.length; i++) {
                     try {
                         methodParams[i] = unmarshaller.readObject();
                     } catch (ClassNotFoundException cnfe) {
@@ -177,7 +181,7 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
                 return;
             }
             // done with unmarshalling
-            unmarshaller.finish();
+            this.finishUnMarshalling(unmarshaller);
 
             runnable = new Runnable() {
 
@@ -365,7 +369,7 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
             // write the attachments
             this.writeAttachments(marshaller, attachments);
             // finish marshalling
-            marshaller.finish();
+            this.finishMarshalling(marshaller);
         } finally {
             channelAssociation.releaseChannelMessageOutputStream(messageOutputStream);
             outputStream.close();
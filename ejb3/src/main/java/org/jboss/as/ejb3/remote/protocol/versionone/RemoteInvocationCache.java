@@ -0,0 +1,210 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.remote.protocol.versionone;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ee.component.ComponentView;
+import org.jboss.as.ejb3.deployment.DeploymentModuleIdentifier;
+import org.jboss.as.ejb3.deployment.DeploymentRepository;
+import org.jboss.as.ejb3.deployment.EjbDeploymentInformation;
+import org.jboss.as.ejb3.deployment.ModuleDeployment;
+
+/**
+ * Caches, per channel, the EJBs and view methods which were resolved for incoming method invocation requests, so that
+ * repeated invocations of the same method neither go through the {@link DeploymentRepository} nor scan the methods of
+ * the view.
+ * <p/>
+ * The cache is invalidated as a whole whenever a module becomes available or unavailable. A resolution which raced with
+ * such a change is discarded instead of being cached.
+ */
+final class RemoteInvocationCache {
+
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ConcurrentMap<EJBKey, CachedEJB> ejbs = new ConcurrentHashMap<EJBKey, CachedEJB>();
+
+    /**
+     * Find the EJB with the given identifier.
+     *
+     * @return the EJB, or {@code null} if there is no such EJB deployed
+     */
+    CachedEJB findEJB(final DeploymentRepository deploymentRepository, final String appName, final String moduleName, final String distinctName, final String beanName) {
+        final EJBKey key = new EJBKey(appName, moduleName, distinctName, beanName);
+        CachedEJB ejb = ejbs.get(key);
+        if (ejb != null) {
+            return ejb;
+        }
+        final int generation = this.generation.get();
+        final ModuleDeployment moduleDeployment = deploymentRepository.getModules().get(new DeploymentModuleIdentifier(appName, moduleName, distinctName));
+        final EjbDeploymentInformation ejbDeploymentInformation = moduleDeployment == null ? null : moduleDeployment.getEjbs().get(beanName);
+        if (ejbDeploymentInformation == null) {
+            return null;
+        }
+        ejb = new CachedEJB(ejbDeploymentInformation);
+        ejbs.put(key, ejb);
+        if (this.generation.get() != generation) {
+            // the deployments changed while we were looking, so our result may already be stale
+            ejbs.remove(key, ejb);
+        }
+        return ejb;
+    }
+
+    /**
+     * Drop everything which has been cached. Must be called after a module became available or unavailable.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        ejbs.clear();
+    }
+
+    /**
+     * An EJB along with the view methods which have been resolved for it.
+     */
+    static final class CachedEJB {
+        private final EjbDeploymentInformation deploymentInformation;
+        private final ConcurrentMap<MethodKey, CachedMethod> methods = new ConcurrentHashMap<MethodKey, CachedMethod>();
+
+        private CachedEJB(final EjbDeploymentInformation deploymentInformation) {
+            this.deploymentInformation = deploymentInformation;
+        }
+
+        EjbDeploymentInformation getDeploymentInformation() {
+            return deploymentInformation;
+        }
+
+        /**
+         * @return the method previously resolved for the given view, method name and signature, or {@code null}
+         */
+        CachedMethod getMethod(final String viewClassName, final String methodName, final String signature) {
+            return methods.get(new MethodKey(viewClassName, methodName, signature));
+        }
+
+        CachedMethod putMethod(final String viewClassName, final String methodName, final String signature, final ComponentView view, final Method method) {
+            final CachedMethod cachedMethod = new CachedMethod(view, method);
+            methods.put(new MethodKey(viewClassName, methodName, signature), cachedMethod);
+            return cachedMethod;
+        }
+    }
+
+    /**
+     * A method of a remote view of an EJB.
+     */
+    static final class CachedMethod {
+        private final ComponentView view;
+        private final Method method;
+        private final int parameterCount;
+
+        private CachedMethod(final ComponentView view, final Method method) {
+            this.view = view;
+            this.method = method;
+            this.parameterCount = method.getParameterTypes().length;
+        }
+
+        ComponentView getView() {
+            return view;
+        }
+
+        Method getMethod() {
+            return method;
+        }
+
+        int getParameterCount() {
+            return parameterCount;
+        }
+    }
+
+    private static final class EJBKey {
+        private final String appName;
+        private final String moduleName;
+        private final String distinctName;
+        private final String beanName;
+        private final int hashCode;
+
+        private EJBKey(final String appName, final String moduleName, final String distinctName, final String beanName) {
+            this.appName = appName;
+            this.moduleName = moduleName;
+            this.distinctName = distinctName;
+            this.beanName = beanName;
+            int result = hash(appName);
+            result = 31 * result + hash(moduleName);
+            result = 31 * result + hash(distinctName);
+            result = 31 * result + hash(beanName);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EJBKey)) return false;
+            final EJBKey that = (EJBKey) o;
+            return hashCode == that.hashCode && equal(appName, that.appName) && equal(moduleName, that.moduleName)
+                    && equal(distinctName, that.distinctName) && equal(beanName, that.beanName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class MethodKey {
+        private final String viewClassName;
+        private final String methodName;
+        private final String signature;
+        private final int hashCode;
+
+        private MethodKey(final String viewClassName, final String methodName, final String signature) {
+            this.viewClassName = viewClassName;
+            this.methodName = methodName;
+            this.signature = signature;
+            int result = viewClassName.hashCode();
+            result = 31 * result + methodName.hashCode();
+            result = 31 * result + signature.hashCode();
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodKey)) return false;
+            final MethodKey that = (MethodKey) o;
+            return hashCode == that.hashCode && viewClassName.equals(that.viewClassName) && methodName.equals(that.methodName)
+                    && signature.equals(that.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static int hash(final String value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
+    private static boolean equal(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.remote.protocol.versionone;
+
+import java.io.IOException;
+
+import org.jboss.ejb.client.remoting.ProtocolV1ClassTable;
+import org.jboss.ejb.client.remoting.ProtocolV1ObjectTable;
+import org.jboss.marshalling.ClassResolver;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.reflect.SunReflectiveCreator;
+
+/**
+ * Keeps one {@link Marshaller} and one {@link Unmarshaller} per thread, so that they do not have to be created, along with
+ * their configuration and internal tables, for every message.
+ * <p/>
+ * An instance is handed out again only once it has been returned after a successful {@code finish()}. An instance which
+ * is still in use, either because the thread is marshalling another message at the same time or because a previous use
+ * failed halfway, is simply replaced by a new one.
+ */
+final class ReusableMarshallers {
+
+    private static final ThreadLocal<ReusableMarshallers> CURRENT = new ThreadLocal<ReusableMarshallers>();
+
+    private final MarshallerFactory marshallerFactory;
+    private Marshaller marshaller;
+    private boolean marshallerInUse;
+    private Unmarshaller unmarshaller;
+    private DelegatingClassResolver classResolver;
+    private boolean unmarshallerInUse;
+
+    private ReusableMarshallers(final MarshallerFactory marshallerFactory) {
+        this.marshallerFactory = marshallerFactory;
+    }
+
+    /**
+     * Get a marshaller, which has not been started yet.
+     */
+    static Marshaller acquireMarshaller(final MarshallerFactory marshallerFactory) throws IOException {
+        final ReusableMarshallers current = current(marshallerFactory);
+        if (current.marshaller == null || current.marshallerInUse) {
+            current.marshaller = marshallerFactory.createMarshaller(createMarshallingConfiguration());
+        }
+        current.marshallerInUse = true;
+        return current.marshaller;
+    }
+
+    /**
+     * Finish the given marshaller, and make it available for reuse by the current thread.
+     */
+    static void finish(final Marshaller marshaller) throws IOException {
+        marshaller.finish();
+        final ReusableMarshallers current = CURRENT.get();
+        if (current != null && current.marshaller == marshaller) {
+            current.marshallerInUse = false;
+        }
+    }
+
+    /**
+     * Get an unmarshaller, which has not been started yet and which resolves classes through the given class resolver.
+     */
+    static Unmarshaller acquireUnmarshaller(final MarshallerFactory marshallerFactory, final ClassResolver classResolver) throws IOException {
+        final ReusableMarshallers current = current(marshallerFactory);
+        if (current.unmarshaller == null || current.unmarshallerInUse) {
+            final DelegatingClassResolver delegatingClassResolver = new DelegatingClassResolver();
+            final MarshallingConfiguration marshallingConfiguration = createMarshallingConfiguration();
+            marshallingConfiguration.setClassResolver(delegatingClassResolver);
+            current.unmarshaller = marshallerFactory.createUnmarshaller(marshallingConfiguration);
+            current.classResolver = delegatingClassResolver;
+        }
+        current.classResolver.delegate = classResolver;
+        current.unmarshallerInUse = true;
+        return current.unmarshaller;
+    }
+
+    /**
+     * Finish the given unmarshaller, and make it available for reuse by the current thread.
+     */
+    static void finish(final Unmarshaller unmarshaller) throws IOException {
+        unmarshaller.finish();
+        final ReusableMarshallers current = CURRENT.get();
+        if (current != null && current.unmarshaller == unmarshaller) {
+            // don't hold on to the class resolver, which may reference a deployment class loader
+            current.classResolver.delegate = null;
+            current.unmarshallerInUse = false;
+        }
+    }
+
+    private static ReusableMarshallers current(final MarshallerFactory marshallerFactory) {
+        ReusableMarshallers current = CURRENT.get();
+        if (current == null || current.marshallerFactory != marshallerFactory) {
+            current = new ReusableMarshallers(marshallerFactory);
+            CURRENT.set(current);
+        }
+        return current;
+    }
+
+    static MarshallingConfiguration createMarshallingConfiguration() {
+        final MarshallingConfiguration marshallingConfiguration = new MarshallingConfiguration();
+        marshallingConfiguration.setClassTable(ProtocolV1ClassTable.INSTANCE);
+        marshallingConfiguration.setObjectTable(ProtocolV1ObjectTable.INSTANCE);
+        marshallingConfiguration.setVersion(2);
+        marshallingConfiguration.setSerializedCreator(new SunReflectiveCreator());
+        return marshallingConfiguration;
+    }
+
+    /**
+     * A {@link ClassResolver} which is configured once for a reusable unmarshaller, and delegates to the class resolver
+     * of the message being unmarshalled.
+     */
+    private static final class DelegatingClassResolver implements ClassResolver {
+        private ClassResolver delegate;
+
+        @Override
+        public void annotateClass(final Marshaller marshaller, final Class<?> clazz) throws IOException {
+            delegate.annotateClass(marshaller, clazz);
+        }
+
+        @Override
+        public void annotateProxyClass(final Marshaller marshaller, final Class<?> proxyClass) throws IOException {
+            delegate.annotateProxyClass(marshaller, proxyClass);
+        }
+
+        @Override
+        public String getClassName(final Class<?> clazz) throws IOException {
+            return delegate.getClassName(clazz);
+        }
+
+        @Override
+        public String[] getProxyInterfaces(final Class<?> proxyClass) throws IOException {
+            return delegate.getProxyInterfaces(proxyClass);
+        }
+
+        @Override
+        public Class<?> resolveClass(final Unmarshaller unmarshaller, final String name, final long serialVersionUID) throws IOException, ClassNotFoundException {
+            return delegate.resolveClass(unmarshaller, name, serialVersionUID);
+        }
+
+        @Override
+        public Class<?> resolveProxyClass(final Unmarshaller unmarshaller, final String[] interfaces) throws IOException, ClassNotFoundException {
+            return delegate.resolveProxyClass(unmarshaller, interfaces);
+        }
+    }
+}
@@ -114,7 +114,7 @@ class SessionOpenRequestHandler extends EJBIdentifierBasedMessageHandler {
             marshaller.writeObject(hardAffinity);
 
             // finish marshalling
-            marshaller.finish();
+            this.finishMarshalling(marshaller);
 
         } finally {
             channelAssociation.releaseChannelMessageOutputStream(messageOutputStream);
@@ -73,6 +73,7 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
     private final RegistryCollector<String, List<ClientMapping>> clientMappingRegistryCollector;
     private final Set<ClusterTopologyUpdateListener> clusterTopologyUpdateListeners = Collections.synchronizedSet(new HashSet<ClusterTopologyUpdateListener>());
     private final RemoteAsyncInvocationCancelStatusService remoteAsyncInvocationCancelStatus;
+    private final RemoteInvocationCache invocationCache = new RemoteInvocationCache();
 
     public VersionOneProtocolChannelReceiver(final ChannelAssociation channelAssociation, final DeploymentRepository deploymentRepository,
                                              final EJBRemoteTransactionsRepository transactionsRepository, final RegistryCollector<String, List<ClientMapping>> clientMappingRegistryCollector,
@@ -149,7 +150,7 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
             MessageHandler messageHandler = null;
             switch (header) {
                 case HEADER_INVOCATION_REQUEST:
-                    messageHandler = new MethodInvocationMessageHandler(this.deploymentRepository, this.marshallerFactory, this.executorService, this.remoteAsyncInvocationCancelStatus);
+                    messageHandler = new MethodInvocationMessageHandler(this.deploymentRepository, this.marshallerFactory, this.executorService, this.remoteAsyncInvocationCancelStatus, this.invocationCache);
                     break;
                 case HEADER_INVOCATION_CANCELLATION_REQUEST:
                     messageHandler = new InvocationCancellationMessageHandler(this.remoteAsyncInvocationCancelStatus);
@@ -193,6 +194,8 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
 
     @Override
     public void listenerAdded(DeploymentRepository repository) {
+        // invocations may already have been received before we started to listen for module changes
+        this.invocationCache.invalidate();
         // get the initial available modules and send a message to the client
         final Map<DeploymentModuleIdentifier, ModuleDeployment> availableModules = this.deploymentRepository.getModules();
         if (availableModules != null && !availableModules.isEmpty()) {
@@ -207,6 +210,7 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
 
     @Override
     public void deploymentAvailable(DeploymentModuleIdentifier deploymentModuleIdentifier, ModuleDeployment moduleDeployment) {
+        this.invocationCache.invalidate();
         try {
             this.sendModuleAvailability(new DeploymentModuleIdentifier[]{deploymentModuleIdentifier});
         } catch (IOException e) {
@@ -216,6 +220,7 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
 
     @Override
     public void deploymentRemoved(DeploymentModuleIdentifier deploymentModuleIdentifier) {
+        this.invocationCache.invalidate();
         try {
             this.sendModuleUnAvailability(new DeploymentModuleIdentifier[]{deploymentModuleIdentifier});
         } catch (IOException e) {
@@ -350,6 +355,7 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
         }
         this.deploymentRepository.removeListener(this);
         this.clientMappingRegistryCollector.removeListener(this);
+        this.invocationCache.invalidate();
     }
 
     private class ChannelCloseHandler implements CloseHandler<Channel> {
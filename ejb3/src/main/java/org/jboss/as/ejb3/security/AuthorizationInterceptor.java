@@ -30,8 +30,8 @@ import java.util.Collection;
 import org.jboss.as.controller.security.ServerSecurityManager;
 import org.jboss.as.ee.component.Component;
 import org.jboss.as.ee.component.ComponentView;
+import org.jboss.as.ee.component.interceptors.ElidableInterceptor;
 import org.jboss.as.ejb3.component.EJBComponent;
-import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
 /**
  * EJB authorization interceptor responsible for handling invocation on EJB methods and doing the necessary authorization
@@ -39,7 +39,7 @@ import org.jboss.invocation.InterceptorContext;
  * <p/>
  * User: Jaikiran Pai
  */
-public class AuthorizationInterceptor implements Interceptor {
+public class AuthorizationInterceptor implements ElidableInterceptor {
 
     /**
      * EJB method security metadata
@@ -106,4 +106,13 @@ public class AuthorizationInterceptor implements Interceptor {
         return context.proceed();
     }
 
+    /**
+     * A method which is neither denied nor restricted to some roles needs no authorization check. The other checks of
+     * {@link #processInvocation(InterceptorContext)} only guard against a misconfigured chain.
+     */
+    @Override
+    public boolean isElidable() {
+        return !ejbMethodSecurityMetaData.isDenyAll() && (ejbMethodSecurityMetaData.isPermitAll() || ejbMethodSecurityMetaData.getRolesAllowed().isEmpty());
+    }
+
 }
@@ -170,7 +170,8 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         }
 
         // write the entity bean element
-        if (model.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_INSTANCE_POOL) || model.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_OPTIMISTIC_LOCKING)) {
+        if (model.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_INSTANCE_POOL) || model.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_OPTIMISTIC_LOCKING)
+                || model.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE)) {
             // <entity-bean>
             writer.writeStartElement(EJB3SubsystemXMLElement.ENTITY_BEAN.getLocalName());
             // write out the mdb element contents
@@ -420,7 +421,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
      * @throws javax.xml.stream.XMLStreamException
      *
      */
-    private void writeEntityBean(final XMLExtendedStreamWriter writer, final ModelNode entityModelNode) throws XMLStreamException {
+    protected void writeEntityBean(final XMLExtendedStreamWriter writer, final ModelNode entityModelNode) throws XMLStreamException {
         if (entityModelNode.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_INSTANCE_POOL)) {
             // <bean-instance-pool-ref>
             writer.writeStartElement(EJB3SubsystemXMLElement.BEAN_INSTANCE_POOL_REF.getLocalName());
@@ -490,7 +491,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         }
     }
 
-    private void writeStrictMaxPoolConfig(final XMLExtendedStreamWriter writer, final ModelNode strictMaxPoolModelNode) throws XMLStreamException {
+    protected void writeStrictMaxPoolConfig(final XMLExtendedStreamWriter writer, final ModelNode strictMaxPoolModelNode) throws XMLStreamException {
         // write the "name" attribute of the pool
         final String poolName = strictMaxPoolModelNode.get(EJB3SubsystemModel.NAME).asString();
         writer.writeAttribute(EJB3SubsystemXMLAttribute.NAME.getLocalName(), poolName);
@@ -539,21 +540,24 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
             for (Property property : caches) {
                 // <strict-max-pool>
                 writer.writeStartElement(EJB3SubsystemXMLElement.FILE_PASSIVATION_STORE.getLocalName());
-                ModelNode store = property.getValue();
-                writer.writeAttribute(EJB3SubsystemXMLAttribute.NAME.getLocalName(), store.get(EJB3SubsystemModel.NAME).asString());
-                PassivationStoreResourceDefinition.IDLE_TIMEOUT.marshallAsAttribute(store, writer);
-                PassivationStoreResourceDefinition.IDLE_TIMEOUT_UNIT.marshallAsAttribute(store, writer);
-                FilePassivationStoreResourceDefinition.MAX_SIZE.marshallAsAttribute(store, writer);
-                FilePassivationStoreResourceDefinition.RELATIVE_TO.marshallAsAttribute(store, writer);
-                FilePassivationStoreResourceDefinition.GROUPS_PATH.marshallAsAttribute(store, writer);
-                FilePassivationStoreResourceDefinition.SESSIONS_PATH.marshallAsAttribute(store, writer);
-                FilePassivationStoreResourceDefinition.SUBDIRECTORY_COUNT.marshallAsAttribute(store, writer);
+                this.writeFilePassivationStoreConfig(writer, property.getValue());
                 writer.writeEndElement();
             }
         }
     }
 
-    private void writeTimerService(final XMLExtendedStreamWriter writer, final ModelNode timerServiceModel) throws XMLStreamException {
+    protected void writeFilePassivationStoreConfig(final XMLExtendedStreamWriter writer, final ModelNode store) throws XMLStreamException {
+        writer.writeAttribute(EJB3SubsystemXMLAttribute.NAME.getLocalName(), store.get(EJB3SubsystemModel.NAME).asString());
+        PassivationStoreResourceDefinition.IDLE_TIMEOUT.marshallAsAttribute(store, writer);
+        PassivationStoreResourceDefinition.IDLE_TIMEOUT_UNIT.marshallAsAttribute(store, writer);
+        FilePassivationStoreResourceDefinition.MAX_SIZE.marshallAsAttribute(store, writer);
+        FilePassivationStoreResourceDefinition.RELATIVE_TO.marshallAsAttribute(store, writer);
+        FilePassivationStoreResourceDefinition.GROUPS_PATH.marshallAsAttribute(store, writer);
+        FilePassivationStoreResourceDefinition.SESSIONS_PATH.marshallAsAttribute(store, writer);
+        FilePassivationStoreResourceDefinition.SUBDIRECTORY_COUNT.marshallAsAttribute(store, writer);
+    }
+
+    protected void writeTimerService(final XMLExtendedStreamWriter writer, final ModelNode timerServiceModel) throws XMLStreamException {
 
         TimerServiceResourceDefinition.THREAD_POOL_NAME.marshallAsAttribute(timerServiceModel, writer);
 
@@ -680,7 +684,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
 
     }
 
-    private void parseEntityBean(final XMLExtendedStreamReader reader, List<ModelNode> operations, final ModelNode ejb3SubsystemAddOperation) throws XMLStreamException {
+    protected void parseEntityBean(final XMLExtendedStreamReader reader, List<ModelNode> operations, final ModelNode ejb3SubsystemAddOperation) throws XMLStreamException {
         // no attributes expected
         requireNoAttributes(reader);
 
@@ -844,7 +848,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         }
     }
 
-    private void parseStrictMaxPool(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+    protected void parseStrictMaxPool(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         final int count = reader.getAttributeCount();
         String poolName = null;
         Integer maxPoolSize = null;
@@ -953,7 +957,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         }
     }
 
-    private void parseFilePassivationStore(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+    protected void parseFilePassivationStore(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         String name = null;
         Integer maxSize = null;
         Long timeout = null;
@@ -1069,7 +1073,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         operations.add(this.createAddClusterPassivationStoreOperation(name, maxSize, timeout, unit, cacheContainer, beanCache, clientMappingsCache, passivateEventsOnReplicate));
     }
 
-    private void parseTimerService(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+    protected void parseTimerService(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
 
         final ModelNode address = new ModelNode();
         address.add(SUBSYSTEM, EJB3Extension.SUBSYSTEM_NAME);
@@ -1212,7 +1216,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         }
     }
 
-    private ModelNode createAddStrictMaxBeanInstancePoolOperation(final String name, final Integer maxPoolSize, final Long timeout, final String timeoutUnit) {
+    protected ModelNode createAddStrictMaxBeanInstancePoolOperation(final String name, final Integer maxPoolSize, final Long timeout, final String timeoutUnit) {
         // create /subsystem=ejb3/strict-max-bean-instance-pool=name:add(...)
         final ModelNode addStrictMaxPoolOperation = new ModelNode();
         addStrictMaxPoolOperation.get(OP).set(ADD);
@@ -1269,7 +1273,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         return operation;
     }
 
-    private ModelNode createAddFilePassivationStoreOperation(String name, Integer maxSize, Long idleTimeout, String idleTimeoutUnit, String relativeTo, String groupsPath, String sessionsPath, Integer subdirectoryCount) {
+    protected ModelNode createAddFilePassivationStoreOperation(String name, Integer maxSize, Long idleTimeout, String idleTimeoutUnit, String relativeTo, String groupsPath, String sessionsPath, Integer subdirectoryCount) {
         ModelNode operation = this.createAddPassivationStoreOperation(FILE_PASSIVATION_STORE, name, maxSize, idleTimeout, idleTimeoutUnit);
         if (relativeTo != null) {
             operation.get(RELATIVE_TO).set(relativeTo);
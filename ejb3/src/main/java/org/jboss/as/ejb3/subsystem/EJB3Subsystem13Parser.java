@@ -31,6 +31,7 @@ import org.jboss.staxmapper.XMLExtendedStreamWriter;
 
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
@@ -42,15 +43,25 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
 import static org.jboss.as.controller.parsing.ParseUtils.missingRequired;
+import static org.jboss.as.controller.parsing.ParseUtils.readStringAttributeElement;
+import static org.jboss.as.controller.parsing.ParseUtils.requireNoAttributes;
 import static org.jboss.as.controller.parsing.ParseUtils.requireNoContent;
 import static org.jboss.as.controller.parsing.ParseUtils.requireNoNamespaceAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedElement;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.CHANNEL_CREATION_OPTIONS;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.COMPRESSED;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DATA_STORE_TYPE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_DISTINCT_NAME;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.ENABLE_STATISTICS;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.PATH;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.RELATIVE_TO;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.REMOTE;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.SEGMENTED;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.SERVICE;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STRIPED;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.THREAD_POOL_NAME;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.TIMER_SERVICE;
 
 
 /**
@@ -154,6 +165,277 @@ public class EJB3Subsystem13Parser extends EJB3Subsystem12Parser {
         }
     }
 
+    @Override
+    protected void parseStrictMaxPool(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        final int count = reader.getAttributeCount();
+        String poolName = null;
+        Integer maxPoolSize = null;
+        Long timeout = null;
+        String unit = null;
+        Boolean striped = null;
+        for (int i = 0; i < count; i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+            switch (attribute) {
+                case NAME:
+                    poolName = value;
+                    break;
+                case MAX_POOL_SIZE:
+                    maxPoolSize = StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.parse(value, reader).asInt();
+                    break;
+                case INSTANCE_ACQUISITION_TIMEOUT:
+                    timeout = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.parse(value, reader).asLong();
+                    break;
+                case INSTANCE_ACQUISITION_TIMEOUT_UNIT:
+                    unit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parse(value, reader).asString();
+                    break;
+                case STRIPED:
+                    striped = StrictMaxPoolResourceDefinition.STRIPED.parse(value, reader).asBoolean();
+                    break;
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        requireNoContent(reader);
+        if (poolName == null) {
+            throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.NAME.getLocalName()));
+        }
+        // create and add the operation
+        final ModelNode addStrictMaxPoolOperation = this.createAddStrictMaxBeanInstancePoolOperation(poolName, maxPoolSize, timeout, unit);
+        if (striped != null) {
+            addStrictMaxPoolOperation.get(STRIPED).set(striped);
+        }
+        operations.add(addStrictMaxPoolOperation);
+    }
+
+    @Override
+    protected void writeStrictMaxPoolConfig(final XMLExtendedStreamWriter writer, final ModelNode strictMaxPoolModelNode) throws XMLStreamException {
+        super.writeStrictMaxPoolConfig(writer, strictMaxPoolModelNode);
+
+        StrictMaxPoolResourceDefinition.STRIPED.marshallAsAttribute(strictMaxPoolModelNode, writer);
+    }
+
+    @Override
+    protected void parseEntityBean(final XMLExtendedStreamReader reader, List<ModelNode> operations, final ModelNode ejb3SubsystemAddOperation) throws XMLStreamException {
+        // no attributes expected
+        requireNoAttributes(reader);
+
+        while (reader.hasNext() && reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            switch (EJB3SubsystemXMLElement.forName(reader.getLocalName())) {
+                case BEAN_INSTANCE_POOL_REF: {
+                    final String poolName = readStringAttributeElement(reader, EJB3SubsystemXMLAttribute.POOL_NAME.getLocalName());
+                    EJB3SubsystemRootResourceDefinition.DEFAULT_ENTITY_BEAN_INSTANCE_POOL.parseAndSetParameter(poolName, ejb3SubsystemAddOperation, reader);
+                    break;
+                }
+                case OPTIMISTIC_LOCKING: {
+                    final String enabled = readStringAttributeElement(reader, EJB3SubsystemXMLAttribute.ENABLED.getLocalName());
+                    EJB3SubsystemRootResourceDefinition.DEFAULT_ENTITY_BEAN_OPTIMISTIC_LOCKING.parseAndSetParameter(enabled, ejb3SubsystemAddOperation, reader);
+                    break;
+                }
+                case CACHE: {
+                    final String maxSize = readStringAttributeElement(reader, EJB3SubsystemXMLAttribute.MAX_SIZE.getLocalName());
+                    EJB3SubsystemRootResourceDefinition.DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE.parseAndSetParameter(maxSize, ejb3SubsystemAddOperation, reader);
+                    break;
+                }
+                default: {
+                    throw unexpectedElement(reader);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void writeEntityBean(final XMLExtendedStreamWriter writer, final ModelNode entityModelNode) throws XMLStreamException {
+        super.writeEntityBean(writer, entityModelNode);
+
+        if (entityModelNode.hasDefined(EJB3SubsystemModel.DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE)) {
+            // <cache>
+            writer.writeStartElement(EJB3SubsystemXMLElement.CACHE.getLocalName());
+            EJB3SubsystemRootResourceDefinition.DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE.marshallAsAttribute(entityModelNode, writer);
+            // </cache>
+            writer.writeEndElement();
+        }
+    }
+
+    @Override
+    protected void parseFilePassivationStore(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        String name = null;
+        Integer maxSize = null;
+        Long timeout = null;
+        String unit = null;
+        String relativeTo = null;
+        String groupsPath = null;
+        String sessionsPath = null;
+        Integer subdirectoryCount = null;
+        Boolean segmented = null;
+        Boolean compressed = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            switch (EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i))) {
+                case NAME:
+                    name = value;
+                    break;
+                case MAX_SIZE:
+                    maxSize = FilePassivationStoreResourceDefinition.MAX_SIZE.parse(value, reader).asInt();
+                    break;
+                case IDLE_TIMEOUT:
+                    timeout = PassivationStoreResourceDefinition.IDLE_TIMEOUT.parse(value, reader).asLong();
+                    break;
+                case IDLE_TIMEOUT_UNIT:
+                    unit = PassivationStoreResourceDefinition.IDLE_TIMEOUT_UNIT.parse(value, reader).asString();
+                    break;
+                case RELATIVE_TO:
+                    relativeTo = FilePassivationStoreResourceDefinition.RELATIVE_TO.parse(value, reader).asString();
+                    break;
+                case GROUPS_PATH:
+                    groupsPath = FilePassivationStoreResourceDefinition.GROUPS_PATH.parse(value, reader).asString();
+                    break;
+                case SESSIONS_PATH:
+                    sessionsPath = FilePassivationStoreResourceDefinition.SESSIONS_PATH.parse(value, reader).asString();
+                    break;
+                case SUBDIRECTORY_COUNT:
+                    subdirectoryCount = FilePassivationStoreResourceDefinition.SUBDIRECTORY_COUNT.parse(value, reader).asInt();
+                    break;
+                case SEGMENTED:
+                    segmented = FilePassivationStoreResourceDefinition.SEGMENTED.parse(value, reader).asBoolean();
+                    break;
+                case COMPRESSED:
+                    compressed = FilePassivationStoreResourceDefinition.COMPRESSED.parse(value, reader).asBoolean();
+                    break;
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        requireNoContent(reader);
+        if (name == null) {
+            throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.NAME.getLocalName()));
+        }
+        // create and add the operation
+        final ModelNode operation = this.createAddFilePassivationStoreOperation(name, maxSize, timeout, unit, relativeTo, groupsPath, sessionsPath, subdirectoryCount);
+        if (segmented != null) {
+            operation.get(SEGMENTED).set(segmented);
+        }
+        if (compressed != null) {
+            operation.get(COMPRESSED).set(compressed);
+        }
+        operations.add(operation);
+    }
+
+    @Override
+    protected void writeFilePassivationStoreConfig(final XMLExtendedStreamWriter writer, final ModelNode store) throws XMLStreamException {
+        super.writeFilePassivationStoreConfig(writer, store);
+
+        FilePassivationStoreResourceDefinition.SEGMENTED.marshallAsAttribute(store, writer);
+        FilePassivationStoreResourceDefinition.COMPRESSED.marshallAsAttribute(store, writer);
+    }
+
+    @Override
+    protected void writeTimerService(final XMLExtendedStreamWriter writer, final ModelNode timerServiceModel) throws XMLStreamException {
+
+        TimerServiceResourceDefinition.THREAD_POOL_NAME.marshallAsAttribute(timerServiceModel, writer);
+
+        // <data-store>
+        if (TimerServiceResourceDefinition.PATH.isMarshallable(timerServiceModel)
+                || TimerServiceResourceDefinition.RELATIVE_TO.isMarshallable(timerServiceModel)
+                || TimerServiceResourceDefinition.DATA_STORE_TYPE.isMarshallable(timerServiceModel)) {
+
+            writer.writeEmptyElement(EJB3SubsystemXMLElement.DATA_STORE.getLocalName());
+            TimerServiceResourceDefinition.PATH.marshallAsAttribute(timerServiceModel, writer);
+            TimerServiceResourceDefinition.RELATIVE_TO.marshallAsAttribute(timerServiceModel, writer);
+            TimerServiceResourceDefinition.DATA_STORE_TYPE.marshallAsAttribute(timerServiceModel, writer);
+        }
+
+    }
+
+    @Override
+    protected void parseTimerService(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+
+        final ModelNode address = new ModelNode();
+        address.add(SUBSYSTEM, EJB3Extension.SUBSYSTEM_NAME);
+        address.add(SERVICE, TIMER_SERVICE);
+        final ModelNode timerServiceAdd = new ModelNode();
+        timerServiceAdd.get(OP).set(ADD);
+        timerServiceAdd.get(OP_ADDR).set(address);
+
+        String dataStorePath = null;
+        String dataStorePathRelativeTo = null;
+        String dataStoreType = null;
+
+        final int attCount = reader.getAttributeCount();
+        String threadPoolName = null;
+        final EnumSet<EJB3SubsystemXMLAttribute> required = EnumSet.of(EJB3SubsystemXMLAttribute.THREAD_POOL_NAME);
+        for (int i = 0; i < attCount; i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+            required.remove(attribute);
+            switch (attribute) {
+                case THREAD_POOL_NAME:
+                    threadPoolName = value;
+                    break;
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        if (!required.isEmpty()) {
+            throw missingRequired(reader, required);
+        }
+        timerServiceAdd.get(THREAD_POOL_NAME).set(threadPoolName);
+
+        while (reader.hasNext() && reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            switch (EJB3SubsystemXMLElement.forName(reader.getLocalName())) {
+                case DATA_STORE: {
+                    final int count = reader.getAttributeCount();
+                    for (int i = 0; i < count; i++) {
+                        requireNoNamespaceAttribute(reader, i);
+                        final String value = reader.getAttributeValue(i);
+                        final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+                        switch (attribute) {
+                            case PATH:
+                                if (dataStorePath != null) {
+                                    throw unexpectedAttribute(reader, i);
+                                }
+                                dataStorePath = TimerServiceResourceDefinition.PATH.parse(value, reader).asString();
+                                break;
+                            case RELATIVE_TO:
+                                if (dataStorePathRelativeTo != null) {
+                                    throw unexpectedAttribute(reader, i);
+                                }
+                                dataStorePathRelativeTo = TimerServiceResourceDefinition.RELATIVE_TO.parse(value, reader).asString();
+                                break;
+                            case TYPE:
+                                if (dataStoreType != null) {
+                                    throw unexpectedAttribute(reader, i);
+                                }
+                                dataStoreType = TimerServiceResourceDefinition.DATA_STORE_TYPE.parse(value, reader).asString();
+                                break;
+                            default:
+                                throw unexpectedAttribute(reader, i);
+                        }
+                    }
+                    if (dataStorePath == null) {
+                        throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.PATH));
+                    }
+                    timerServiceAdd.get(PATH).set(dataStorePath);
+                    if (dataStorePathRelativeTo != null) {
+                        timerServiceAdd.get(RELATIVE_TO).set(dataStorePathRelativeTo);
+                    }
+                    if (dataStoreType != null) {
+                        timerServiceAdd.get(DATA_STORE_TYPE).set(dataStoreType);
+                    }
+                    requireNoContent(reader);
+                    break;
+                }
+                default: {
+                    throw unexpectedElement(reader);
+                }
+            }
+        }
+        operations.add(timerServiceAdd);
+    }
+
     @Override
     protected void parseRemote(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         final int count = reader.getAttributeCount();
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.subsystem;
+
+import java.util.List;
+
+import org.jboss.as.controller.AbstractWriteAttributeHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.jboss.msc.service.ValueService;
+import org.jboss.msc.value.ImmediateValue;
+
+/**
+ * Installs the service which holds the default maximum size of the cache of ready entity bean instances.
+ * Entity beans deployed afterwards pick up the new value.
+ */
+public class EJB3SubsystemDefaultEntityBeanCacheMaxSizeWriteHandler extends AbstractWriteAttributeHandler<Void> {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("ejb3", "entity-bean", "cache-max-size");
+
+    public static final EJB3SubsystemDefaultEntityBeanCacheMaxSizeWriteHandler INSTANCE = new EJB3SubsystemDefaultEntityBeanCacheMaxSizeWriteHandler();
+
+    private EJB3SubsystemDefaultEntityBeanCacheMaxSizeWriteHandler() {
+        super(EJB3SubsystemRootResourceDefinition.DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    protected boolean applyUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName,
+                                           ModelNode resolvedValue, ModelNode currentValue, HandbackHolder<Void> handbackHolder) throws OperationFailedException {
+        final ModelNode model = context.readResource(PathAddress.EMPTY_ADDRESS).getModel();
+        updateCacheMaxSize(context, model, null);
+
+        return false;
+    }
+
+    @Override
+    protected void revertUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName,
+                                         ModelNode valueToRestore, ModelNode valueToRevert, Void handback) throws OperationFailedException {
+        final ModelNode restored = context.readResource(PathAddress.EMPTY_ADDRESS).getModel().clone();
+        restored.get(attributeName).set(valueToRestore);
+        updateCacheMaxSize(context, restored, null);
+    }
+
+    void updateCacheMaxSize(final OperationContext context, final ModelNode model, List<ServiceController<?>> newControllers) throws OperationFailedException {
+
+        final ModelNode maxSize = EJB3SubsystemRootResourceDefinition.DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE.resolveModelAttribute(context, model);
+
+        final ServiceRegistry serviceRegistry = context.getServiceRegistry(true);
+        ServiceController<?> existingService = serviceRegistry.getService(SERVICE_NAME);
+        // if a default cache size is installed, remove it
+        if (existingService != null) {
+            context.removeService(existingService);
+        }
+
+        if (maxSize.isDefined()) {
+            final Service<Integer> service = new ValueService<Integer>(new ImmediateValue<Integer>(maxSize.asInt()));
+            ServiceController<?> newController = context.getServiceTarget().addService(SERVICE_NAME, service)
+                    .install();
+            if (newControllers != null) {
+                newControllers.add(newController);
+            }
+        }
+    }
+}
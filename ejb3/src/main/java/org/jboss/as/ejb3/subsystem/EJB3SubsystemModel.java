@@ -50,17 +50,20 @@ public interface EJB3SubsystemModel {
     String INSTANCE_ACQUISITION_TIMEOUT_UNIT = "timeout-unit";
     String DEFAULT_ENTITY_BEAN_INSTANCE_POOL = "default-entity-bean-instance-pool";
     String DEFAULT_ENTITY_BEAN_OPTIMISTIC_LOCKING = "default-entity-bean-optimistic-locking";
+    String DEFAULT_ENTITY_BEAN_CACHE_MAX_SIZE = "default-entity-bean-cache-max-size";
 
     String ENABLE_STATISTICS = "enable-statistics";
 
     String MAX_POOL_SIZE = "max-pool-size";
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
+    String STRIPED = "striped";
 
     String MAX_THREADS = "max-threads";
     String KEEPALIVE_TIME = "keepalive-time";
 
     String RELATIVE_TO = "relative-to";
     String PATH = "path";
+    String DATA_STORE_TYPE = "data-store-type";
 
     String DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT = "default-singleton-bean-access-timeout";
     String DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT = "default-stateful-bean-access-timeout";
@@ -85,6 +88,8 @@ public interface EJB3SubsystemModel {
     String GROUPS_PATH = "groups-path";
     String SESSIONS_PATH = "sessions-path";
     String SUBDIRECTORY_COUNT = "subdirectory-count";
+    String SEGMENTED = "segmented";
+    String COMPRESSED = "compressed";
 
     String CLUSTER_PASSIVATION_STORE = "cluster-passivation-store";
     String BEAN_CACHE = "bean-cache";
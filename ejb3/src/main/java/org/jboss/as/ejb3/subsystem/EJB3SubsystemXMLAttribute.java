@@ -38,6 +38,7 @@ public enum EJB3SubsystemXMLAttribute {
     CACHE_REF("cache-ref"),
     CLIENT_MAPPINGS_CACHE("client-mappings-cache"),
     CLUSTERED_CACHE_REF("clustered-cache-ref"),
+    COMPRESSED("compressed"),
     CONNECTOR_REF("connector-ref"),
     CORE_THREADS("core-threads"),
 
@@ -70,7 +71,9 @@ public enum EJB3SubsystemXMLAttribute {
     RELATIVE_TO("relative-to"),
     RESOURCE_ADAPTER_NAME("resource-adapter-name"),
 
+    SEGMENTED("segmented"),
     SESSIONS_PATH("sessions-path"),
+    STRIPED("striped"),
     SUBDIRECTORY_COUNT("subdirectory-count"),
 
     THREAD_POOL_NAME("thread-pool-name"),
@@ -62,6 +62,8 @@ public class FilePassivationStoreAdd extends PassivationStoreAdd {
         if (model.hasDefined(EJB3SubsystemModel.SUBDIRECTORY_COUNT)) {
             source.setSubdirectoryCount(model.get(EJB3SubsystemModel.SUBDIRECTORY_COUNT).asInt());
         }
+        source.setSegmented(FilePassivationStoreResourceDefinition.SEGMENTED.resolveModelAttribute(context, model).asBoolean());
+        source.setCompressed(FilePassivationStoreResourceDefinition.COMPRESSED.resolveModelAttribute(context, model).asBoolean());
         return Collections.<ServiceController<?>>singleton(this.installBackingCacheEntryStoreSourceService(service, context, model, verificationHandler));
     }
 }
@@ -56,6 +56,12 @@ public class FilePassivationStoreWriteHandler extends PassivationStoreWriteHandl
         } else if (FilePassivationStoreResourceDefinition.SUBDIRECTORY_COUNT.getName().equals(attributeName)) {
             int count = FilePassivationStoreResourceDefinition.SUBDIRECTORY_COUNT.resolveModelAttribute(context, model).asInt();
             config.setSubdirectoryCount(count);
+        } else if (FilePassivationStoreResourceDefinition.SEGMENTED.getName().equals(attributeName)) {
+            boolean segmented = FilePassivationStoreResourceDefinition.SEGMENTED.resolveModelAttribute(context, model).asBoolean();
+            config.setSegmented(segmented);
+        } else if (FilePassivationStoreResourceDefinition.COMPRESSED.getName().equals(attributeName)) {
+            boolean compressed = FilePassivationStoreResourceDefinition.COMPRESSED.resolveModelAttribute(context, model).asBoolean();
+            config.setCompressed(compressed);
         }
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.subsystem;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The stores the timer service can keep persistent timers in.
+ */
+public enum TimerDataStoreType {
+
+    /**
+     * One file per timer, see {@link org.jboss.as.ejb3.timerservice.persistence.filestore.FileTimerPersistence}
+     */
+    FILE("file"),
+    /**
+     * An append-only journal, see {@link org.jboss.as.ejb3.timerservice.persistence.journal.JournalTimerPersistence}
+     */
+    JOURNAL("journal"),
+    ;
+
+    private final String name;
+
+    TimerDataStoreType(final String name) {
+        this.name = name;
+    }
+
+    private static final Map<String, TimerDataStoreType> MAP;
+
+    static {
+        final Map<String, TimerDataStoreType> map = new HashMap<String, TimerDataStoreType>();
+        for (TimerDataStoreType type : values()) {
+            map.put(type.name, type);
+        }
+        MAP = map;
+    }
+
+    public static TimerDataStoreType forName(final String name) {
+        final TimerDataStoreType type = MAP.get(name);
+        if (type == null) {
+            throw new IllegalArgumentException(name);
+        }
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
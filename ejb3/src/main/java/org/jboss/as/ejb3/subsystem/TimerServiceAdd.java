@@ -23,7 +23,6 @@
 package org.jboss.as.ejb3.subsystem;
 
 import java.util.List;
-import java.util.Timer;
 
 import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
@@ -40,6 +39,8 @@ import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.deployment.processors.annotation.TimerServiceAnnotationProcessor;
 import org.jboss.as.ejb3.deployment.processors.merging.TimerMethodMergingProcessor;
 import org.jboss.as.ejb3.timerservice.persistence.filestore.FileTimerPersistence;
+import org.jboss.as.ejb3.timerservice.persistence.journal.JournalTimerPersistence;
+import org.jboss.as.ejb3.timerservice.wheel.HashedWheelTimer;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.as.server.Services;
@@ -90,6 +91,7 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
         final String path = pathNode.isDefined() ? pathNode.asString() : null;
         final ModelNode relativeToNode = TimerServiceResourceDefinition.RELATIVE_TO.resolveModelAttribute(context, model);
         final String relativeTo = relativeToNode.isDefined() ? relativeToNode.asString() : null;
+        final TimerDataStoreType dataStoreType = TimerDataStoreType.forName(TimerServiceResourceDefinition.DATA_STORE_TYPE.resolveModelAttribute(context, model).asString());
 
         final String threadPoolName = TimerServiceResourceDefinition.THREAD_POOL_NAME.resolveModelAttribute(context, model).asString();
         final ServiceName threadPoolServiceName = EJB3SubsystemModel.BASE_THREAD_POOL_SERVICE_NAME.append(threadPoolName);
@@ -111,7 +113,9 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
         newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimerValueService())
                 .install());
-        final FileTimerPersistence fileTimerPersistence = new FileTimerPersistence(true, path, relativeTo);
+        final FileTimerPersistence fileTimerPersistence = dataStoreType == TimerDataStoreType.JOURNAL
+                ? new JournalTimerPersistence(true, path, relativeTo)
+                : new FileTimerPersistence(true, path, relativeTo);
         newControllers.add(context.getServiceTarget().addService(FileTimerPersistence.SERVICE_NAME, fileTimerPersistence)
                 .addDependency(Services.JBOSS_SERVICE_MODULE_LOADER, ModuleLoader.class, fileTimerPersistence.getModuleLoader())
                 .addDependency(PathManagerService.SERVICE_NAME, PathManager.class, fileTimerPersistence.getPathManager())
@@ -121,23 +125,24 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
     }
 
-    private static final class TimerValueService implements Service<Timer> {
+    private static final class TimerValueService implements Service<HashedWheelTimer> {
 
-        private Timer timer;
+        private HashedWheelTimer timer;
 
         @Override
         public synchronized void start(final StartContext context) throws StartException {
-            timer = new Timer();
+            timer = new HashedWheelTimer();
+            timer.start();
         }
 
         @Override
         public synchronized void stop(final StopContext context) {
-            timer.cancel();
+            timer.stop();
             timer = null;
         }
 
         @Override
-        public synchronized Timer getValue() throws IllegalStateException, IllegalArgumentException {
+        public synchronized HashedWheelTimer getValue() throws IllegalStateException, IllegalArgumentException {
             return timer;
         }
     }
@@ -22,9 +22,18 @@
 
 package org.jboss.as.ejb3.subsystem.deployment;
 
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.ResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.component.entity.EntityBeanComponent;
+import org.jboss.as.ejb3.component.entity.entitycache.EntityCacheStatistics;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 
 /**
  * {@link ResourceDefinition} for a {@link EntityBeanComponent}.
@@ -35,6 +44,22 @@ public class EntityBeanResourceDefinition extends AbstractEJBComponentResourceDe
 
     public static final EntityBeanResourceDefinition INSTANCE = new EntityBeanResourceDefinition();
 
+    private static final AttributeDefinition CACHE_HIT_COUNT = new SimpleAttributeDefinitionBuilder("cache-hit-count", ModelType.LONG, true)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition CACHE_MISS_COUNT = new SimpleAttributeDefinitionBuilder("cache-miss-count", ModelType.LONG, true)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition CACHE_EVICTION_COUNT = new SimpleAttributeDefinitionBuilder("cache-eviction-count", ModelType.LONG, true)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition CACHE_SIZE = new SimpleAttributeDefinitionBuilder("cache-size", ModelType.INT, true)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     private EntityBeanResourceDefinition() {
         super(EJBComponentType.ENTITY);
     }
@@ -42,6 +67,47 @@ public class EntityBeanResourceDefinition extends AbstractEJBComponentResourceDe
     @Override
     public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
         super.registerAttributes(resourceRegistration);
-        // TODO expose anything for the cache?
+        // the statistics are undefined for caches which don't keep any, e.g. with optimistic locking
+        resourceRegistration.registerMetric(CACHE_HIT_COUNT, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                final EntityCacheStatistics statistics = getCacheStatistics(component);
+                if (statistics != null) {
+                    context.getResult().set(statistics.getHitCount());
+                }
+            }
+        });
+        resourceRegistration.registerMetric(CACHE_MISS_COUNT, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                final EntityCacheStatistics statistics = getCacheStatistics(component);
+                if (statistics != null) {
+                    context.getResult().set(statistics.getMissCount());
+                }
+            }
+        });
+        resourceRegistration.registerMetric(CACHE_EVICTION_COUNT, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                final EntityCacheStatistics statistics = getCacheStatistics(component);
+                if (statistics != null) {
+                    context.getResult().set(statistics.getEvictionCount());
+                }
+            }
+        });
+        resourceRegistration.registerMetric(CACHE_SIZE, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                final EntityCacheStatistics statistics = getCacheStatistics(component);
+                if (statistics != null) {
+                    context.getResult().set(statistics.getCacheSize());
+                }
+            }
+        });
+    }
+
+    private static EntityCacheStatistics getCacheStatistics(final EJBComponent component) {
+        final Object cache = ((EntityBeanComponent) component).getCache();
+        return cache instanceof EntityCacheStatistics ? (EntityCacheStatistics) cache : null;
     }
 }
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.subsystem.deployment;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NILLABLE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE_TYPE;
+import static org.jboss.as.ejb3.EjbMessages.MESSAGES;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jboss.as.controller.ListAttributeDefinition;
+import org.jboss.as.controller.descriptions.ResourceDescriptionResolver;
+import org.jboss.as.controller.operations.validation.ModelTypeValidator;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.ee.component.ComponentView;
+import org.jboss.as.ejb3.component.EJBComponent;
+import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+
+/**
+ * Attribute definition for the interceptors which the invocations of each view method of an EJB go through, once the
+ * interceptor chain of the method has been optimized.
+ */
+public class InterceptorChainAttributeDefinition extends ListAttributeDefinition {
+
+    public static final InterceptorChainAttributeDefinition INSTANCE = new InterceptorChainAttributeDefinition();
+
+    public static final String VIEW = "view";
+    public static final String METHOD = "method";
+    public static final String INTERCEPTORS = "interceptors";
+
+    private InterceptorChainAttributeDefinition() {
+        super("interceptor-chains", false, new ModelTypeValidator(ModelType.OBJECT), AttributeAccess.Flag.STORAGE_RUNTIME);
+    }
+
+    @Override
+    protected void addValueTypeDescription(ModelNode node, ResourceBundle bundle) {
+        throw MESSAGES.resourceBundleDescriptionsNotSupported(getName());
+    }
+
+    @Override
+    protected void addAttributeValueTypeDescription(ModelNode node, ResourceDescriptionResolver resolver, Locale locale, ResourceBundle bundle) {
+        addValueTypeDescription(node, resolver, locale, bundle);
+    }
+
+    @Override
+    protected void addOperationParameterValueTypeDescription(ModelNode node, String operationName, ResourceDescriptionResolver resolver, Locale locale, ResourceBundle bundle) {
+        addValueTypeDescription(node, resolver, locale, bundle);
+    }
+
+    @Override
+    public void marshallAsElement(ModelNode resourceModel, final boolean marshalDefault, XMLStreamWriter writer) throws XMLStreamException {
+        throw MESSAGES.runtimeAttributeNotMarshallable(getName());
+    }
+
+    private void addValueTypeDescription(ModelNode node, ResourceDescriptionResolver resolver, Locale locale, ResourceBundle bundle) {
+        final ModelNode valueTypeNode = node.get(VALUE_TYPE);
+        addAttributeDescription(resolver, locale, bundle, valueTypeNode, ModelType.STRING, VIEW);
+        addAttributeDescription(resolver, locale, bundle, valueTypeNode, ModelType.STRING, METHOD);
+        addAttributeDescription(resolver, locale, bundle, valueTypeNode, ModelType.LIST, INTERCEPTORS).get(VALUE_TYPE).set(ModelType.STRING);
+    }
+
+    private ModelNode addAttributeDescription(final ResourceDescriptionResolver resolver, final Locale locale, final ResourceBundle bundle,
+                                              final ModelNode node, final ModelType type, final String... suffixes) {
+        final ModelNode valNode = node.get(suffixes[suffixes.length -1]);
+        valNode.get(DESCRIPTION).set(resolver.getResourceAttributeValueTypeDescription(getName(), locale, bundle, suffixes));
+        valNode.get(TYPE).set(type);
+        valNode.get(NILLABLE).set(false);
+        return valNode;
+    }
+
+    public static void addInterceptorChains(final EJBComponent ejb, final ModelNode response) {
+        response.setEmptyList();
+        for (Map.Entry<String, ComponentView> entry : ejb.getStartedViews().entrySet()) {
+            final ComponentView view = entry.getValue();
+            for (Method method : view.getViewMethods()) {
+                final List<String> chain = view.getInterceptorChain(method);
+                if (chain == null) {
+                    continue;
+                }
+                final ModelNode chainNode = response.add();
+                chainNode.get(VIEW).set(entry.getKey());
+                chainNode.get(METHOD).set(InvocationMetrics.signatureOf(method));
+                final ModelNode interceptorsNode = chainNode.get(INTERCEPTORS).setEmptyList();
+                for (String interceptor : chain) {
+                    interceptorsNode.add(interceptor);
+                }
+            }
+        }
+    }
+}
@@ -31,7 +31,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,6 +38,9 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 import javax.ejb.EJBException;
@@ -113,7 +115,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private final InjectedValue<ExecutorService> executorServiceInjectedValue = new InjectedValue<ExecutorService>();
 
-    private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<HashedWheelTimer> timerInjectedValue = new InjectedValue<HashedWheelTimer>();
 
     private final InjectedValue<TimedObjectInvoker> timedObjectInvoker = new InjectedValue<TimedObjectInvoker>();
 
@@ -130,22 +132,27 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     /**
      * All non-persistent timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> persistentTimers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final Map<String, TimerImpl> persistentTimers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
      * All non-persistent timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> nonPersistentTimers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final Map<String, TimerImpl> nonPersistentTimers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
      * persistent timers that have been created in the current transaction
      */
-    private final Map<String, TimerImpl> persistentWaitingOnTxCompletionTimers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final Map<String, TimerImpl> persistentWaitingOnTxCompletionTimers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
-     * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
+     * Holds the {@link HashedWheelTimer.Timeout} of each of the timer tasks that have been scheduled
      */
-    private final Map<String, java.util.TimerTask> scheduledTimerFutures = new HashMap<String, java.util.TimerTask>();
+    private final ConcurrentMap<String, HashedWheelTimer.Timeout> scheduledTimerFutures = new ConcurrentHashMap<String, HashedWheelTimer.Timeout>();
+
+    /**
+     * Hands the expired timer tasks over to the timer service thread pool
+     */
+    private final Executor timeoutExecutor = new TimeoutExecutor();
 
     private TransactionManager transactionManager;
 
@@ -800,56 +807,58 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * Creates and schedules a {@link TimerTask} for the next timeout of the passed <code>timer</code>
      */
     protected void scheduleTimeout(TimerImpl timer, boolean newTimer) {
-        synchronized (scheduledTimerFutures) {
-            if(!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
-                //this timer has been cancelled by another thread. We just return
-                return;
-            }
-
-            Date nextExpiration = timer.getNextExpiration();
-            if (nextExpiration == null) {
-                ROOT_LOGGER.nextExpirationIsNull(timer);
-                return;
-            }
-            // create the timer task
-            final Runnable timerTask = timer.getTimerTask();
-            // find out how long is it away from now
-            long delay = nextExpiration.getTime() - System.currentTimeMillis();
-            // if in past, then trigger immediately
-            if (delay < 0) {
-                delay = 0;
-            }
-            long intervalDuration = timer.getInterval();
-            final Task task = new Task(timerTask);
-            if (intervalDuration > 0) {
-                ROOT_LOGGER.debug("Scheduling timer " + timer + " at fixed rate, starting at " + delay
-                        + " milli seconds from now with repeated interval=" + intervalDuration);
-                // schedule the task
-                this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
-            } else {
-                ROOT_LOGGER.debug("Scheduling a single action timer " + timer + " starting at " + delay + " milli seconds from now");
-                // schedule the task
-                this.timerInjectedValue.getValue().schedule(task, delay);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
+        final HashedWheelTimer.Timeout previous = scheduledTimerFutures.get(timer.getId());
+        if (!newTimer && previous == null) {
+            //this timer has been cancelled by another thread. We just return
+            return;
+        }
 
+        Date nextExpiration = timer.getNextExpiration();
+        if (nextExpiration == null) {
+            ROOT_LOGGER.nextExpirationIsNull(timer);
+            return;
+        }
+        // create the timer task
+        final Runnable timerTask = timer.getTimerTask();
+        // find out how long is it away from now
+        long delay = nextExpiration.getTime() - System.currentTimeMillis();
+        // if in past, then trigger immediately
+        if (delay < 0) {
+            delay = 0;
+        }
+        long intervalDuration = timer.getInterval();
+        final HashedWheelTimer.Timeout timeout;
+        if (intervalDuration > 0) {
+            ROOT_LOGGER.debug("Scheduling timer " + timer + " at fixed rate, starting at " + delay
+                    + " milli seconds from now with repeated interval=" + intervalDuration);
+            // schedule the task
+            timeout = this.timerInjectedValue.getValue().schedule(timeoutExecutor, timerTask, delay, intervalDuration);
+        } else {
+            ROOT_LOGGER.debug("Scheduling a single action timer " + timer + " starting at " + delay + " milli seconds from now");
+            // schedule the task
+            timeout = this.timerInjectedValue.getValue().schedule(timeoutExecutor, timerTask, delay);
+        }
+        // maintain it in timerservice for future use (like cancellation)
+        if (newTimer) {
+            final HashedWheelTimer.Timeout replaced = this.scheduledTimerFutures.put(timer.getId(), timeout);
+            if (replaced != null) {
+                replaced.cancel();
             }
+        } else if (!this.scheduledTimerFutures.replace(timer.getId(), previous, timeout)) {
+            // the timer was cancelled or rescheduled while we were scheduling its next timeout
+            timeout.cancel();
         }
     }
 
     /**
-     * Cancels any scheduled {@link java.util.concurrent.Future} corresponding to the passed <code>timer</code>
+     * Cancels any scheduled {@link HashedWheelTimer.Timeout} corresponding to the passed <code>timer</code>
      *
      * @param timer
      */
     protected void cancelTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            java.util.TimerTask timerTask = this.scheduledTimerFutures.remove(timer.getId());
-            if (timerTask != null) {
-                timerTask.cancel();
-            }
+        final HashedWheelTimer.Timeout timeout = this.scheduledTimerFutures.remove(timer.getId());
+        if (timeout != null) {
+            timeout.cancel();
         }
     }
 
@@ -1053,7 +1062,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return executorServiceInjectedValue;
     }
 
-    public InjectedValue<java.util.Timer> getTimerInjectedValue() {
+    public InjectedValue<HashedWheelTimer> getTimerInjectedValue() {
         return timerInjectedValue;
     }
 
@@ -1096,9 +1105,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         @Override
         public void afterCompletion(int status) {
             if (this.timer.persistent) {
-                synchronized (TimerServiceImpl.this.persistentWaitingOnTxCompletionTimers) {
-                    TimerServiceImpl.this.persistentWaitingOnTxCompletionTimers.remove(this.timer.getId());
-                }
+                TimerServiceImpl.this.persistentWaitingOnTxCompletionTimers.remove(this.timer.getId());
             }
             if (status == Status.STATUS_COMMITTED) {
                 ROOT_LOGGER.debug("commit timer creation: " + this.timer);
@@ -1152,19 +1159,13 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         }
     }
 
-    private class Task extends java.util.TimerTask {
-
-        private final Runnable delegate;
-
-        public Task(final Runnable delegate) {
-            this.delegate = delegate;
-        }
+    private class TimeoutExecutor implements Executor {
 
         @Override
-        public void run() {
+        public void execute(final Runnable command) {
             final ExecutorService executor = executorServiceInjectedValue.getOptionalValue();
             if (executor != null) {
-                executor.submit(delegate);
+                executor.submit(command);
             }
         }
     }
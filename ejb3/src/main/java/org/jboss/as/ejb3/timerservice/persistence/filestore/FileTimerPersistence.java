@@ -158,6 +158,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     private void persistTimer(final TimerEntity timerEntity, boolean newTimer) {
         final Lock lock = getLock(timerEntity.getTimedObjectId());
+        boolean written = false;
         try {
             final int status = transactionManager.getValue().getStatus();
             if (status == Status.STATUS_MARKED_ROLLBACK || status == Status.STATUS_ROLLEDBACK ||
@@ -192,11 +193,16 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
                 //update the most recent version of the timer to be persisted
                 transactionSynchronizationRegistry.getValue().putResource(key, timerEntity);
             }
+            written = true;
         } catch (SystemException e) {
             throw new RuntimeException(e);
         } finally {
             lock.unlock();
+            if (!written) {
+                discardWrites();
+            }
         }
+        awaitWrites();
     }
 
     private String timerTransactionKey(final TimerEntity timerEntity) {
@@ -312,7 +318,13 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         return map;
     }
 
-    private Map<String, TimerEntity> loadTimersFromFile(final String timedObjectId) {
+    /**
+     * Loads the timers of the given timed object from the persistent store. Called under lock.
+     *
+     * @param timedObjectId The timed object id
+     * @return The timers of the object
+     */
+    protected Map<String, TimerEntity> loadTimersFromFile(final String timedObjectId) {
         final Map<String, TimerEntity> timers = new HashMap<String, TimerEntity>();
         try {
             final File file = new File(getDirectory(timedObjectId));
@@ -377,7 +389,12 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
     }
 
 
-    private void writeFile(TimerEntity entity) {
+    /**
+     * Writes the given timer to the persistent store, or removes it if it is cancelled or expired. Called under lock.
+     *
+     * @param entity The timer
+     */
+    protected void writeFile(TimerEntity entity) {
         final File file = fileName(entity.getTimedObjectId(), entity.getId());
 
         //if the timer is expired or cancelled delete the file
@@ -413,6 +430,22 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         }
     }
 
+    /**
+     * Waits until the timers the current thread passed to {@link #writeFile(TimerEntity)} are durable. Called once the
+     * lock is released, so that a store which syncs its writes asynchronously can sync the writes of concurrent
+     * updates to the timers of the same timed object together. The file store syncs every file before
+     * {@link #writeFile(TimerEntity)} returns, so there is nothing to wait for.
+     */
+    protected void awaitWrites() {
+    }
+
+    /**
+     * Forgets the writes the current thread queued with {@link #writeFile(TimerEntity)}, without waiting for them.
+     * Called instead of {@link #awaitWrites()} when persisting the timers failed.
+     */
+    protected void discardWrites() {
+    }
+
     private final class PersistTransactionSynchronization implements Synchronization {
 
         private final String transactionKey;
@@ -440,6 +473,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             if (timer == null) {
                 return;
             }
+            boolean written = false;
             try {
                 lock.lock();
                 if (status == Status.STATUS_COMMITTED) {
@@ -455,14 +489,31 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
                     }
                     writeFile(timer);
                 }
+                written = true;
             } finally {
                 lock.unlock();
+                if (!written) {
+                    discardWrites();
+                }
             }
+            awaitWrites();
         }
 
 
     }
 
+    protected File getBaseDir() {
+        return baseDir;
+    }
+
+    protected MarshallerFactory getMarshallerFactory() {
+        return factory;
+    }
+
+    protected MarshallingConfiguration getMarshallingConfiguration() {
+        return configuration;
+    }
+
     public InjectedValue<TransactionManager> getTransactionManager() {
         return transactionManager;
     }
@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.journal;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+import static org.jboss.as.ejb3.EjbMessages.MESSAGES;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimerEntity;
+import org.jboss.as.ejb3.timerservice.persistence.filestore.FileTimerPersistence;
+import org.jboss.marshalling.InputStreamByteInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * Persistent timer store backed by a {@link TimerJournal}.
+ * <p/>
+ * Unlike the {@link FileTimerPersistence}, which writes and syncs one file per timer, every change is appended to a
+ * single journal, and changes made concurrently by different timers are synced together. A change is queued for the
+ * journal while the lock of its timed object is held, but only waited for once the lock is released, so that the
+ * timers of the same timed object can share a sync too. The transaction handling and the in memory view of the timers
+ * are inherited from the {@link FileTimerPersistence}.
+ * <p/>
+ * Timers of a timed object which are still held in the file store, because the file store was in use before, are
+ * moved into the journal the first time the timed object is deployed.
+ */
+public class JournalTimerPersistence extends FileTimerPersistence {
+
+    private static final String JOURNAL_DIRECTORY = "journal";
+
+    /**
+     * map of timed object id : timer id : serialized timer, the live content of the journal
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, byte[]>> entries = new ConcurrentHashMap<String, ConcurrentMap<String, byte[]>>();
+    /**
+     * The writes queued by the current thread which have not been waited for yet
+     */
+    private final ThreadLocal<List<TimerJournal.Write>> pendingWrites = new ThreadLocal<List<TimerJournal.Write>>();
+    private TimerJournal journal;
+
+    public JournalTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
+        super(createIfNotExists, path, pathRelativeTo);
+    }
+
+    @Override
+    public synchronized void start(final StartContext context) {
+        super.start(context);
+        final File directory = new File(getBaseDir(), JOURNAL_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw MESSAGES.failToCreateTimerFileStoreDir(directory);
+        }
+        journal = new TimerJournal(directory);
+        try {
+            for (Map.Entry<String, Map<String, byte[]>> entry : journal.open().entrySet()) {
+                entries.put(entry.getKey(), new ConcurrentHashMap<String, byte[]>(entry.getValue()));
+            }
+        } catch (IOException e) {
+            throw MESSAGES.failToOpenTimerJournal(directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void stop(final StopContext context) {
+        journal.close();
+        journal = null;
+        entries.clear();
+        super.stop(context);
+    }
+
+    @Override
+    protected Map<String, TimerEntity> loadTimersFromFile(final String timedObjectId) {
+        final Map<String, byte[]> serialized = entries.get(timedObjectId);
+        if (serialized == null) {
+            return importTimers(timedObjectId);
+        }
+        final Map<String, TimerEntity> timers = new HashMap<String, TimerEntity>();
+        try {
+            final Unmarshaller unmarshaller = getMarshallerFactory().createUnmarshaller(getMarshallingConfiguration());
+            for (Map.Entry<String, byte[]> entry : serialized.entrySet()) {
+                try {
+                    unmarshaller.start(new InputStreamByteInput(new ByteArrayInputStream(entry.getValue())));
+                    final TimerEntity entity = unmarshaller.readObject(TimerEntity.class);
+                    timers.put(entity.getId(), entity);
+                    unmarshaller.finish();
+                } catch (Exception e) {
+                    ROOT_LOGGER.failToRestoreTimerFromJournal(entry.getKey(), timedObjectId, e);
+                }
+            }
+        } catch (Exception e) {
+            ROOT_LOGGER.failToRestoreTimersForObjectId(timedObjectId, e);
+        }
+        return timers;
+    }
+
+    @Override
+    protected void writeFile(final TimerEntity entity) {
+        final String timedObjectId = entity.getTimedObjectId();
+        if (entity.getTimerState() == TimerState.CANCELED ||
+                entity.getTimerState() == TimerState.EXPIRED) {
+            final Map<String, byte[]> timers = entries.get(timedObjectId);
+            if (timers != null && timers.containsKey(entity.getId())) {
+                write(timedObjectId, entity.getId(), null);
+                timers.remove(entity.getId());
+            }
+            return;
+        }
+        final byte[] data;
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final Marshaller marshaller = getMarshallerFactory().createMarshaller(getMarshallingConfiguration());
+            marshaller.start(new OutputStreamByteOutput(out));
+            marshaller.writeObject(entity);
+            marshaller.finish();
+            data = out.toByteArray();
+        } catch (IOException e) {
+            throw MESSAGES.failToWriteTimerJournal(entity.getId(), e);
+        }
+        write(timedObjectId, entity.getId(), data);
+        getEntries(timedObjectId).put(entity.getId(), data);
+    }
+
+    private void write(final String timedObjectId, final String timerId, final byte[] data) {
+        final TimerJournal.Write write;
+        try {
+            write = journal.append(timedObjectId, timerId, data);
+        } catch (IOException e) {
+            throw MESSAGES.failToWriteTimerJournal(timerId, e);
+        }
+        List<TimerJournal.Write> pending = pendingWrites.get();
+        if (pending == null) {
+            pendingWrites.set(pending = new ArrayList<TimerJournal.Write>());
+        }
+        pending.add(write);
+    }
+
+    @Override
+    protected void awaitWrites() {
+        final List<TimerJournal.Write> pending = pendingWrites.get();
+        if (pending == null) {
+            return;
+        }
+        pendingWrites.remove();
+        for (TimerJournal.Write write : pending) {
+            try {
+                write.await();
+            } catch (IOException e) {
+                throw MESSAGES.failToWriteTimerJournal(write.getTimerId(), e);
+            }
+        }
+    }
+
+    @Override
+    protected void discardWrites() {
+        pendingWrites.remove();
+    }
+
+    private ConcurrentMap<String, byte[]> getEntries(final String timedObjectId) {
+        ConcurrentMap<String, byte[]> map = entries.get(timedObjectId);
+        if (map == null) {
+            final ConcurrentMap<String, byte[]> newMap = new ConcurrentHashMap<String, byte[]>();
+            map = entries.putIfAbsent(timedObjectId, newMap);
+            if (map == null) {
+                map = newMap;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Moves the timers the file store holds for the given timed object into the journal.
+     */
+    private Map<String, TimerEntity> importTimers(final String timedObjectId) {
+        final File directory = new File(getBaseDir(), timedObjectId.replace(File.separator, "-"));
+        final File[] files = directory.listFiles();
+        if (files == null || files.length == 0) {
+            return new HashMap<String, TimerEntity>();
+        }
+        final Map<String, TimerEntity> timers = super.loadTimersFromFile(timedObjectId);
+        boolean written = false;
+        try {
+            for (TimerEntity timer : timers.values()) {
+                writeFile(timer);
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                discardWrites();
+            }
+        }
+        // only delete the files once the timers are in the journal
+        awaitWrites();
+        for (File file : files) {
+            file.delete();
+        }
+        directory.delete();
+        ROOT_LOGGER.timersImportedIntoJournal(timers.size(), timedObjectId);
+        return timers;
+    }
+}
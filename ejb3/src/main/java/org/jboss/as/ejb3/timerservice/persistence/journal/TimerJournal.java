@@ -0,0 +1,611 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.journal;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A segmented, append-only log of timer records.
+ * <p/>
+ * Every change of a timer is appended to the current segment as a single record. Writes are handed to a single writer
+ * thread which appends all the records queued at that point with one write and one <code>fsync</code>, so concurrent
+ * timers share the cost of syncing the file (group commit). Once a segment reaches its maximum size a new one is
+ * started, and once enough segments have been sealed they are compacted by a background thread into a snapshot
+ * containing only the live records, which replaces them.
+ * <p/>
+ * Segments are named <code>timers-&lt;sequence&gt;.journal</code> and snapshots <code>timers-&lt;sequence&gt;.snapshot</code>,
+ * where a snapshot supersedes all the segments up to and including its sequence number. Recovery loads the most
+ * recent snapshot and replays the segments written after it, in a single sequential pass.
+ * <p/>
+ * Each record is written as <code>length, crc32, type, timedObjectId, timerId [, data length, data]</code>. A record
+ * which is truncated or does not match its checksum ends the replay of its segment, this only happens if the server
+ * crashed while the record was written, in which case the write was never acknowledged. A batch which fails to be
+ * written or synced is cut off the segment again before its writes fail, so that it does not hide the records
+ * acknowledged after it.
+ * <p/>
+ * The journal only deals with the serialized form of the timers, so it can be replayed before the deployments the
+ * timers belong to are available.
+ */
+class TimerJournal {
+
+    static final long DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    static final int DEFAULT_COMPACTION_THRESHOLD = 4;
+
+    private static final String PREFIX = "timers-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * The maximum number of records that are written with a single sync
+     */
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final File directory;
+    private final long segmentSize;
+    private final int compactionThreshold;
+
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<Write>();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Write shutdown = new Write(null, new byte[0]);
+    /**
+     * Writes are queued under the read lock and the journal is closed under the write lock, so that no write can be
+     * queued after the shutdown marker
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private volatile boolean open;
+    private Thread writerThread;
+    private Thread compactorThread;
+
+    // only accessed by the writer thread once the journal is open
+    private FileChannel channel;
+    private long sequence;
+    /**
+     * The sequence number of the most recent snapshot, or -1 if there is none
+     */
+    private volatile long snapshotSequence = -1;
+
+    TimerJournal(final File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    TimerJournal(final File directory, final long segmentSize, final int compactionThreshold) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Recovers the journal and opens a new segment for writing.
+     *
+     * @return the serialized live timers, as a map of timed object id : timer id : timer
+     * @throws IOException if the journal could not be read or a new segment could not be created
+     */
+    synchronized Map<String, Map<String, byte[]>> open() throws IOException {
+        final Map<String, Map<String, byte[]>> timers = new HashMap<String, Map<String, byte[]>>();
+        final List<Segment> segments = listSegments();
+        long lastSequence = -1;
+        for (Segment segment : segments) {
+            if (segment.snapshot) {
+                snapshotSequence = segment.sequence;
+            }
+            lastSequence = Math.max(lastSequence, segment.sequence);
+        }
+        for (Segment segment : segments) {
+            if (isLive(segment)) {
+                replay(segment.file, timers);
+            } else {
+                // superseded by the snapshot, a previous compaction did not get to delete it
+                delete(segment.file);
+            }
+        }
+        sequence = lastSequence + 1;
+        channel = openSegment(sequence);
+        open = true;
+
+        writerThread = new Thread(new Writer(), "EJB timer journal writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        return timers;
+    }
+
+    synchronized void close() {
+        stateLock.writeLock().lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            queue.add(shutdown);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        join(writerThread);
+        // the compactor is only ever started by the writer thread
+        join(compactorThread);
+        writerThread = null;
+        compactorThread = null;
+    }
+
+    private static void join(final Thread thread) {
+        boolean interrupted = false;
+        while (thread != null && thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends a timer to the journal, and waits until it has been synced to disk.
+     *
+     * @param timedObjectId the timed object id
+     * @param timerId       the timer id
+     * @param data          the serialized timer, or null if the timer has been removed
+     * @throws IOException if the record could not be written
+     */
+    void write(final String timedObjectId, final String timerId, final byte[] data) throws IOException {
+        append(timedObjectId, timerId, data).await();
+    }
+
+    /**
+     * Queues a timer for appending to the journal, without waiting for it to be synced.
+     *
+     * @param timedObjectId the timed object id
+     * @param timerId       the timer id
+     * @param data          the serialized timer, or null if the timer has been removed
+     * @return the write, to {@link Write#await() wait} for
+     * @throws IOException if the record could not be created
+     */
+    Write append(final String timedObjectId, final String timerId, final byte[] data) throws IOException {
+        final Write write = new Write(timerId, record(data == null ? REMOVE : PUT, timedObjectId, timerId, data));
+        stateLock.readLock().lock();
+        try {
+            if (!open) {
+                throw new IllegalStateException("Timer journal " + directory + " is closed");
+            }
+            queue.add(write);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return write;
+    }
+
+    private static byte[] record(final byte type, final String timedObjectId, final String timerId, final byte[] data) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (data == null ? 0 : data.length));
+        final DataOutputStream out = new DataOutputStream(bytes);
+        // placeholders for the length and the checksum
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(type);
+        out.writeUTF(timedObjectId);
+        out.writeUTF(timerId);
+        if (data != null) {
+            out.writeInt(data.length);
+            out.write(data);
+        }
+        out.close();
+        final byte[] record = bytes.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(record, 8, record.length - 8);
+        final ByteBuffer header = ByteBuffer.wrap(record);
+        header.putInt(record.length - 8);
+        header.putInt((int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Replays the records of the given file into the given map.
+     */
+    private static void replay(final File file, final Map<String, Map<String, byte[]>> timers) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            long offset = 0;
+            final CRC32 crc = new CRC32();
+            for (;;) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                final byte[] body;
+                final int checksum;
+                try {
+                    checksum = in.readInt();
+                    if (length <= 0) {
+                        throw new EOFException();
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    ROOT_LOGGER.timerJournalTruncated(file, offset);
+                    return;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    ROOT_LOGGER.timerJournalTruncated(file, offset);
+                    return;
+                }
+                apply(body, timers);
+                offset += 8 + length;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void apply(final byte[] body, final Map<String, Map<String, byte[]>> timers) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        final byte type = in.readByte();
+        final String timedObjectId = in.readUTF();
+        final String timerId = in.readUTF();
+        if (type == PUT) {
+            final byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            Map<String, byte[]> map = timers.get(timedObjectId);
+            if (map == null) {
+                timers.put(timedObjectId, map = new HashMap<String, byte[]>());
+            }
+            map.put(timerId, data);
+        } else {
+            final Map<String, byte[]> map = timers.get(timedObjectId);
+            if (map != null) {
+                map.remove(timerId);
+                if (map.isEmpty()) {
+                    timers.remove(timedObjectId);
+                }
+            }
+        }
+    }
+
+    private List<Segment> listSegments() {
+        final List<Segment> segments = new ArrayList<Segment>();
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return segments;
+        }
+        for (File file : files) {
+            final String name = file.getName();
+            if (!name.startsWith(PREFIX)) {
+                continue;
+            }
+            if (name.endsWith(TMP_SUFFIX)) {
+                // an interrupted compaction
+                delete(file);
+                continue;
+            }
+            final boolean snapshot = name.endsWith(SNAPSHOT_SUFFIX);
+            if (!snapshot && !name.endsWith(JOURNAL_SUFFIX)) {
+                continue;
+            }
+            final String number = name.substring(PREFIX.length(), name.length() - (snapshot ? SNAPSHOT_SUFFIX : JOURNAL_SUFFIX).length());
+            try {
+                segments.add(new Segment(file, Long.parseLong(number), snapshot));
+            } catch (NumberFormatException e) {
+                // not one of ours
+            }
+        }
+        Collections.sort(segments, SEGMENT_ORDER);
+        return segments;
+    }
+
+    /**
+     * @return false if the segment has been superseded by the current snapshot
+     */
+    private boolean isLive(final Segment segment) {
+        return segment.sequence > snapshotSequence || (segment.sequence == snapshotSequence && segment.snapshot);
+    }
+
+    private FileChannel openSegment(final long sequence) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(new File(directory, PREFIX + sequence + JOURNAL_SUFFIX), "rw");
+        final FileChannel channel = file.getChannel();
+        channel.position(channel.size());
+        return channel;
+    }
+
+    /**
+     * Replaces the snapshot and segments up to and including the given sequence with a new snapshot.
+     */
+    private void compact(final long upTo) throws IOException {
+        final Map<String, Map<String, byte[]>> timers = new HashMap<String, Map<String, byte[]>>();
+        final List<Segment> compacted = new ArrayList<Segment>();
+        for (Segment segment : listSegments()) {
+            if (segment.sequence <= upTo && isLive(segment)) {
+                replay(segment.file, timers);
+                compacted.add(segment);
+            }
+        }
+        final File tmp = new File(directory, PREFIX + upTo + SNAPSHOT_SUFFIX + TMP_SUFFIX);
+        final RandomAccessFile file = new RandomAccessFile(tmp, "rw");
+        try {
+            final FileChannel out = file.getChannel();
+            out.truncate(0);
+            for (Map.Entry<String, Map<String, byte[]>> object : timers.entrySet()) {
+                for (Map.Entry<String, byte[]> timer : object.getValue().entrySet()) {
+                    final ByteBuffer record = ByteBuffer.wrap(record(PUT, object.getKey(), timer.getKey(), timer.getValue()));
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+            }
+            out.force(true);
+        } finally {
+            file.close();
+        }
+        if (!tmp.renameTo(new File(directory, PREFIX + upTo + SNAPSHOT_SUFFIX))) {
+            throw new IOException("Could not rename " + tmp);
+        }
+        // the segments must not be deleted before the rename is durable
+        syncDirectory();
+        snapshotSequence = upTo;
+        for (Segment segment : compacted) {
+            delete(segment.file);
+        }
+    }
+
+    private void startCompaction(final long upTo) {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compact(upTo);
+                } catch (IOException e) {
+                    ROOT_LOGGER.timerJournalCompactionFailed(directory, e);
+                } finally {
+                    compacting.set(false);
+                }
+            }
+        }, "EJB timer journal compactor");
+        thread.setDaemon(true);
+        compactorThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Syncs the journal directory, so that the files renamed in it survive a crash. A directory can only be opened
+     * through the Java 7 {@code java.nio.file} API, which is accessed reflectively. Nothing is synced on an older JVM,
+     * or on a platform which does not allow opening a directory.
+     */
+    private void syncDirectory() throws IOException {
+        final FileChannel channel;
+        try {
+            final Class<?> pathClass = Class.forName("java.nio.file.Path");
+            final Class<?> optionClass = Class.forName("java.nio.file.OpenOption");
+            final Object path = File.class.getMethod("toPath").invoke(directory);
+            final Object options = Array.newInstance(optionClass, 1);
+            Array.set(options, 0, Class.forName("java.nio.file.StandardOpenOption").getField("READ").get(null));
+            channel = (FileChannel) FileChannel.class.getMethod("open", pathClass, options.getClass()).invoke(null, path, options);
+        } catch (Exception e) {
+            ROOT_LOGGER.debugf(e, "Could not open timer journal directory %s to sync it", directory);
+            return;
+        }
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete() && file.exists()) {
+            ROOT_LOGGER.debugf("Could not delete timer journal file %s", file);
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        @Override
+        public void run() {
+            final List<Write> batch = new ArrayList<Write>();
+            boolean running = true;
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                IOException failure = null;
+                long start = -1;
+                try {
+                    final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(batch.size());
+                    for (Write write : batch) {
+                        if (write == shutdown) {
+                            running = false;
+                        } else {
+                            buffers.add(ByteBuffer.wrap(write.record));
+                        }
+                    }
+                    if (!buffers.isEmpty()) {
+                        start = channel.position();
+                        final ByteBuffer[] array = buffers.toArray(new ByteBuffer[buffers.size()]);
+                        while (array[array.length - 1].hasRemaining()) {
+                            channel.write(array);
+                        }
+                        channel.force(false);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    if (start >= 0) {
+                        discard(start);
+                    }
+                }
+                for (Write write : batch) {
+                    write.done(failure);
+                }
+                batch.clear();
+                try {
+                    if (!running) {
+                        channel.close();
+                    } else if (channel.position() >= segmentSize) {
+                        roll();
+                    }
+                } catch (IOException e) {
+                    ROOT_LOGGER.timerJournalRollFailed(directory, e);
+                }
+            }
+        }
+
+        /**
+         * Cuts off whatever part of a failed batch made it into the segment, as a torn record would end the replay of
+         * the segment before the records written after it.
+         */
+        private void discard(final long start) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException e) {
+                // continue in a new segment, so the torn record only ends the replay of this one
+                try {
+                    roll();
+                } catch (IOException rollFailure) {
+                    ROOT_LOGGER.timerJournalRollFailed(directory, rollFailure);
+                }
+            }
+        }
+
+        private void roll() throws IOException {
+            // if the new segment can't be created we just keep appending to the current one
+            final FileChannel next = openSegment(sequence + 1);
+            channel.close();
+            channel = next;
+            sequence++;
+            // the segments before the current one are sealed, compact them once there are enough of them
+            if (sequence - 1 - snapshotSequence >= compactionThreshold) {
+                startCompaction(sequence - 1);
+            }
+        }
+    }
+
+    static final class Write {
+        private final String timerId;
+        private final byte[] record;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile IOException failure;
+
+        Write(final String timerId, final byte[] record) {
+            this.timerId = timerId;
+            this.record = record;
+        }
+
+        String getTimerId() {
+            return timerId;
+        }
+
+        void done(final IOException failure) {
+            this.failure = failure;
+            latch.countDown();
+        }
+
+        /**
+         * Waits until the record has been synced to disk.
+         *
+         * @throws IOException if the record could not be written
+         */
+        void await() throws IOException {
+            boolean interrupted = false;
+            try {
+                for (;;) {
+                    try {
+                        latch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final File file;
+        private final long sequence;
+        private final boolean snapshot;
+
+        Segment(final File file, final long sequence, final boolean snapshot) {
+            this.file = file;
+            this.sequence = sequence;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Orders segments by sequence number, a snapshot sorts after the segment it was compacted from.
+     */
+    private static final Comparator<Segment> SEGMENT_ORDER = new Comparator<Segment>() {
+        @Override
+        public int compare(final Segment o1, final Segment o2) {
+            if (o1.sequence != o2.sequence) {
+                return o1.sequence < o2.sequence ? -1 : 1;
+            }
+            return o1.snapshot == o2.snapshot ? 0 : (o1.snapshot ? 1 : -1);
+        }
+    };
+}
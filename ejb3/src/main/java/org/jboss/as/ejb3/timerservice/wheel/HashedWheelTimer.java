@@ -0,0 +1,413 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.wheel;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical hashed timing wheel which is shared by all the EJB timer services of a server.
+ * <p/>
+ * The wheel consists of {@link #LEVELS} levels of 64 buckets each. A bucket of level 0 covers one tick, a bucket of
+ * level n covers 64<sup>n</sup> ticks. A timeout is placed in the lowest level whose range covers its deadline and
+ * is moved down ("cascaded") a level whenever the lower level wraps around, in the same way as the timer wheel of
+ * the Linux kernel. Scheduling and cancelling are O(1) and never block: new and cancelled timeouts are handed to the
+ * single wheel thread through lock-free queues, and the wheel thread is the only one touching the buckets.
+ * <p/>
+ * The wheel thread does not run the timeout tasks itself, it hands them to the {@link Executor} they were scheduled
+ * with, so a slow timeout callback can never delay other timeouts.
+ */
+public class HashedWheelTimer {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    /**
+     * With the default tick of 10ms, 6 levels cover more than two years. Timeouts further away are parked in the
+     * last bucket of the highest level and put back once that bucket is cascaded.
+     */
+    private static final int LEVELS = 6;
+    private static final long MAX_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    public static final long DEFAULT_TICK_DURATION = 10;
+
+    private static final int WORKER_INIT = 0;
+    private static final int WORKER_STARTED = 1;
+    private static final int WORKER_SHUTDOWN = 2;
+
+    private final long tickDuration;
+    private final Bucket[][] wheel;
+    private final Queue<HashedWheelTimeout> newTimeouts = new ConcurrentLinkedQueue<HashedWheelTimeout>();
+    private final Queue<HashedWheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<HashedWheelTimeout>();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+    private final Thread workerThread;
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+
+    /**
+     * The time the wheel was started, in nanos. Tick n ends at startTime + n * tickDuration.
+     */
+    private volatile long startTime;
+    /**
+     * The next tick to process. Only accessed by the worker thread.
+     */
+    private long currentTick;
+
+    public HashedWheelTimer() {
+        this(DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS);
+    }
+
+    public HashedWheelTimer(final long tickDuration, final TimeUnit unit) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[level][i] = new Bucket();
+            }
+        }
+        this.workerThread = new Thread(new Worker(), "EJB timer wheel");
+        this.workerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the wheel thread. Scheduling a timeout starts the wheel as well, so this does not need to be called
+     * explicitly.
+     */
+    public void start() {
+        switch (workerState.get()) {
+            case WORKER_INIT:
+                if (workerState.compareAndSet(WORKER_INIT, WORKER_STARTED)) {
+                    startTime = System.nanoTime();
+                    workerThread.start();
+                }
+                break;
+            case WORKER_STARTED:
+                break;
+            case WORKER_SHUTDOWN:
+                throw new IllegalStateException("Timer wheel has been stopped");
+        }
+    }
+
+    /**
+     * Stops the wheel thread. Timeouts which did not fire yet are discarded.
+     */
+    public void stop() {
+        if (workerState.getAndSet(WORKER_SHUTDOWN) == WORKER_STARTED) {
+            LockSupport.unpark(workerThread);
+            boolean interrupted = false;
+            while (workerThread.isAlive()) {
+                try {
+                    workerThread.join(100);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Schedules a single action timeout.
+     *
+     * @param executor the executor which runs the task
+     * @param task     the task
+     * @param delay    the delay in milliseconds
+     * @return a handle which can be used to cancel the timeout
+     */
+    public Timeout schedule(final Executor executor, final Runnable task, final long delay) {
+        return schedule(executor, task, delay, 0L);
+    }
+
+    /**
+     * Schedules a timeout which repeats at a fixed rate, like {@link java.util.Timer#scheduleAtFixedRate}.
+     *
+     * @param executor the executor which runs the task
+     * @param task     the task
+     * @param delay    the delay of the first execution, in milliseconds
+     * @param period   the period between the start of two executions in milliseconds, or 0 for a single action
+     * @return a handle which can be used to cancel the timeout
+     */
+    public Timeout schedule(final Executor executor, final Runnable task, final long delay, final long period) {
+        if (executor == null || task == null) {
+            throw new IllegalArgumentException("executor and task are required");
+        }
+        start();
+        final long now = System.nanoTime() - startTime;
+        final long deadline = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delay));
+        final HashedWheelTimeout timeout = new HashedWheelTimeout(executor, task, deadline, TimeUnit.MILLISECONDS.toNanos(Math.max(0L, period)));
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts which are scheduled and neither fired (for the last time) nor cancelled
+     */
+    public int getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * A handle to a scheduled timeout.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels the timeout. A task which has already been handed to its executor is not interrupted.
+         *
+         * @return true if the timeout was cancelled, false if it was cancelled before or has already fired
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+    }
+
+    private final class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            while (workerState.get() == WORKER_STARTED) {
+                final long deadline = waitForNextTick();
+                if (deadline < 0) {
+                    break;
+                }
+                processCancelledTimeouts();
+                transferNewTimeouts();
+                // process all the ticks which have passed; there can be more than one if we got delayed
+                while (currentTick * tickDuration <= deadline) {
+                    tick();
+                }
+            }
+        }
+
+        /**
+         * @return the current time relative to the start time, or -1 if the wheel has been stopped
+         */
+        private long waitForNextTick() {
+            final long deadline = (currentTick + 1) * tickDuration;
+            for (;;) {
+                final long now = System.nanoTime() - startTime;
+                final long sleep = deadline - now;
+                if (sleep <= 0) {
+                    return now;
+                }
+                if (workerState.get() != WORKER_STARTED) {
+                    return -1;
+                }
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+
+        private void transferNewTimeouts() {
+            HashedWheelTimeout timeout;
+            while ((timeout = newTimeouts.poll()) != null) {
+                if (timeout.state.get() == HashedWheelTimeout.ST_INIT) {
+                    timeout.deadlineTick = (timeout.deadline + tickDuration - 1) / tickDuration;
+                    add(timeout);
+                }
+            }
+        }
+
+        private void processCancelledTimeouts() {
+            HashedWheelTimeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+
+        private void add(final HashedWheelTimeout timeout) {
+            final long expires = timeout.deadlineTick;
+            long ticks = expires - currentTick;
+            if (ticks < 0) {
+                // already due, fire on the tick we are about to process
+                wheel[0][(int) (currentTick & WHEEL_MASK)].add(timeout);
+                return;
+            }
+            // beyond the range of the wheel, park it as far away as possible and re-add it when it gets cascaded
+            final long placement = ticks > MAX_TICKS ? currentTick + MAX_TICKS : expires;
+            if (ticks > MAX_TICKS) {
+                ticks = MAX_TICKS;
+            }
+            int level = 0;
+            while (level < LEVELS - 1 && ticks >= 1L << (WHEEL_BITS * (level + 1))) {
+                level++;
+            }
+            wheel[level][(int) ((placement >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timeout);
+        }
+
+        private void tick() {
+            final int index = (int) (currentTick & WHEEL_MASK);
+            if (index == 0) {
+                // level 0 wrapped around, move the timeouts of the next bucket of each higher level down
+                for (int level = 1; level < LEVELS; level++) {
+                    final int slot = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                    cascade(wheel[level][slot]);
+                    if (slot != 0) {
+                        break;
+                    }
+                }
+            }
+            currentTick++;
+            final Bucket bucket = wheel[0][index];
+            HashedWheelTimeout timeout = bucket.clear();
+            while (timeout != null) {
+                final HashedWheelTimeout next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                if (timeout.deadlineTick >= currentTick) {
+                    // a timeout parked beyond the range of the wheel
+                    add(timeout);
+                } else {
+                    expire(timeout);
+                }
+                timeout = next;
+            }
+        }
+
+        private void cascade(final Bucket bucket) {
+            HashedWheelTimeout timeout = bucket.clear();
+            while (timeout != null) {
+                final HashedWheelTimeout next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                add(timeout);
+                timeout = next;
+            }
+        }
+
+        private void expire(final HashedWheelTimeout timeout) {
+            final boolean periodic = timeout.period > 0;
+            if (!timeout.state.compareAndSet(HashedWheelTimeout.ST_INIT, periodic ? HashedWheelTimeout.ST_INIT : HashedWheelTimeout.ST_EXPIRED)) {
+                return;
+            }
+            if (periodic) {
+                // fixed rate, so the next deadline is derived from the previous deadline rather than from now
+                timeout.deadline += timeout.period;
+                timeout.deadlineTick = (timeout.deadline + tickDuration - 1) / tickDuration;
+                add(timeout);
+            } else {
+                pendingTimeouts.decrementAndGet();
+            }
+            try {
+                timeout.executor.execute(timeout.task);
+            } catch (RejectedExecutionException e) {
+                ROOT_LOGGER.timeoutDispatchFailed(e, timeout.task);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts, only accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private HashedWheelTimeout head;
+
+        void add(final HashedWheelTimeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(final HashedWheelTimeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else if (head == timeout) {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * @return the head of the removed list
+         */
+        HashedWheelTimeout clear() {
+            final HashedWheelTimeout result = head;
+            head = null;
+            for (HashedWheelTimeout timeout = result; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+            }
+            return result;
+        }
+    }
+
+    private final class HashedWheelTimeout implements Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        private final Executor executor;
+        private final Runnable task;
+        private final long period;
+        // the fields below are only accessed by the worker thread once the timeout has been queued
+        private long deadline;
+        private long deadlineTick;
+        private Bucket bucket;
+        private HashedWheelTimeout next;
+        private HashedWheelTimeout prev;
+
+        HashedWheelTimeout(final Executor executor, final Runnable task, final long deadline, final long period) {
+            this.executor = executor;
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            pendingTimeouts.decrementAndGet();
+            // unlink it on the worker thread, so that long living cancelled timeouts don't stay referenced
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+    }
+}
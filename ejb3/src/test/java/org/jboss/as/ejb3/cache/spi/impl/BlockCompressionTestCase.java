@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link BlockCompression}.
+ */
+public class BlockCompressionTestCase {
+
+    @Test
+    public void testEmptyAndShort() throws IOException {
+        for (int length = 0; length < 32; length++) {
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (i % 3);
+            }
+            assertArrayEquals(data, roundTrip(data));
+        }
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        Random random = new Random(42);
+        for (int length : new int[] { 100, 1000, 65536, 200000 }) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertArrayEquals(data, roundTrip(data));
+        }
+    }
+
+    @Test
+    public void testRepetitive() throws IOException {
+        // long runs exercise the length extension bytes and overlapping matches
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ((i / 1000) % 7);
+        }
+        byte[] compressed = compress(data);
+        assertTrue(compressed.length < data.length / 20);
+        assertArrayEquals(data, decompress(compressed, data.length));
+    }
+
+    @Test
+    public void testSerializedObject() throws IOException {
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (int i = 0; i < 200; i++) {
+            map.put("attribute-" + i, "value of attribute " + i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        byte[] data = bytes.toByteArray();
+        byte[] compressed = compress(data);
+        assertTrue(compressed.length < data.length / 2);
+        assertArrayEquals(data, decompress(compressed, data.length));
+    }
+
+    @Test
+    public void testCorrupt() throws IOException {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 10);
+        }
+        byte[] compressed = compress(data);
+        try {
+            decompress(compressed, data.length + 1);
+            fail("wrong length should have been detected");
+        } catch (IOException expected) {
+        }
+        byte[] truncated = new byte[compressed.length / 2];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        try {
+            decompress(truncated, data.length);
+            fail("truncated block should have been detected");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] roundTrip(byte[] data) throws IOException {
+        return decompress(compress(data), data.length);
+    }
+
+    private static byte[] compress(byte[] data) {
+        byte[] buffer = new byte[BlockCompression.maxCompressedLength(data.length) + 3];
+        // use non zero offsets to check they are honoured
+        int length = BlockCompression.compress(data, 0, data.length, buffer, 3);
+        byte[] result = new byte[length];
+        System.arraycopy(buffer, 3, result, 0, length);
+        return result;
+    }
+
+    private static byte[] decompress(byte[] compressed, int length) throws IOException {
+        byte[] source = new byte[compressed.length + 5];
+        System.arraycopy(compressed, 0, source, 5, compressed.length);
+        byte[] result = new byte[length + 2];
+        BlockCompression.decompress(source, 5, compressed.length, result, 2, length);
+        byte[] data = new byte[length];
+        System.arraycopy(result, 2, data, 0, length);
+        return data;
+    }
+}
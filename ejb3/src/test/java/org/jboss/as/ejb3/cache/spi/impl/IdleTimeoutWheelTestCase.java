@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link IdleTimeoutWheel}.
+ */
+public class IdleTimeoutWheelTestCase {
+
+    private static final long TICK = 100;
+
+    private IdleTimeoutWheel<String> wheel;
+    private long now;
+
+    @Before
+    public void setUp() {
+        wheel = new IdleTimeoutWheel<String>(TICK, TimeUnit.MILLISECONDS);
+        now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    @Test
+    public void testExpiry() {
+        wheel.schedule("a", now + 500);
+        wheel.schedule("b", now + 5000);
+        assertEquals(2, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 400));
+        assertEquals(Arrays.asList("a"), wheel.sweep(now + 700));
+        assertEquals(1, wheel.size());
+        assertEquals(Arrays.asList("b"), wheel.sweep(now + 5200));
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 10000));
+    }
+
+    @Test
+    public void testReschedule() {
+        wheel.schedule("a", now + 500);
+        wheel.schedule("a", now + 2000);
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 700));
+        assertEquals(Arrays.asList("a"), wheel.sweep(now + 2200));
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 5000));
+    }
+
+    @Test
+    public void testRescheduleEarlier() {
+        wheel.schedule("a", now + 2000);
+        wheel.schedule("a", now + 500);
+        assertEquals(Arrays.asList("a"), wheel.sweep(now + 700));
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 2200));
+    }
+
+    @Test
+    public void testSuspend() {
+        wheel.schedule("a", now + 500);
+        wheel.suspend("a");
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 700));
+        assertEquals(1, wheel.size());
+        wheel.schedule("a", now + 1500);
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 1000));
+        assertEquals(Arrays.asList("a"), wheel.sweep(now + 1700));
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 5000));
+    }
+
+    @Test
+    public void testCancel() {
+        wheel.schedule("a", now + 500);
+        wheel.cancel("a");
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.sweep(now + 700));
+    }
+
+    @Test
+    public void testOverdue() {
+        wheel.sweep(now + 1000);
+        // the bucket of this deadline has already been swept
+        wheel.schedule("a", now + 500);
+        assertEquals(Arrays.asList("a"), wheel.sweep(now + 1000));
+    }
+
+    @Test
+    public void testMoreThanOneRevolution() {
+        wheel.schedule("a", now + 300000);
+        for (long time = now; time < now + 300000; time += 10000) {
+            assertEquals(Collections.emptyList(), wheel.sweep(time));
+        }
+        assertEquals(Arrays.asList("a"), wheel.sweep(now + 300200));
+    }
+
+    /**
+     * Touches 200k keys a few times each, and checks that every key times out exactly once.
+     */
+    @Test
+    public void testManyKeys() {
+        final int count = 200000;
+        for (int touch = 0; touch < 4; touch++) {
+            for (int i = 0; i < count; i++) {
+                wheel.suspend(String.valueOf(i));
+                wheel.schedule(String.valueOf(i), now + 1000 + (touch * 250) + (i % 1000));
+            }
+        }
+        Set<String> expired = new HashSet<String>();
+        for (long time = now; time <= now + 3000; time += TICK) {
+            List<String> keys = wheel.sweep(time);
+            for (String key : keys) {
+                assertTrue(key, expired.add(key));
+            }
+        }
+        assertEquals(count, expired.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.spi.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.ejb3.cache.Cacheable;
+import org.jboss.as.ejb3.cache.PassivationManager;
+import org.jboss.as.ejb3.cache.spi.PersistentObjectStore;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link SegmentedPersistentObjectStore}.
+ */
+public class SegmentedPersistentObjectStoreTestCase {
+
+    private static final int BEANS = 10000;
+    private static final int THREADS = 8;
+
+    private final PassivationManager<UUID, Bean> passivationManager = new TestPassivationManager();
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "segmented-store-" + UUID.randomUUID());
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void testStoreLoad() {
+        for (boolean compress : new boolean[] { false, true }) {
+            SegmentedPersistentObjectStore<UUID, Bean> store = new SegmentedPersistentObjectStore<UUID, Bean>(passivationManager, directory.getPath(), compress);
+            store.start();
+            try {
+                List<Bean> beans = new ArrayList<Bean>();
+                for (int i = 0; i < 100; i++) {
+                    Bean bean = new Bean(i);
+                    beans.add(bean);
+                    store.store(bean);
+                }
+                assertEquals(100, store.size());
+                for (Bean bean : beans) {
+                    Bean loaded = store.load(bean.getId());
+                    assertNotNull(loaded);
+                    assertEquals(bean.getId(), loaded.getId());
+                    assertEquals(bean.attributes, loaded.attributes);
+                    // loading removes the bean from the store
+                    assertNull(store.load(bean.getId()));
+                }
+                assertEquals(0, store.size());
+                assertNull(store.load(UUID.randomUUID()));
+            } finally {
+                store.stop();
+            }
+        }
+    }
+
+    @Test
+    public void testStoreTwice() {
+        SegmentedPersistentObjectStore<UUID, Bean> store = new SegmentedPersistentObjectStore<UUID, Bean>(passivationManager, directory.getPath(), true);
+        store.start();
+        try {
+            Bean bean = new Bean(1);
+            store.store(bean);
+            bean.attributes.put("changed", "true");
+            store.store(bean);
+            assertEquals(1, store.size());
+            assertEquals("true", store.load(bean.getId()).attributes.get("changed"));
+        } finally {
+            store.stop();
+        }
+    }
+
+    /**
+     * Checks that segments are deleted once all of their beans have been loaded, and compacted once most of them have.
+     */
+    @Test
+    public void testSegments() throws Exception {
+        SegmentedPersistentObjectStore<UUID, Bean> store = new SegmentedPersistentObjectStore<UUID, Bean>(passivationManager, directory.getPath(), false, 64 * 1024);
+        store.start();
+        try {
+            List<Bean> beans = new ArrayList<Bean>();
+            for (int i = 0; i < 2000; i++) {
+                Bean bean = new Bean(i);
+                beans.add(bean);
+                store.store(bean);
+            }
+            assertTrue(store.getSegmentCount() > 10);
+            // load 3 out of 4 beans, which leaves every segment mostly garbage
+            List<Bean> remaining = new ArrayList<Bean>();
+            for (int i = 0; i < beans.size(); i++) {
+                if (i % 4 == 0) {
+                    remaining.add(beans.get(i));
+                } else {
+                    assertNotNull(store.load(beans.get(i).getId()));
+                }
+            }
+            final int segments = store.getSegmentCount();
+            // roll the current segment, which triggers a compaction
+            for (int i = 0; i < 200; i++) {
+                Bean bean = new Bean(i);
+                store.store(bean);
+                remaining.add(bean);
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (store.getSegmentCount() >= segments && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(store.getSegmentCount() < segments);
+            for (Bean bean : remaining) {
+                Bean loaded = store.load(bean.getId());
+                assertNotNull(loaded);
+                assertEquals(bean.attributes, loaded.attributes);
+            }
+            assertEquals(0, store.size());
+            deadline = System.currentTimeMillis() + 10000;
+            while (store.getSegmentCount() > 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, store.getSegmentCount());
+        } finally {
+            store.stop();
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    /**
+     * Passivates and activates the same beans with {@value #THREADS} threads against the file store and the
+     * segmented store, with and without compression.
+     */
+    @Test
+    public void testConcurrentStoreLoad() throws Exception {
+        run(new FilePersistentObjectStore<UUID, Bean>(passivationManager, new File(directory, "file").getPath(), 100));
+        run(new SegmentedPersistentObjectStore<UUID, Bean>(passivationManager, new File(directory, "segmented").getPath(), false));
+        run(new SegmentedPersistentObjectStore<UUID, Bean>(passivationManager, new File(directory, "compressed").getPath(), true));
+    }
+
+    /**
+     * Checks that stopping the store while beans are being passivated neither loses a passivation silently nor
+     * leaves a thread waiting for a write which will never happen.
+     */
+    @Test
+    public void testStopWhileStoring() throws Exception {
+        final SegmentedPersistentObjectStore<UUID, Bean> store = new SegmentedPersistentObjectStore<UUID, Bean>(passivationManager, directory.getPath(), false);
+        store.start();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; ; j++) {
+                            try {
+                                store.store(new Bean(j));
+                            } catch (RuntimeException e) {
+                                // the store has been stopped
+                                return null;
+                            }
+                        }
+                    }
+                }));
+            }
+            while (store.size() < BEANS / 10) {
+                Thread.sleep(1);
+            }
+            store.stop();
+            for (Future<Void> result : results) {
+                result.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    private void run(final PersistentObjectStore<UUID, Bean> store) throws Exception {
+        final List<Bean> beans = new ArrayList<Bean>(BEANS);
+        for (int i = 0; i < BEANS; i++) {
+            beans.add(new Bean(i));
+        }
+        store.start();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            execute(executor, beans, new Operation() {
+                @Override
+                public void execute(Bean bean) {
+                    store.store(bean);
+                }
+            });
+            execute(executor, beans, new Operation() {
+                @Override
+                public void execute(Bean bean) {
+                    assertEquals(bean.getId(), store.load(bean.getId()).getId());
+                }
+            });
+        } finally {
+            executor.shutdown();
+            store.stop();
+        }
+    }
+
+    private static void execute(ExecutorService executor, final List<Bean> beans, final Operation operation) throws Exception {
+        List<Future<Void>> results = new ArrayList<Future<Void>>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int j = thread; j < beans.size(); j += THREADS) {
+                        operation.execute(beans.get(j));
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get(120, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    interface Operation {
+        void execute(Bean bean);
+    }
+
+    static class Bean implements Cacheable<UUID> {
+        private static final long serialVersionUID = 1L;
+
+        private final UUID id = UUID.randomUUID();
+        final Map<String, String> attributes = new HashMap<String, String>();
+
+        Bean(int number) {
+            for (int i = 0; i < 20; i++) {
+                attributes.put("attribute-" + i, "value " + i + " of bean " + number);
+            }
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public boolean isModified() {
+            return true;
+        }
+    }
+
+    static class TestPassivationManager implements PassivationManager<UUID, Bean> {
+        @Override
+        public int getCurrentMarshallingVersion() {
+            return 1;
+        }
+
+        @Override
+        public MarshallingConfiguration getMarshallingConfiguration(int version) {
+            return new MarshallingConfiguration();
+        }
+
+        @Override
+        public void postActivate(Bean obj) {
+        }
+
+        @Override
+        public void prePassivate(Bean obj) {
+        }
+    }
+}
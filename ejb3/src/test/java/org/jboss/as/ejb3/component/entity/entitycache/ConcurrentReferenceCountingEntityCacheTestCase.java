@@ -0,0 +1,298 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.entity.entitycache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.as.ejb3.component.entity.EntityBeanComponent;
+import org.jboss.as.ejb3.component.entity.EntityBeanComponentInstance;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the reference counting of the {@link ConcurrentReferenceCountingEntityCache}.
+ */
+public class ConcurrentReferenceCountingEntityCacheTestCase {
+
+    private static final int POOL_SIZE = 16;
+    private static final int THREADS = 8;
+
+    private final ConcurrentLinkedQueue<EntityBeanComponentInstance> pool = new ConcurrentLinkedQueue<EntityBeanComponentInstance>();
+    private final AtomicInteger acquired = new AtomicInteger();
+    private final AtomicInteger released = new AtomicInteger();
+    private EntityBeanComponent component;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool.add(instance());
+        }
+        component = mock(EntityBeanComponent.class);
+        when(component.acquireUnAssociatedInstance()).thenAnswer(new Answer<EntityBeanComponentInstance>() {
+            @Override
+            public EntityBeanComponentInstance answer(InvocationOnMock invocation) {
+                acquired.incrementAndGet();
+                return pool.poll();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                released.incrementAndGet();
+                pool.add((EntityBeanComponentInstance) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(component).releaseEntityBeanInstance(any(EntityBeanComponentInstance.class));
+    }
+
+    @Test
+    public void testCreateGetRelease() {
+        final ConcurrentReferenceCountingEntityCache cache = new ConcurrentReferenceCountingEntityCache(component);
+        final EntityBeanComponentInstance created = pool.poll();
+        created.associate("a");
+        cache.create(created);
+        assertEquals(1, cache.getCacheSize());
+
+        assertSame(created, cache.get("a"));
+        assertEquals(1, cache.getHitCount());
+        cache.release(created, true);
+        assertEquals("a", created.getPrimaryKey());
+        cache.release(created, true);
+        // no longer referenced, so passivated and returned to the pool
+        assertNull(created.getPrimaryKey());
+        assertEquals(0, cache.getCacheSize());
+        assertEquals(1, released.get());
+
+        final EntityBeanComponentInstance loaded = cache.get("b");
+        assertEquals("b", loaded.getPrimaryKey());
+        assertEquals(1, cache.getMissCount());
+        cache.release(loaded, true);
+        assertNull(loaded.getPrimaryKey());
+        assertEquals(0, cache.getCacheSize());
+        assertEquals(1, acquired.get());
+        assertEquals(2, released.get());
+    }
+
+    @Test
+    public void testDiscard() {
+        final ConcurrentReferenceCountingEntityCache cache = new ConcurrentReferenceCountingEntityCache(component, 4);
+        final EntityBeanComponentInstance discarded = cache.get("a");
+        cache.discard(discarded);
+        assertEquals(0, cache.getCacheSize());
+
+        final EntityBeanComponentInstance instance = cache.get("a");
+        assertNotSame(discarded, instance);
+        assertEquals(2, cache.getMissCount());
+        cache.release(instance, true);
+        // kept, as the cache is not full
+        assertEquals(1, cache.getCacheSize());
+        cache.discard(instance);
+        assertEquals(0, cache.getCacheSize());
+    }
+
+    /**
+     * An entity which is removed and created again with the same key in a single transaction.
+     */
+    @Test
+    public void testRemoveAndCreate() {
+        final ConcurrentReferenceCountingEntityCache cache = new ConcurrentReferenceCountingEntityCache(component);
+        final EntityBeanComponentInstance removed = cache.get("a");
+        removed.setRemoved(true);
+
+        final EntityBeanComponentInstance created = pool.poll();
+        created.associate("a");
+        cache.create(created);
+        assertEquals(1, cache.getCacheSize());
+        assertSame(created, cache.get("a"));
+
+        cache.release(created, true);
+        // the new instance replaced the removed one
+        assertSame(created, cache.get("a"));
+        cache.release(created, true);
+        cache.release(created, true);
+        assertEquals(0, cache.getCacheSize());
+        assertNull(created.getPrimaryKey());
+
+        // the key can be used again
+        final EntityBeanComponentInstance instance = cache.get("a");
+        assertEquals("a", instance.getPrimaryKey());
+        cache.release(instance, true);
+        assertEquals(0, cache.getCacheSize());
+    }
+
+    @Test
+    public void testCreateExisting() {
+        final ConcurrentReferenceCountingEntityCache cache = new ConcurrentReferenceCountingEntityCache(component);
+        final EntityBeanComponentInstance existing = cache.get("a");
+        final EntityBeanComponentInstance created = pool.poll();
+        created.associate("a");
+        try {
+            cache.create(created);
+            fail("an instance is already registered for the key");
+        } catch (IllegalStateException expected) {
+        }
+        assertSame(existing, cache.get("a"));
+    }
+
+    @Test
+    public void testEvictionAtMaxSize() {
+        final ConcurrentReferenceCountingEntityCache cache = new ConcurrentReferenceCountingEntityCache(component, 2);
+        final EntityBeanComponentInstance a = cache.get("a");
+        final EntityBeanComponentInstance b = cache.get("b");
+        final EntityBeanComponentInstance c = cache.get("c");
+        // instances in use are never evicted
+        assertEquals(3, cache.getCacheSize());
+
+        cache.release(a, true);
+        // the cache is above its maximum size, so the released instance is evicted at once
+        assertEquals(2, cache.getCacheSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(a.getPrimaryKey());
+        cache.release(b, true);
+        cache.release(c, true);
+        assertEquals(2, cache.getCacheSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("b", b.getPrimaryKey());
+        assertEquals("c", c.getPrimaryKey());
+
+        // an instance which was kept is reused, and reloaded
+        assertSame(b, cache.get("b"));
+        verify(b).setReloadRequired(true);
+        final EntityBeanComponentInstance d = cache.get("d");
+        // c was the only unreferenced instance
+        assertEquals(2, cache.getCacheSize());
+        assertEquals(2, cache.getEvictionCount());
+        assertNull(c.getPrimaryKey());
+
+        cache.release(b, true);
+        cache.release(d, true);
+        cache.stop();
+        assertNull(b.getPrimaryKey());
+        assertNull(d.getPrimaryKey());
+        assertEquals(acquired.get(), released.get());
+    }
+
+    /**
+     * Uses the same key from several threads, and checks that an instance is never passivated while it is in use.
+     */
+    @Test
+    public void testConcurrentGetRelease() throws Exception {
+        for (int maxSize : new int[] { 0, 1 }) {
+            final ConcurrentReferenceCountingEntityCache cache = new ConcurrentReferenceCountingEntityCache(component, maxSize);
+            final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                final List<Future<Void>> results = new ArrayList<Future<Void>>(THREADS);
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            for (int j = 0; j < 1000; j++) {
+                                final EntityBeanComponentInstance instance = cache.get("a");
+                                assertEquals("a", instance.getPrimaryKey());
+                                assertFalse(instance.isRemoved());
+                                cache.release(instance, true);
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<Void> result : results) {
+                    result.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdown();
+            }
+            cache.stop();
+            assertEquals(0, cache.getCacheSize());
+            assertEquals(acquired.get(), released.get());
+        }
+    }
+
+    /**
+     * Creates a pooled instance which keeps track of its primary key.
+     */
+    private static EntityBeanComponentInstance instance() {
+        final EntityBeanComponentInstance instance = mock(EntityBeanComponentInstance.class);
+        final AtomicReference<Object> primaryKey = new AtomicReference<Object>();
+        final AtomicBoolean removed = new AtomicBoolean();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                primaryKey.set(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(instance).associate(any());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                primaryKey.set(null);
+                removed.set(false);
+                return null;
+            }
+        }).when(instance).passivate();
+        when(instance.getPrimaryKey()).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return primaryKey.get();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                removed.set((Boolean) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(instance).setRemoved(anyBoolean());
+        when(instance.isRemoved()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return removed.get();
+            }
+        });
+        return instance;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the recording side of {@link InvocationMetrics}.
+ */
+public class InvocationMetricsTestCase {
+
+    @Test
+    public void testBuckets() {
+        for (long micros = 0; micros < 1000000; micros++) {
+            final int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                assertTrue(micros > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertWithinBucket(500, histogram.getPercentile(0.5));
+        assertWithinBucket(990, histogram.getPercentile(0.99));
+        assertWithinBucket(999, histogram.getPercentile(0.999));
+    }
+
+    @Test
+    public void testPercentilesAcrossThreads() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int first = t * 250 + 1;
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = first; i < first + 250; i++) {
+                        histogram.record(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertWithinBucket(500, histogram.getPercentile(0.5));
+        assertWithinBucket(990, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void testMethods() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        final Method toString = Object.class.getMethod("toString");
+        final Method equals = Object.class.getMethod("equals", Object.class);
+        for (int i = 0; i < 10; i++) {
+            metrics.startInvocation();
+            metrics.finishInvocation(toString, TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        metrics.startInvocation();
+        metrics.finishInvocation(equals, 0L, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertEquals(11, metrics.getInvocations());
+        assertEquals(10, metrics.getWaitTime());
+        assertEquals(25, metrics.getExecutionTime());
+        assertEquals(0, metrics.getConcurrent());
+        assertEquals(2, metrics.getMethods().size());
+        assertEquals(10, metrics.getMethods().get("toString()").getInvocations());
+        assertEquals(20, metrics.getMethods().get("toString()").getExecutionTime());
+        assertEquals(1, metrics.getMethods().get("equals(java.lang.Object)").getInvocations());
+        assertWithinBucket(5000, metrics.getMethods().get("equals(java.lang.Object)").getExecutionTimePercentile(0.99));
+    }
+
+    private static void assertWithinBucket(final long expected, final long actual) {
+        assertEquals(LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(expected)), actual);
+    }
+}
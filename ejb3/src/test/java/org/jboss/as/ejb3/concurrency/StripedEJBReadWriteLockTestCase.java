@@ -0,0 +1,286 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.concurrency;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import javax.ejb.IllegalLoopbackException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StripedEJBReadWriteLock}.
+ */
+public class StripedEJBReadWriteLockTestCase {
+
+    private static final int[] THREAD_COUNTS = {1, 8, 64, 256};
+    private static final int INVOCATIONS = 200000;
+    /**
+     * One invocation in this many takes the write lock in the read-mostly workload
+     */
+    private static final int WRITE_RATIO = 100;
+
+    private StripedEJBReadWriteLock lock;
+
+    @Before
+    public void beforeTest() {
+        this.lock = new StripedEJBReadWriteLock();
+    }
+
+    @Test
+    public void testIllegalLoopBack() throws Exception {
+        final Lock readLock = this.lock.readLock();
+        readLock.lock();
+        try {
+            this.lock.writeLock().lock();
+            this.lock.writeLock().unlock();
+            Assert.fail("Unexpected acquired write lock");
+        } catch (IllegalLoopbackException expected) {
+        } finally {
+            readLock.unlock();
+        }
+        // once the read lock is released the write lock can be acquired
+        Assert.assertTrue(this.lock.writeLock().tryLock());
+        this.lock.writeLock().unlock();
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread writer = holdInOtherThread(this.lock.writeLock(), locked, done);
+        try {
+            locked.await();
+            Assert.assertFalse("Unexpected obtained a read lock", this.lock.readLock().tryLock(500, TimeUnit.MILLISECONDS));
+        } finally {
+            done.countDown();
+            writer.join();
+        }
+        Assert.assertTrue(this.lock.readLock().tryLock(500, TimeUnit.MILLISECONDS));
+        this.lock.readLock().unlock();
+    }
+
+    @Test
+    public void testWriteTimeout() throws Exception {
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread reader = holdInOtherThread(this.lock.readLock(), locked, done);
+        try {
+            locked.await();
+            Assert.assertFalse("Unexpected obtained a write lock", this.lock.writeLock().tryLock(500, TimeUnit.MILLISECONDS));
+            // a failed write attempt must not keep readers out
+            Assert.assertTrue(this.lock.readLock().tryLock());
+            this.lock.readLock().unlock();
+        } finally {
+            done.countDown();
+            reader.join();
+        }
+        Assert.assertTrue(this.lock.writeLock().tryLock(500, TimeUnit.MILLISECONDS));
+        this.lock.writeLock().unlock();
+    }
+
+    @Test
+    public void testSameThreadCanGetWriteThenReadLock() throws Exception {
+        final Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+        try {
+            final Lock readLock = this.lock.readLock();
+            Assert.assertTrue("Could not obtain read lock when write lock was held by the same thread!", readLock.tryLock(2, TimeUnit.SECONDS));
+            readLock.unlock();
+            // the write lock is reentrant
+            Assert.assertTrue(writeLock.tryLock());
+            writeLock.unlock();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * A thread which already holds a read lock must get it again, even if a writer is waiting for the readers to leave.
+     */
+    @Test
+    public void testReentrantReadWithWaitingWriter() throws Exception {
+        final Lock readLock = this.lock.readLock();
+        readLock.lock();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Boolean> writer = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    if (lock.writeLock().tryLock(10, TimeUnit.SECONDS)) {
+                        lock.writeLock().unlock();
+                        return true;
+                    }
+                    return false;
+                }
+            });
+            Thread.sleep(200);
+            Assert.assertTrue(readLock.tryLock(1, TimeUnit.SECONDS));
+            readLock.unlock();
+            Assert.assertFalse(writer.isDone());
+            readLock.unlock();
+            Assert.assertTrue(writer.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMutualExclusion() throws Exception {
+        final int threads = 16;
+        final AtomicInteger readers = new AtomicInteger();
+        final AtomicInteger writers = new AtomicInteger();
+        final AtomicInteger violations = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Future<?>[] results = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                results[t] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < 20000; i++) {
+                            if (i % 100 == 0) {
+                                lock.writeLock().lock();
+                                try {
+                                    if (writers.incrementAndGet() != 1 || readers.get() != 0) {
+                                        violations.incrementAndGet();
+                                    }
+                                    writers.decrementAndGet();
+                                } finally {
+                                    lock.writeLock().unlock();
+                                }
+                            } else {
+                                lock.readLock().lock();
+                                try {
+                                    readers.incrementAndGet();
+                                    if (writers.get() != 0) {
+                                        violations.incrementAndGet();
+                                    }
+                                    readers.decrementAndGet();
+                                } finally {
+                                    lock.readLock().unlock();
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(0, violations.get());
+    }
+
+    /**
+     * Runs the same read-mostly workload, as seen by a {@link javax.ejb.Lock @Lock(READ)} singleton with an occasional
+     * write, against both lock implementations with 1, 8, 64 and 256 threads, and checks that no write is lost.
+     */
+    @Test
+    public void testReadMostlyWorkload() throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            run(new EJBReadWriteLock(), threads);
+            run(new StripedEJBReadWriteLock(), threads);
+        }
+    }
+
+    private void run(final ReadWriteLock readWriteLock, final int threads) throws Exception {
+        final int invocationsPerThread = INVOCATIONS / threads;
+        final CountDownLatch start = new CountDownLatch(1);
+        final int[] state = new int[1];
+        final Callable<Void> task = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                start.await();
+                final Lock readLock = readWriteLock.readLock();
+                final Lock writeLock = readWriteLock.writeLock();
+                for (int i = 1; i <= invocationsPerThread; i++) {
+                    if (i % WRITE_RATIO == 0) {
+                        Assert.assertTrue(writeLock.tryLock(60, TimeUnit.SECONDS));
+                        try {
+                            state[0]++;
+                        } finally {
+                            writeLock.unlock();
+                        }
+                    } else {
+                        Assert.assertTrue(readLock.tryLock(60, TimeUnit.SECONDS));
+                        try {
+                            if (state[0] < 0) {
+                                throw new IllegalStateException();
+                            }
+                        } finally {
+                            readLock.unlock();
+                        }
+                    }
+                }
+                return null;
+            }
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Future<?>[] results = new Future<?>[threads];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(task);
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(120, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(threads * (invocationsPerThread / WRITE_RATIO), state[0]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Thread holdInOtherThread(final Lock lock, final CountDownLatch locked, final CountDownLatch done) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.lock();
+                try {
+                    locked.countDown();
+                    done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.remote.protocol.versionone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.marshalling.ContextClassResolver;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.junit.Test;
+
+/**
+ * Tests {@link ReusableMarshallers}.
+ */
+public class ReusableMarshallersTestCase {
+
+    private final MarshallerFactory marshallerFactory = Marshalling.getProvidedMarshallerFactory("river");
+
+    @Test
+    public void testReuse() throws Exception {
+        final Marshaller marshaller = ReusableMarshallers.acquireMarshaller(marshallerFactory);
+        marshaller.start(Marshalling.createByteOutput(new ByteArrayOutputStream()));
+        marshaller.writeObject("payload");
+        ReusableMarshallers.finish(marshaller);
+        assertSame(marshaller, ReusableMarshallers.acquireMarshaller(marshallerFactory));
+    }
+
+    @Test
+    public void testMarshallerInUseIsNotShared() throws Exception {
+        final Marshaller marshaller = ReusableMarshallers.acquireMarshaller(marshallerFactory);
+        marshaller.start(Marshalling.createByteOutput(new ByteArrayOutputStream()));
+        // e.g. a failure response written while the previous message was being marshalled
+        final Marshaller other = ReusableMarshallers.acquireMarshaller(marshallerFactory);
+        assertNotSame(marshaller, other);
+        other.start(Marshalling.createByteOutput(new ByteArrayOutputStream()));
+        ReusableMarshallers.finish(other);
+        // the abandoned marshaller is never handed out again
+        assertSame(other, ReusableMarshallers.acquireMarshaller(marshallerFactory));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Object[] payload = payload();
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(payload, (Object[]) roundTrip(payload, true));
+        }
+    }
+
+    /**
+     * A reused marshaller must not carry anything over from the previous messages, its output must be the same as the
+     * output of a new marshaller.
+     */
+    @Test
+    public void testReusedOutputMatchesNewMarshaller() throws Exception {
+        final Object[] payload = payload();
+        final byte[] expected = marshal(payload, false);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(expected, marshal(payload, true));
+            assertArrayEquals(payload, (Object[]) roundTrip(payload, false));
+        }
+    }
+
+    private byte[] marshal(final Object payload, final boolean reuse) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final Marshaller marshaller = reuse ? ReusableMarshallers.acquireMarshaller(marshallerFactory) : marshallerFactory.createMarshaller(ReusableMarshallers.createMarshallingConfiguration());
+        marshaller.start(Marshalling.createByteOutput(bytes));
+        marshaller.writeObject(payload);
+        if (reuse) {
+            ReusableMarshallers.finish(marshaller);
+        } else {
+            marshaller.finish();
+        }
+        return bytes.toByteArray();
+    }
+
+    private Object roundTrip(final Object payload, final boolean reuse) throws IOException, ClassNotFoundException {
+        final byte[] bytes = marshal(payload, reuse);
+
+        final ContextClassResolver classResolver = new ContextClassResolver();
+        final Unmarshaller unmarshaller;
+        if (reuse) {
+            unmarshaller = ReusableMarshallers.acquireUnmarshaller(marshallerFactory, classResolver);
+        } else {
+            final MarshallingConfiguration marshallingConfiguration = ReusableMarshallers.createMarshallingConfiguration();
+            marshallingConfiguration.setClassResolver(classResolver);
+            unmarshaller = marshallerFactory.createUnmarshaller(marshallingConfiguration);
+        }
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        final Object result = unmarshaller.readObject();
+        if (reuse) {
+            ReusableMarshallers.finish(unmarshaller);
+        } else {
+            unmarshaller.finish();
+        }
+        return result;
+    }
+
+    private static Object[] payload() {
+        final Map<String, Object> attachments = new HashMap<String, Object>();
+        attachments.put("key", "value");
+        return new Object[] {"app", "module", "", "bean", 42, "parameter", attachments};
+    }
+}
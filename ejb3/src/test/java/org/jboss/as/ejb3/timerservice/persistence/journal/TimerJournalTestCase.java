@@ -0,0 +1,229 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.journal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link TimerJournal}.
+ */
+public class TimerJournalTestCase {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("timer-journal", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        TimerJournal journal = new TimerJournal(directory);
+        assertTrue(journal.open().isEmpty());
+        journal.write("app.module.Bean", "1", new byte[] {1});
+        journal.write("app.module.Bean", "2", new byte[] {2});
+        journal.write("app.module.Other", "3", new byte[] {3});
+        journal.write("app.module.Bean", "1", new byte[] {4});
+        journal.write("app.module.Bean", "2", null);
+        journal.close();
+
+        journal = new TimerJournal(directory);
+        final Map<String, Map<String, byte[]>> timers = journal.open();
+        journal.close();
+        assertEquals(2, timers.size());
+        assertArrayEquals(new byte[] {4}, timers.get("app.module.Bean").get("1"));
+        assertNull(timers.get("app.module.Bean").get("2"));
+        assertArrayEquals(new byte[] {3}, timers.get("app.module.Other").get("3"));
+    }
+
+    @Test
+    public void testTruncatedRecord() throws Exception {
+        TimerJournal journal = new TimerJournal(directory);
+        journal.open();
+        journal.write("app.module.Bean", "1", new byte[] {1});
+        journal.write("app.module.Bean", "2", new byte[] {2});
+        journal.close();
+
+        // simulate a crash in the middle of the last write
+        final File segment = new File(directory, "timers-0.journal");
+        final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+
+        journal = new TimerJournal(directory);
+        final Map<String, Map<String, byte[]>> timers = journal.open();
+        journal.write("app.module.Bean", "3", new byte[] {3});
+        journal.close();
+        assertEquals(1, timers.get("app.module.Bean").size());
+        assertArrayEquals(new byte[] {1}, timers.get("app.module.Bean").get("1"));
+
+        journal = new TimerJournal(directory);
+        assertEquals(2, journal.open().get("app.module.Bean").size());
+        journal.close();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        // tiny segments, so that every write starts a new one
+        TimerJournal journal = new TimerJournal(directory, 1, 4);
+        journal.open();
+        for (int i = 0; i < 100; i++) {
+            journal.write("app.module.Bean", Integer.toString(i % 10), new byte[] {(byte) i});
+            if (i % 10 == 9) {
+                journal.write("app.module.Bean", Integer.toString(i % 10), null);
+            }
+        }
+        journal.close();
+        assertTrue(directory.listFiles().length < 100);
+
+        journal = new TimerJournal(directory);
+        final Map<String, byte[]> timers = journal.open().get("app.module.Bean");
+        journal.close();
+        assertEquals(9, timers.size());
+        for (int i = 0; i < 9; i++) {
+            assertArrayEquals(new byte[] {(byte) (90 + i)}, timers.get(Integer.toString(i)));
+        }
+        assertFalse(timers.containsKey("9"));
+    }
+
+    /**
+     * Writes timers from many threads at once, which is where the journal syncs several records at once.
+     */
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final int threads = 32;
+        final int writes = 200;
+        final TimerJournal journal = new TimerJournal(directory);
+        journal.open();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Future<?>[] results = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                final String timedObjectId = "app.module.Bean" + i;
+                results[i] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int j = 0; j < writes; j++) {
+                            journal.write(timedObjectId, Integer.toString(j % 20), new byte[128]);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+            journal.close();
+        }
+
+        final TimerJournal reopened = new TimerJournal(directory);
+        final Map<String, Map<String, byte[]>> timers = reopened.open();
+        reopened.close();
+        assertEquals(threads, timers.size());
+        for (Map<String, byte[]> map : timers.values()) {
+            assertEquals(20, map.size());
+        }
+    }
+
+    /**
+     * Closes the journal while timers are being written, every write has to either fail or complete.
+     */
+    @Test
+    public void testCloseWhileWriting() throws Exception {
+        final int threads = 8;
+        final TimerJournal journal = new TimerJournal(directory);
+        journal.open();
+        final CountDownLatch started = new CountDownLatch(threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Future<?>[] results = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                final String timedObjectId = "app.module.Bean" + i;
+                results[i] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        started.countDown();
+                        try {
+                            for (int j = 0; ; j++) {
+                                journal.write(timedObjectId, Integer.toString(j % 20), new byte[16]);
+                            }
+                        } catch (IllegalStateException e) {
+                            // closed
+                        }
+                        return null;
+                    }
+                });
+            }
+            started.await();
+            journal.close();
+            for (Future<?> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterClose() throws Exception {
+        final TimerJournal journal = new TimerJournal(directory);
+        journal.open();
+        journal.close();
+        journal.write("app.module.Bean", "1", new byte[] {1});
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.wheel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link HashedWheelTimer}.
+ */
+public class HashedWheelTimerTestCase {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS);
+        timer.start();
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testSingleAction() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final long start = System.nanoTime();
+        timer.schedule(DIRECT, new CountDown(latch), 0);
+        timer.schedule(DIRECT, new CountDown(latch), 50);
+        // more than one turn of the first level of the wheel
+        timer.schedule(DIRECT, new CountDown(latch), 150);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    @Test
+    public void testFixedRate() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(5);
+        final HashedWheelTimer.Timeout timeout = timer.schedule(DIRECT, new CountDown(latch), 10, 20);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final AtomicInteger fired = new AtomicInteger();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                fired.incrementAndGet();
+            }
+        };
+        final HashedWheelTimer.Timeout cancelled = timer.schedule(DIRECT, task, 50);
+        final HashedWheelTimer.Timeout periodic = timer.schedule(DIRECT, task, 50, 10);
+        assertTrue(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        assertTrue(periodic.cancel());
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(DIRECT, new CountDown(latch), 100);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+    }
+
+    /**
+     * Creates and cancels many timeouts, which is the typical life cycle of a timer of a bean which gets
+     * cancelled or rescheduled before it fires.
+     */
+    @Test
+    public void testCreateCancel() throws Exception {
+        final int count = 1000;
+        final AtomicInteger fired = new AtomicInteger();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                fired.incrementAndGet();
+            }
+        };
+        final HashedWheelTimer.Timeout[] timeouts = new HashedWheelTimer.Timeout[count];
+        for (int i = 0; i < count; i++) {
+            timeouts[i] = timer.schedule(DIRECT, task, 1000 + i * 100);
+        }
+        for (int i = 0; i < count; i++) {
+            assertTrue(timeouts[i].cancel());
+        }
+        assertEquals(0, timer.getPendingTimeouts());
+        assertEquals(0, fired.get());
+    }
+
+    private static final class CountDown implements Runnable {
+        private final CountDownLatch latch;
+
+        private CountDown(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+}
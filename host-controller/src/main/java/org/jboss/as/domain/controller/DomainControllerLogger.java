@@ -180,4 +180,27 @@ public interface DomainControllerLogger extends BasicLogger {
     @Message(id = 10811, value = "failed to set server (%s) into a restart required state")
     void failedToSetServerInRestartRequireState(String serverName);
 
+    /**
+     * Logs an informational message indicating how much of the domain model was sent to a registering slave host.
+     *
+     * @param sent     the number of resources sent.
+     * @param total    the number of resources in the domain model.
+     * @param hostName the name of the slave host.
+     * @param bytes    the number of bytes transferred.
+     */
+    @LogMessage(level = Level.INFO)
+    @Message(id = 10812, value = "Sent %d of %d domain model resources to slave host %s (%d bytes)")
+    void sentDomainModel(int sent, int total, String hostName, int bytes);
+
+    /**
+     * Logs a warning message indicating the final response from the host, represented by the {@code hostName}
+     * parameter, did not arrive within the time allowed.
+     *
+     * @param timeout  the time waited, in milliseconds.
+     * @param hostName the name of the host.
+     */
+    @LogMessage(level = Level.WARN)
+    @Message(id = 10813, value = "Timed out after %d ms awaiting final response from host %s")
+    void timedOutAwaitingFinalResponse(long timeout, String hostName);
+
 }
@@ -552,4 +552,24 @@ public interface DomainControllerMessages {
     @Message(id = 10877, value = "Failed to load module '%s'.")
     OperationFailedException failedToLoadModule(@Cause ModuleLoadException e,String module);
 
+    /**
+     * Creates an exception indicating the local domain model changed since the domain model was last received from
+     * the master, so the changes since then cannot be applied on top of it.
+     *
+     * @return an {@link OperationFailedException} for the error.
+     */
+    @Message(id = 10878, value = "The local domain model has changed since it was last synchronized with the master; the complete domain model is required")
+    OperationFailedException domainModelChangedSinceLastSynchronization();
+
+    /**
+     * A message indicating a host did not report a result within the time allowed.
+     *
+     * @param timeout the time waited, in milliseconds.
+     * @param name    the name of the host.
+     *
+     * @return the message.
+     */
+    @Message(id = 10879, value = "Timed out after %d ms waiting for result from host %s")
+    String timeoutAwaitingResultFromHost(long timeout, String name);
+
 }
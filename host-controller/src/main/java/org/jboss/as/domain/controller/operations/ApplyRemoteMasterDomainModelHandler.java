@@ -43,10 +43,17 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SER
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SOCKET_BINDING_GROUP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SYSTEM_PROPERTY;
 import static org.jboss.as.domain.controller.DomainControllerLogger.ROOT_LOGGER;
+import static org.jboss.as.domain.controller.DomainControllerMessages.MESSAGES;
 import static org.jboss.as.domain.controller.operations.coordination.DomainServerUtils.getRelatedElements;
 import static org.jboss.as.domain.controller.operations.coordination.DomainServerUtils.getServersForGroup;
 import static org.jboss.as.domain.controller.operations.coordination.DomainServerUtils.getServersForType;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -56,6 +63,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import org.jboss.as.controller.HashUtil;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.OperationStepHandler;
@@ -83,6 +91,19 @@ import org.jboss.dmr.Property;
  */
 public class ApplyRemoteMasterDomainModelHandler implements OperationStepHandler, DescriptionProvider {
     public static final String OPERATION_NAME = "apply-remote-domain-model";
+    /**
+     * The addresses of the resources removed from the domain model. If present, the domain model only contains the
+     * resources which changed since the domain model was last applied.
+     */
+    public static final String REMOVED_RESOURCES = "removed-resources";
+    /**
+     * The digest of the local domain model when the domain model was last applied, which is the result of this operation.
+     */
+    public static final String DOMAIN_MODEL_DIGEST = "domain-model-digest";
+    /**
+     * If {@code true}, nothing is applied, and the result is the digest of the local domain model.
+     */
+    public static final String DIGEST_ONLY = "digest-only";
 
     private final HostFileRepository fileRepository;
     private final ContentRepository contentRepository;
@@ -106,6 +127,12 @@ public class ApplyRemoteMasterDomainModelHandler implements OperationStepHandler
         final ModelNode domainModel = operation.get(DOMAIN_MODEL);
 
         final ModelNode startRoot = Resource.Tools.readModel(context.readResourceFromRoot(PathAddress.EMPTY_ADDRESS));
+        if (operation.get(DIGEST_ONLY).asBoolean(false)) {
+            // Tells whether the local domain model changed since the domain model was last applied
+            context.getResult().set(digest(startRoot));
+            context.completeStep();
+            return;
+        }
 
         final Set<String> ourServerGroups = getOurServerGroups(context);
         final Map<String, Set<byte[]>> deploymentHashes = new HashMap<String, Set<byte[]>>();
@@ -113,7 +140,22 @@ public class ApplyRemoteMasterDomainModelHandler implements OperationStepHandler
         final Set<byte[]> requiredContent = new HashSet<byte[]>();
 
         final Resource rootResource = context.readResourceForUpdate(PathAddress.EMPTY_ADDRESS);
-        clearDomain(rootResource);
+        final boolean delta = operation.has(REMOVED_RESOURCES);
+        if (delta) {
+            // The changes only apply on top of the domain model they were worked out from
+            if (!operation.hasDefined(DOMAIN_MODEL_DIGEST) || !operation.get(DOMAIN_MODEL_DIGEST).asString().equals(digest(startRoot))) {
+                throw MESSAGES.domainModelChangedSinceLastSynchronization();
+            }
+            for (final ModelNode removed : operation.get(REMOVED_RESOURCES).asList()) {
+                final PathAddress resourceAddress = PathAddress.pathAddress(removed);
+                if (ignoredResourceRegistry.isResourceExcluded(resourceAddress) || resourceAddress.getElement(0).getKey().equals(EXTENSION)) {
+                    continue;
+                }
+                removeResource(resourceAddress, rootResource);
+            }
+        } else {
+            clearDomain(rootResource);
+        }
 
         for (final ModelNode resourceDescription : domainModel.asList()) {
 
@@ -164,6 +206,11 @@ public class ApplyRemoteMasterDomainModelHandler implements OperationStepHandler
             }
         }
 
+        if (delta) {
+            // The server group deployments and deployments which did not change are not part of a delta
+            collectDeployments(rootResource, ourServerGroups, deploymentHashes, relevantDeployments);
+        }
+
         // Make sure we have all needed deployment and management client content
         for (String id : relevantDeployments) {
             Set<byte[]> hashes = deploymentHashes.remove(id);
@@ -175,9 +222,11 @@ public class ApplyRemoteMasterDomainModelHandler implements OperationStepHandler
             fileRepository.getDeploymentFiles(hash);
         }
 
+        final ModelNode endRoot = Resource.Tools.readModel(rootResource);
+        context.getResult().set(digest(endRoot));
+
         if (!context.isBooting()) {
             final Resource domainRootResource = context.readResourceForUpdate(PathAddress.EMPTY_ADDRESS);
-            final ModelNode endRoot = Resource.Tools.readModel(domainRootResource);
             final Set<ServerIdentity> affectedServers = new HashSet<ServerIdentity>();
             final ModelNode hostModel = endRoot.require(HOST).asPropertyList().iterator().next().getValue();
             final ModelNode existingHostModel = startRoot.require(HOST).asPropertyList().iterator().next().getValue();
@@ -351,6 +400,73 @@ public class ApplyRemoteMasterDomainModelHandler implements OperationStepHandler
         }
     }
 
+    private void removeResource(final PathAddress resourceAddress, final Resource rootResource) {
+        Resource parent = rootResource;
+        for (final PathElement element : resourceAddress.subAddress(0, resourceAddress.size() - 1)) {
+            parent = parent.getChild(element);
+            if (parent == null) {
+                // already gone with its parent
+                return;
+            }
+        }
+        parent.removeChild(resourceAddress.getLastElement());
+    }
+
+    private void collectDeployments(final Resource rootResource, final Set<String> ourServerGroups,
+                                    final Map<String, Set<byte[]>> deploymentHashes, final Set<String> relevantDeployments) {
+        for (final Resource.ResourceEntry serverGroup : rootResource.getChildren(SERVER_GROUP)) {
+            if (ourServerGroups.contains(serverGroup.getName())) {
+                relevantDeployments.addAll(serverGroup.getChildrenNames(DEPLOYMENT));
+            }
+        }
+        for (final String id : relevantDeployments) {
+            final Resource deployment = rootResource.getChild(PathElement.pathElement(DEPLOYMENT, id));
+            if (deploymentHashes.containsKey(id) || deployment == null) {
+                continue;
+            }
+            final ModelNode model = deployment.getModel();
+            if (model.hasDefined(CONTENT)) {
+                final Set<byte[]> hashes = new HashSet<byte[]>();
+                for (ModelNode contentItem : model.get(CONTENT).asList()) {
+                    if (contentItem.hasDefined(HASH)) {
+                        hashes.add(contentItem.get(HASH).asBytes());
+                    }
+                }
+                deploymentHashes.put(id, hashes);
+            }
+        }
+    }
+
+    /**
+     * Creates a digest of the domain part of the local model, to be able to tell whether it changed.
+     */
+    private static String digest(final ModelNode root) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final DataOutputStream os = new DataOutputStream(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                // only the digest is needed
+            }
+        }, digest));
+        try {
+            for (final String key : root.keys()) {
+                if (!key.equals(HOST)) {
+                    os.writeUTF(key);
+                    root.get(key).writeExternal(os);
+                }
+            }
+            os.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return HashUtil.bytesToHexString(digest.digest());
+    }
+
     private Resource getResource(PathAddress resourceAddress, Resource rootResource, OperationContext context) {
         if(resourceAddress.size() == 0) {
             return rootResource;
@@ -31,6 +31,8 @@ import static org.jboss.as.domain.controller.DomainControllerLogger.CONTROLLER_L
 import static org.jboss.as.domain.controller.DomainControllerLogger.HOST_CONTROLLER_LOGGER;
 import static org.jboss.as.domain.controller.DomainControllerMessages.MESSAGES;
 
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
@@ -49,11 +52,29 @@ import org.jboss.dmr.ModelNode;
 
 /**
  * Executes the first phase of a two phase operation on one or more remote, slave host controllers.
+ * <p/>
+ * The operation is sent to all hosts at once and their prepared results are collected in the order the hosts report
+ * them. Hosts which do not prepare within the timeout are cancelled, as are the outstanding hosts as soon as one host
+ * fails, since the operation is then going to be rolled back on all of them anyway. A cancelled host may still prepare
+ * before the cancellation reaches it, so the handler keeps waiting a little longer for the hosts which timed out and
+ * rolls back the ones which prepared too late. The time each host took to prepare and to complete the operation is
+ * reported in the {@link #HOST_LATENCY} response header.
  *
  * @author Brian Stansberry (c) 2011 Red Hat Inc.
  */
 public class DomainSlaveHandler implements OperationStepHandler {
 
+    /** The response header with the milliseconds each host took to {@link #PREPARE prepare} and to {@link #COMPLETE complete} the operation. */
+    public static final String HOST_LATENCY = "host-latency";
+    public static final String PREPARE = "prepare";
+    public static final String COMPLETE = "complete";
+
+    private static final String TIMEOUT_PROPERTY = "jboss.as.domain.host.operation.timeout";
+    private static final long TIMEOUT_DEFAULT = 300000;
+    private static final long TIMEOUT = getTimeout();
+    /** How long to keep waiting for the hosts which timed out, so that the ones which prepared anyway get rolled back */
+    private static final long CANCEL_TIMEOUT = Math.min(TIMEOUT, 10000);
+
     private final DomainOperationContext domainOperationContext;
     private final Map<String, ProxyController> hostProxies;
 
@@ -73,10 +94,15 @@ public class DomainSlaveHandler implements OperationStepHandler {
             return;
         }
 
+        final ModelNode responseHeaders = context.getResponseHeaders();
+        final ModelNode latency = new ModelNode();
         final Set<String> outstanding = new HashSet<String>(hostProxies.keySet());
+        final Set<String> timedOut = new HashSet<String>();
         final List<TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation>> results = new ArrayList<TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation>>();
+        final List<TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation>> lateResults = new ArrayList<TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation>>();
         final Map<String, HostControllerUpdateTask.ExecutedHostRequest> finalResults = new HashMap<String, HostControllerUpdateTask.ExecutedHostRequest>();
         final HostControllerUpdateTask.ProxyOperationListener listener = new HostControllerUpdateTask.ProxyOperationListener();
+        final long start = System.currentTimeMillis();
         for (Map.Entry<String, ProxyController> entry : hostProxies.entrySet()) {
             // Create the proxy task
             final String host = entry.getKey();
@@ -91,22 +117,62 @@ public class DomainSlaveHandler implements OperationStepHandler {
             finalResults.put(host, finalResult);
         }
 
-        // Wait for all hosts to reach the prepared state
+        // Wait for all hosts to reach the prepared state, or for the first one to fail
         boolean interrupted = false;
         try {
             try {
+                final long deadline = start + TIMEOUT;
+                boolean failed = false;
                 while(outstanding.size() > 0) {
-                    final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared = listener.retrievePreparedOperation();
+                    final long remaining = (timedOut.isEmpty() ? deadline : deadline + CANCEL_TIMEOUT) - System.currentTimeMillis();
+                    final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared = remaining > 0 ? listener.retrievePreparedOperation(remaining, TimeUnit.MILLISECONDS) : null;
+                    if(prepared == null) {
+                        if(! timedOut.isEmpty()) {
+                            // Not even the cancellation got an answer, there is nothing left to roll back on our side
+                            for(final String hostName : outstanding) {
+                                CONTROLLER_LOGGER.timedOutAwaitingFinalResponse(TIMEOUT + CANCEL_TIMEOUT, hostName);
+                            }
+                            outstanding.clear();
+                            break;
+                        }
+                        // Give up on the hosts which did not prepare in time, but keep waiting for their answer to
+                        // the cancellation, in case they prepared in the meantime
+                        for(final String hostName : outstanding) {
+                            finalResults.get(hostName).asyncCancel();
+                            final ModelNode result = new ModelNode();
+                            result.get(OUTCOME).set(FAILED);
+                            result.get(FAILURE_DESCRIPTION).set(MESSAGES.timeoutAwaitingResultFromHost(TIMEOUT, hostName));
+                            domainOperationContext.addHostControllerResult(hostName, result);
+                        }
+                        timedOut.addAll(outstanding);
+                        continue;
+                    }
                     final String hostName = prepared.getOperation().getName();
                     if(! outstanding.remove(hostName)) {
                         continue;
                     }
+                    if(timedOut.contains(hostName)) {
+                        // The host already failed with the timeout, whatever it prepared has to be rolled back
+                        if(! prepared.isDone()) {
+                            prepared.rollback();
+                        }
+                        lateResults.add(prepared);
+                        continue;
+                    }
+                    latency.get(hostName, PREPARE).set(System.currentTimeMillis() - start);
                     final ModelNode preparedResult = prepared.getPreparedResult();
                     if (HOST_CONTROLLER_LOGGER.isTraceEnabled()) {
                         HOST_CONTROLLER_LOGGER.tracef("Preliminary result for remote host %s is %s", hostName, preparedResult);
                     }
                     domainOperationContext.addHostControllerResult(hostName, preparedResult);
                     results.add(prepared);
+                    if(! failed && (prepared.isFailed() || preparedResult.has(FAILURE_DESCRIPTION))) {
+                        // The operation is going to be rolled back on all hosts, so cancel the ones still preparing
+                        failed = true;
+                        for(final String outstandingHost : outstanding) {
+                            finalResults.get(outstandingHost).asyncCancel();
+                        }
+                    }
                 }
             } catch (InterruptedException ie) {
                 interrupted = true;
@@ -145,33 +211,58 @@ public class DomainSlaveHandler implements OperationStepHandler {
                 // Inform the remote hosts whether to commit or roll back their updates
                 // Do this in parallel
                 boolean rollback = domainOperationContext.isCompleteRollback();
+                final Map<String, TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation>> completing = new HashMap<String, TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation>>();
+                final long completeStart = System.currentTimeMillis();
                 for(final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared : results) {
                     if(prepared.isDone()) {
+                        addFinalResult(prepared);
                         continue;
                     }
+                    completing.put(prepared.getOperation().getName(), prepared);
                     if(! rollback) {
                         prepared.commit();
                     } else {
                         prepared.rollback();
                     }
                 }
-                // Now get the final results from the hosts
-                for(final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared : results) {
-                    final String hostName = prepared.getOperation().getName();
-                    try {
-                        final ModelNode finalResult = prepared.getFinalResult().get();
-                        domainOperationContext.addHostControllerResult(hostName, finalResult);
-
-                        if (HOST_CONTROLLER_LOGGER.isTraceEnabled()) {
-                            HOST_CONTROLLER_LOGGER.tracef("Final result for remote host %s is %s", hostName, finalResult);
+                // The late hosts were already told to roll back, just wait for them to do so
+                for(final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared : lateResults) {
+                    if(! prepared.isDone()) {
+                        completing.put(prepared.getOperation().getName(), prepared);
+                    }
+                }
+                // Now get the final results from the hosts, in the order they complete
+                final long deadline = completeStart + TIMEOUT;
+                try {
+                    while(completing.size() > 0) {
+                        final long remaining = deadline - System.currentTimeMillis();
+                        final HostControllerUpdateTask.ProxyOperation completed = remaining > 0 ? listener.retrieveCompletedOperation(remaining, TimeUnit.MILLISECONDS) : null;
+                        if(completed == null) {
+                            for(final String hostName : completing.keySet()) {
+                                CONTROLLER_LOGGER.timedOutAwaitingFinalResponse(TIMEOUT, hostName);
+                            }
+                            break;
+                        }
+                        final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared = completing.remove(completed.getName());
+                        if(prepared == null) {
+                            continue;
                         }
-                    } catch (InterruptedException e) {
-                        interrupted = true;
+                        if(timedOut.contains(completed.getName())) {
+                            // Keep the timeout as the result of the host, it is the reason why it was rolled back
+                            continue;
+                        }
+                        latency.get(completed.getName(), COMPLETE).set(System.currentTimeMillis() - completeStart);
+                        interrupted |= ! addFinalResult(prepared);
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    for(final String hostName : completing.keySet()) {
                         CONTROLLER_LOGGER.interruptedAwaitingFinalResponse(hostName);
-                    } catch (ExecutionException e) {
-                        CONTROLLER_LOGGER.caughtExceptionAwaitingFinalResponse(e.getCause(), hostName);
                     }
                 }
+                if(latency.isDefined()) {
+                    responseHeaders.get(HOST_LATENCY).set(latency);
+                }
             } finally {
                 if (interrupted) {
                     Thread.currentThread().interrupt();
@@ -180,4 +271,43 @@ public class DomainSlaveHandler implements OperationStepHandler {
         }
     }
 
+    /**
+     * Gets the final result of an operation which completed on a host.
+     *
+     * @return {@code false} if interrupted while getting the result
+     */
+    private boolean addFinalResult(final TransactionalProtocolClient.PreparedOperation<HostControllerUpdateTask.ProxyOperation> prepared) {
+        final String hostName = prepared.getOperation().getName();
+        try {
+            final ModelNode finalResult = prepared.getFinalResult().get();
+            domainOperationContext.addHostControllerResult(hostName, finalResult);
+
+            if (HOST_CONTROLLER_LOGGER.isTraceEnabled()) {
+                HOST_CONTROLLER_LOGGER.tracef("Final result for remote host %s is %s", hostName, finalResult);
+            }
+        } catch (InterruptedException e) {
+            CONTROLLER_LOGGER.interruptedAwaitingFinalResponse(hostName);
+            return false;
+        } catch (ExecutionException e) {
+            CONTROLLER_LOGGER.caughtExceptionAwaitingFinalResponse(e.getCause(), hostName);
+        }
+        return true;
+    }
+
+    private static long getTimeout() {
+        final SecurityManager sm = System.getSecurityManager();
+        final Long timeout;
+        if(sm == null) {
+            timeout = Long.getLong(TIMEOUT_PROPERTY, TIMEOUT_DEFAULT);
+        } else {
+            timeout = AccessController.doPrivileged(new PrivilegedAction<Long>() {
+                @Override
+                public Long run() {
+                    return Long.getLong(TIMEOUT_PROPERTY, TIMEOUT_DEFAULT);
+                }
+            });
+        }
+        return timeout > 0 ? timeout : TIMEOUT_DEFAULT;
+    }
+
 }
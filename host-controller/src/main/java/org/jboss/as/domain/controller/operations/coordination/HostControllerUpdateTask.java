@@ -56,7 +56,10 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Emanuel Muckenhuber
@@ -148,10 +151,12 @@ class HostControllerUpdateTask {
     }
 
     /**
-     * The transactional operation listener.
+     * The transactional operation listener. Besides queueing the prepared operations it also queues the operations
+     * as they complete, so that the final results can be collected in the order the hosts report them.
      */
     static class ProxyOperationListener extends BlockingQueueOperationListener<ProxyOperation> {
         final boolean trace = HOST_CONTROLLER_LOGGER.isTraceEnabled();
+        private final BlockingQueue<ProxyOperation> completed = new LinkedBlockingQueue<ProxyOperation>();
 
         @Override
         public void operationPrepared(final TransactionalProtocolClient.PreparedOperation<ProxyOperation> prepared) {
@@ -166,17 +171,40 @@ class HostControllerUpdateTask {
             }
         }
 
+        @Override
+        public void operationFailed(final ProxyOperation operation, final ModelNode result) {
+            try {
+                super.operationFailed(operation, result);
+            } finally {
+                completed.offer(operation);
+            }
+        }
+
         @Override
         public void operationComplete(final ProxyOperation operation, final ModelNode result) {
             try {
                 super.operationComplete(operation, result);
             } finally {
+                completed.offer(operation);
                 if (trace) {
                     final String hostName = operation.getName();
                     HOST_CONTROLLER_LOGGER.tracef("Received final result %s from %s", result, hostName);
                 }
             }
         }
+
+        /**
+         * Retrieves and removes the next operation which completed or failed, waiting up to the specified wait time if
+         * necessary for one to complete.
+         *
+         * @param timeout the timeout
+         * @param timeUnit the time unit
+         * @return the completed operation, or {@code null} if none completed in time
+         * @throws InterruptedException
+         */
+        ProxyOperation retrieveCompletedOperation(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+            return completed.poll(timeout, timeUnit);
+        }
     }
 
     /** Checks responses from slaves for subsystem version information. TODO this is pretty hacky */
@@ -87,6 +87,7 @@ import org.jboss.as.domain.controller.descriptions.DomainDescriptionProviders;
 import org.jboss.as.domain.controller.operations.coordination.PrepareStepHandler;
 import org.jboss.as.host.controller.RemoteDomainConnectionService.RemoteFileRepository;
 import org.jboss.as.host.controller.ignored.IgnoredDomainResourceRegistry;
+import org.jboss.as.host.controller.mgmt.DomainModelJournal;
 import org.jboss.as.host.controller.mgmt.HostControllerRegistrationHandler;
 import org.jboss.as.host.controller.mgmt.MasterDomainControllerOperationHandlerService;
 import org.jboss.as.host.controller.mgmt.ServerToHostProtocolHandler;
@@ -129,6 +130,8 @@ public class DomainModelControllerService extends AbstractControllerService impl
 
     public static final ServiceName SERVICE_NAME = HostControllerService.HC_SERVICE_NAME.append("model", "controller");
 
+    private static final String DOMAIN_MODEL_JOURNAL_DIR = "domain-model-journal";
+
     private static final int PINGER_POOL_SIZE;
     static {
         int poolSize = -1;
@@ -454,7 +457,7 @@ public class DomainModelControllerService extends AbstractControllerService impl
                                         return internalExecute(operation, handler, control, attachments, step);
                                     }
 
-                                }),
+                                }, new DomainModelJournal(new File(environment.getDomainDataDir(), DOMAIN_MODEL_JOURNAL_DIR))),
                                 DomainModelControllerService.SERVICE_NAME, ManagementRemotingServices.DOMAIN_CHANNEL, null, null);
                         serverInventory = getFuture(inventoryFuture);
                     }
@@ -24,6 +24,7 @@ package org.jboss.as.host.controller;
 
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.domain.controller.SlaveRegistrationException;
+import org.jboss.as.domain.controller.operations.ApplyRemoteMasterDomainModelHandler;
 import org.jboss.as.domain.management.CallbackHandlerFactory;
 import org.jboss.as.domain.management.SecurityRealm;
 import org.jboss.as.host.controller.mgmt.DomainControllerProtocol;
@@ -102,6 +103,9 @@ class RemoteDomainConnection extends FutureManagementChannel {
     private final ExecutorService executorService;
     private final ScheduledExecutorService scheduledExecutorService;
     private final ManagementPongRequestHandler pongHandler = new ManagementPongRequestHandler();
+    /** The version of the domain model last applied, and the digest of the local domain model once it was applied */
+    private volatile String domainModelVersion;
+    private volatile String domainModelDigest;
 
     RemoteDomainConnection(final String localHostName, final ModelNode localHostInfo,
                            final ProtocolChannelClient.Configuration configuration, final SecurityRealm realm,
@@ -260,7 +264,20 @@ class RemoteDomainConnection extends FutureManagementChannel {
             return false;
         }
         final List<ModelNode> bootOperations= result.get(ModelDescriptionConstants.RESULT).asList();
-        return callback.applyDomainModel(bootOperations);
+        // Only the changes since the last applied version are sent if the removed resources are there
+        final ModelNode removedResources = result.has(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES)
+                ? result.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES) : null;
+        final String digest = callback.applyDomainModel(bootOperations, removedResources, domainModelDigest);
+        if(digest == null) {
+            // Get the complete domain model next time
+            domainModelVersion = null;
+            domainModelDigest = null;
+            return false;
+        }
+        domainModelVersion = result.hasDefined(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION)
+                ? result.get(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION).asString() : null;
+        domainModelDigest = digest;
+        return true;
     }
 
     void registered() {
@@ -286,9 +303,19 @@ class RemoteDomainConnection extends FutureManagementChannel {
          * Apply the remote domain model.
          *
          * @param result the read-domain-model operation result
-         * @return {@code true} if the model was applied successfully, {@code false} otherwise
+         * @param removedResources the resources removed since the domain model was last applied, or {@code null} if the
+         *                         result contains the complete domain model
+         * @param appliedDigest the digest of the local domain model when the domain model was last applied
+         * @return the digest of the local domain model if it was applied successfully, {@code null} otherwise
          */
-        boolean applyDomainModel(List<ModelNode> result);
+        String applyDomainModel(List<ModelNode> result, ModelNode removedResources, String appliedDigest);
+
+        /**
+         * Get the digest of the local domain model, in the form returned by {@link #applyDomainModel}.
+         *
+         * @return the digest, or {@code null} if it could not be computed
+         */
+        String getDomainModelDigest();
 
         /**
          * Event that the registration was completed.
@@ -315,6 +342,13 @@ class RemoteDomainConnection extends FutureManagementChannel {
              output.writeUTF(localHostName);
              ModelNode hostInfo = localHostInfo.clone();
              hostInfo.get(RemoteDomainConnectionService.DOMAIN_CONNECTION_ID).set(pongHandler.getConnectionId());
+             final String domainModelVersion = RemoteDomainConnection.this.domainModelVersion;
+             final String domainModelDigest = RemoteDomainConnection.this.domainModelDigest;
+             // Only ask for the changes if they can be applied on top of the local domain model, e.g. no
+             // operations were pushed to this host since the domain model was last applied
+             if(domainModelVersion != null && domainModelDigest != null && domainModelDigest.equals(callback.getDomainModelDigest())) {
+                 hostInfo.get(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION).set(domainModelVersion);
+             }
              hostInfo.writeExternal(output);
          }
 
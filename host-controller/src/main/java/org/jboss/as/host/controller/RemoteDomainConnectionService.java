@@ -37,6 +37,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PRO
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PRODUCT_VERSION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RELEASE_CODENAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RELEASE_VERSION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
 import org.jboss.as.controller.extension.ExtensionRegistry;
 import org.jboss.as.domain.controller.operations.ApplyExtensionsHandler;
@@ -116,6 +117,7 @@ import org.xnio.Options;
 public class RemoteDomainConnectionService implements MasterDomainControllerClient, Service<MasterDomainControllerClient> {
 
     public static final String DOMAIN_CONNECTION_ID = "domain-connection-id";
+    public static final String DOMAIN_MODEL_VERSION = "domain-model-version";
 
     private static final int CONNECTION_TIMEOUT_DEFAULT = 30000;
     private static final String CONNECTION_TIMEOUT_PROPERTY = "jboss.host.domain.connection.timeout";
@@ -181,6 +183,23 @@ public class RemoteDomainConnectionService implements MasterDomainControllerClie
         return service.futureClient;
     }
 
+    /**
+     * Read the digest of the local domain model, to tell whether it changed since the remote domain model was applied.
+     *
+     * @return the digest of the local domain model, or {@code null} if it could not be read
+     */
+    private String readDomainModelDigest() {
+        final ModelNode result;
+        try {
+            final ModelNode operation = APPLY_DOMAIN_MODEL.clone();
+            operation.get(ApplyRemoteMasterDomainModelHandler.DIGEST_ONLY).set(true);
+            result = controller.execute(operation, OperationMessageHandler.logging, ModelController.OperationTransactionControl.COMMIT, OperationAttachments.EMPTY);
+        } catch (Exception e) {
+            return null;
+        }
+        return SUCCESS.equals(result.get(OUTCOME).asString()) ? result.get(RESULT).asString() : null;
+    }
+
     /** {@inheritDoc} */
     public synchronized void register() throws IOException {
         boolean connected = false;
@@ -304,10 +323,15 @@ public class RemoteDomainConnectionService implements MasterDomainControllerClie
                     return resolveSubsystems(extensions.asList());
                 }
 
-                        @Override
-                public boolean applyDomainModel(final List<ModelNode> bootOperations) {
+                @Override
+                public String applyDomainModel(final List<ModelNode> bootOperations, final ModelNode removedResources, final String appliedDigest) {
                     // Apply the model..
-                    return applyRemoteDomainModel(bootOperations);
+                    return applyRemoteDomainModel(bootOperations, removedResources, appliedDigest);
+                }
+
+                @Override
+                public String getDomainModelDigest() {
+                    return readDomainModelDigest();
                 }
 
                 @Override
@@ -357,21 +381,34 @@ public class RemoteDomainConnectionService implements MasterDomainControllerClie
      * Apply the remote domain model to the local host controller.
      *
      * @param bootOperations the result of the remote read-domain-model op
-     * @return {@code true} if the model was applied successfully, {@code false} otherwise
+     * @param removedResources the resources removed since the domain model was last applied, or {@code null} if the
+     *                         result contains the complete domain model
+     * @param appliedDigest the digest of the local domain model when the domain model was last applied
+     * @return the digest of the local domain model if it was applied successfully, {@code null} otherwise
      */
-    private boolean applyRemoteDomainModel(final List<ModelNode> bootOperations) {
+    private String applyRemoteDomainModel(final List<ModelNode> bootOperations, final ModelNode removedResources, final String appliedDigest) {
         final ModelNode result;
         try {
             // Create the apply-domain-model operation
             final ModelNode operation = APPLY_DOMAIN_MODEL.clone();
             operation.get(DOMAIN_MODEL).set(bootOperations);
+            if (removedResources != null) {
+                operation.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).set(removedResources);
+                if (appliedDigest != null) {
+                    operation.get(ApplyRemoteMasterDomainModelHandler.DOMAIN_MODEL_DIGEST).set(appliedDigest);
+                }
+            }
             // Execute the operation
             result = controller.execute(operation, OperationMessageHandler.logging, ModelController.OperationTransactionControl.COMMIT, OperationAttachments.EMPTY);
         } catch (Exception e) {
-            return false;
+            return null;
         }
         // If it did not success, don't register it at the DC
-        return SUCCESS.equals(result.get(OUTCOME).asString());
+        if (!SUCCESS.equals(result.get(OUTCOME).asString())) {
+            return null;
+        }
+        ROOT_LOGGER.debugf("applied %d domain model resources, removed %d", bootOperations.size(), removedResources == null ? 0 : removedResources.asList().size());
+        return result.get(RESULT).asString();
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.host.controller.mgmt;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.domain.controller.DomainControllerLogger.ROOT_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.AccessController;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.domain.controller.operations.ApplyRemoteMasterDomainModelHandler;
+import org.jboss.as.host.controller.RemoteDomainConnectionService;
+import org.jboss.as.protocol.StreamUtils;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Bounded journal of the domain model versions the master sent to registering slave host controllers.
+ * <p/>
+ * A version is the digest of the resource descriptions a slave received, and the journal keeps a fingerprint of each of
+ * those resources. When a slave which already applied a version still known to the journal registers again, only the
+ * resources which changed since that version are sent, together with the addresses of the resources which are gone.
+ * Otherwise the complete domain model is sent. The journal is kept in a directory so that it survives a restart of the
+ * master, which is when all the slaves register again.
+ */
+public class DomainModelJournal {
+
+    private static final String MAX_VERSIONS_PROPERTY = "jboss.domain.model.journal.max-versions";
+    private static final int MAX_VERSIONS_DEFAULT = 10;
+
+    private static final String DOMAIN_RESOURCE_ADDRESS = "domain-resource-address";
+    private static final String DOMAIN_RESOURCE_MODEL = "domain-resource-model";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final File journalDir;
+    private final int maxVersions;
+    /** The fingerprints per version, {@code null} until read from the journal dir. Least recently used first. */
+    private final Map<String, Map<ModelNode, String>> versions = new LinkedHashMap<String, Map<ModelNode, String>>(16, 0.75f, true);
+
+    public DomainModelJournal(final File journalDir) {
+        this(journalDir, getSystemProperty(MAX_VERSIONS_PROPERTY, MAX_VERSIONS_DEFAULT));
+    }
+
+    DomainModelJournal(final File journalDir, final int maxVersions) {
+        this.journalDir = journalDir;
+        this.maxVersions = maxVersions;
+        final File[] files = journalDir.listFiles();
+        if (files != null) {
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File o1, File o2) {
+                    return o1.lastModified() < o2.lastModified() ? -1 : o1.lastModified() == o2.lastModified() ? 0 : 1;
+                }
+            });
+            for (final File file : files) {
+                if (file.getName().endsWith(TMP_SUFFIX)) {
+                    file.delete();
+                } else if (file.isFile()) {
+                    versions.put(file.getName(), null);
+                }
+            }
+            trim();
+        }
+    }
+
+    /**
+     * Records the domain model read for a slave and works out the part of it the slave needs.
+     *
+     * @param result the result of the read-master-domain-model operation
+     * @param appliedVersion the version the slave applied last, or {@code null} if it has none
+     * @return the response to send to the slave, with the version of the domain model
+     *         and, if it only contains the resources which changed, the {@link ApplyRemoteMasterDomainModelHandler#REMOVED_RESOURCES removed resources}
+     */
+    public ModelNode synchronize(final ModelNode result, final String appliedVersion) {
+        final List<ModelNode> resources = result.get(RESULT).asList();
+        final Map<ModelNode, String> fingerprints = new LinkedHashMap<ModelNode, String>();
+        final MessageDigest versionDigest = createDigest();
+        final MessageDigest digest = createDigest();
+        for (final ModelNode resource : resources) {
+            final ModelNode address = resource.get(DOMAIN_RESOURCE_ADDRESS);
+            final String fingerprint = fingerprint(digest, resource.get(DOMAIN_RESOURCE_MODEL));
+            fingerprints.put(address, fingerprint);
+            versionDigest.update(getBytes(address.asString()));
+            versionDigest.update(getBytes(fingerprint));
+        }
+        final String version = HashUtil.bytesToHexString(versionDigest.digest());
+
+        final Map<ModelNode, String> applied;
+        synchronized (this) {
+            applied = appliedVersion == null || appliedVersion.equals(version) ? null : getFingerprints(appliedVersion);
+            if (versions.containsKey(version)) {
+                // mark it as the most recently used
+                versions.get(version);
+            } else {
+                record(version, fingerprints);
+            }
+        }
+
+        final ModelNode response = new ModelNode();
+        for (final String key : result.keys()) {
+            if (!RESULT.equals(key)) {
+                response.get(key).set(result.get(key));
+            }
+        }
+        response.get(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION).set(version);
+        final ModelNode sent = response.get(RESULT).setEmptyList();
+        if (version.equals(appliedVersion)) {
+            response.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).setEmptyList();
+        } else if (applied == null) {
+            for (final ModelNode resource : resources) {
+                sent.add(resource);
+            }
+        } else {
+            final ModelNode removed = response.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).setEmptyList();
+            for (final ModelNode resource : resources) {
+                final ModelNode address = resource.get(DOMAIN_RESOURCE_ADDRESS);
+                if (!fingerprints.get(address).equals(applied.get(address))) {
+                    sent.add(resource);
+                }
+            }
+            for (final ModelNode address : applied.keySet()) {
+                if (!fingerprints.containsKey(address)) {
+                    removed.add(address);
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Gets the fingerprints of a version, reading them from the journal dir if needed.
+     *
+     * @return the fingerprints, or {@code null} if the version is not in the journal
+     */
+    private Map<ModelNode, String> getFingerprints(final String version) {
+        if (!versions.containsKey(version)) {
+            return null;
+        }
+        Map<ModelNode, String> fingerprints = versions.get(version);
+        if (fingerprints == null) {
+            final File file = new File(journalDir, version);
+            try {
+                fingerprints = read(file);
+                versions.put(version, fingerprints);
+            } catch (IOException e) {
+                ROOT_LOGGER.debugf(e, "failed to read domain model version %s", file);
+                versions.remove(version);
+                file.delete();
+            }
+        }
+        return fingerprints;
+    }
+
+    private void record(final String version, final Map<ModelNode, String> fingerprints) {
+        versions.put(version, fingerprints);
+        try {
+            write(new File(journalDir, version), fingerprints);
+        } catch (IOException e) {
+            ROOT_LOGGER.debugf(e, "failed to store domain model version %s", version);
+        }
+        trim();
+    }
+
+    private void trim() {
+        final Iterator<String> iterator = versions.keySet().iterator();
+        while (versions.size() > maxVersions && iterator.hasNext()) {
+            final String version = iterator.next();
+            iterator.remove();
+            new File(journalDir, version).delete();
+        }
+    }
+
+    private void write(final File file, final Map<ModelNode, String> fingerprints) throws IOException {
+        if (!journalDir.exists() && !journalDir.mkdirs()) {
+            throw new IOException(journalDir.getAbsolutePath());
+        }
+        final ModelNode node = new ModelNode().setEmptyList();
+        for (final Map.Entry<ModelNode, String> entry : fingerprints.entrySet()) {
+            final ModelNode item = node.add();
+            item.get(DOMAIN_RESOURCE_ADDRESS).set(entry.getKey());
+            item.get(FINGERPRINT).set(entry.getValue());
+        }
+        final File tmp = new File(journalDir, file.getName() + TMP_SUFFIX);
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(tmp));
+        try {
+            node.writeExternal(new DataOutputStream(os));
+            os.close();
+        } finally {
+            StreamUtils.safeClose(os);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException(file.getAbsolutePath());
+        }
+    }
+
+    private static Map<ModelNode, String> read(final File file) throws IOException {
+        final ModelNode node = new ModelNode();
+        final InputStream is = new BufferedInputStream(new FileInputStream(file));
+        try {
+            node.readExternal(new DataInputStream(is));
+        } finally {
+            StreamUtils.safeClose(is);
+        }
+        final Map<ModelNode, String> fingerprints = new LinkedHashMap<ModelNode, String>();
+        for (final ModelNode item : node.asList()) {
+            fingerprints.put(item.get(DOMAIN_RESOURCE_ADDRESS), item.get(FINGERPRINT).asString());
+        }
+        return fingerprints;
+    }
+
+    private static String fingerprint(final MessageDigest digest, final ModelNode model) {
+        final DataOutputStream os = new DataOutputStream(new DigestOutputStream(NULL_OUTPUT, digest));
+        try {
+            model.writeExternal(os);
+            os.flush();
+        } catch (IOException e) {
+            // not thrown when writing to the digest
+            throw new IllegalStateException(e);
+        }
+        return HashUtil.bytesToHexString(digest.digest());
+    }
+
+    private static byte[] getBytes(final String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int getSystemProperty(final String name, final int defaultValue) {
+        final SecurityManager sm = System.getSecurityManager();
+        if(sm == null) {
+            return Integer.getInteger(name, defaultValue);
+        } else {
+            return AccessController.doPrivileged( new PrivilegedAction<Integer>() {
+                @Override
+                public Integer run() {
+                    return Integer.getInteger(name, defaultValue);
+                }
+            });
+        }
+    }
+
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+}
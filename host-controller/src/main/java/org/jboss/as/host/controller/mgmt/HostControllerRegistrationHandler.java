@@ -31,10 +31,13 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PRO
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PRODUCT_VERSION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RELEASE_CODENAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RELEASE_VERSION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
 import static org.jboss.as.host.controller.HostControllerLogger.DOMAIN_LOGGER;
 import static org.jboss.as.process.protocol.ProtocolUtils.expectHeader;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
@@ -58,6 +61,7 @@ import org.jboss.as.controller.transform.TransformationTargetImpl;
 import org.jboss.as.controller.transform.TransformerRegistry;
 import org.jboss.as.controller.transform.Transformers;
 import org.jboss.as.domain.controller.DomainController;
+import org.jboss.as.domain.controller.DomainControllerLogger;
 import org.jboss.as.domain.controller.DomainControllerMessages;
 import org.jboss.as.domain.controller.SlaveRegistrationException;
 import org.jboss.as.domain.controller.operations.ReadMasterDomainModelHandler;
@@ -100,12 +104,14 @@ public class HostControllerRegistrationHandler implements ManagementRequestHandl
     private final OperationExecutor operationExecutor;
     private final DomainController domainController;
     private final Executor registrations;
+    private final DomainModelJournal domainModelJournal;
 
-    public HostControllerRegistrationHandler(ManagementChannelHandler handler, DomainController domainController, OperationExecutor operationExecutor, Executor registrations) {
+    public HostControllerRegistrationHandler(ManagementChannelHandler handler, DomainController domainController, OperationExecutor operationExecutor, Executor registrations, DomainModelJournal domainModelJournal) {
         this.handler = handler;
         this.operationExecutor = operationExecutor;
         this.domainController = domainController;
         this.registrations = registrations;
+        this.domainModelJournal = domainModelJournal;
     }
 
     @Override
@@ -411,11 +417,27 @@ public class HostControllerRegistrationHandler implements ManagementRequestHandl
          * @throws SlaveRegistrationException
          */
         void registerHost(final ModelController.OperationTransaction transaction, final ModelNode result) throws SlaveRegistrationException {
-            //
+            // Only send what changed since the domain model the host applied last, if that is known
+            final ModelNode response;
+            if(result.hasDefined(RESULT)) {
+                final String appliedVersion = hostInfo.hasDefined(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION)
+                        ? hostInfo.get(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION).asString() : null;
+                response = domainModelJournal.synchronize(result, appliedVersion);
+            } else {
+                response = result;
+            }
+            final byte[] bytes;
+            try {
+                final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                response.writeExternal(new DataOutputStream(os));
+                bytes = os.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
             final Boolean registered = executeBlocking(new IOTask<Boolean>() {
                 @Override
                 void sendMessage(final FlushableDataOutput output) throws IOException {
-                    sendResponse(output, DomainControllerProtocol.PARAM_OK, result);
+                    sendResponse(output, DomainControllerProtocol.PARAM_OK, bytes);
                 }
             });
             if(! registered) {
@@ -446,6 +468,9 @@ public class HostControllerRegistrationHandler implements ManagementRequestHandl
                 String version2 = hostInfo.get(RELEASE_CODENAME).asString();
                 productName = ProductConfig.getPrettyVersionString(null, version1, version2);
             }
+            if(response.hasDefined(RESULT)) {
+                DomainControllerLogger.ROOT_LOGGER.sentDomainModel(response.get(RESULT).asList().size(), result.get(RESULT).asList().size(), hostName, bytes.length);
+            }
             DOMAIN_LOGGER.registeredRemoteSlaveHost(hostName, productName);
         }
 
@@ -589,6 +614,16 @@ public class HostControllerRegistrationHandler implements ManagementRequestHandl
         output.close();
     }
 
+    static void sendResponse(final FlushableDataOutput output, final byte responseType, final byte[] response) throws IOException {
+        // response type
+        output.writeByte(responseType);
+        // the already written operation result
+        output.write(response);
+        // response end
+        output.writeByte(ManagementProtocol.RESPONSE_END);
+        output.close();
+    }
+
     /**
      * Send a failed operation response.
      *
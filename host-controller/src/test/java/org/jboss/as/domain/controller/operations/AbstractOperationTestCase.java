@@ -167,6 +167,8 @@ public abstract class AbstractOperationTestCase {
         private final PathAddress operationAddress;
         private Set<PathAddress> expectedSteps = new HashSet<PathAddress>();
         private final Map<AttachmentKey<?>, Object> valueAttachments = new HashMap<AttachmentKey<?>, Object>();
+        private final ModelNode result = new ModelNode();
+        private final ModelNode responseHeaders = new ModelNode();
 
 
         private MockOperationContext(final Resource root, final boolean booting, final PathAddress operationAddress) {
@@ -221,7 +223,7 @@ public abstract class AbstractOperationTestCase {
         }
 
         public ModelNode getResult() {
-            return null;
+            return result;
         }
 
         public boolean hasResult() {
@@ -250,7 +252,7 @@ public abstract class AbstractOperationTestCase {
         }
 
         public ModelNode getResponseHeaders() {
-            return null;
+            return responseHeaders;
         }
 
         @Override
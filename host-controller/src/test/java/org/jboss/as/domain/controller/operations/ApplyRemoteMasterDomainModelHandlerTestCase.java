@@ -22,6 +22,7 @@
 
 package org.jboss.as.domain.controller.operations;
 
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DOMAIN_MODEL;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.EXTENSION;
@@ -38,6 +39,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SOC
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SYSTEM_PROPERTY;
 
 import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.ProcessType;
@@ -490,4 +492,47 @@ public class ApplyRemoteMasterDomainModelHandlerTestCase extends AbstractOperati
         assertTrue(r instanceof ManagedDMRContentTypeResource);
     }
 
+    @Test
+    public void testDelta() throws Exception {
+        final ModelNode operation = new ModelNode();
+        operation.get(DOMAIN_MODEL).add(createPathDescription("some-path"));
+        operation.get(DOMAIN_MODEL).add(createPathDescription("other-path"));
+        final MockOperationContext operationContext = getOperationContext(true);
+        handler.execute(operationContext, operation);
+        final String digest = operationContext.getResult().asString();
+
+        final ModelNode delta = new ModelNode();
+        delta.get(DOMAIN_MODEL).add(createPathDescription("new-path"));
+        delta.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).add(PathAddress.pathAddress(PathElement.pathElement(PATH, "some-path")).toModelNode());
+        delta.get(ApplyRemoteMasterDomainModelHandler.DOMAIN_MODEL_DIGEST).set(digest);
+        handler.execute(operationContext, delta);
+        assertFalse(operationContext.root.hasChild(PathElement.pathElement(PATH, "some-path")));
+        assertTrue(operationContext.root.hasChild(PathElement.pathElement(PATH, "other-path")));
+        assertTrue(operationContext.root.hasChild(PathElement.pathElement(PATH, "new-path")));
+        assertFalse(digest.equals(operationContext.getResult().asString()));
+    }
+
+    @Test(expected = OperationFailedException.class)
+    public void testDeltaLocalModelChanged() throws Exception {
+        final ModelNode operation = new ModelNode();
+        operation.get(DOMAIN_MODEL).add(createPathDescription("some-path"));
+        final MockOperationContext operationContext = getOperationContext(true);
+        handler.execute(operationContext, operation);
+        final String digest = operationContext.getResult().asString();
+
+        operationContext.root.registerChild(PathElement.pathElement(PATH, "other-path"), Resource.Factory.create());
+        final ModelNode delta = new ModelNode();
+        delta.get(DOMAIN_MODEL).setEmptyList();
+        delta.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).setEmptyList();
+        delta.get(ApplyRemoteMasterDomainModelHandler.DOMAIN_MODEL_DIGEST).set(digest);
+        handler.execute(operationContext, delta);
+    }
+
+    private static ModelNode createPathDescription(final String name) {
+        final ModelNode description = new ModelNode();
+        description.get("domain-resource-address").set(PathAddress.pathAddress(PathElement.pathElement(PATH, name)).toModelNode());
+        description.get("domain-resource-model", PATH).set(name);
+        return description;
+    }
+
 }
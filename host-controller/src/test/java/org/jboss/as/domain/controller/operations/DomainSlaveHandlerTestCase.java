@@ -0,0 +1,327 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.domain.controller.operations;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CANCELLED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HOST;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.ProxyController;
+import org.jboss.as.controller.TransformingProxyController;
+import org.jboss.as.controller.client.OperationAttachments;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.remote.TransactionalProtocolClient;
+import org.jboss.as.controller.transform.OperationResultTransformer;
+import org.jboss.as.controller.transform.OperationTransformer;
+import org.jboss.as.controller.transform.Transformers;
+import org.jboss.as.domain.controller.operations.coordination.DomainOperationContext;
+import org.jboss.as.domain.controller.operations.coordination.DomainSlaveHandler;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
+import org.jboss.threads.JBossExecutors;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests how {@link DomainSlaveHandler} deals with slave hosts which fail or do not prepare in time.
+ */
+public class DomainSlaveHandlerTestCase extends AbstractOperationTestCase {
+
+    private static final String TIMEOUT_PROPERTY = "jboss.as.domain.host.operation.timeout";
+    private static final long TIMEOUT = 1000;
+    /** The timeout awaiting the answer of the hosts to the cancellation is capped by the regular one */
+    private static final long CANCEL_TIMEOUT = TIMEOUT;
+
+    private static ScheduledExecutorService executor;
+
+    @BeforeClass
+    public static void setTimeout() {
+        // read once, when DomainSlaveHandler gets initialized
+        System.setProperty(TIMEOUT_PROPERTY, String.valueOf(TIMEOUT));
+        executor = Executors.newScheduledThreadPool(2);
+    }
+
+    @AfterClass
+    public static void clearTimeout() {
+        System.clearProperty(TIMEOUT_PROPERTY);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        final MockHost failing = new MockHost("failing", 0, true, true);
+        final MockHost cancellable = new MockHost("cancellable", -1, false, true);
+        final MockHost late = new MockHost("late", TIMEOUT / 4, false, false);
+        final DomainOperationContext domainOperationContext = new DomainOperationContext(HOST_INFO);
+
+        final long elapsed = execute(domainOperationContext, failing, cancellable, late);
+
+        // the hosts still preparing were cancelled, without waiting for the timeout
+        assertTrue(elapsed < TIMEOUT);
+        assertTrue(cancellable.cancelled);
+        assertTrue(late.cancelled);
+        // and the one which prepared anyway was rolled back
+        assertTrue(late.rolledBack);
+        assertFalse(late.committed);
+
+        final Map<String, ModelNode> results = domainOperationContext.getHostControllerResults();
+        assertEquals(FAILED, results.get("failing").get(OUTCOME).asString());
+        assertEquals(FAILED, results.get("cancellable").get(OUTCOME).asString());
+    }
+
+    @Test
+    public void testTimeoutRollsBackLateHost() throws Exception {
+        final MockHost prepared = new MockHost("prepared", 0, false, false);
+        final MockHost late = new MockHost("late", TIMEOUT + CANCEL_TIMEOUT / 4, false, false);
+        final DomainOperationContext domainOperationContext = new DomainOperationContext(HOST_INFO);
+
+        final long elapsed = execute(domainOperationContext, prepared, late);
+
+        assertTrue(elapsed >= TIMEOUT);
+        assertTrue(elapsed < TIMEOUT + CANCEL_TIMEOUT);
+        assertTrue(late.cancelled);
+        // the late host prepared after the timeout, it must not be left prepared
+        assertTrue(late.rolledBack);
+        assertFalse(late.committed);
+        assertTrue(prepared.rolledBack);
+
+        // its result remains the timeout, not the result of the rollback
+        final ModelNode result = domainOperationContext.getHostControllerResults().get("late");
+        assertEquals(FAILED, result.get(OUTCOME).asString());
+        assertTrue(result.get(FAILURE_DESCRIPTION).asString().contains("10879"));
+    }
+
+    @Test
+    public void testTimeoutWithoutAnswer() throws Exception {
+        final MockHost prepared = new MockHost("prepared", 0, false, false);
+        final MockHost silent = new MockHost("silent", -1, false, false);
+        final DomainOperationContext domainOperationContext = new DomainOperationContext(HOST_INFO);
+
+        final long elapsed = execute(domainOperationContext, prepared, silent);
+
+        // the wait for the host is bounded, even if it does not answer the cancellation
+        assertTrue(elapsed >= TIMEOUT + CANCEL_TIMEOUT);
+        assertTrue(elapsed < 2 * (TIMEOUT + CANCEL_TIMEOUT));
+        assertTrue(silent.cancelled);
+        assertTrue(prepared.rolledBack);
+
+        final ModelNode result = domainOperationContext.getHostControllerResults().get("silent");
+        assertEquals(FAILED, result.get(OUTCOME).asString());
+    }
+
+    private long execute(final DomainOperationContext domainOperationContext, final MockHost... hosts) throws OperationFailedException {
+        final Map<String, ProxyController> hostProxies = new HashMap<String, ProxyController>();
+        for (MockHost host : hosts) {
+            hostProxies.put(host.name, host);
+        }
+        final long start = System.currentTimeMillis();
+        new DomainSlaveHandler(hostProxies, domainOperationContext).execute(getOperationContext(), new ModelNode());
+        return System.currentTimeMillis() - start;
+    }
+
+    private static ModelNode createResult(final String outcome) {
+        final ModelNode result = new ModelNode();
+        result.get(OUTCOME).set(outcome);
+        if (SUCCESS.equals(outcome)) {
+            result.get(RESULT);
+        } else {
+            result.get(FAILURE_DESCRIPTION).set(outcome);
+        }
+        return result;
+    }
+
+    /**
+     * A slave host which prepares the operation after a delay, or never if the delay is negative.
+     */
+    private static class MockHost implements TransformingProxyController, TransactionalProtocolClient {
+
+        private final String name;
+        private final long prepareDelay;
+        private final boolean fail;
+        private final boolean honourCancel;
+        private volatile boolean cancelled;
+        private volatile boolean committed;
+        private volatile boolean rolledBack;
+
+        MockHost(final String name, final long prepareDelay, final boolean fail, final boolean honourCancel) {
+            this.name = name;
+            this.prepareDelay = prepareDelay;
+            this.fail = fail;
+            this.honourCancel = honourCancel;
+        }
+
+        @Override
+        public TransactionalProtocolClient getProtocolClient() {
+            return this;
+        }
+
+        @Override
+        public Transformers getTransformers() {
+            return null;
+        }
+
+        @Override
+        public OperationTransformer.TransformedOperation transformOperation(final OperationContext context, final ModelNode operation) {
+            return new OperationTransformer.TransformedOperation(operation, OperationResultTransformer.ORIGINAL_RESULT);
+        }
+
+        @Override
+        public PathAddress getProxyNodeAddress() {
+            return PathAddress.pathAddress(PathElement.pathElement(HOST, name));
+        }
+
+        @Override
+        public void execute(final ModelNode operation, final OperationMessageHandler handler, final ProxyOperationControl control, final OperationAttachments attachments) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AsyncFuture<ModelNode> execute(final TransactionalOperationListener<Operation> listener, final ModelNode operation, final OperationMessageHandler messageHandler, final OperationAttachments attachments) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Operation> AsyncFuture<ModelNode> execute(final TransactionalOperationListener<T> listener, final T operation) throws IOException {
+            final HostRequest<T> request = new HostRequest<T>(listener, operation);
+            if (prepareDelay >= 0) {
+                executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        request.prepare();
+                    }
+                }, prepareDelay, TimeUnit.MILLISECONDS);
+            }
+            return request;
+        }
+
+        private class HostRequest<T extends Operation> extends AsyncFutureTask<ModelNode> {
+
+            private final TransactionalOperationListener<T> listener;
+            private final T operation;
+            private final AtomicBoolean answered = new AtomicBoolean();
+
+            HostRequest(final TransactionalOperationListener<T> listener, final T operation) {
+                super(JBossExecutors.directExecutor());
+                this.listener = listener;
+                this.operation = operation;
+            }
+
+            void prepare() {
+                if (!answered.compareAndSet(false, true)) {
+                    return;
+                }
+                if (fail) {
+                    final ModelNode result = createResult(FAILED);
+                    listener.operationFailed(operation, result);
+                    setResult(result);
+                } else {
+                    listener.operationPrepared(new HostTransaction<T>(this));
+                }
+            }
+
+            void complete(final ModelNode result) {
+                listener.operationComplete(operation, result);
+                setResult(result);
+            }
+
+            @Override
+            public void asyncCancel(final boolean interruptionDesired) {
+                cancelled = true;
+                if (honourCancel && answered.compareAndSet(false, true)) {
+                    listener.operationFailed(operation, createResult(CANCELLED));
+                    setCancelled();
+                }
+            }
+        }
+
+        private class HostTransaction<T extends Operation> implements PreparedOperation<T> {
+
+            private final HostRequest<T> request;
+            private volatile boolean done;
+
+            HostTransaction(final HostRequest<T> request) {
+                this.request = request;
+            }
+
+            @Override
+            public T getOperation() {
+                return request.operation;
+            }
+
+            @Override
+            public ModelNode getPreparedResult() {
+                return createResult(SUCCESS);
+            }
+
+            @Override
+            public boolean isFailed() {
+                return false;
+            }
+
+            @Override
+            public boolean isDone() {
+                return done;
+            }
+
+            @Override
+            public AsyncFuture<ModelNode> getFinalResult() {
+                return request;
+            }
+
+            @Override
+            public void commit() {
+                committed = true;
+                done = true;
+                request.complete(createResult(SUCCESS));
+            }
+
+            @Override
+            public void rollback() {
+                rolledBack = true;
+                done = true;
+                request.complete(createResult(CANCELLED));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.host.controller.mgmt;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SYSTEM_PROPERTY;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.domain.controller.operations.ApplyRemoteMasterDomainModelHandler;
+import org.jboss.as.host.controller.RemoteDomainConnectionService;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the domain model versions sent to registering slaves by the {@link DomainModelJournal}.
+ */
+public class DomainModelJournalTestCase {
+
+    private File journalDir;
+
+    @Before
+    public void createJournalDir() throws IOException {
+        journalDir = File.createTempFile("domain-model-journal", null);
+        journalDir.delete();
+    }
+
+    @After
+    public void deleteJournalDir() {
+        final File[] files = journalDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        journalDir.delete();
+    }
+
+    @Test
+    public void testFullWithoutVersion() {
+        final DomainModelJournal journal = new DomainModelJournal(journalDir, 2);
+        final ModelNode response = journal.synchronize(createResult("one", "two"), null);
+        Assert.assertEquals(SUCCESS, response.get(OUTCOME).asString());
+        Assert.assertTrue(response.hasDefined(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION));
+        Assert.assertFalse(response.has(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES));
+        Assert.assertEquals(3, response.get(RESULT).asList().size());
+    }
+
+    @Test
+    public void testUnchanged() {
+        final DomainModelJournal journal = new DomainModelJournal(journalDir, 2);
+        final String version = getVersion(journal.synchronize(createResult("one", "two"), null));
+        final ModelNode response = journal.synchronize(createResult("one", "two"), version);
+        Assert.assertEquals(version, getVersion(response));
+        Assert.assertEquals(0, response.get(RESULT).asList().size());
+        Assert.assertEquals(0, response.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).asList().size());
+    }
+
+    @Test
+    public void testDelta() {
+        final DomainModelJournal journal = new DomainModelJournal(journalDir, 2);
+        final String version = getVersion(journal.synchronize(createResult("one", "two", "three"), null));
+        final ModelNode result = createResult("one", "three", "four");
+        result.get(RESULT).get(2).get("domain-resource-model", VALUE).set("changed");
+        final ModelNode response = journal.synchronize(result, version);
+        Assert.assertFalse(version.equals(getVersion(response)));
+        Assert.assertEquals(2, response.get(RESULT).asList().size());
+        Assert.assertEquals(result.get(RESULT).get(2), response.get(RESULT).get(0));
+        Assert.assertEquals(result.get(RESULT).get(3), response.get(RESULT).get(1));
+        Assert.assertEquals(1, response.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).asList().size());
+        Assert.assertEquals(createAddress("two"), response.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).get(0));
+    }
+
+    @Test
+    public void testJournalExceeded() {
+        final DomainModelJournal journal = new DomainModelJournal(journalDir, 2);
+        final String version = getVersion(journal.synchronize(createResult("one"), null));
+        journal.synchronize(createResult("two"), null);
+        journal.synchronize(createResult("three"), null);
+        Assert.assertEquals(2, journalDir.listFiles().length);
+        final ModelNode response = journal.synchronize(createResult("one", "four"), version);
+        Assert.assertFalse(response.has(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES));
+        Assert.assertEquals(3, response.get(RESULT).asList().size());
+    }
+
+    @Test
+    public void testUnknownVersion() {
+        final DomainModelJournal journal = new DomainModelJournal(journalDir, 2);
+        final ModelNode response = journal.synchronize(createResult("one"), "unknown");
+        Assert.assertFalse(response.has(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES));
+        Assert.assertEquals(2, response.get(RESULT).asList().size());
+    }
+
+    @Test
+    public void testRestart() {
+        final String version = getVersion(new DomainModelJournal(journalDir, 2).synchronize(createResult("one", "two"), null));
+        final DomainModelJournal journal = new DomainModelJournal(journalDir, 2);
+        final ModelNode response = journal.synchronize(createResult("one", "three"), version);
+        Assert.assertEquals(1, response.get(RESULT).asList().size());
+        Assert.assertEquals(createAddress("two"), response.get(ApplyRemoteMasterDomainModelHandler.REMOVED_RESOURCES).get(0));
+    }
+
+    private static String getVersion(final ModelNode response) {
+        return response.get(RemoteDomainConnectionService.DOMAIN_MODEL_VERSION).asString();
+    }
+
+    private static ModelNode createResult(final String... properties) {
+        final ModelNode result = new ModelNode();
+        result.get(OUTCOME).set(SUCCESS);
+        final ModelNode resources = result.get(RESULT).setEmptyList();
+        final ModelNode root = resources.add();
+        root.get("domain-resource-address").setEmptyList();
+        root.get("domain-resource-model", NAME).set("domain");
+        for (String property : properties) {
+            final ModelNode resource = resources.add();
+            resource.get("domain-resource-address").set(createAddress(property));
+            resource.get("domain-resource-model", VALUE).set(property);
+        }
+        return result;
+    }
+
+    private static ModelNode createAddress(final String property) {
+        return PathAddress.pathAddress(PathElement.pathElement(SYSTEM_PROPERTY, property)).toModelNode();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+* JBoss, Home of Professional Open Source.
+* Copyright 2012, Red Hat Middleware LLC, and individual contributors
+* as indicated by the @author tags. See the copyright.txt file in the
+* distribution for a full listing of individual contributors.
+*
+* This is free software; you can redistribute it and/or modify it
+* under the terms of the GNU Lesser General Public License as
+* published by the Free Software Foundation; either version 2.1 of
+* the License, or (at your option) any later version.
+*
+* This software is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this software; if not, write to the Free
+* Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+* 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+*/
+package org.jboss.as.jmx.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
+import org.jboss.as.controller.registry.OperationEntry;
+
+/**
+ * Caches the {@link MBeanInfo}s created by the {@link MBeanInfoFactory}, per resource registration.
+ * <p/>
+ * Creating an {@link MBeanInfo} reads the descriptions of the resource and of all its operations. The infos cached for
+ * a registration are dropped as soon as the attributes, operations or child types registered for it are not the ones
+ * the infos were created from.
+ */
+class MBeanInfoCache {
+
+    private final TypeConverters converters;
+    private final ConfiguredDomains configuredDomains;
+    private final boolean standalone;
+
+    private final ConcurrentMap<ImmutableManagementResourceRegistration, Entry> entries = new ConcurrentHashMap<ImmutableManagementResourceRegistration, Entry>();
+
+    MBeanInfoCache(final TypeConverters converters, final ConfiguredDomains configuredDomains, final boolean standalone) {
+        this.converters = converters;
+        this.configuredDomains = configuredDomains;
+        this.standalone = standalone;
+    }
+
+    MBeanInfo getMBeanInfo(final ObjectName name, final PathAddress address, final ImmutableManagementResourceRegistration registration) throws InstanceNotFoundException {
+        final RegistrationState state = new RegistrationState(registration);
+        Entry entry = entries.get(registration);
+        if (entry == null || !entry.state.equals(state)) {
+            entry = new Entry(state);
+            entries.put(registration, entry);
+        }
+        MBeanInfo info = entry.infos.get(name);
+        if (info == null) {
+            info = MBeanInfoFactory.createMBeanInfo(name, converters, configuredDomains, standalone, address, registration);
+            entry.infos.put(name, info);
+        }
+        return info;
+    }
+
+    /**
+     * Drops the infos of the MBeans which are no longer there.
+     *
+     * @param names the names of all the MBeans there are
+     */
+    void retainAll(final Collection<ObjectName> names) {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            entry.infos.keySet().retainAll(names);
+            if (entry.infos.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final RegistrationState state;
+        private final ConcurrentMap<ObjectName, MBeanInfo> infos = new ConcurrentHashMap<ObjectName, MBeanInfo>();
+
+        Entry(final RegistrationState state) {
+            this.state = state;
+        }
+    }
+
+    /**
+     * What the {@link MBeanInfo} of a registration is created from. The entries and accesses are compared by identity,
+     * so that replacing an operation handler or an attribute counts as a change.
+     */
+    private static class RegistrationState {
+        private final Map<String, OperationEntry> operations;
+        private final Map<String, AttributeAccess> attributes = new HashMap<String, AttributeAccess>();
+        private final Set<PathElement> children;
+
+        RegistrationState(final ImmutableManagementResourceRegistration registration) {
+            operations = registration.getOperationDescriptions(PathAddress.EMPTY_ADDRESS, false);
+            for (String attribute : registration.getAttributeNames(PathAddress.EMPTY_ADDRESS)) {
+                attributes.put(attribute, registration.getAttributeAccess(PathAddress.EMPTY_ADDRESS, attribute));
+            }
+            children = registration.getChildAddresses(PathAddress.EMPTY_ADDRESS);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RegistrationState)) {
+                return false;
+            }
+            final RegistrationState other = (RegistrationState) obj;
+            return operations.equals(other.operations) && attributes.equals(other.attributes) && children.equals(other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return operations.hashCode();
+        }
+    }
+}
@@ -23,14 +23,18 @@ package org.jboss.as.jmx.model;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REPLY_PROPERTIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REQUEST_PROPERTIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.WRITE_ATTRIBUTE_OPERATION;
 import static org.jboss.as.jmx.JmxMessages.MESSAGES;
@@ -60,6 +64,7 @@ import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.descriptions.DescriptionProvider;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.jmx.model.ChildAddOperationFinder.ChildAddOperationEntry;
 import org.jboss.as.jmx.model.RootResourceIterator.ResourceAction;
 import org.jboss.as.server.operations.RootResourceHack;
@@ -80,6 +85,7 @@ public class ModelControllerMBeanHelper {
     private final TypeConverters converters;
     private final ConfiguredDomains configuredDomains;
     private final String domain;
+    private final MBeanInfoCache mbeanInfoCache;
 
     ModelControllerMBeanHelper(TypeConverters converters, ConfiguredDomains configuredDomains, String domain, ModelController controller) {
         this.converters = converters;
@@ -97,6 +103,7 @@ public class ModelControllerMBeanHelper {
             throw new IllegalStateException(error);
         }
         standalone = result.require(RESULT).asString().equals("STANDALONE");
+        mbeanInfoCache = new MBeanInfoCache(converters, configuredDomains, standalone);
     }
 
     int getMBeanCount() {
@@ -117,31 +124,23 @@ public class ModelControllerMBeanHelper {
     }
 
     Set<ObjectInstance> queryMBeans(final ObjectName name, final QueryExp query) {
-        return new RootResourceIterator<Set<ObjectInstance>>(getRootResourceAndRegistration().getResource(), new ResourceAction<Set<ObjectInstance>>() {
-            Set<ObjectInstance> set = new HashSet<ObjectInstance>();
-
-            @Override
-            public boolean onResource(PathAddress address) {
-                if (isExcludeAddress(address)) {
-                    return false;
-                }
-                ObjectName resourceName = ObjectNameAddressUtil.createObjectName(domain, address);
-                if (name == null || name.apply(resourceName)) {
-                    //TODO check query
-                    set.add(new ObjectInstance(resourceName, CLASS_NAME));
-                }
-                return true;
-            }
-
-            @Override
-            public Set<ObjectInstance> getResult() {
-                return set;
-            }
-        }).iterate();
+        Set<ObjectInstance> set = new HashSet<ObjectInstance>();
+        for (ObjectName resourceName : queryNames(name, query)) {
+            set.add(new ObjectInstance(resourceName, CLASS_NAME));
+        }
+        return set;
     }
 
     Set<ObjectName> queryNames(final ObjectName name, final QueryExp query) {
-        return new RootResourceIterator<Set<ObjectName>>(getRootResourceAndRegistration().getResource(), new ResourceAction<Set<ObjectName>>() {
+        final ObjectNamePattern pattern = new ObjectNamePattern(domain, name);
+        if (!pattern.matchesDomain()) {
+            return new HashSet<ObjectName>();
+        }
+        final Resource rootResource = getRootResourceAndRegistration().getResource();
+        if (pattern.isName()) {
+            return queryName(rootResource, name);
+        }
+        final Set<ObjectName> names = new RootResourceIterator<Set<ObjectName>>(rootResource, new ResourceAction<Set<ObjectName>>() {
             Set<ObjectName> set = new HashSet<ObjectName>();
 
             @Override
@@ -149,10 +148,15 @@ public class ModelControllerMBeanHelper {
                 if (isExcludeAddress(address)) {
                     return false;
                 }
-                ObjectName resourceName = ObjectNameAddressUtil.createObjectName(domain, address);
-                if (name == null || name.apply(resourceName)) {
-                    //TODO check query
-                    set.add(resourceName);
+                if (address.size() > 0 && pattern.excludes(address)) {
+                    return false;
+                }
+                if (pattern.mayMatch(address)) {
+                    ObjectName resourceName = ObjectNameAddressUtil.createObjectName(domain, address);
+                    if (pattern.matches(resourceName)) {
+                        //TODO check query
+                        set.add(resourceName);
+                    }
                 }
                 return true;
             }
@@ -162,8 +166,35 @@ public class ModelControllerMBeanHelper {
                 return set;
             }
         }).iterate();
+        if (name == null) {
+            // all the MBeans were found, so forget the infos of the ones that went away
+            mbeanInfoCache.retainAll(names);
+        }
+        return names;
     }
 
+    /**
+     * Resolves a plain ObjectName directly, instead of creating the ObjectNames of all the resources to compare them
+     */
+    private Set<ObjectName> queryName(final Resource rootResource, final ObjectName name) {
+        final Set<ObjectName> set = new HashSet<ObjectName>();
+        final PathAddress address = ObjectNameAddressUtil.resolvePathAddress(domain, rootResource, name);
+        if (address == null) {
+            return set;
+        }
+        for (int i = 1; i <= address.size(); i++) {
+            if (isExcludeAddress(address.subAddress(0, i))) {
+                return set;
+            }
+        }
+        // the name could still use another quoting or escaping than the name of the resource
+        final ObjectName resourceName = ObjectNameAddressUtil.createObjectName(domain, address);
+        if (resourceName.equals(name)) {
+            //TODO check query
+            set.add(resourceName);
+        }
+        return set;
+    }
 
     PathAddress resolvePathAddress(final ObjectName name) {
         return ObjectNameAddressUtil.resolvePathAddress(domain, getRootResourceAndRegistration().getResource(), name);
@@ -177,7 +208,7 @@ public class ModelControllerMBeanHelper {
             throw createInstanceNotFoundException(name);
         }
 
-        return MBeanInfoFactory.createMBeanInfo(name, converters, configuredDomains, standalone, address, getMBeanRegistration(address, reg));
+        return mbeanInfoCache.getMBeanInfo(name, address, getMBeanRegistration(address, reg));
     }
 
     Object getAttribute(final ObjectName name, final String attribute)  throws AttributeNotFoundException, InstanceNotFoundException, ReflectionException {
@@ -195,14 +226,53 @@ public class ModelControllerMBeanHelper {
         if (address == null) {
             throw createInstanceNotFoundException(name);
         }
-        AttributeList list = new AttributeList();
-        for (String attribute : attributes) {
+        final ImmutableManagementResourceRegistration registration = getMBeanRegistration(address, reg);
+        final DescriptionProvider provider = registration.getModelDescription(PathAddress.EMPTY_ADDRESS);
+        if (provider == null) {
+            throw MESSAGES.descriptionProviderNotFound(address);
+        }
+        final ModelNode description = provider.getModelDescription(null);
+        final String[] attributeNames = new String[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
             try {
-                list.add(new Attribute(attribute, getAttribute(reg, address, name, attribute)));
+                attributeNames[i] = findAttributeName(description.get(ATTRIBUTES), attributes[i]);
             } catch (AttributeNotFoundException e) {
                 throw new ReflectionException(e);
             }
         }
+
+        //Read all the attributes with a single composite operation, rather than one operation each
+        ModelNode steps = null;
+        if (attributes.length > 1) {
+            ModelNode op = new ModelNode();
+            op.get(OP).set(COMPOSITE);
+            op.get(OP_ADDR).setEmptyList();
+            for (String attributeName : attributeNames) {
+                ModelNode step = op.get(STEPS).add();
+                step.get(OP).set(READ_ATTRIBUTE_OPERATION);
+                step.get(OP_ADDR).set(address.toModelNode());
+                step.get(NAME).set(attributeName);
+            }
+            steps = execute(op).get(RESULT);
+        }
+
+        AttributeList list = new AttributeList();
+        for (int i = 0; i < attributes.length; i++) {
+            final String stepName = "step-" + (i + 1);
+            final ModelNode step = steps != null && steps.has(stepName) ? steps.get(stepName) : null;
+            final Object value;
+            if (step != null && SUCCESS.equals(step.get(OUTCOME).asString())) {
+                value = converters.fromModelNode(description.require(ATTRIBUTES).require(attributeNames[i]), step.get(RESULT));
+            } else {
+                //The composite failed, so read the attribute on its own to report its own failure
+                try {
+                    value = getAttribute(reg, address, name, attributes[i]);
+                } catch (AttributeNotFoundException e) {
+                    throw new ReflectionException(e);
+                }
+            }
+            list.add(new Attribute(attributes[i], value));
+        }
         return list;
     }
 
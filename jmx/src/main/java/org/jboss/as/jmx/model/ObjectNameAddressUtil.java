@@ -122,6 +122,24 @@ class ObjectNameAddressUtil {
         return null;
     }
 
+    /**
+     * Escapes a path element key the way it appears in the key property list of an ObjectName.
+     */
+    static String escapeKey(final String key) {
+        final StringBuilder sb = new StringBuilder();
+        escapeKey(ESCAPED_KEY_CHARACTERS, sb, key);
+        return sb.toString();
+    }
+
+    /**
+     * Escapes a path element value the way it appears in the key property list of an ObjectName.
+     */
+    static String escapeValue(final String value) {
+        final StringBuilder sb = new StringBuilder();
+        escapeValue(sb, value);
+        return sb.toString();
+    }
+
     private static void escapeKey(EscapedCharacter[] escapedCharacters, StringBuilder sb, String value) {
         for (EscapedCharacter escapedCharacter : escapedCharacters) {
             value = value.replace(escapedCharacter.getChar().toString(), escapedCharacter.getEscaped());
@@ -0,0 +1,145 @@
+/*
+* JBoss, Home of Professional Open Source.
+* Copyright 2012, Red Hat Middleware LLC, and individual contributors
+* as indicated by the @author tags. See the copyright.txt file in the
+* distribution for a full listing of individual contributors.
+*
+* This is free software; you can redistribute it and/or modify it
+* under the terms of the GNU Lesser General Public License as
+* published by the Free Software Foundation; either version 2.1 of
+* the License, or (at your option) any later version.
+*
+* This software is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this software; if not, write to the Free
+* Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+* 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+*/
+package org.jboss.as.jmx.model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+
+/**
+ * The ObjectName pattern of a query, indexed by key property so that a query only needs to visit the parts of the
+ * model which may contain matching resources.
+ * <p/>
+ * Each element of a resource address becomes a key property of its ObjectName, and the ObjectNames of all the
+ * resources below it contain that property too. So if the pattern has a fixed value for that key, or if it does not
+ * allow that key at all, no resource at or below that address can match.
+ */
+class ObjectNamePattern {
+
+    private final ObjectName pattern;
+    private final boolean matchesDomain;
+
+    /**
+     * The key properties of the pattern which have a fixed value, escaped as in an ObjectName
+     */
+    private final Map<String, String> fixedProperties = new HashMap<String, String>();
+
+    /**
+     * The keys of the pattern, or {@code null} if the pattern is a property list pattern which allows other keys
+     */
+    private final Set<String> keys;
+
+    /**
+     * The number of key properties a matching name has at least
+     */
+    private final int minKeys;
+
+    /**
+     * Creates a pattern
+     *
+     * @param domain the domain of the model MBeans
+     * @param pattern the ObjectName or ObjectName pattern to look for, or {@code null} to match all names
+     */
+    ObjectNamePattern(final String domain, final ObjectName pattern) {
+        this.pattern = pattern;
+        if (pattern == null) {
+            matchesDomain = true;
+            keys = null;
+            minKeys = 0;
+            return;
+        }
+        matchesDomain = pattern.isDomainPattern() ? matchesDomain(pattern, domain) : pattern.getDomain().equals(domain);
+        for (Map.Entry<String, String> property : pattern.getKeyPropertyList().entrySet()) {
+            if (!pattern.isPropertyValuePattern(property.getKey())) {
+                fixedProperties.put(property.getKey(), property.getValue());
+            }
+        }
+        keys = pattern.isPropertyListPattern() ? null : new HashSet<String>(pattern.getKeyPropertyList().keySet());
+        minKeys = pattern.getKeyPropertyList().size();
+    }
+
+    /**
+     * Whether the names in the domain of the model MBeans may match the pattern at all
+     */
+    boolean matchesDomain() {
+        return matchesDomain;
+    }
+
+    /**
+     * Whether the pattern is a plain ObjectName, which can be resolved without looking at the rest of the model
+     */
+    boolean isName() {
+        return pattern != null && !pattern.isPattern();
+    }
+
+    /**
+     * Checks the last element of a resource address against the pattern, the rest of the address having been checked
+     * on the way to it.
+     *
+     * @param address the resource address, which must not be empty
+     * @return {@code true} if neither that resource nor any resource below it can match
+     */
+    boolean excludes(final PathAddress address) {
+        if (pattern == null) {
+            return false;
+        }
+        final PathElement element = address.getLastElement();
+        final String key = ObjectNameAddressUtil.escapeKey(element.getKey());
+        if (keys != null && !keys.contains(key)) {
+            return true;
+        }
+        final String value = fixedProperties.get(key);
+        return value != null && !value.equals(ObjectNameAddressUtil.escapeValue(element.getValue()));
+    }
+
+    /**
+     * Checks whether a resource may match based on the number of elements of its address, so that no ObjectName
+     * gets created for a resource which is only on the way to the matching ones.
+     */
+    boolean mayMatch(final PathAddress address) {
+        if (pattern == null) {
+            return true;
+        }
+        // the root resource has a single key property
+        final int size = address.size() == 0 ? 1 : address.size();
+        return keys != null ? size == keys.size() : size >= minKeys;
+    }
+
+    boolean matches(final ObjectName name) {
+        return pattern == null || pattern.apply(name);
+    }
+
+    private static boolean matchesDomain(final ObjectName pattern, final String domain) {
+        try {
+            return ObjectName.getInstance(pattern.getDomain() + ":*").apply(ModelControllerMBeanHelper.createRootObjectName(domain));
+        } catch (MalformedObjectNameException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
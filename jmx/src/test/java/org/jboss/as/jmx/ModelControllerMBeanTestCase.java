@@ -179,6 +179,36 @@ public class ModelControllerMBeanTestCase extends AbstractSubsystemTest {
         // TODO test with QueryExp
     }
 
+    @Test
+    public void testQueryMBeansWithPatterns() throws Exception {
+        MBeanServerConnection connection = setupAndGetConnection(new BaseAdditionalInitialization(TYPE_STANDALONE));
+
+        Set<ObjectName> names = connection.queryNames(LEGACY_SERVER_SOCKET_BINDING_NAME_2, null);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, LEGACY_SERVER_SOCKET_BINDING_NAME);
+        Assert.assertEquals(0, connection.queryNames(LEGACY_BAD_NAME, null).size());
+        Assert.assertEquals(0, connection.queryNames(createObjectName(LEGACY_DOMAIN + ":core-service=platform-mbean"), null).size());
+
+        names = connection.queryNames(createObjectName(LEGACY_DOMAIN + ":socket-binding-group=test-socket-binding-group,socket-binding=*"), null);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, LEGACY_SERVER_SOCKET_BINDING_NAME);
+
+        names = connection.queryNames(createObjectName(LEGACY_DOMAIN + ":socket-binding=server,*"), null);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, LEGACY_SERVER_SOCKET_BINDING_NAME);
+
+        Set<ObjectInstance> instances = connection.queryMBeans(createObjectName(LEGACY_DOMAIN + ":subsystem=*"), null);
+        Assert.assertEquals(1, instances.size());
+        Assert.assertEquals(LEGACY_SUBSYSTEM_NAME, instances.iterator().next().getObjectName());
+
+        names = connection.queryNames(createObjectName(EXPR_DOMAIN + ":interface=*"), null);
+        Assert.assertEquals(1, names.size());
+        assertContainsNames(names, EXPR_INTERFACE_NAME);
+
+        // repeated calls are served from the cache but must still describe the same MBean
+        Assert.assertEquals(connection.getMBeanInfo(LEGACY_SUBSYSTEM_NAME), connection.getMBeanInfo(LEGACY_SUBSYSTEM_NAME));
+    }
+
     @Test
     public void testGetObjectInstance() throws Exception {
         MBeanServerConnection connection = setupAndGetConnection(new BaseAdditionalInitialization(TYPE_STANDALONE));
@@ -0,0 +1,102 @@
+/*
+* JBoss, Home of Professional Open Source.
+* Copyright 2012, Red Hat Middleware LLC, and individual contributors
+* as indicated by the @author tags. See the copyright.txt file in the
+* distribution for a full listing of individual contributors.
+*
+* This is free software; you can redistribute it and/or modify it
+* under the terms of the GNU Lesser General Public License as
+* published by the Free Software Foundation; either version 2.1 of
+* the License, or (at your option) any later version.
+*
+* This software is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this software; if not, write to the Free
+* Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+* 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+*/
+package org.jboss.as.jmx.model;
+
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.junit.Test;
+
+/**
+ * Tests which parts of the model an {@link ObjectNamePattern} lets a query skip.
+ */
+public class ObjectNamePatternTestCase {
+
+    static final String DOMAIN = "jboss.as";
+    static final PathElement SUBSYSTEM_WEB = PathElement.pathElement("subsystem", "web");
+    static final PathElement SUBSYSTEM_EJB3 = PathElement.pathElement("subsystem", "ejb3");
+    static final PathElement DEPLOYMENT = PathElement.pathElement("deployment", "test.war");
+    static final PathElement SOCKET_BINDING_GROUP = PathElement.pathElement("socket-binding-group", "standard-sockets");
+    static final PathElement SOCKET_BINDING = PathElement.pathElement("socket-binding", "http");
+    static final PathElement COMPLEX_VALUE = PathElement.pathElement("top", "\":=*?\n {}[] \":=*?\n");
+
+    @Test
+    public void testNoPattern() throws Exception {
+        ObjectNamePattern pattern = new ObjectNamePattern(DOMAIN, null);
+        Assert.assertTrue(pattern.matchesDomain());
+        Assert.assertFalse(pattern.isName());
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(SUBSYSTEM_WEB)));
+        Assert.assertTrue(pattern.mayMatch(PathAddress.EMPTY_ADDRESS));
+        Assert.assertTrue(pattern.matches(ObjectNameAddressUtil.createObjectName(DOMAIN, PathAddress.pathAddress(SUBSYSTEM_WEB))));
+    }
+
+    @Test
+    public void testDomain() throws Exception {
+        Assert.assertFalse(new ObjectNamePattern(DOMAIN, ObjectName.getInstance("jboss.other:*")).matchesDomain());
+        Assert.assertTrue(new ObjectNamePattern(DOMAIN, ObjectName.getInstance("jboss.*:*")).matchesDomain());
+        Assert.assertFalse(new ObjectNamePattern(DOMAIN, ObjectName.getInstance("jboss.?:*")).matchesDomain());
+    }
+
+    @Test
+    public void testName() throws Exception {
+        Assert.assertTrue(new ObjectNamePattern(DOMAIN, ObjectName.getInstance(DOMAIN + ":subsystem=web")).isName());
+        Assert.assertFalse(new ObjectNamePattern(DOMAIN, ObjectName.getInstance(DOMAIN + ":subsystem=web,*")).isName());
+    }
+
+    @Test
+    public void testFixedValue() throws Exception {
+        ObjectNamePattern pattern = new ObjectNamePattern(DOMAIN, ObjectName.getInstance(DOMAIN + ":subsystem=web,*"));
+        Assert.assertTrue(pattern.excludes(PathAddress.pathAddress(SUBSYSTEM_EJB3)));
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(SUBSYSTEM_WEB)));
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(DEPLOYMENT)));
+        Assert.assertTrue(pattern.excludes(PathAddress.pathAddress(DEPLOYMENT, SUBSYSTEM_EJB3)));
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(DEPLOYMENT, SUBSYSTEM_WEB)));
+
+        Assert.assertTrue(pattern.mayMatch(PathAddress.pathAddress(DEPLOYMENT)));
+        Assert.assertTrue(pattern.mayMatch(PathAddress.pathAddress(DEPLOYMENT, SUBSYSTEM_WEB)));
+        Assert.assertTrue(pattern.matches(ObjectNameAddressUtil.createObjectName(DOMAIN, PathAddress.pathAddress(DEPLOYMENT, SUBSYSTEM_WEB))));
+        Assert.assertFalse(pattern.matches(ObjectNameAddressUtil.createObjectName(DOMAIN, PathAddress.pathAddress(DEPLOYMENT))));
+    }
+
+    @Test
+    public void testExactKeys() throws Exception {
+        ObjectNamePattern pattern = new ObjectNamePattern(DOMAIN, ObjectName.getInstance(DOMAIN + ":socket-binding-group=*,socket-binding=*"));
+        Assert.assertTrue(pattern.excludes(PathAddress.pathAddress(SUBSYSTEM_WEB)));
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(SOCKET_BINDING_GROUP)));
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(SOCKET_BINDING_GROUP, SOCKET_BINDING)));
+
+        Assert.assertFalse(pattern.mayMatch(PathAddress.pathAddress(SOCKET_BINDING_GROUP)));
+        Assert.assertTrue(pattern.mayMatch(PathAddress.pathAddress(SOCKET_BINDING_GROUP, SOCKET_BINDING)));
+    }
+
+    @Test
+    public void testEscapedValue() throws Exception {
+        ObjectName name = ObjectNameAddressUtil.createObjectName(DOMAIN, PathAddress.pathAddress(COMPLEX_VALUE));
+        ObjectNamePattern pattern = new ObjectNamePattern(DOMAIN, ObjectName.getInstance(name.toString() + ",*"));
+        Assert.assertFalse(pattern.excludes(PathAddress.pathAddress(COMPLEX_VALUE)));
+        Assert.assertTrue(pattern.excludes(PathAddress.pathAddress(PathElement.pathElement("top", "one"))));
+        Assert.assertTrue(pattern.matches(name));
+    }
+}
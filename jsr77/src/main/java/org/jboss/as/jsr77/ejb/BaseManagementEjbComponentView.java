@@ -24,6 +24,7 @@ package org.jboss.as.jsr77.ejb;
 import static org.jboss.as.jsr77.JSR77Messages.MESSAGES;
 
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -83,6 +84,11 @@ abstract class BaseManagementEjbComponentView implements ComponentView {
         return false;
     }
 
+    @Override
+    public List<String> getInterceptorChain(Method method) {
+        return null;
+    }
+
     private Map<String, Map<String, Method>> getMethods() {
         Map<String, Map<String, Method>> methods = this.methods;
         if (methods != null) {
@@ -0,0 +1,185 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming;
+
+import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.Name;
+
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * The lookup cache of a {@link ServiceBasedNamingStore}.
+ * <p/>
+ * The cache is a concurrent trie keyed by the components of the looked up names. Each node may hold the last
+ * {@link Resolution} of its name. A resolution remembers the {@link ServiceName} of the name and which controllers
+ * and bound services the lookup depends on, so that a hit does not have to rebuild the service name, query the
+ * service registry or walk the bound services again. Nodes are only created to store a resolution, so lookups of
+ * names which do not resolve do not grow the trie.
+ * <p/>
+ * Each trie is a {@link Generation}. Any bind or unbind in the store starts a new generation with an empty trie,
+ * which drops all the existing resolutions at once, along with the controllers and values they reference.
+ */
+final class NameLookupCache {
+
+    /**
+     * The maximum number of nodes held by a generation, so that lookups of arbitrary names can not grow it without bounds.
+     */
+    static final int MAX_NODES = 16384;
+
+    private volatile Generation current = new Generation();
+
+    /**
+     * Get the current generation. A resolution computed after this call may be stored in the returned generation,
+     * even if it is not current anymore by then.
+     *
+     * @return the current generation
+     */
+    Generation getGeneration() {
+        return current;
+    }
+
+    /**
+     * Drop all the cached resolutions. Must be called after the bound services of the store changed.
+     */
+    void invalidate() {
+        current = new Generation();
+    }
+
+    int size() {
+        return current.size.get();
+    }
+
+    static final class Generation {
+        private final Node root = new Node();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Generation() {
+        }
+
+        /**
+         * @param name the name, relative to the base of the store
+         * @return the cached resolution of the given name, or {@code null} if there is none
+         */
+        Resolution getResolution(final Name name) {
+            Node current = root;
+            final Enumeration<String> parts = name.getAll();
+            while (parts.hasMoreElements()) {
+                final String part = parts.nextElement();
+                if (part.isEmpty()) {
+                    continue;
+                }
+                current = current.children.get(part);
+                if (current == null) {
+                    return null;
+                }
+            }
+            return current.resolution;
+        }
+
+        /**
+         * Store the resolution of the given name, unless the trie is full and has no node for the name yet.
+         *
+         * @param name the name, relative to the base of the store
+         * @param resolution the resolution
+         */
+        void setResolution(final Name name, final Resolution resolution) {
+            Node current = root;
+            final Enumeration<String> parts = name.getAll();
+            while (parts.hasMoreElements()) {
+                final String part = parts.nextElement();
+                if (part.isEmpty()) {
+                    continue;
+                }
+                Node child = current.children.get(part);
+                if (child == null) {
+                    if (size.get() >= MAX_NODES) {
+                        return;
+                    }
+                    child = new Node();
+                    final Node existing = current.children.putIfAbsent(part, child);
+                    if (existing == null) {
+                        size.incrementAndGet();
+                    } else {
+                        child = existing;
+                    }
+                }
+                current = child;
+            }
+            current.resolution = resolution;
+        }
+    }
+
+    private static final class Node {
+        private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<String, Node>(4, 0.75f, 2);
+        private volatile Resolution resolution;
+    }
+
+    /**
+     * The outcome of resolving a name against the bound services of a store.
+     */
+    static final class Resolution {
+        /**
+         * The service name of the name
+         */
+        final ServiceName name;
+        /**
+         * The controller bound to the name itself, or {@code null}
+         */
+        final ServiceController<?> binding;
+        /**
+         * The bound parent of the name which may be a reference or a link, or {@code null}
+         */
+        final ServiceName parentName;
+        /**
+         * The controller of {@link #parentName}, or {@code null}
+         */
+        final ServiceController<?> parent;
+        /**
+         * The name relative to {@link #parentName}
+         */
+        final Name remainingName;
+        /**
+         * Whether the name is bound, even if its binding resolves to {@code null}
+         */
+        final boolean bound;
+        /**
+         * Whether the name is the parent of a bound name, and so resolves to a context
+         */
+        final boolean context;
+
+        Resolution(final ServiceName name, final ServiceController<?> binding, final ServiceName parentName, final ServiceController<?> parent,
+                   final Name remainingName, final boolean bound, final boolean context) {
+            this.name = name;
+            this.binding = binding;
+            this.parentName = parentName;
+            this.parent = parent;
+            this.remainingName = remainingName;
+            this.bound = bound;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lookup counters shared by all the {@link ServiceBasedNamingStore} instances, exposed as metrics of the
+ * naming subsystem.
+ * <p/>
+ * Lookups are counted on every request, so the counters are striped by thread to keep them from becoming
+ * a point of contention between concurrent lookups.
+ */
+public final class NamingStatistics {
+
+    /**
+     * Number of array slots between two stripes, so that two stripes never share a cache line.
+     */
+    private static final int STRIPE_PADDING = 8;
+    private static final int STRIPES = stripeCount(Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final AtomicLongArray LOOKUPS = new AtomicLongArray(STRIPES * STRIPE_PADDING);
+    private static final AtomicLongArray CACHE_HITS = new AtomicLongArray(STRIPES * STRIPE_PADDING);
+
+    private NamingStatistics() {
+    }
+
+    /**
+     * @return the number of lookups performed against the naming stores
+     */
+    public static long getLookupCount() {
+        return sum(LOOKUPS);
+    }
+
+    /**
+     * @return the number of lookups which were resolved from the lookup cache of a naming store
+     */
+    public static long getLookupCacheHitCount() {
+        return sum(CACHE_HITS);
+    }
+
+    static void lookup(final boolean cacheHit) {
+        final int index = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_PADDING;
+        LOOKUPS.incrementAndGet(index);
+        if (cacheHit) {
+            CACHE_HITS.incrementAndGet(index);
+        }
+    }
+
+    private static long sum(final AtomicLongArray counters) {
+        long result = 0;
+        for (int i = 0; i < counters.length(); i += STRIPE_PADDING) {
+            result += counters.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return the smallest power of two which is greater than or equal to <code>count</code>
+     */
+    private static int stripeCount(final int count) {
+        int result = 1;
+        while (result < count) {
+            result <<= 1;
+        }
+        return result;
+    }
+}
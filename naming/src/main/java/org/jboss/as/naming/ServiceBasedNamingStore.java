@@ -61,37 +61,52 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     private ConcurrentSkipListSet<ServiceName> boundServices = new ConcurrentSkipListSet<ServiceName>();
 
+    private final NameLookupCache lookupCache;
+
     public ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase) {
         this.serviceRegistry = serviceRegistry;
         this.serviceNameBase = serviceNameBase;
+        this.lookupCache = new NameLookupCache();
     }
 
     public Object lookup(final Name name) throws NamingException {
         if (name.isEmpty()) {
             return new NamingContext(EMPTY_NAME, this, null);
         }
-        final ServiceName lookupName = buildServiceName(name);
-        Object obj = lookup(name.toString(), lookupName);
+        final NameLookupCache.Generation generation = lookupCache.getGeneration();
+        NameLookupCache.Resolution resolution = generation.getResolution(name);
+        if (resolution != null && isCurrent(resolution)) {
+            NamingStatistics.lookup(true);
+        } else {
+            NamingStatistics.lookup(false);
+            resolution = resolve(buildServiceName(name));
+            if (isCacheable(resolution)) {
+                generation.setResolution(name, resolution);
+            }
+        }
+        return lookup(name, resolution.name, resolution);
+    }
+
+    private Object lookup(final Name name, final ServiceName lookupName, final NameLookupCache.Resolution resolution) throws NamingException {
+        Object obj = lookup(name.toString(), lookupName, resolution.binding);
         if (obj == null) {
-            final ServiceName lower = boundServices.lower(lookupName);
-            if (lower != null && lower.isParentOf(lookupName)) {
+            if (resolution.parentName != null) {
                 // Parent might be a reference or a link
-                obj = lookup(name.toString(), lower);
+                obj = lookup(name.toString(), resolution.parentName, resolution.parent);
                 //if the lower is a context that has been explicitly bound then
                 //we do not return a resolve result, as this will result in an
                 //infinite loop
                 if (!(obj instanceof NamingContext)) {
                     checkReferenceForContinuation(name, obj);
-                    return new ResolveResult(obj, suffix(lower, lookupName));
+                    return new ResolveResult(obj, (Name) resolution.remainingName.clone());
                 }
             }
 
-            final ServiceName ceiling = boundServices.ceiling(lookupName);
-            if (ceiling != null && lookupName.isParentOf(ceiling)) {
-                if (lookupName.equals(ceiling)) {
-                    //the binder service returned null
-                    return null;
-                }
+            if (resolution.bound) {
+                //the binder service returned null
+                return null;
+            }
+            if (resolution.context) {
                 return new NamingContext((Name) name.clone(), this, null);
             }
             throw new NameNotFoundException(name.toString() + " -- " + lookupName);
@@ -100,6 +115,59 @@ public class ServiceBasedNamingStore implements NamingStore {
         return obj;
     }
 
+    /**
+     * Resolve the given name against the service registry and the bound services.
+     */
+    private NameLookupCache.Resolution resolve(final ServiceName lookupName) {
+        final ServiceController<?> binding = serviceRegistry.getService(lookupName);
+        final ServiceName lower = boundServices.lower(lookupName);
+        final ServiceName parentName;
+        final ServiceController<?> parent;
+        final Name remainingName;
+        if (lower != null && lower.isParentOf(lookupName)) {
+            parentName = lower;
+            parent = serviceRegistry.getService(lower);
+            remainingName = suffix(lower, lookupName);
+        } else {
+            parentName = null;
+            parent = null;
+            remainingName = null;
+        }
+        final ServiceName ceiling = boundServices.ceiling(lookupName);
+        final boolean bound = lookupName.equals(ceiling);
+        final boolean context = !bound && ceiling != null && lookupName.isParentOf(ceiling);
+        return new NameLookupCache.Resolution(lookupName, binding, parentName, parent, remainingName, bound, context);
+    }
+
+    /**
+     * Only resolutions which depend solely on bound services, which are up, are cached. Anything else is left to
+     * the uncached lookup, so that it fails the same way every time.
+     */
+    private boolean isCacheable(final NameLookupCache.Resolution resolution) {
+        if (resolution.binding != null && !(resolution.bound && isUp(resolution.binding))) {
+            return false;
+        }
+        if (resolution.parent != null && !isUp(resolution.parent)) {
+            return false;
+        }
+        return resolution.binding != null || resolution.parentName != null || resolution.bound || resolution.context;
+    }
+
+    /**
+     * A cached resolution of the current generation only stays valid for as long as the services it depends on
+     * stay up, and no other service shows up under the looked up name.
+     */
+    private boolean isCurrent(final NameLookupCache.Resolution resolution) {
+        if (resolution.binding == null ? serviceRegistry.getService(resolution.name) != null : !isUp(resolution.binding)) {
+            return false;
+        }
+        return resolution.parent == null || isUp(resolution.parent);
+    }
+
+    private static boolean isUp(final ServiceController<?> controller) {
+        return controller.getState() == ServiceController.State.UP;
+    }
+
     private void checkReferenceForContinuation(final Name name, final Object object) throws CannotProceedException {
         if (object instanceof Reference) {
             if (((Reference) object).get("nns") != null) {
@@ -116,7 +184,10 @@ public class ServiceBasedNamingStore implements NamingStore {
     }
 
     private Object lookup(final String name, final ServiceName lookupName) throws NamingException {
-        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+        return lookup(name, lookupName, serviceRegistry.getService(lookupName));
+    }
+
+    private Object lookup(final String name, final ServiceName lookupName, final ServiceController<?> controller) throws NamingException {
         final Object object;
         if (controller != null) {
             try {
@@ -226,6 +297,11 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public void close() throws NamingException {
         boundServices.clear();
+        lookupCache.invalidate();
+    }
+
+    int getLookupCacheSize() {
+        return lookupCache.size();
     }
 
     public void addNamingListener(Name target, int scope, NamingListener listener) {
@@ -240,10 +316,12 @@ public class ServiceBasedNamingStore implements NamingStore {
             throw MESSAGES.serviceAlreadyBound(serviceName);
         }
         boundServices.add(serviceName);
+        lookupCache.invalidate();
     }
 
     public void remove(final ServiceName serviceName) {
         boundServices.remove(serviceName);
+        lookupCache.invalidate();
     }
 
     protected ServiceName buildServiceName(final Name name) {
@@ -35,6 +35,8 @@ public interface NamingSubsystemModel {
     String CLASS = "class";
 
     String LOOKUP = "lookup";
+    String LOOKUP_CACHE_HIT_COUNT = "lookup-cache-hit-count";
+    String LOOKUP_COUNT = "lookup-count";
 
     String OBJECT_FACTORY = "object-factory";
     String OBJECT_FACTORY_ENV = "environment";
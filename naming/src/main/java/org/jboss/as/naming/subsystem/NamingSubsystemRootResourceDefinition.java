@@ -27,14 +27,22 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DES
 import java.util.Locale;
 import java.util.ResourceBundle;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.descriptions.DescriptionProvider;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.naming.NamingStatistics;
 import org.jboss.as.naming.management.JndiViewOperation;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 
 /**
  * {@link org.jboss.as.controller.ResourceDefinition} for the Naming subsystem's root management resource.
@@ -45,6 +53,16 @@ public class NamingSubsystemRootResourceDefinition extends SimpleResourceDefinit
 
     public static final NamingSubsystemRootResourceDefinition INSTANCE = new NamingSubsystemRootResourceDefinition();
 
+    static final AttributeDefinition LOOKUP_COUNT = new SimpleAttributeDefinitionBuilder(NamingSubsystemModel.LOOKUP_COUNT, ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final AttributeDefinition LOOKUP_CACHE_HIT_COUNT = new SimpleAttributeDefinitionBuilder(NamingSubsystemModel.LOOKUP_CACHE_HIT_COUNT, ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
 
     static final DescriptionProvider JNDI_VIEW = new DescriptionProvider() {
 
@@ -68,6 +86,20 @@ public class NamingSubsystemRootResourceDefinition extends SimpleResourceDefinit
 
     @Override
     public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        resourceRegistration.registerMetric(LOOKUP_COUNT, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+                context.getResult().set(NamingStatistics.getLookupCount());
+                context.completeStep();
+            }
+        });
+        resourceRegistration.registerMetric(LOOKUP_CACHE_HIT_COUNT, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+                context.getResult().set(NamingStatistics.getLookupCacheHitCount());
+                context.completeStep();
+            }
+        });
     }
 
     private static ResourceBundle getResourceBundle(Locale locale) {
@@ -22,12 +22,18 @@
 
 package org.jboss.as.naming.util;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.naming.CompositeName;
 import javax.naming.Name;
 import javax.naming.NamingException;
 
 /**
  * Name parser used by the NamingContext instances.  Relies on composite name instances.
+ * <p>
+ * Applications tend to look up the same few names over and over, so parsed names are cached. As names are
+ * mutable, the cached instances are never handed out, only copies of them.
  *
  * @author John E. Bailey
  */
@@ -35,6 +41,13 @@ public class NameParser implements javax.naming.NameParser {
 
     public static final NameParser INSTANCE = new NameParser();
 
+    /**
+     * The maximum number of cached names, so that parsing arbitrary names can not grow the cache without bounds.
+     */
+    private static final int MAX_CACHED_NAMES = 1024;
+
+    private final ConcurrentMap<String, Name> parsedNames = new ConcurrentHashMap<String, Name>();
+
     private NameParser() {
     }
 
@@ -46,6 +59,14 @@ public class NameParser implements javax.naming.NameParser {
      * @throws NamingException
      */
     public Name parse(String name) throws NamingException {
-        return new CompositeName(name);
+        final Name cached = parsedNames.get(name);
+        if (cached != null) {
+            return (Name) cached.clone();
+        }
+        final Name parsed = new CompositeName(name);
+        if (parsedNames.size() < MAX_CACHED_NAMES) {
+            parsedNames.putIfAbsent(name, (Name) parsed.clone());
+        }
+        return parsed;
     }
 }
@@ -31,12 +31,14 @@ import javax.naming.CompositeName;
 import javax.naming.Context;
 import javax.naming.Name;
 import javax.naming.NameClassPair;
+import javax.naming.NameNotFoundException;
 import javax.naming.NameParser;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -107,6 +109,63 @@ public class ServiceBasedNamingStoreTestCase {
         assertTrue(obj instanceof Context);
     }
 
+    @Test
+    public void testCachedLookup() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
+        final Object value = new Object();
+        bindObject(bindingName, value);
+
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+        final long lookups = NamingStatistics.getLookupCount();
+        final long hits = NamingStatistics.getLookupCacheHitCount();
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+        assertEquals(lookups + 1, NamingStatistics.getLookupCount());
+        assertEquals(hits + 1, NamingStatistics.getLookupCacheHitCount());
+    }
+
+    @Test
+    public void testCachedLookupAfterUnbind() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
+        bindObject(bindingName, "first");
+        assertEquals("first", store.lookup(new CompositeName("foo/bar")));
+        assertTrue(store.lookup(new CompositeName("foo")) instanceof Context);
+
+        unbindObject(bindingName);
+        try {
+            store.lookup(new CompositeName("foo/bar"));
+            fail("Should have thrown NameNotFoundException");
+        } catch (NameNotFoundException expected) {
+        }
+        try {
+            store.lookup(new CompositeName("foo"));
+            fail("Should have thrown NameNotFoundException");
+        } catch (NameNotFoundException expected) {
+        }
+
+        bindObject(bindingName, "second");
+        assertEquals("second", store.lookup(new CompositeName("foo/bar")));
+    }
+
+    @Test
+    public void testLookupCacheSize() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            try {
+                store.lookup(new CompositeName("missing/name" + i));
+                fail("Should have thrown NameNotFoundException");
+            } catch (NameNotFoundException expected) {
+            }
+        }
+        assertEquals(0, store.getLookupCacheSize());
+
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
+        bindObject(bindingName, "value");
+        assertEquals("value", store.lookup(new CompositeName("foo/bar")));
+        assertEquals(2, store.getLookupCacheSize());
+
+        unbindObject(bindingName);
+        assertEquals(0, store.getLookupCacheSize());
+    }
+
     @Test
     public void testStoredContext() throws Exception {
         final ServiceName bindingName = ServiceName.JBOSS.append("foo-stored").append("again");
@@ -415,4 +474,16 @@ public class ServiceBasedNamingStoreTestCase {
         }).install();
         latch.await();
     }
+
+    private void unbindObject(final ServiceName serviceName) throws Exception {
+        store.remove(serviceName);
+        container.getRequiredService(serviceName).setMode(ServiceController.Mode.REMOVE);
+        final long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (container.getService(serviceName) != null) {
+            if (System.currentTimeMillis() > timeout) {
+                fail("Service " + serviceName + " was not removed");
+            }
+            Thread.sleep(10);
+        }
+    }
 }
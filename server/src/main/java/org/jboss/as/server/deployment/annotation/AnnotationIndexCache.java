@@ -0,0 +1,210 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.server.ServerLogger;
+import org.jboss.as.server.deployment.module.MountHandle;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.vfs.VFSUtils;
+
+/**
+ * Stores the annotation indexes generated for archives, keyed by the SHA-1 of the archive, so that an archive which
+ * has been indexed before does not need to be indexed again on redeploy or restart.
+ * <p/>
+ * The indexes are kept in the <code>index</code> directory of the server content repository, using the same
+ * <code>xx/xxxxxxxx</code> layout as the content itself. Only resource roots mounted from an archive file are cached,
+ * exploded content can change without its path changing.
+ * <p/>
+ * Reading an index marks it as used. Indexes of archives which are neither in the content repository nor have been used
+ * for {@link #MAX_UNUSED_DAYS} days, such as those of removed deployments and of the libraries they contained, are
+ * removed by {@link #removeUnusedIndexes()} when the server starts.
+ */
+public class AnnotationIndexCache {
+
+    public static final String INDEX_DIRECTORY = "index";
+
+    static final int MAX_UNUSED_DAYS = 7;
+
+    private static final String SUFFIX = ".idx";
+    private static final String CONTENT = "content";
+
+    private final File contentDirectory;
+    private final File directory;
+
+    public AnnotationIndexCache(final File contentDirectory) {
+        this.contentDirectory = contentDirectory;
+        this.directory = new File(contentDirectory, INDEX_DIRECTORY);
+    }
+
+    /**
+     * Removes the indexes of archives which are not in the content repository and have not been used for
+     * {@link #MAX_UNUSED_DAYS} days.
+     */
+    public void removeUnusedIndexes() {
+        final File[] dirs = directory.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        final long unusedSince = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+        for (File dir : dirs) {
+            final File[] files = dir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                final String name = file.getName();
+                if (!name.endsWith(SUFFIX)) {
+                    // left behind by an interrupted put
+                    delete(file);
+                    continue;
+                }
+                final File content = new File(new File(new File(contentDirectory, dir.getName()), name.substring(0, name.length() - SUFFIX.length())), CONTENT);
+                if (!content.exists() && file.lastModified() < unusedSince) {
+                    ServerLogger.DEPLOYMENT_LOGGER.tracef("Removing unused cached index %s", file);
+                    delete(file);
+                }
+            }
+            final String[] remaining = dir.list();
+            if (remaining != null && remaining.length == 0) {
+                delete(dir);
+            }
+        }
+    }
+
+    /**
+     * Computes the cache key of the given resource root.
+     *
+     * @param resourceRoot the resource root
+     * @return the SHA-1 of the archive the resource root was mounted from, or <code>null</code> if it was not mounted
+     *         from an archive
+     */
+    byte[] getKey(final ResourceRoot resourceRoot) {
+        final MountHandle mountHandle = resourceRoot.getMountHandle();
+        final File source = mountHandle == null ? null : mountHandle.getMountSource();
+        if (source == null || !source.isFile()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            in = new FileInputStream(source);
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        } catch (IOException e) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf(e, "Could not compute the hash of %s", source);
+            return null;
+        } finally {
+            VFSUtils.safeClose(in);
+        }
+    }
+
+    /**
+     * @return the cached index for the given key, or <code>null</code> if there is none
+     */
+    Index get(final byte[] key) {
+        final File file = getFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            final Index index = new IndexReader(in).read();
+            ServerLogger.DEPLOYMENT_LOGGER.tracef("Read cached index %s", file);
+            // mark it as used
+            file.setLastModified(System.currentTimeMillis());
+            return index;
+        } catch (Exception e) {
+            // most likely written by a different version of jandex, it will be replaced with a new one
+            ServerLogger.DEPLOYMENT_LOGGER.debugf(e, "Could not read cached index %s", file);
+            return null;
+        } finally {
+            VFSUtils.safeClose(in);
+        }
+    }
+
+    /**
+     * Stores the index for the given key. Failures are only logged, the index is still valid if it can't be cached.
+     */
+    void put(final byte[] key, final Index index) {
+        final File file = getFile(key);
+        final File parent = file.getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf("Could not create index cache directory %s", parent);
+            return;
+        }
+        File tmp = null;
+        OutputStream out = null;
+        try {
+            // write to a temporary file first, so that a concurrent reader never sees a partial index
+            tmp = File.createTempFile("index", ".tmp", parent);
+            out = new BufferedOutputStream(new FileOutputStream(tmp));
+            new IndexWriter(out).write(index);
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file) && !file.exists()) {
+                ServerLogger.DEPLOYMENT_LOGGER.debugf("Could not store cached index %s", file);
+            }
+        } catch (IOException e) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf(e, "Could not store cached index %s", file);
+        } finally {
+            VFSUtils.safeClose(out);
+            if (tmp != null && tmp.exists()) {
+                // otherwise removed by the next removeUnusedIndexes()
+                delete(tmp);
+            }
+        }
+    }
+
+    File getFile(final byte[] key) {
+        final String sha1 = HashUtil.bytesToHexString(key);
+        return new File(new File(directory, sha1.substring(0, 2)), sha1.substring(2) + SUFFIX);
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete() && file.exists()) {
+            ServerLogger.DEPLOYMENT_LOGGER.debugf("Could not delete %s", file);
+        }
+    }
+}
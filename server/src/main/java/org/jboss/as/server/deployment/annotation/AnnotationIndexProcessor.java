@@ -22,12 +22,14 @@
 
 package org.jboss.as.server.deployment.annotation;
 
+import java.util.concurrent.ExecutorService;
+
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessor;
 import org.jboss.as.server.deployment.DeploymentUtils;
-import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.msc.value.Value;
 
 /**
  * Deployment unit processor responsible for creating and attaching an annotation index for a resource root
@@ -37,6 +39,22 @@ import org.jboss.as.server.deployment.module.ResourceRoot;
  */
 public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
 
+    private final Value<ExecutorService> executor;
+    private final AnnotationIndexCache cache;
+
+    public AnnotationIndexProcessor() {
+        this(null, null);
+    }
+
+    /**
+     * @param executor the executor used to index the resource roots in parallel, may be null
+     * @param cache the cache of generated indexes, may be null
+     */
+    public AnnotationIndexProcessor(final Value<ExecutorService> executor, final AnnotationIndexCache cache) {
+        this.executor = executor;
+        this.cache = cache;
+    }
+
     /**
      * Process this deployment for annotations.  This will use an annotation indexer to create an index of all annotations
      * found in this deployment and attach it to the deployment unit context.
@@ -47,9 +65,7 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
      */
     public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
         final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
-        for (ResourceRoot resourceRoot : DeploymentUtils.allResourceRoots(deploymentUnit)) {
-            ResourceRootIndexer.indexResourceRoot(resourceRoot);
-        }
+        ResourceRootIndexer.indexResourceRoots(DeploymentUtils.allResourceRoots(deploymentUnit), executor != null ? executor.getValue() : null, cache);
     }
 
     public void undeploy(final DeploymentUnit context) {
@@ -1,9 +1,17 @@
 package org.jboss.as.server.deployment.annotation;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.jboss.as.server.ServerLogger;
 import org.jboss.as.server.ServerMessages;
@@ -29,17 +37,118 @@ public class ResourceRootIndexer {
      * Creates and attaches the annotation index to a resource root, if it has not already been attached
      */
     public static void indexResourceRoot(final ResourceRoot resourceRoot) throws DeploymentUnitProcessingException {
-        if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
+        indexResourceRoot(resourceRoot, null);
+    }
+
+    /**
+     * Creates and attaches the annotation index to a resource root, if it has not already been attached
+     *
+     * @param resourceRoot the resource root
+     * @param cache the cache to read and store generated indexes, may be null
+     */
+    public static void indexResourceRoot(final ResourceRoot resourceRoot, final AnnotationIndexCache cache) throws DeploymentUnitProcessingException {
+        final Index index = createIndex(resourceRoot, cache);
+        if (index != null) {
+            resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+        }
+    }
+
+    /**
+     * Creates and attaches the annotation indexes of the given resource roots. The resource roots are indexed in
+     * parallel, using at most one thread per processor, the calling thread included.
+     *
+     * @param resourceRoots the resource roots
+     * @param executor the executor used to index the resource roots, or null to index them in the calling thread
+     * @param cache the cache to read and store generated indexes, may be null
+     */
+    public static void indexResourceRoots(final List<ResourceRoot> resourceRoots, final Executor executor, final AnnotationIndexCache cache) throws DeploymentUnitProcessingException {
+        final int threads = Math.min(resourceRoots.size(), Runtime.getRuntime().availableProcessors());
+        if (executor == null || threads <= 1) {
+            for (ResourceRoot resourceRoot : resourceRoots) {
+                indexResourceRoot(resourceRoot, cache);
+            }
             return;
         }
 
+        final List<FutureTask<Index>> tasks = new ArrayList<FutureTask<Index>>(resourceRoots.size());
+        final Queue<FutureTask<Index>> queue = new ConcurrentLinkedQueue<FutureTask<Index>>();
+        for (final ResourceRoot resourceRoot : resourceRoots) {
+            final FutureTask<Index> task = new FutureTask<Index>(new Callable<Index>() {
+                public Index call() throws Exception {
+                    return createIndex(resourceRoot, cache);
+                }
+            });
+            tasks.add(task);
+            queue.add(task);
+        }
+        final Runnable worker = new Runnable() {
+            public void run() {
+                FutureTask<Index> task;
+                while ((task = queue.poll()) != null) {
+                    task.run();
+                }
+            }
+        };
+        for (int i = 1; i < threads; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // the calling thread will do the work
+                break;
+            }
+        }
+        worker.run();
+
+        for (int i = 0; i < tasks.size(); i++) {
+            final Index index;
+            try {
+                index = getUninterruptibly(tasks.get(i));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof DeploymentUnitProcessingException) {
+                    throw (DeploymentUnitProcessingException) e.getCause();
+                }
+                throw ServerMessages.MESSAGES.deploymentIndexingFailed(e.getCause());
+            }
+            if (index != null) {
+                resourceRoots.get(i).putAttachment(Attachments.ANNOTATION_INDEX, index);
+            }
+        }
+    }
+
+    private static Index getUninterruptibly(final FutureTask<Index> task) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Creates the annotation index of a resource root.
+     *
+     * @return the index, or null if the resource root is already indexed or should not be indexed
+     */
+    private static Index createIndex(final ResourceRoot resourceRoot, final AnnotationIndexCache cache) throws DeploymentUnitProcessingException {
+        if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
+            return null;
+        }
+
         VirtualFile indexFile = resourceRoot.getRoot().getChild(ModuleIndexBuilder.INDEX_LOCATION);
         if (indexFile.exists()) {
             try {
                 IndexReader reader = new IndexReader(indexFile.openStream());
-                resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, reader.read());
+                final Index index = reader.read();
                 ServerLogger.DEPLOYMENT_LOGGER.tracef("Found and read index at: %s", indexFile);
-                return;
+                return index;
             } catch (Exception e) {
                 ServerLogger.DEPLOYMENT_LOGGER.cannotLoadAnnotationIndex(indexFile.getPathName());
             }
@@ -48,7 +157,7 @@ public class ResourceRootIndexer {
         // if this flag is present and set to false then do not index the resource
         Boolean shouldIndexResource = resourceRoot.getAttachment(Attachments.INDEX_RESOURCE_ROOT);
         if (shouldIndexResource != null && !shouldIndexResource) {
-            return;
+            return null;
         }
 
         final List<String> indexIgnorePathList = resourceRoot.getAttachment(Attachments.INDEX_IGNORE_PATHS);
@@ -59,6 +168,15 @@ public class ResourceRootIndexer {
             indexIgnorePaths = null;
         }
 
+        // the cached index would not take the ignored paths into account
+        final byte[] cacheKey = cache != null && indexIgnorePaths == null ? cache.getKey(resourceRoot) : null;
+        if (cacheKey != null) {
+            final Index index = cache.get(cacheKey);
+            if (index != null) {
+                return index;
+            }
+        }
+
         final VirtualFile virtualFile = resourceRoot.getRoot();
         final Indexer indexer = new Indexer();
         try {
@@ -83,8 +201,11 @@ public class ResourceRootIndexer {
                 }
             }
             final Index index = indexer.complete();
-            resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
             ServerLogger.DEPLOYMENT_LOGGER.tracef("Generated index for archive %s", virtualFile);
+            if (cacheKey != null) {
+                cache.put(cacheKey, index);
+            }
+            return index;
         } catch (Throwable t) {
             throw ServerMessages.MESSAGES.deploymentIndexingFailed(t);
         }
@@ -0,0 +1,247 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.annotation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.module.MountHandle;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.vfs.TempFileProvider;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the reuse of cached annotation indexes.
+ */
+public class AnnotationIndexCacheTestCase {
+
+    private static final DotName TEST_CLASS = DotName.createSimple(AnnotationIndexCacheTestCase.class.getName());
+
+    private File root;
+    private AnnotationIndexCache cache;
+    private ScheduledExecutorService tempFileExecutor;
+    private TempFileProvider tempFileProvider;
+    private final List<ResourceRoot> mounted = new ArrayList<ResourceRoot>();
+
+    @Before
+    public void setUp() throws IOException {
+        root = new File("target", "index-cache");
+        deleteRecursively(root);
+        root.mkdirs();
+        cache = new AnnotationIndexCache(new File(root, "content"));
+        tempFileExecutor = Executors.newScheduledThreadPool(1);
+        tempFileProvider = TempFileProvider.create("test", tempFileExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        for (ResourceRoot resourceRoot : mounted) {
+            resourceRoot.getMountHandle().close();
+        }
+        VFSUtils.safeClose(tempFileProvider);
+        tempFileExecutor.shutdownNow();
+        deleteRecursively(root);
+    }
+
+    @Test
+    public void testMiss() throws Exception {
+        final ResourceRoot resourceRoot = mount("miss.jar");
+        final byte[] key = cache.getKey(resourceRoot);
+        assertNotNull(key);
+        assertFalse(cache.getFile(key).exists());
+
+        ResourceRootIndexer.indexResourceRoot(resourceRoot, cache);
+
+        assertNotNull(resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX).getClassByName(TEST_CLASS));
+        assertTrue(cache.getFile(key).exists());
+        assertNotNull(cache.get(key).getClassByName(TEST_CLASS));
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        final ResourceRoot first = mount("first.jar");
+        final byte[] key = cache.getKey(first);
+        // store an index which can't be the result of indexing the archive
+        cache.put(key, new Indexer().complete());
+
+        // the same archive under a different name has the same key
+        final ResourceRoot second = mount("second.jar");
+        assertArrayEquals(key, cache.getKey(second));
+        ResourceRootIndexer.indexResourceRoot(second, cache);
+
+        final Index index = second.getAttachment(Attachments.ANNOTATION_INDEX);
+        assertNotNull(index);
+        assertTrue(index.getKnownClasses().isEmpty());
+    }
+
+    @Test
+    public void testCorruptFile() throws Exception {
+        final ResourceRoot resourceRoot = mount("corrupt.jar");
+        final byte[] key = cache.getKey(resourceRoot);
+        final File file = cache.getFile(key);
+        file.getParentFile().mkdirs();
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("not an index".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        assertNull(cache.get(key));
+
+        ResourceRootIndexer.indexResourceRoot(resourceRoot, cache);
+
+        assertNotNull(resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX).getClassByName(TEST_CLASS));
+        // the corrupt file has been replaced
+        assertNotNull(cache.get(key).getClassByName(TEST_CLASS));
+    }
+
+    @Test
+    public void testExplodedNotCached() throws Exception {
+        final File exploded = new File(root, "exploded");
+        exploded.mkdirs();
+        final ResourceRoot resourceRoot = new ResourceRoot(VFS.getChild(exploded.toURI()), null);
+        assertNull(cache.getKey(resourceRoot));
+    }
+
+    @Test
+    public void testParallelIndexing() throws Exception {
+        final List<ResourceRoot> resourceRoots = new ArrayList<ResourceRoot>();
+        for (int i = 0; i < 16; i++) {
+            resourceRoots.add(mount("parallel" + i + ".jar"));
+        }
+        // one already indexed root must be left alone
+        final Index existing = new Indexer().complete();
+        resourceRoots.get(0).putAttachment(Attachments.ANNOTATION_INDEX, existing);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ResourceRootIndexer.indexResourceRoots(resourceRoots, executor, cache);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(existing == resourceRoots.get(0).getAttachment(Attachments.ANNOTATION_INDEX));
+        for (ResourceRoot resourceRoot : resourceRoots.subList(1, resourceRoots.size())) {
+            assertNotNull(resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX).getClassByName(TEST_CLASS));
+        }
+    }
+
+    @Test
+    public void testRemoveUnusedIndexes() throws Exception {
+        final long old = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(AnnotationIndexCache.MAX_UNUSED_DAYS + 1);
+        final Index index = new Indexer().complete();
+
+        final byte[] orphan = key(1);
+        cache.put(orphan, index);
+        assertTrue(cache.getFile(orphan).setLastModified(old));
+
+        final byte[] recent = key(2);
+        cache.put(recent, index);
+
+        final byte[] deployed = key(3);
+        cache.put(deployed, index);
+        assertTrue(cache.getFile(deployed).setLastModified(old));
+        final String sha1 = HashUtil.bytesToHexString(deployed);
+        final File content = new File(new File(new File(new File(root, "content"), sha1.substring(0, 2)), sha1.substring(2)), "content");
+        content.getParentFile().mkdirs();
+        assertTrue(content.createNewFile());
+
+        final File leftover = new File(cache.getFile(recent).getParentFile(), "index123.tmp");
+        assertTrue(leftover.createNewFile());
+
+        cache.removeUnusedIndexes();
+
+        assertFalse(cache.getFile(orphan).exists());
+        assertFalse(cache.getFile(orphan).getParentFile().exists());
+        assertTrue(cache.getFile(recent).exists());
+        assertTrue(cache.getFile(deployed).exists());
+        assertFalse(leftover.exists());
+    }
+
+    private ResourceRoot mount(final String name) throws IOException {
+        final File jar = new File(root, name);
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            final String entry = AnnotationIndexCacheTestCase.class.getName().replace('.', '/') + ".class";
+            final JarEntry jarEntry = new JarEntry(entry);
+            // keep archives written at different times identical
+            jarEntry.setTime(0);
+            out.putNextEntry(jarEntry);
+            final InputStream in = AnnotationIndexCacheTestCase.class.getClassLoader().getResourceAsStream(entry);
+            try {
+                VFSUtils.copyStream(in, out);
+            } finally {
+                VFSUtils.safeClose(in);
+            }
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        final VirtualFile mountPoint = VFS.getChild("index-cache-test/" + name);
+        final ResourceRoot resourceRoot = new ResourceRoot(mountPoint, new MountHandle(VFS.mountZip(jar, mountPoint, tempFileProvider)));
+        mounted.add(resourceRoot);
+        return resourceRoot;
+    }
+
+    private static byte[] key(final int value) {
+        final byte[] key = new byte[20];
+        key[0] = (byte) (value << 4);
+        key[19] = (byte) value;
+        return key;
+    }
+
+    private static void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
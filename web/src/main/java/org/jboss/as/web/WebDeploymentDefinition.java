@@ -14,6 +14,7 @@ import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.Resource;
+import org.jboss.as.web.session.SessionManagerMBean;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jboss.msc.service.ServiceController;
@@ -111,6 +112,17 @@ public class WebDeploymentDefinition extends SimpleResourceDefinition {
                     case REJECTED_SESSIONS:
                         result.set(sm.getRejectedSessions());
                         break;
+                    case LAST_EXPIRATION_SWEEP_TIME:
+                        // only tracked by our own managers
+                        if (sm instanceof SessionManagerMBean) {
+                            result.set(((SessionManagerMBean) sm).getLastProcessingTime());
+                        }
+                        break;
+                    case MAX_EXPIRATION_SWEEP_TIME:
+                        if (sm instanceof SessionManagerMBean) {
+                            result.set(((SessionManagerMBean) sm).getMaxProcessingTime());
+                        }
+                        break;
                     default:
                         throw new IllegalStateException(WebMessages.MESSAGES.unknownMetric(stat));
                 }
@@ -130,7 +142,9 @@ public class WebDeploymentDefinition extends SimpleResourceDefinition {
         SESSION_AVG_ALIVE_TIME(new SimpleAttributeDefinition("session-avg-alive-time", ModelType.INT, false)),
         SESSION_MAX_ALIVE_TIME(new SimpleAttributeDefinition("session-max-alive-time", ModelType.INT, false)),
         REJECTED_SESSIONS(new SimpleAttributeDefinition("rejected-sessions", ModelType.INT, false)),
-        MAX_ACTIVE_SESSIONS(new SimpleAttributeDefinition("max-active-sessions", ModelType.INT, false));
+        MAX_ACTIVE_SESSIONS(new SimpleAttributeDefinition("max-active-sessions", ModelType.INT, false)),
+        LAST_EXPIRATION_SWEEP_TIME(new SimpleAttributeDefinition("last-expiration-sweep-time", ModelType.LONG, true)),
+        MAX_EXPIRATION_SWEEP_TIME(new SimpleAttributeDefinition("max-expiration-sweep-time", ModelType.LONG, true));
 
         private static final Map<String, SessionStat> MAP = new HashMap<String, SessionStat>();
 
@@ -26,6 +26,7 @@ import static org.jboss.as.web.WebMessages.MESSAGES;
 import java.io.IOException;
 import java.util.AbstractMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -72,6 +73,10 @@ public abstract class AbstractSessionManager extends ManagerBase implements Sess
     protected long timeSinceLastReset = 0;
     /** Cumulative time spent in backgroundProcess */
     protected AtomicLong processingTime = new AtomicLong();
+    /** Time spent in the last run of processExpires */
+    protected AtomicLong lastProcessingTime = new AtomicLong();
+    /** Longest time spent in a single run of processExpires */
+    protected AtomicLong maxProcessingTime = new AtomicLong();
     /** Maximum time in ms a now expired session has been alive */
     protected AtomicInteger maxAliveTime = new AtomicInteger();
     /** Average time in ms a now expired session has been alive */
@@ -131,17 +136,42 @@ public abstract class AbstractSessionManager extends ManagerBase implements Sess
     public void processExpires() {
         synchronized (this) {
             if (this.started) {
-                long start = System.currentTimeMillis();
+                long start = System.nanoTime();
 
                 processExpirationPassivation();
 
-                processingTime.addAndGet(System.currentTimeMillis() - start);
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                processingTime.addAndGet(elapsed);
+                lastProcessingTime.set(elapsed);
+                if (elapsed > maxProcessingTime.get()) {
+                    maxProcessingTime.set(elapsed);
+                }
             }
         }
     }
 
     protected abstract void processExpirationPassivation();
 
+    @Override
+    public long getProcessingTime() {
+        return this.processingTime.get();
+    }
+
+    @Override
+    public void setProcessingTime(long processingTime) {
+        this.processingTime.set(processingTime);
+    }
+
+    @Override
+    public long getLastProcessingTime() {
+        return this.lastProcessingTime.get();
+    }
+
+    @Override
+    public long getMaxProcessingTime() {
+        return this.maxProcessingTime.get();
+    }
+
     @Override
     public void addLifecycleListener(LifecycleListener listener) {
         this.lifecycle.addLifecycleListener(listener);
@@ -232,6 +262,8 @@ public abstract class AbstractSessionManager extends ManagerBase implements Sess
         createdCounter.set(0);
         expiredCounter.set(0);
         processingTime.set(0);
+        lastProcessingTime.set(0);
+        maxProcessingTime.set(0);
         maxAliveTime.set(0);
         averageAliveTime.set(0);
         duplicates.set(0);
@@ -432,6 +432,14 @@ public abstract class ClusteredSession<O extends OutgoingDistributableSessionDat
         return (this.lastAccessedTime);
     }
 
+    /**
+     * Returns the time of the request being processed or, if there is none, of the last request, which is the time the
+     * session timeout is computed from. Does not check whether the session is valid.
+     */
+    public long getThisAccessedTimeInternal() {
+        return (this.thisAccessedTime);
+    }
+
     @Override
     public Manager getManager() {
         return (this.manager);
@@ -466,6 +474,9 @@ public abstract class ClusteredSession<O extends OutgoingDistributableSessionDat
         this.maxInactiveInterval = interval;
         checkAlwaysReplicateTimestamp();
         sessionMetadataDirty();
+        if (this.manager != null) {
+            this.manager.sessionTimeoutChanged(this);
+        }
     }
 
     @Override
@@ -66,4 +66,10 @@ public interface ClusteredSessionManager<O extends OutgoingDistributableSessionD
      * Gets the <code>DistributedCacheManager</code> through which we interact with the distributed cache.
      */
     DistributedCacheManager<O> getDistributedCacheManager();
+
+    /**
+     * Notifies the manager that the time at which the given session times out may have moved back, e.g. because its max
+     * inactive interval was reduced, or because it was updated from the distributed cache.
+     */
+    void sessionTimeoutChanged(ClusteredSession<O> session);
 }
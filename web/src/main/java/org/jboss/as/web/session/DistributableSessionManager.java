@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -123,6 +124,8 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
     private final Map<String, OwnedSessionUpdate> unloadedSessions = new ConcurrentHashMap<String, OwnedSessionUpdate>();
     /** Sessions that have been created but not yet loaded. Used to ensure concurrent threads trying to load the same session */
     private final ConcurrentMap<String, ClusteredSession<O>> embryonicSessions = new ConcurrentHashMap<String, ClusteredSession<O>>();
+    /** When the local and unloaded sessions are next due for expiration or passivation */
+    private final SessionExpirationIndex expirationIndex = new SessionExpirationIndex(1, TimeUnit.SECONDS);
 
     public DistributableSessionManager(DistributedCacheManagerFactory factory, JBossWebMetaData metaData, ClassResolver resolver) throws ClusteringNotSupportedException {
         super(metaData);
@@ -138,10 +141,6 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         ReplicationConfig config = metaData.getReplicationConfig();
         this.replicationConfig = (config != null) ? config : new ReplicationConfig();
 
-        if (this.replicationConfig.getReplicationGranularity() == ReplicationGranularity.FIELD) {
-            this.replicationConfig.setReplicationGranularity(ReplicationGranularity.SESSION);
-        }
-
         Integer interval = this.replicationConfig.getMaxUnreplicatedInterval();
         this.maxUnreplicatedInterval = (interval != null) ? interval.intValue() : -1;
 
@@ -296,6 +295,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
 
                 OwnedSessionUpdate osu = new OwnedSessionUpdate(owner, lastMod, maxLife, false);
                 unloadedSessions.put(realId, osu);
+                scheduleExpiration(realId, osu);
             }
 
             if (passivate) {
@@ -337,6 +337,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         this.distributedCacheManager.evictSession(realId, osu.getOwner());
         osu.setPassivated(true);
         sessionPassivated();
+        scheduleExpiration(realId, osu);
     }
 
     private void sessionPassivated() {
@@ -431,6 +432,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         // Clean up maps
         this.sessions.clear();
         this.unloadedSessions.clear();
+        this.expirationIndex.clear();
 
         this.passivatedCount.set(0);
 
@@ -513,13 +515,15 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
 
                 // Put the session in the unloadedSessions map. This will
                 // expose the session to regular invalidation.
-                Object obj = unloadedSessions.put(realId, new OwnedSessionUpdate(null, session.getLastAccessedTimeInternal(), session.getMaxInactiveInterval(), true));
+                OwnedSessionUpdate osu = new OwnedSessionUpdate(null, session.getLastAccessedTimeInternal(), session.getMaxInactiveInterval(), true);
+                Object obj = unloadedSessions.put(realId, osu);
                 if (obj == null) {
                     log.tracef("New session %s added to unloaded session map", realId);
                 } else {
                     log.tracef("Updated timestamp for unloaded session %s", realId);
                 }
                 sessions.remove(realId);
+                scheduleExpiration(realId, osu);
             }
         } else {
             log.tracef("processSessionPassivation():  could not find session %s", realId);
@@ -765,6 +769,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                 SessionInvalidationTracker.sessionInvalidated(realId, this);
 
                 sessions.remove(realId);
+                this.expirationIndex.cancel(realId);
                 this.getReplicationStatistics().removeStats(realId);
 
                 // Compute how long this session has been alive, and update
@@ -824,6 +829,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                 SessionInvalidationTracker.sessionInvalidated(realId, this);
 
                 sessions.remove(realId);
+                this.expirationIndex.cancel(realId);
                 this.getReplicationStatistics().removeStats(realId);
 
                 // Compute how long this session has been alive, and update
@@ -916,6 +922,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         String realId = session.getRealId();
         Object existing = sessions.put(realId, session);
         unloadedSessions.remove(realId);
+        scheduleExpiration(session);
 
         if (!session.equals(existing)) {
             if (replicate) {
@@ -1050,6 +1057,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
     public void notifyRemoteInvalidation(String realId) {
         // Remove the session from our local map
         ClusteredSession<O> session = cast(this.sessions.remove(realId));
+        this.expirationIndex.cancel(realId);
         if (session == null) {
             // We weren't managing the session anyway. But remove it
             // from the list of cached sessions we haven't loaded
@@ -1113,6 +1121,11 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         }
     }
 
+    @Override
+    public void sessionAttributeMarshalled(int bytes, long elapsed) {
+        this.getReplicationStatistics().updateMarshallingStats(bytes, elapsed);
+    }
+
     @Override
     public boolean sessionChangedInDistributedCache(String realId, String dataOwner, int distributedVersion, long timestamp, DistributableSessionMetadata metadata) {
         boolean updated = true;
@@ -1128,7 +1141,9 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         } else {
             int maxLife = metadata == null ? getMaxInactiveInterval() : metadata.getMaxInactiveInterval();
 
-            Object existing = unloadedSessions.put(realId, new OwnedSessionUpdate(dataOwner, timestamp, maxLife, false));
+            OwnedSessionUpdate osu = new OwnedSessionUpdate(dataOwner, timestamp, maxLife, false);
+            Object existing = unloadedSessions.put(realId, osu);
+            scheduleExpiration(realId, osu);
             if (existing == null) {
                 calcActiveSessions();
                 log.tracef("New session %s added to unloaded session map", realId);
@@ -1148,6 +1163,10 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         long passivationMax = passivationMaxIdleTime * 1000L;
         long passivationMin = passivationMinIdleTime * 1000L;
 
+        // Passivating the least recently used sessions to get back under maxActiveAllowed requires looking at every
+        // session; otherwise only the sessions which the expiration index reports as due need to be looked at
+        boolean overflow = passivate && (maxActiveAllowed > 0) && (passivationMin > 0) && (calcActiveSessions() >= maxActiveAllowed);
+
         log.trace("processExpirationPassivation(): Looking for sessions that have expired ...");
         log.tracef("processExpirationPassivation(): active sessions = %d", calcActiveSessions());
         log.tracef("processExpirationPassivation(): expired sessions = %d", expiredCounter.get());
@@ -1164,8 +1183,28 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
             // were going to be re-requested by the thread
             SessionInvalidationTracker.suspend();
 
+            Collection<Session> localSessions = this.sessions.values();
+            Map<String, OwnedSessionUpdate> unloaded = this.unloadedSessions;
+            if (!overflow) {
+                List<String> due = this.expirationIndex.poll(System.currentTimeMillis());
+                localSessions = new ArrayList<Session>(due.size());
+                unloaded = new LinkedHashMap<String, OwnedSessionUpdate>();
+                for (String realId : due) {
+                    Session session = this.sessions.get(realId);
+                    if (session != null) {
+                        localSessions.add(session);
+                    } else {
+                        OwnedSessionUpdate osu = this.unloadedSessions.get(realId);
+                        if (osu != null) {
+                            unloaded.put(realId, osu);
+                        }
+                    }
+                }
+                log.tracef("processExpirationPassivation(): %d sessions due, %d still tracked", due.size(), this.expirationIndex.size());
+            }
+
             // First, handle the sessions we are actively managing
-            for (Session s: this.sessions.values()) {
+            for (Session s: localSessions) {
                 if (!this.started) return;
 
                 boolean likelyExpired = false;
@@ -1207,6 +1246,8 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                         likelyExpired = false;
                     }
 
+                    scheduleExpiration(session);
+
                     // we now have a valid session; store it so we can check later
                     // if we need to passivate it
                     if (passivate) {
@@ -1220,7 +1261,8 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                     } else {
                         log.error(MESSAGES.failToPassivateLoad(realId), e);
                     }
-
+                    // check it again in the next run, if it is still around
+                    rescheduleExpiration(realId);
                 }
             }
 
@@ -1232,7 +1274,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
             // and permanently losing part of its node structure in JBoss Cache.
             long maxUnrep = maxUnreplicatedInterval < 0 ? 60 : maxUnreplicatedInterval;
 
-            for (Map.Entry<String, OwnedSessionUpdate> entry : this.unloadedSessions.entrySet()) {
+            for (Map.Entry<String, OwnedSessionUpdate> entry : unloaded.entrySet()) {
                 if (!this.started) return;
 
                 String realId = entry.getKey();
@@ -1262,10 +1304,14 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                         unloadedSessions.remove(realId);
                         this.getReplicationStatistics().removeStats(realId);
 
-                    } else if (passivate && !osu.isPassivated()) {
-                        // we now have a valid session; store it so we can check later
-                        // if we need to passivate it
-                        passivationChecks.add(new PassivationCheck(realId, osu));
+                    } else {
+                        scheduleExpiration(realId, osu);
+
+                        if (passivate && !osu.isPassivated()) {
+                            // we now have a valid session; store it so we can check later
+                            // if we need to passivate it
+                            passivationChecks.add(new PassivationCheck(realId, osu));
+                        }
                     }
                 } catch (Exception e) {
                     // JBAS-7397 Don't try forever
@@ -1275,6 +1321,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                     } else {
                         log.error(MESSAGES.failToPassivateUnloaded(realId), e);
                     }
+                    rescheduleExpiration(realId);
                 }
             }
 
@@ -1321,6 +1368,73 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         }
     }
 
+    @Override
+    public void sessionTimeoutChanged(ClusteredSession<O> session) {
+        String realId = session.getRealId();
+        // only index sessions under local management, the others are indexed once added
+        if ((realId != null) && (this.sessions.get(realId) == session)) {
+            scheduleExpiration(session);
+        }
+    }
+
+    /**
+     * (Re)indexes a locally active session at the earliest time at which it may have to be expired or passivated.
+     */
+    private void scheduleExpiration(ClusteredSession<O> session) {
+        long deadline = Long.MAX_VALUE;
+        int maxInactive = session.getMaxInactiveInterval();
+        if ((maxInactiveInterval >= 0) && (maxInactive > 0)) {
+            deadline = session.getThisAccessedTimeInternal() + maxInactive * 1000L;
+        }
+        if (isPassivationEnabled() && (passivationMaxIdleTime >= 0)) {
+            deadline = Math.min(deadline, session.getLastAccessedTimeInternal() + passivationMaxIdleTime * 1000L + 1);
+        }
+        scheduleExpiration(session.getRealId(), deadline);
+    }
+
+    /**
+     * (Re)indexes a session which is only in the distributed store at the earliest time at which it may have to be expired
+     * or passivated.
+     */
+    private void scheduleExpiration(String realId, OwnedSessionUpdate osu) {
+        long deadline = Long.MAX_VALUE;
+        if ((maxInactiveInterval >= 0) && (osu.getMaxInactive() >= 1)) {
+            // see the grace period in processExpirationPassivation()
+            long maxUnrep = maxUnreplicatedInterval < 0 ? 60 : maxUnreplicatedInterval;
+            deadline = osu.getUpdateTime() + (osu.getMaxInactive() + maxUnrep) * 1000L;
+        }
+        if (isPassivationEnabled() && (passivationMaxIdleTime >= 0) && !osu.isPassivated()) {
+            deadline = Math.min(deadline, osu.getUpdateTime() + passivationMaxIdleTime * 1000L + 1);
+        }
+        scheduleExpiration(realId, deadline);
+    }
+
+    private void scheduleExpiration(String realId, long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            // never expires, nor gets passivated
+            this.expirationIndex.cancel(realId);
+        } else {
+            this.expirationIndex.schedule(realId, deadline);
+        }
+    }
+
+    /**
+     * (Re)indexes the session with the given id, whether it is locally active or only in the distributed store.
+     */
+    private void rescheduleExpiration(String realId) {
+        if (realId == null) return;
+
+        ClusteredSession<O> session = cast(this.sessions.get(realId));
+        if (session != null) {
+            scheduleExpiration(session);
+        } else {
+            OwnedSessionUpdate osu = this.unloadedSessions.get(realId);
+            if (osu != null) {
+                scheduleExpiration(realId, osu);
+            }
+        }
+    }
+
     /**
      * Loads a session from the distributed store. If an existing session with the id is already under local management, that
      * session's internal state will be updated from the distributed store. Otherwise a new session will be created and added to
@@ -1375,6 +1489,8 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                         IncomingDistributableSessionData data = this.distributedCacheManager.getSessionData(realId, initialLoad);
                         if (data != null) {
                             session.update(data);
+                            // the update may have changed the timestamps or the max inactive interval
+                            scheduleExpiration(session);
                         } else {
                             // Clunky; we set the session variable to null to indicate
                             // no data so move on
@@ -1433,6 +1549,8 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
                 try {
                     switch (this.getReplicationGranularity()) {
                         case ATTRIBUTE:
+                        // FIELD tracks modified attributes, whose changed blocks the distributed cache replicates
+                        case FIELD:
                             return (ClusteredSession<O>) new AttributeBasedClusteredSession((ClusteredSessionManager<OutgoingAttributeGranularitySessionData>) this);
                         default:
                             return (ClusteredSession<O>) new SessionBasedClusteredSession((ClusteredSessionManager<OutgoingSessionGranularitySessionData>) this);
@@ -1458,6 +1576,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         } finally {
             // Get rid of our refs even if distributed store fails
             unloadedSessions.remove(realId);
+            this.expirationIndex.cancel(realId);
             this.getReplicationStatistics().removeStats(realId);
         }
     }
@@ -24,6 +24,8 @@ package org.jboss.as.web.session;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A session replication statistics collection class.
@@ -39,6 +41,10 @@ public class ReplicationStatistics implements Serializable {
     private Map<String, TimeStatistic> ctxStats;
     /** Time of the last resetStats call */
     public long lastResetTime = System.currentTimeMillis();
+    /** Number, total size in bytes, and total duration in nanoseconds of the session attribute serializations */
+    private final AtomicLong marshalCount = new AtomicLong();
+    private final AtomicLong marshalledBytes = new AtomicLong();
+    private final AtomicLong marshalTime = new AtomicLong();
 
     public static class TimeStatistic {
         public long replicationCount;
@@ -109,6 +115,40 @@ public class ReplicationStatistics implements Serializable {
             stat.maxLoadTime = elapsed;
     }
 
+    /**
+     * Update the serialization statistics, which are not kept per session, since a session attribute may be serialized
+     * after its session was replicated.
+     *
+     * @param bytes the serialized size of the session attribute value
+     * @param elapsed the time spent serializing the value, in nanoseconds
+     */
+    public void updateMarshallingStats(int bytes, long elapsed) {
+        marshalCount.incrementAndGet();
+        marshalledBytes.addAndGet(bytes);
+        marshalTime.addAndGet(elapsed);
+    }
+
+    /**
+     * @return the number of session attribute values serialized since the last reset
+     */
+    public long getMarshalCount() {
+        return marshalCount.get();
+    }
+
+    /**
+     * @return the total size in bytes of the session attribute values serialized since the last reset
+     */
+    public long getMarshalledBytes() {
+        return marshalledBytes.get();
+    }
+
+    /**
+     * @return the total time in milliseconds spent serializing session attribute values since the last reset
+     */
+    public long getMarshalTime() {
+        return TimeUnit.NANOSECONDS.toMillis(marshalTime.get());
+    }
+
     /**
      * Resets all current TimeStatistics.
      *
@@ -119,6 +159,9 @@ public class ReplicationStatistics implements Serializable {
                 stat.reset();
             }
         }
+        marshalCount.set(0);
+        marshalledBytes.set(0);
+        marshalTime.set(0);
         lastResetTime = System.currentTimeMillis();
     }
 
@@ -168,6 +211,13 @@ public class ReplicationStatistics implements Serializable {
                 tmp.append("];");
             }
         }
+        tmp.append("[marshalCount=");
+        tmp.append(marshalCount.get());
+        tmp.append(", marshalledBytes=");
+        tmp.append(marshalledBytes.get());
+        tmp.append(", marshalTime=");
+        tmp.append(getMarshalTime());
+        tmp.append("];");
         tmp.append(")");
         return tmp.toString();
     }
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.web.session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of the times at which the sessions of a manager are next due for expiration or passivation, kept in buckets of
+ * a fixed duration ordered by time.
+ * <p/>
+ * Each session id sits in a single bucket, covering the deadline it was last scheduled with. A request only moves the
+ * deadline of its session forward, so the index is not updated on every access: instead the manager rechecks the
+ * sessions returned by {@link #poll(long)} and schedules those which turn out to be still alive again, with their
+ * current deadline. Anything that may move a deadline back, such as a shorter max inactive interval, must schedule the
+ * session again straight away.
+ */
+class SessionExpirationIndex {
+
+    private final long bucketDuration;
+    private final NavigableMap<Long, Set<String>> buckets = new TreeMap<Long, Set<String>>();
+    private final Map<String, Long> scheduled = new HashMap<String, Long>();
+
+    SessionExpirationIndex(long bucketDuration, TimeUnit unit) {
+        this.bucketDuration = Math.max(unit.toMillis(bucketDuration), 1);
+    }
+
+    /**
+     * (Re)schedules the given session.
+     *
+     * @param realId the session id, minus any jvmRoute
+     * @param deadline the time, in ms since the epoch, at which the session should be checked
+     */
+    synchronized void schedule(String realId, long deadline) {
+        // a bucket only comes due once the deadlines of all its sessions have elapsed
+        Long bucket = Long.valueOf((deadline + this.bucketDuration - 1) / this.bucketDuration);
+        Long previous = this.scheduled.put(realId, bucket);
+        if (bucket.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            this.removeFromBucket(realId, previous);
+        }
+        Set<String> ids = this.buckets.get(bucket);
+        if (ids == null) {
+            ids = new HashSet<String>();
+            this.buckets.put(bucket, ids);
+        }
+        ids.add(realId);
+    }
+
+    /**
+     * Stops tracking the given session.
+     *
+     * @param realId the session id, minus any jvmRoute
+     */
+    synchronized void cancel(String realId) {
+        Long bucket = this.scheduled.remove(realId);
+        if (bucket != null) {
+            this.removeFromBucket(realId, bucket);
+        }
+    }
+
+    /**
+     * Removes the sessions whose deadline has elapsed from the index.
+     *
+     * @param now the current time, in ms since the epoch
+     * @return the ids of the sessions which are due, ordered by deadline
+     */
+    synchronized List<String> poll(long now) {
+        List<String> due = new ArrayList<String>();
+        Iterator<Set<String>> elapsed = this.buckets.headMap(Long.valueOf(now / this.bucketDuration), true).values().iterator();
+        while (elapsed.hasNext()) {
+            for (String realId : elapsed.next()) {
+                this.scheduled.remove(realId);
+                due.add(realId);
+            }
+            elapsed.remove();
+        }
+        return due;
+    }
+
+    /**
+     * @return the number of sessions being tracked
+     */
+    synchronized int size() {
+        return this.scheduled.size();
+    }
+
+    /**
+     * Stops tracking all sessions.
+     */
+    synchronized void clear() {
+        this.scheduled.clear();
+        this.buckets.clear();
+    }
+
+    private void removeFromBucket(String realId, Long bucket) {
+        Set<String> ids = this.buckets.get(bucket);
+        if (ids != null && ids.remove(realId) && ids.isEmpty()) {
+            this.buckets.remove(bucket);
+        }
+    }
+}
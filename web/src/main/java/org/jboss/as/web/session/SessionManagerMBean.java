@@ -142,6 +142,16 @@ public interface SessionManagerMBean {
      */
     void setProcessingTime(long processingTime);
 
+    /**
+     * Gets the number of milliseconds spent in the last run of <code>Manager.processExpires()</code>.
+     */
+    long getLastProcessingTime();
+
+    /**
+     * Gets the largest number of milliseconds spent in a single run of <code>Manager.processExpires()</code>.
+     */
+    long getMaxProcessingTime();
+
     /**
      * Outputs the replication statistics as an HTML table, with one row per session.
      */
@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2012, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.web.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link SessionExpirationIndex}.
+ */
+public class SessionExpirationIndexTestCase {
+
+    @Test
+    public void testPollReturnsOnlyDueSessions() {
+        SessionExpirationIndex index = new SessionExpirationIndex(1, TimeUnit.SECONDS);
+        index.schedule("a", 10000);
+        index.schedule("b", 5000);
+        index.schedule("c", 20500);
+        assertEquals(3, index.size());
+
+        assertTrue(index.poll(4999).isEmpty());
+        assertEquals(Arrays.asList("b", "a"), index.poll(10000));
+        assertEquals(1, index.size());
+        // a bucket only comes due once all of its deadlines have elapsed
+        assertTrue(index.poll(20999).isEmpty());
+        assertEquals(Arrays.asList("c"), index.poll(21000));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testReschedule() {
+        SessionExpirationIndex index = new SessionExpirationIndex(1, TimeUnit.SECONDS);
+        index.schedule("a", 10000);
+        index.schedule("a", 30000);
+        assertEquals(1, index.size());
+        assertTrue(index.poll(29000).isEmpty());
+
+        // moving a deadline back is honoured as well
+        index.schedule("a", 2000);
+        assertEquals(Arrays.asList("a"), index.poll(29000));
+        assertTrue(index.poll(60000).isEmpty());
+    }
+
+    @Test
+    public void testCancel() {
+        SessionExpirationIndex index = new SessionExpirationIndex(1, TimeUnit.SECONDS);
+        index.schedule("a", 10000);
+        index.schedule("b", 10000);
+        index.cancel("a");
+        index.cancel("unknown");
+        assertEquals(Arrays.asList("b"), index.poll(10000));
+
+        index.schedule("c", 10000);
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.poll(60000).isEmpty());
+    }
+}
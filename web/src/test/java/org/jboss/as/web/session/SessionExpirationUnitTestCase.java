@@ -23,6 +23,7 @@
 package org.jboss.as.web.session;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.util.Random;
@@ -145,4 +146,50 @@ public class SessionExpirationUnitTestCase {
         assertEquals("Session count correct", 0, managers[1].getActiveSessionCount());
         assertEquals("Local session count correct", 0, managers[1].getLocalActiveSessionCount());
     }
+
+    /**
+     * A session which is locally active on a node must be reindexed when it is updated from the distributed cache,
+     * so that it expires with the max inactive interval set on another node.
+     */
+    @Test
+    public void testMaxInactiveIntervalReplicationToActiveSession() throws Exception {
+        log.info("Enter testMaxInactiveIntervalReplicationToActiveSession");
+
+        ++testCount;
+        JBossWebMetaData webMetaData = SessionTestUtil.createWebMetaData(2);
+        for (int i = 0; i < cacheContainers.length; ++i) {
+            cacheContainers[i] = SessionTestUtil.createCacheContainer(false, null, true, false);
+            cacheContainers[i].start();
+
+            managers[i] = SessionTestUtil.createManager(webMetaData, "test" + testCount, 5, cacheContainers[i], null);
+            managers[i].start();
+        }
+
+        String id = "1";
+        Session sess = managers[0].createSession(id, new Random());
+        sess.access();
+        sess.getSession().setAttribute("test", "test");
+        managers[0].storeSession(sess);
+        sess.endAccess();
+
+        // Make the session locally active on the second node, with the original max inactive interval
+        assertNotNull("session found", managers[1].findSession(id));
+        assertEquals("Local session count correct", 1, managers[1].getLocalActiveSessionCount());
+
+        sess = managers[0].findSession(id);
+        sess.access();
+        sess.setMaxInactiveInterval(1);
+        managers[0].storeSession(sess);
+        sess.endAccess();
+
+        // Loads the outdated session from the distributed cache
+        assertNotNull("session found", managers[1].findSession(id));
+
+        // the expiration index has a granularity of a second
+        SessionTestUtil.sleepThread(2005);
+
+        managers[1].backgroundProcess();
+
+        assertEquals("Local session count correct", 0, managers[1].getLocalActiveSessionCount());
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.catalina.Container;
 import org.apache.catalina.Session;
 import org.jboss.as.clustering.web.DistributedCacheManager;
 import org.jboss.as.clustering.web.OutgoingDistributableSessionData;
+import org.jboss.as.web.session.ClusteredSession;
 import org.jboss.as.web.session.ClusteredSessionManager;
 import org.jboss.as.web.session.notification.ClusteredSessionNotificationPolicy;
 import org.jboss.as.web.session.notification.LegacyClusteredSessionNotificationPolicy;
@@ -217,6 +218,9 @@ public class MockClusteredSessionManager extends MockSessionManager implements
         return -1;
     }
 
+    public void sessionTimeoutChanged(ClusteredSession<OutgoingDistributableSessionData> session) {
+    }
+
     public ClusteredSessionNotificationPolicy getNotificationPolicy() {
         return new LegacyClusteredSessionNotificationPolicy();
     }